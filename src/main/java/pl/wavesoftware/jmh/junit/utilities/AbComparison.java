@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Turns a {@link JmhBenchmark} test into an A/B comparison of two classpaths, for
+ * ex.: a benchmark jar built from main branch, and current test classpath.
+ * <p>
+ * Forks of baseline and candidate are interleaved, one fork of each in a pair,
+ * and the order within a pair alternates (AB, BA, AB...), so a drift of machine
+ * performance affects both sides equally. A relative difference of each pair is
+ * computed, and a confidence interval of their mean is published as a report
+ * entry. A test fails if the candidate is significantly slower by more than a
+ * threshold. A test method can receive an {@link AbResult} parameter.
+ * <p>
+ * Classpaths can be overridden with {@code jmh.junit.ab.baseline} and
+ * {@code jmh.junit.ab.candidate} system properties. Only local files are used.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;JmhBenchmark(value = MyBenchmark.class, warmupIterations = 5, measurementIterations = 5)
+ * &#64;AbComparison(baseline = "target/baseline/benchmarks.jar", pairs = 6)
+ * void comparedWithMain(AbResult result) {
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AbComparison {
+
+    /**
+     * A classpath of baseline, jars or directories separated with a path
+     * separator. It has to contain JMH and compiled benchmarks.
+     *
+     * @return a baseline classpath
+     */
+    String baseline() default "";
+
+    /**
+     * A classpath of candidate. By default, a classpath of tests.
+     *
+     * @return a candidate classpath
+     */
+    String candidate() default "";
+
+    /**
+     * A number of fork pairs.
+     *
+     * @return a number of pairs
+     */
+    int pairs() default 5;
+
+    /**
+     * A confidence level of interval of paired difference.
+     *
+     * @return a confidence level
+     */
+    double confidence() default 0.99;
+
+    /**
+     * A relative slowdown of candidate, that fails a test if it is significant,
+     * for ex.: 0.02 for 2%. By default, any significant slowdown fails.
+     *
+     * @return a threshold
+     */
+    double threshold() default 0;
+}
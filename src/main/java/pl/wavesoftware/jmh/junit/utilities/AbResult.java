@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.util.ListStatistics;
+
+import java.util.Locale;
+
+/**
+ * A result of A/B comparison of a benchmark, see {@link AbComparison}.
+ * <p>
+ * A worsening is a relative difference of candidate to baseline, of a fork pair,
+ * positive if candidate is slower, regardless if a score is a time or a
+ * throughput.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class AbResult {
+
+    private final String label;
+    private final String unit;
+    private final double[] baseline;
+    private final double[] candidate;
+    private final double confidence;
+    private final double threshold;
+    private final double worsening;
+    private final double worseningLow;
+    private final double worseningHigh;
+
+    private AbResult(String label, String unit, double[] baseline, double[] candidate,
+                     double confidence, double threshold, ListStatistics worsenings) {
+        this.label = label;
+        this.unit = unit;
+        this.baseline = baseline;
+        this.candidate = candidate;
+        this.confidence = confidence;
+        this.threshold = threshold;
+        this.worsening = worsenings.getMean();
+        double[] interval = worsenings.getN() > 1
+            ? worsenings.getConfidenceIntervalAt(confidence)
+            : new double[]{Double.NaN, Double.NaN};
+        this.worseningLow = interval[0];
+        this.worseningHigh = interval[1];
+    }
+
+    static AbResult of(String label, String unit, boolean higherIsBetter,
+                       double[] baseline, double[] candidate,
+                       double confidence, double threshold) {
+        if (baseline.length != candidate.length) {
+            throw new IllegalArgumentException(String.format(
+                Locale.ROOT, "Unpaired scores of %s: %d baseline, %d candidate",
+                label, baseline.length, candidate.length
+            ));
+        }
+        ListStatistics worsenings = new ListStatistics();
+        for (int i = 0; i < baseline.length; i++) {
+            double difference = (candidate[i] - baseline[i]) / baseline[i];
+            worsenings.addValue(higherIsBetter ? -difference : difference);
+        }
+        return new AbResult(
+            label, unit, baseline.clone(), candidate.clone(), confidence, threshold, worsenings
+        );
+    }
+
+    /**
+     * Gets a label of benchmark, with its parameters and mode.
+     *
+     * @return a label
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Gets a unit of scores.
+     *
+     * @return a unit
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * Gets scores of baseline forks, in order of pairs.
+     *
+     * @return baseline scores
+     */
+    public double[] getBaselineScores() {
+        return baseline.clone();
+    }
+
+    /**
+     * Gets scores of candidate forks, in order of pairs.
+     *
+     * @return candidate scores
+     */
+    public double[] getCandidateScores() {
+        return candidate.clone();
+    }
+
+    /**
+     * Gets a mean relative worsening of candidate, for ex.: 0.05 if it is 5% slower.
+     *
+     * @return a mean worsening
+     */
+    public double getWorsening() {
+        return worsening;
+    }
+
+    /**
+     * Gets a lower bound of confidence interval of worsening.
+     *
+     * @return a lower bound, {@code NaN} if there is only one pair
+     */
+    public double getWorseningLow() {
+        return worseningLow;
+    }
+
+    /**
+     * Gets an upper bound of confidence interval of worsening.
+     *
+     * @return an upper bound, {@code NaN} if there is only one pair
+     */
+    public double getWorseningHigh() {
+        return worseningHigh;
+    }
+
+    /**
+     * Tells if candidate is significantly slower than baseline, by more than a
+     * threshold.
+     *
+     * @return true, if candidate is slower
+     */
+    public boolean isCandidateSlower() {
+        return worseningLow > threshold;
+    }
+
+    /**
+     * Tells if candidate is significantly faster than baseline.
+     *
+     * @return true, if candidate is faster
+     */
+    public boolean isCandidateFaster() {
+        return worseningHigh < 0;
+    }
+
+    @Override
+    public String toString() {
+        String verdict = isCandidateSlower()
+            ? "candidate slower"
+            : isCandidateFaster() ? "candidate faster" : "no significant slowdown";
+        return String.format(
+            Locale.ROOT, "baseline %s, candidate %s, worsening %+.2f%% [%+.2f%%, %+.2f%%] at %.1f%%, %s",
+            mean(baseline), mean(candidate), worsening * 100,
+            worseningLow * 100, worseningHigh * 100, confidence * 100, verdict
+        );
+    }
+
+    private String mean(double[] scores) {
+        ListStatistics statistics = new ListStatistics(scores);
+        return String.format(Locale.ROOT, "%.3f %s", statistics.getMean(), unit);
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.annotations.Mode;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+/**
+ * Runs forks of a benchmark alternately on baseline and candidate classpath, each
+ * fork in a separate JVM, and pairs their scores.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class AbRunner {
+
+    static final String BASELINE_PROPERTY = BenchmarkSettings.PREFIX + "ab.baseline";
+    static final String CANDIDATE_PROPERTY = BenchmarkSettings.PREFIX + "ab.candidate";
+
+    private final String baseline;
+    private final String candidate;
+    private final int pairs;
+    private final double confidence;
+    private final double threshold;
+    private final Launcher launcher;
+    private final RecursiveDeleter deleter = new RecursiveDeleter();
+
+    AbRunner(String baseline,
+             String candidate,
+             int pairs,
+             double confidence,
+             double threshold,
+             Launcher launcher) {
+        if (pairs < 1) {
+            throw new IllegalArgumentException("Number of pairs must be positive, but was: " + pairs);
+        }
+        if (confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("Confidence must be within (0, 1), but was: " + confidence);
+        }
+        this.baseline = validated("baseline", baseline);
+        this.candidate = validated("candidate", candidate);
+        this.pairs = pairs;
+        this.confidence = confidence;
+        this.threshold = threshold;
+        this.launcher = launcher;
+    }
+
+    static AbRunner of(AbComparison comparison) {
+        return of(comparison, System.getProperties(), AbRunner::launch);
+    }
+
+    static AbRunner of(AbComparison comparison, Properties properties, Launcher launcher) {
+        String baseline = properties.getProperty(BASELINE_PROPERTY, comparison.baseline());
+        if (baseline.trim().isEmpty()) {
+            throw new IllegalArgumentException(
+                "A baseline classpath is required, set it with @AbComparison or "
+                    + BASELINE_PROPERTY + " system property"
+            );
+        }
+        String candidate = properties.getProperty(CANDIDATE_PROPERTY, comparison.candidate());
+        if (candidate.trim().isEmpty()) {
+            candidate = properties.getProperty(
+                "java.class.path", System.getProperty("java.class.path")
+            );
+        }
+        return new AbRunner(
+            baseline.trim(), candidate.trim(), comparison.pairs(),
+            comparison.confidence(), comparison.threshold(), launcher
+        );
+    }
+
+    /**
+     * Runs pairs of forks of a benchmark. The order within a pair alternates, so a
+     * linear drift of machine performance cancels out.
+     *
+     * @param benchmark a full name of a benchmark method
+     * @param settings  settings of a benchmark
+     * @return results of comparison, one for each mode and parameters
+     * @throws IOException if a fork fails, its log is left for inspection then
+     */
+    List<AbResult> run(String benchmark, BenchmarkSettings settings) throws IOException {
+        Path workDir = Files.createTempDirectory("jmh-ab-");
+        Map<String, Pairs> pairsByLabel = new LinkedHashMap<>();
+        for (int pair = 0; pair < pairs; pair++) {
+            boolean baselineFirst = pair % 2 == 0;
+            for (int i = 0; i < 2; i++) {
+                boolean isBaseline = baselineFirst == (i == 0);
+                String variant = isBaseline ? "baseline" : "candidate";
+                Path json = workDir.resolve(variant + "-" + pair + ".json");
+                launcher.launch(
+                    isBaseline ? baseline : candidate,
+                    settings.getJvmArgsAppend(),
+                    arguments(benchmark, settings, json),
+                    json
+                );
+                for (Row row : read(json, benchmark)) {
+                    pairsByLabel.computeIfAbsent(row.label, label -> new Pairs(row))
+                        .add(isBaseline, row.score);
+                }
+            }
+        }
+        deleter.delete(workDir);
+        List<AbResult> results = new ArrayList<>();
+        for (Pairs scores : pairsByLabel.values()) {
+            results.add(scores.toResult());
+        }
+        return results;
+    }
+
+    static List<Row> read(Path json, String benchmark) throws IOException {
+        String text = new String(Files.readAllBytes(json), StandardCharsets.UTF_8);
+        List<Row> rows = new ArrayList<>();
+        try {
+            for (Object element : (List<?>) Json.parse(text)) {
+                Map<?, ?> result = (Map<?, ?>) element;
+                if (!benchmark.equals(result.get("benchmark"))) {
+                    continue;
+                }
+                String mode = (String) result.get("mode");
+                Map<?, ?> metric = (Map<?, ?>) result.get("primaryMetric");
+                rows.add(new Row(
+                    label(benchmark, (Map<?, ?>) result.get("params"), mode),
+                    (String) metric.get("scoreUnit"),
+                    RunResults.isHigherBetter(Mode.deepValueOf(mode)),
+                    Double.parseDouble(String.valueOf(metric.get("score")))
+                ));
+            }
+        } catch (ClassCastException | NullPointerException | IllegalArgumentException ex) {
+            throw new IOException("Invalid results file: " + json, ex);
+        }
+        return rows;
+    }
+
+    private static String label(String benchmark, @Nullable Map<?, ?> params, String mode) {
+        StringBuilder label = new StringBuilder(benchmark);
+        if (params != null && !params.isEmpty()) {
+            List<String> pairs = new ArrayList<>();
+            for (Map.Entry<?, ?> param : params.entrySet()) {
+                pairs.add(param.getKey() + "=" + param.getValue());
+            }
+            label.append('(').append(String.join(", ", pairs)).append(')');
+        }
+        return label.append(" [").append(mode).append(']').toString();
+    }
+
+    private List<String> arguments(String benchmark, BenchmarkSettings settings, Path json) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+            "^" + Pattern.quote(benchmark) + "$", "-f", "0", "-foe", "true"
+        ));
+        arguments.addAll(settings.toArguments());
+        arguments.addAll(Arrays.asList("-rf", "json", "-rff", json.toString()));
+        return arguments;
+    }
+
+    static void launch(String classpath,
+                       List<String> jvmArgs,
+                       List<String> arguments,
+                       Path json) throws IOException {
+        launch(Collections.emptyList(), classpath, jvmArgs, arguments, json);
+    }
+
+    /**
+     * Launches JMH in a new JVM, with a command prefix, for ex.: to pin it with
+     * {@code taskset}.
+     */
+    static void launch(List<String> prefix,
+                       String classpath,
+                       List<String> jvmArgs,
+                       List<String> arguments,
+                       Path json) throws IOException {
+        List<String> command = new ArrayList<>(prefix);
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(classpath);
+        command.add("org.openjdk.jmh.Main");
+        command.addAll(arguments);
+        Path log = json.resolveSibling(json.getFileName() + ".log");
+        Process process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile())
+            .start();
+        int exitCode;
+        try {
+            exitCode = process.waitFor();
+        } catch (InterruptedException ex) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a fork, see: " + log);
+        }
+        if (exitCode != 0) {
+            throw new IOException("Fork failed with exit code " + exitCode + ", see: " + log);
+        }
+    }
+
+    private static String validated(String variant, String classpath) {
+        for (String entry : classpath.split(Pattern.quote(File.pathSeparator))) {
+            if (!entry.isEmpty() && !entry.endsWith("*") && !Files.exists(Paths.get(entry))) {
+                throw new IllegalArgumentException(String.format(
+                    Locale.ROOT, "An entry of %s classpath doesn't exist: %s", variant, entry
+                ));
+            }
+        }
+        return classpath;
+    }
+
+    /**
+     * Launches a single fork of a benchmark, that writes its results in JMH JSON
+     * format, as CSV one has limited precision.
+     */
+    @FunctionalInterface
+    interface Launcher {
+        void launch(String classpath,
+                    List<String> jvmArgs,
+                    List<String> arguments,
+                    Path json) throws IOException;
+    }
+
+    private static final class Row {
+        private final String label;
+        private final String unit;
+        private final boolean higherIsBetter;
+        private final double score;
+
+        private Row(String label, String unit, boolean higherIsBetter, double score) {
+            this.label = label;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+            this.score = score;
+        }
+    }
+
+    private final class Pairs {
+        private final Row first;
+        private final List<Double> baselineScores = new ArrayList<>();
+        private final List<Double> candidateScores = new ArrayList<>();
+
+        private Pairs(Row first) {
+            this.first = first;
+        }
+
+        private void add(boolean isBaseline, double score) {
+            (isBaseline ? baselineScores : candidateScores).add(score);
+        }
+
+        private AbResult toResult() {
+            return AbResult.of(
+                first.label, first.unit, first.higherIsBetter,
+                toArray(baselineScores), toArray(candidateScores),
+                confidence, threshold
+            );
+        }
+
+        private double[] toArray(List<Double> scores) {
+            double[] array = new double[scores.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = scores.get(i);
+            }
+            return array;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.util.ListStatistics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a benchmark in batches of measurement iterations, until a relative
+ * half-width of confidence interval of its score falls below a target.
+ * <p>
+ * The first batch is run without warmup, and its end of warmup is found with
+ * {@link Changepoints}. Warmup iterations are dropped from results, and their
+ * number is used as a warmup of following batches, that may run in new forks.
+ * A minimum counts steady state iterations, while a maximum counts all measured
+ * iterations, so it bounds a time of measurement.
+ * <p>
+ * A batch starts new forks, that repeat the warmup, so a number of batches is
+ * kept low: a next batch is sized to reach a target with a width of confidence
+ * interval observed so far, and a batch size is only its minimum.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class AdaptiveMeasurement {
+
+    static final double CONFIDENCE = 0.999;
+
+    private final double targetError;
+    private final int minIterations;
+    private final int maxIterations;
+    private final int batchIterations;
+    private int warmupIterations;
+
+    AdaptiveMeasurement(double targetError,
+                        int minIterations,
+                        int maxIterations,
+                        int batchIterations) {
+        if (targetError <= 0) {
+            throw new IllegalArgumentException("Target error must be positive, but was: " + targetError);
+        }
+        if (minIterations < 2 || maxIterations < minIterations || batchIterations < 1) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid iterations: min %d (at least 2), max %d (at least min), batch %d (at least 1)",
+                minIterations, maxIterations, batchIterations
+            ));
+        }
+        this.targetError = targetError;
+        this.minIterations = minIterations;
+        this.maxIterations = maxIterations;
+        this.batchIterations = batchIterations;
+    }
+
+    Collection<RunResult> run(ChainedOptionsBuilder builder, Batches batches) throws RunnerException {
+        int first = Math.min(maxIterations, 2 * Math.max(minIterations, batchIterations));
+        Map<String, Series> series = new LinkedHashMap<>();
+        Collection<RunResult> results = batches.run(
+            builder.warmupIterations(0).measurementIterations(first).build()
+        );
+        warmupIterations = 0;
+        for (RunResult result : results) {
+            for (BenchmarkResult benchmark : result.getBenchmarkResults()) {
+                warmupIterations = Math.max(warmupIterations, Changepoints.warmupEnd(
+                    scores(benchmark.getIterationResults()), targetError
+                ));
+            }
+        }
+        warmupIterations = Math.min(warmupIterations, first - 1);
+        for (RunResult result : results) {
+            series(series, result).addTrimmed(result, warmupIterations);
+        }
+        int measured = first;
+        while (measured < maxIterations && !isConverged(series.values())) {
+            int batch = Math.min(nextBatch(series.values()), maxIterations - measured);
+            for (RunResult result : batches.run(builder
+                .warmupIterations(warmupIterations)
+                .measurementIterations(batch)
+                .build())) {
+                series(series, result).add(result.getBenchmarkResults());
+            }
+            measured += batch;
+        }
+        List<RunResult> merged = new ArrayList<>();
+        for (Series entry : series.values()) {
+            merged.add(new RunResult(entry.params, entry.benchmarks));
+        }
+        return merged;
+    }
+
+    /**
+     * Gets a number of warmup iterations found in the last run.
+     *
+     * @return a number of warmup iterations
+     */
+    int getWarmupIterations() {
+        return warmupIterations;
+    }
+
+    boolean isConverged(double[] samples) {
+        if (samples.length < minIterations) {
+            return false;
+        }
+        ListStatistics statistics = new ListStatistics(samples);
+        double error = statistics.getMeanErrorAt(CONFIDENCE);
+        double mean = Math.abs(statistics.getMean());
+        return mean == 0 ? error == 0 : error / mean <= targetError;
+    }
+
+    /**
+     * Estimates a number of iterations, that are still needed to reach a target
+     * error. A half-width of confidence interval shrinks with a square root of a
+     * number of samples.
+     *
+     * @param samples scores of iterations measured so far, of all forks
+     * @param forks   a number of forks, that run each iteration
+     * @return a number of iterations, 0 if converged
+     */
+    int remainingIterations(double[] samples, int forks) {
+        if (isConverged(samples)) {
+            return 0;
+        }
+        double needed = minIterations * (double) forks;
+        if (samples.length >= 2) {
+            ListStatistics statistics = new ListStatistics(samples);
+            double mean = Math.abs(statistics.getMean());
+            double ratio = mean == 0
+                ? 1d
+                : statistics.getMeanErrorAt(CONFIDENCE) / mean / targetError;
+            needed = Math.max(needed, Math.ceil(samples.length * ratio * ratio));
+        }
+        double remaining = Math.max(1d, needed - samples.length);
+        return (int) Math.min(Integer.MAX_VALUE, Math.ceil(remaining / Math.max(1, forks)));
+    }
+
+    private int nextBatch(Collection<Series> series) {
+        int batch = batchIterations;
+        for (Series entry : series) {
+            batch = Math.max(batch, remainingIterations(entry.samples(), entry.forks()));
+        }
+        return batch;
+    }
+
+    private boolean isConverged(Collection<Series> series) {
+        for (Series entry : series) {
+            if (!isConverged(entry.samples())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Series series(Map<String, Series> series, RunResult result) {
+        return series.computeIfAbsent(RunResults.label(result), label -> new Series(result.getParams()));
+    }
+
+    private static double[] scores(Collection<IterationResult> iterations) {
+        double[] scores = new double[iterations.size()];
+        int i = 0;
+        for (IterationResult iteration : iterations) {
+            scores[i++] = iteration.getPrimaryResult().getScore();
+        }
+        return scores;
+    }
+
+    /**
+     * Runs a batch of benchmark iterations.
+     */
+    @FunctionalInterface
+    interface Batches {
+        Collection<RunResult> run(Options options) throws RunnerException;
+    }
+
+    private static final class Series {
+        private final BenchmarkParams params;
+        private final List<BenchmarkResult> benchmarks = new ArrayList<>();
+
+        private Series(BenchmarkParams params) {
+            this.params = params;
+        }
+
+        private void add(Collection<BenchmarkResult> results) {
+            benchmarks.addAll(results);
+        }
+
+        private void addTrimmed(RunResult result, int warmup) {
+            for (BenchmarkResult benchmark : result.getBenchmarkResults()) {
+                List<IterationResult> iterations = new ArrayList<>(benchmark.getIterationResults());
+                BenchmarkResult trimmed = new BenchmarkResult(
+                    benchmark.getParams(),
+                    iterations.subList(Math.min(warmup, iterations.size()), iterations.size()),
+                    benchmark.getMetadata()
+                );
+                for (String key : benchmark.getBenchmarkResults().keys()) {
+                    for (Result<?> value : benchmark.getBenchmarkResults().get(key)) {
+                        trimmed.addBenchmarkResult(value);
+                    }
+                }
+                benchmarks.add(trimmed);
+            }
+        }
+
+        private int forks() {
+            return Math.max(1, params.getForks());
+        }
+
+        private double[] samples() {
+            return RunResults.samples(new RunResult(params, benchmarks));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails a test if code under test allocates more heap memory per operation than
+ * a given budget. A budget of zero asserts, that a hot path is allocation-free.
+ * <p>
+ * For a {@link JmhBenchmark} test, JMH GC profiler is enabled and its normalized
+ * allocation rate ({@code gc.alloc.rate.norm}) of each benchmark is checked. A plain
+ * test can receive an {@link AllocationMeter} parameter, and measure a repeated body
+ * with it. Amortized allocations below one byte per operation are not counted, as
+ * they come from measurement infrastructure, not from a measured code.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;Test
+ * &#64;AllocationBudget(bytesPerOp = 0)
+ * void lookupIsAllocationFree(AllocationMeter meter) throws Throwable {
+ *   meter.measure(() -&gt; cache.get(KEY));
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@Documented
+@Inherited
+@Target({ElementType.METHOD, ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(AllocationBudgetExtension.class)
+public @interface AllocationBudget {
+
+    /**
+     * A maximum number of bytes allocated per operation.
+     *
+     * @return bytes per operation
+     */
+    long bytesPerOp() default 0;
+
+    /**
+     * A number of operations measured by {@link AllocationMeter}.
+     *
+     * @return a number of operations
+     */
+    int operations() default 10_000;
+
+    /**
+     * A number of operations executed by {@link AllocationMeter} before measurement,
+     * so code under test gets compiled and its lazy initialization is done.
+     *
+     * @return a number of warmup operations
+     */
+    int warmupOperations() default 20_000;
+}
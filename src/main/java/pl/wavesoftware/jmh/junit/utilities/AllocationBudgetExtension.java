@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolutionException;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Checks allocations of a test against its {@link AllocationBudget}.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class AllocationBudgetExtension
+    implements BeforeEachCallback, ParameterResolver, AfterTestExecutionCallback {
+
+    static final String NORMALIZED_ALLOCATION_RATE = "gc.alloc.rate.norm";
+    private static final ExtensionContext.Namespace NAMESPACE =
+        ExtensionContext.Namespace.create(AllocationBudgetExtension.class);
+    private static final String METER = "meter";
+    private static final String REPORT_KEY_PREFIX = "jmh.allocation.";
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        JmhBenchmarkExtension.customize(
+            context, builder -> builder.addProfiler(GCProfiler.class)
+        );
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext,
+                                     ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == AllocationMeter.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext,
+                                   ExtensionContext extensionContext) {
+        AllocationBudget budget = budget(extensionContext);
+        com.sun.management.ThreadMXBean threads = AllocationMeter.threadMxBean();
+        if (threads == null) {
+            throw new ParameterResolutionException(
+                "This JVM can't measure allocations of a thread"
+            );
+        }
+        AllocationMeter meter = new AllocationMeter(
+            budget.warmupOperations(), budget.operations(), threads
+        );
+        extensionContext.getStore(NAMESPACE).put(METER, meter);
+        return meter;
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        if (context.getExecutionException().isPresent()) {
+            return;
+        }
+        long limit = budget(context).bytesPerOp();
+        Map<String, Double> measured = measured(context);
+        if (measured.isEmpty()) {
+            fail("No allocations were measured, use @JmhBenchmark or AllocationMeter parameter");
+        }
+        Map<String, String> entries = new LinkedHashMap<>();
+        List<String> exceeded = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : measured.entrySet()) {
+            String verdict = String.format(
+                Locale.ROOT, "%.0f B/op, budget %d B/op", entry.getValue(), limit
+            );
+            entries.put(REPORT_KEY_PREFIX + entry.getKey(), verdict);
+            if (entry.getValue() > limit) {
+                exceeded.add(entry.getKey() + ": " + verdict);
+            }
+        }
+        context.publishReportEntry(entries);
+        if (!exceeded.isEmpty()) {
+            fail("Allocation budget exceeded\n" + String.join("\n", exceeded));
+        }
+    }
+
+    private static Map<String, Double> measured(ExtensionContext context) {
+        Map<String, Double> measured = new LinkedHashMap<>();
+        AllocationMeter meter = context.getStore(NAMESPACE).get(METER, AllocationMeter.class);
+        if (meter != null && meter.isMeasured()) {
+            measured.put(context.getDisplayName(), meter.getBytesPerOp());
+        }
+        Collection<RunResult> results = JmhBenchmarkExtension.getResults(context);
+        for (RunResult result : results) {
+            Result<?> allocation = normalizedAllocationRate(result);
+            if (allocation != null) {
+                measured.put(RunResults.label(result), Math.floor(allocation.getScore()));
+            }
+        }
+        return measured;
+    }
+
+    @Nullable
+    static Result<?> normalizedAllocationRate(RunResult result) {
+        Map<String, ?> secondary = result.getAggregatedResult().getSecondaryResults();
+        for (Map.Entry<String, ?> entry : secondary.entrySet()) {
+            if (entry.getKey().endsWith(NORMALIZED_ALLOCATION_RATE)) {
+                return (Result<?>) entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static AllocationBudget budget(ExtensionContext context) {
+        return TestAnnotations.require(context, AllocationBudget.class);
+    }
+}
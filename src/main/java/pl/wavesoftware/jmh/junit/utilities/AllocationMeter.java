@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.function.Executable;
+
+import javax.annotation.Nullable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures heap memory allocated by a repeated body in current thread. It is
+ * passed as a parameter to test methods annotated with {@link AllocationBudget}.
+ * <p>
+ * The meter calibrates itself by measuring an empty body first, and subtracts
+ * that overhead from the result, so allocation-free code reports zero.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class AllocationMeter {
+
+    private static final int CALIBRATION_ROUNDS = 3;
+    private static final Executable EMPTY = () -> {
+        // nothing to do
+    };
+
+    private final int warmupOperations;
+    private final int operations;
+    private final com.sun.management.ThreadMXBean threads;
+    private double bytesPerOp = Double.NaN;
+
+    AllocationMeter(int warmupOperations, int operations,
+                    com.sun.management.ThreadMXBean threads) {
+        if (operations <= 0) {
+            throw new IllegalArgumentException(
+                "Number of operations must be positive, but was: " + operations
+            );
+        }
+        this.warmupOperations = warmupOperations;
+        this.operations = operations;
+        this.threads = threads;
+    }
+
+    /**
+     * Gets a thread MX bean that can measure allocations, if the JVM supports it.
+     *
+     * @return a thread MX bean or null, if allocations can't be measured
+     */
+    @Nullable
+    static com.sun.management.ThreadMXBean threadMxBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!threads.isThreadAllocatedMemoryEnabled()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        return threads;
+    }
+
+    /**
+     * Executes a body for warmup, and then measures bytes it allocates per
+     * execution.
+     *
+     * @param body a body to measure
+     * @return bytes allocated per execution
+     * @throws Throwable if body throws
+     */
+    public double measure(Executable body) throws Throwable {
+        repeat(body, warmupOperations);
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            overhead = Math.min(overhead, allocatedBy(EMPTY));
+        }
+        long allocated = Math.max(0L, allocatedBy(body) - overhead);
+        bytesPerOp = Math.floor((double) allocated / operations);
+        return bytesPerOp;
+    }
+
+    /**
+     * Gets a result of last measurement.
+     *
+     * @return bytes allocated per operation, or {@code NaN} if nothing was measured
+     */
+    public double getBytesPerOp() {
+        return bytesPerOp;
+    }
+
+    boolean isMeasured() {
+        return !Double.isNaN(bytesPerOp);
+    }
+
+    private long allocatedBy(Executable body) throws Throwable {
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        repeat(body, operations);
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private static void repeat(Executable body, int times) throws Throwable {
+        for (int i = 0; i < times; i++) {
+            body.execute();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.results.RunResult;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * A store of baseline results, that a {@link RegressionGate} compares results
+ * with: a {@link Baselines} file, or a {@link ResultHistory}.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+interface BaselineStore {
+
+    @Nullable
+    Baselines.Baseline get(String label, String fingerprint) throws IOException;
+
+    void put(String label, String fingerprint, String unit, double[] samples) throws IOException;
+
+    void save() throws IOException;
+
+    /**
+     * Records results of a test, after they were checked.
+     *
+     * @param results results of a test
+     * @throws IOException if results can't be recorded
+     */
+    default void record(Collection<RunResult> results) throws IOException {
+        // nothing to record by default
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A file with baseline results of benchmarks.
+ * <p>
+ * It's a plain text file, with one tab separated line per baseline:
+ * a key, a score unit and comma separated raw iteration scores. Lines are sorted by
+ * key, so the file can be kept in version control.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class Baselines implements BaselineStore {
+
+    private static final char SEPARATOR = '\t';
+
+    private final Path file;
+    @Nullable
+    private Map<String, Baseline> loaded;
+
+    Baselines(Path file) {
+        this.file = file;
+    }
+
+    @Nullable
+    @Override
+    public synchronized Baseline get(String label, String fingerprint) throws IOException {
+        return load().get(key(label, fingerprint));
+    }
+
+    @Override
+    public synchronized void put(String label,
+                                 String fingerprint,
+                                 String unit,
+                                 double[] samples) throws IOException {
+        load().put(key(label, fingerprint), new Baseline(unit, samples.clone()));
+    }
+
+    @Override
+    public synchronized void save() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Baseline> entry : load().entrySet()) {
+                writer.write(entry.getKey());
+                writer.write(SEPARATOR);
+                writer.write(entry.getValue().unit);
+                writer.write(SEPARATOR);
+                writer.write(join(entry.getValue().samples));
+                writer.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Map<String, Baseline> load() throws IOException {
+        if (loaded == null) {
+            loaded = new TreeMap<>();
+            if (Files.isRegularFile(file)) {
+                read(loaded);
+            }
+        }
+        return loaded;
+    }
+
+    private void read(Map<String, Baseline> baselines) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(String.valueOf(SEPARATOR));
+                if (parts.length == 3) {
+                    baselines.put(parts[0], new Baseline(parts[1], split(parts[2])));
+                }
+            }
+        }
+    }
+
+    private static String key(String label, String fingerprint) {
+        return label + " @ " + fingerprint;
+    }
+
+    private static String join(double[] samples) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < samples.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(Double.toString(samples[i]));
+        }
+        return sb.toString();
+    }
+
+    private static double[] split(String value) {
+        if (value.isEmpty()) {
+            return new double[0];
+        }
+        String[] parts = value.split(",");
+        double[] samples = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            samples[i] = Double.parseDouble(parts[i]);
+        }
+        return samples;
+    }
+
+    static final class Baseline {
+        private final String unit;
+        private final double[] samples;
+
+        Baseline(String unit, double[] samples) {
+            this.unit = unit;
+            this.samples = samples;
+        }
+
+        String getUnit() {
+            return unit;
+        }
+
+        double[] getSamples() {
+            return samples.clone();
+        }
+    }
+}
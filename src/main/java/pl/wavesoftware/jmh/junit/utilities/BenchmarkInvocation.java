@@ -0,0 +1,317 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.Extension;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolutionException;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.jupiter.api.extension.TestTemplateInvocationContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * A single invocation of {@link JmhBenchmark} test template, that runs one
+ * benchmark method.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class BenchmarkInvocation implements TestTemplateInvocationContext {
+
+    private static final String REPORT_KEY_PREFIX = "jmh.";
+    private static final String ADAPTIVE_KEY_PREFIX = "jmh.adaptive.";
+    private static final String AB_KEY_PREFIX = "jmh.ab.";
+    private static final String PROFILE_KEY_PREFIX = "jmh.profile.";
+    private static final String EXPLORE_KEY_PREFIX = "jmh.explore.";
+    private static final String RERUN_KEY_PREFIX = "jmh.rerun.";
+
+    private final Class<?> testClass;
+    private final Class<?> benchmarkClass;
+    private final String method;
+    private final BenchmarkSettings settings;
+    @Nullable
+    private final BenchmarkSettings smoke;
+    private final Shard shard;
+
+    BenchmarkInvocation(Class<?> testClass,
+                        Class<?> benchmarkClass,
+                        String method,
+                        BenchmarkSettings settings,
+                        @Nullable BenchmarkSettings smoke,
+                        Shard shard) {
+        this.testClass = testClass;
+        this.benchmarkClass = benchmarkClass;
+        this.method = method;
+        this.settings = settings;
+        this.smoke = smoke;
+        this.shard = shard;
+    }
+
+    @Override
+    public String getDisplayName(int invocationIndex) {
+        return method;
+    }
+
+    @Override
+    public List<Extension> getAdditionalExtensions() {
+        return Arrays.asList(
+            new InShard(),
+            EnvironmentGuard.withDefaults(),
+            new JmhCleaner(testClass).targeted(benchmarkClass),
+            new Runs()
+        );
+    }
+
+    String getBenchmarkName() {
+        return benchmarkClass.getName() + "." + method;
+    }
+
+    ChainedOptionsBuilder options(BenchmarkSettings settings) {
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+            .include("^" + Pattern.quote(getBenchmarkName()) + "$")
+            .shouldFailOnError(true);
+        if (!shard.getCpus().isEmpty()) {
+            builder.addProfiler(TasksetProfiler.class, Shard.formatCpuList(shard.getCpus()));
+        }
+        return settings.apply(builder);
+    }
+
+    /**
+     * Disables benchmarks that belong to other shards.
+     */
+    private final class InShard implements ExecutionCondition {
+
+        @Override
+        public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+            return shard.includes(getBenchmarkName())
+                ? ConditionEvaluationResult.enabled("Benchmark belongs to " + shard)
+                : ConditionEvaluationResult.disabled("Benchmark doesn't belong to " + shard);
+        }
+    }
+
+    /**
+     * Runs a benchmark just before test method execution, after all before each
+     * callbacks, and resolves its results as test method parameters. If test method
+     * is annotated with {@link AbComparison}, benchmark is compared on two
+     * classpaths instead, and if with {@link ParamExploration}, a space of its
+     * parameters is explored. In smoke profile, a benchmark is run with smoke settings,
+     * and run again with full settings if an {@link Escalation} finds its score
+     * deviates from a history.
+     */
+    private final class Runs implements BeforeTestExecutionCallback, ParameterResolver {
+
+        @Override
+        public void beforeTestExecution(ExtensionContext context)
+            throws RunnerException, IOException {
+            BenchmarkSettings current = smoke != null ? smoke : settings;
+            Optional<AbComparison> comparison = AnnotationSupport.findAnnotation(
+                context.getRequiredTestMethod(), AbComparison.class
+            );
+            if (comparison.isPresent()) {
+                compare(context, AbRunner.of(comparison.get()), current);
+                return;
+            }
+            Optional<ParamExploration> exploration = AnnotationSupport.findAnnotation(
+                context.getRequiredTestMethod(), ParamExploration.class
+            );
+            if (exploration.isPresent()) {
+                explore(context, ParamExplorer.of(exploration.get()), current);
+                return;
+            }
+            Map<String, String> entries = new LinkedHashMap<>();
+            AdaptiveMeasurement adaptive = current.adaptive();
+            Collection<RunResult> results = runQuietly(context, current, adaptive, entries);
+            if (smoke != null) {
+                Escalation escalation = Escalation.of(System.getProperties());
+                String reason = escalation == null ? null : escalation.check(results);
+                if (reason == null) {
+                    entries.put(PROFILE_KEY_PREFIX + getBenchmarkName(), "smoke");
+                } else {
+                    entries.put(PROFILE_KEY_PREFIX + getBenchmarkName(), "escalated, " + reason);
+                    current = settings;
+                    adaptive = current.adaptive();
+                    results = runQuietly(context, current, adaptive, entries);
+                }
+            }
+            JmhBenchmarkExtension.putResults(context, results);
+            JmhBenchmarkExtension.putProfile(context, current == smoke
+                ? ExecutionProfile.SMOKE
+                : ExecutionProfile.FULL
+            );
+            String resultsDir = System.getProperty(ShardResults.DIRECTORY_PROPERTY);
+            if (resultsDir != null) {
+                ShardResults.write(Paths.get(resultsDir), shard, getBenchmarkName(), results);
+            }
+            for (RunResult result : results) {
+                entries.put(REPORT_KEY_PREFIX + RunResults.label(result),
+                    RunResults.format(result.getPrimaryResult()));
+                if (adaptive != null) {
+                    entries.put(ADAPTIVE_KEY_PREFIX + RunResults.label(result), String.format(
+                        Locale.ROOT, "%d iterations after %d warmup iterations",
+                        RunResults.samples(result).length, adaptive.getWarmupIterations()
+                    ));
+                }
+            }
+            if (!entries.isEmpty()) {
+                context.publishReportEntry(entries);
+            }
+        }
+
+        /**
+         * Runs a benchmark, and runs it again while a {@link QuietMachineGate} finds
+         * it was disturbed, and allows a rerun.
+         */
+        private Collection<RunResult> runQuietly(ExtensionContext context,
+                                                 BenchmarkSettings settings,
+                                                 @Nullable AdaptiveMeasurement adaptive,
+                                                 Map<String, String> entries)
+            throws RunnerException {
+            Collection<RunResult> results = run(context, settings, adaptive);
+            DisturbanceMonitor monitor = QuietMachineGate.getMonitor(context);
+            List<String> disturbances = new ArrayList<>();
+            String disturbance = monitor == null ? null : monitor.rerun();
+            while (disturbance != null) {
+                disturbances.add(disturbance);
+                results = run(context, settings, adaptive);
+                disturbance = monitor.rerun();
+            }
+            if (!disturbances.isEmpty()) {
+                entries.put(RERUN_KEY_PREFIX + getBenchmarkName(), String.join("; ", disturbances));
+            }
+            return results;
+        }
+
+        private Collection<RunResult> run(ExtensionContext context,
+                                          BenchmarkSettings settings,
+                                          @Nullable AdaptiveMeasurement adaptive)
+            throws RunnerException {
+            ChainedOptionsBuilder builder = options(settings);
+            for (Consumer<ChainedOptionsBuilder> customizer
+                : JmhBenchmarkExtension.getCustomizers(context)) {
+                customizer.accept(builder);
+            }
+            return adaptive == null
+                ? new Runner(builder.build()).run()
+                : adaptive.run(builder, options -> new Runner(options).run());
+        }
+
+        private void compare(ExtensionContext context,
+                             AbRunner runner,
+                             BenchmarkSettings settings) throws IOException {
+            List<AbResult> results = runner.run(getBenchmarkName(), settings);
+            JmhBenchmarkExtension.putAbResults(context, results);
+            Map<String, String> entries = new LinkedHashMap<>();
+            List<String> slower = new ArrayList<>();
+            for (AbResult result : results) {
+                entries.put(AB_KEY_PREFIX + result.getLabel(), result.toString());
+                if (result.isCandidateSlower()) {
+                    slower.add(result.getLabel() + ": " + result);
+                }
+            }
+            if (!entries.isEmpty()) {
+                context.publishReportEntry(entries);
+            }
+            if (!slower.isEmpty()) {
+                fail("Candidate is significantly slower than baseline\n"
+                    + String.join("\n", slower));
+            }
+        }
+
+        private void explore(ExtensionContext context,
+                             ParamExplorer explorer,
+                             BenchmarkSettings settings) throws IOException {
+            ResponseSurface surface = explorer.run(getBenchmarkName(), benchmarkClass, settings);
+            JmhBenchmarkExtension.putSurface(context, surface);
+            context.publishReportEntry(EXPLORE_KEY_PREFIX + surface.getLabel(), surface.toString());
+        }
+
+        @Override
+        public boolean supportsParameter(ParameterContext parameterContext,
+                                         ExtensionContext extensionContext) {
+            Class<?> type = parameterContext.getParameter().getType();
+            return type == RunResult.class || type == AbResult.class
+                || type == ResponseSurface.class
+                || isCollectionOf(parameterContext, RunResult.class)
+                || isCollectionOf(parameterContext, AbResult.class);
+        }
+
+        @Override
+        public Object resolveParameter(ParameterContext parameterContext,
+                                       ExtensionContext extensionContext) {
+            if (parameterContext.getParameter().getType() == ResponseSurface.class) {
+                ResponseSurface surface = JmhBenchmarkExtension.getSurface(extensionContext);
+                if (surface == null) {
+                    throw new ParameterResolutionException(
+                        "No response surface of benchmark " + getBenchmarkName()
+                    );
+                }
+                return surface;
+            }
+            boolean ab = parameterContext.getParameter().getType() == AbResult.class
+                || isCollectionOf(parameterContext, AbResult.class);
+            Collection<?> results = ab
+                ? JmhBenchmarkExtension.getAbResults(extensionContext)
+                : JmhBenchmarkExtension.getResults(extensionContext);
+            if (parameterContext.getParameter().getType() == Collection.class) {
+                return results;
+            }
+            if (results.isEmpty()) {
+                throw new ParameterResolutionException(
+                    "No results of benchmark " + getBenchmarkName()
+                );
+            }
+            return results.iterator().next();
+        }
+
+        private boolean isCollectionOf(ParameterContext parameterContext, Class<?> elementType) {
+            Type type = parameterContext.getParameter().getParameterizedType();
+            if (!(type instanceof ParameterizedType)) {
+                return false;
+            }
+            ParameterizedType parameterized = (ParameterizedType) type;
+            return parameterized.getRawType() == Collection.class
+                && parameterized.getActualTypeArguments()[0] == elementType;
+        }
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.openjdk.jmh.results.RunResult;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An extension that writes results of {@link JmhBenchmark} tests to JSON, CSV and
+ * HTML summaries, as each benchmark finishes, so a crash of a long suite doesn't
+ * lose earlier results.
+ * <p>
+ * Scores of each benchmark are appended to {@value #JSON_FILE}, one JSON object
+ * per line, and to {@value #CSV_FILE}, and {@value #HTML_FILE} is rewritten with
+ * all results so far, each compared with a result of the same benchmark in a
+ * previous run. A benchmark, that failed without results, is written as a row
+ * labelled with a name of a benchmark, and it is replaced by next results of any
+ * params and mode of it, which are compared with a failure.
+ * <p>
+ * A run is identified by {@value #RUN_ID_PROPERTY} system property, for ex.: a
+ * build timestamp, or a build id of a CI server. When a reporter writes to a
+ * directory with results of a run of other id, they are moved aside, to files
+ * prefixed with {@value #PREVIOUS_PREFIX}. So forks of a test JVM, or a JVM of a
+ * rerun after a crash, add to results of the same run. Without a run id, results
+ * are never moved aside, and a benchmark is compared with its previous row.
+ * <p>
+ * Primary scores are published as report entries by {@link JmhBenchmark} already.
+ * A reporter publishes secondary scores, for ex.: of profilers, as
+ * {@code jmh.report.<label>.<metric>} entries, and a change since a previous run
+ * as {@code jmh.report.<label>.change}, so they reach JUnit reports too.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;RegisterExtension
+ * static BenchmarkReporter reporter = BenchmarkReporter.in(Paths.get("target/benchmarks"));
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class BenchmarkReporter implements AfterTestExecutionCallback {
+
+    static final String JSON_FILE = "benchmarks.jsonl";
+    static final String CSV_FILE = "benchmarks.csv";
+    static final String HTML_FILE = "benchmarks.html";
+    static final String PREVIOUS_PREFIX = "previous-";
+    static final String RUN_ID_FILE = "run.id";
+    /**
+     * A system property with an id of a run, for ex.: a build timestamp.
+     */
+    public static final String RUN_ID_PROPERTY = "jmh.junit.runId";
+    private static final String[] RUN_ID_VARIABLES = {"GITHUB_RUN_ID", "CI_PIPELINE_ID", "BUILD_TAG"};
+    private static final String REPORT_KEY_PREFIX = "jmh.report.";
+
+    private final Path directory;
+    @Nullable
+    private final String runId;
+
+    BenchmarkReporter(Path directory, @Nullable String runId) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.runId = runId;
+    }
+
+    /**
+     * Creates a reporter, that writes to given directory. A run is identified by
+     * {@value #RUN_ID_PROPERTY} system property, or by a build id of GitHub Actions,
+     * GitLab CI or Jenkins.
+     *
+     * @param directory a directory of reports
+     * @return a reporter
+     */
+    public static BenchmarkReporter in(Path directory) {
+        String runId = System.getProperty(RUN_ID_PROPERTY);
+        for (int i = 0; runId == null && i < RUN_ID_VARIABLES.length; i++) {
+            runId = System.getenv(RUN_ID_VARIABLES[i]);
+        }
+        return new BenchmarkReporter(
+            directory, runId == null || runId.trim().isEmpty() ? null : runId.trim()
+        );
+    }
+
+    /**
+     * Creates a copy of this reporter, that writes results of a run of given id.
+     *
+     * @param runId an id of a run
+     * @return a reporter
+     */
+    public BenchmarkReporter withRunId(String runId) {
+        if (runId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Run id can't be blank");
+        }
+        return new BenchmarkReporter(directory, runId.trim());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) throws IOException {
+        Collection<RunResult> results = JmhBenchmarkExtension.getResults(context);
+        List<ReportRow> rows = new ArrayList<>();
+        for (RunResult result : results) {
+            rows.add(ReportRow.of(result));
+        }
+        Optional<Throwable> failure = context.getExecutionException();
+        Optional<JmhBenchmark> benchmark = context.getTestMethod()
+            .flatMap(method -> AnnotationSupport.findAnnotation(method, JmhBenchmark.class));
+        if (rows.isEmpty() && failure.isPresent() && benchmark.isPresent()) {
+            Class<?> benchmarkClass = benchmark.get().value() == Void.class
+                ? context.getRequiredTestClass()
+                : benchmark.get().value();
+            rows.add(ReportRow.failed(
+                benchmarkClass.getName() + "." + context.getDisplayName(), describe(failure.get())
+            ));
+        }
+        Map<String, ReportRow> previous = write(rows);
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (ReportRow row : rows) {
+            if (row.getFailure() != null) {
+                entries.put(REPORT_KEY_PREFIX + row.getLabel() + ".failure", row.getFailure());
+                continue;
+            }
+            for (Map.Entry<String, ReportRow.Metric> metric : row.getSecondary().entrySet()) {
+                entries.put(REPORT_KEY_PREFIX + row.getLabel() + "." + metric.getKey(),
+                    metric.getValue().toString());
+            }
+            ReportRow before = previous.get(row.getLabel());
+            if (before != null) {
+                entries.put(REPORT_KEY_PREFIX + row.getLabel() + ".change",
+                    describe(row, before));
+            }
+        }
+        if (!entries.isEmpty()) {
+            context.publishReportEntry(entries);
+        }
+    }
+
+    /**
+     * Appends rows to a report, and rewrites its HTML summary.
+     *
+     * @param rows rows of a finished benchmark
+     * @return rows of a previous run, by label
+     * @throws IOException if a report can't be written
+     */
+    Map<String, ReportRow> write(List<ReportRow> rows) throws IOException {
+        if (rows.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Files.createDirectories(directory);
+        Map<String, ReportRow> previous = new LinkedHashMap<>();
+        DirectoryLock.run(directory, () -> {
+            if (runId != null) {
+                start(runId);
+            }
+            List<String> json = new ArrayList<>();
+            List<String> csv = new ArrayList<>();
+            if (!Files.exists(directory.resolve(CSV_FILE))) {
+                csv.add(ReportRow.csvHeader());
+            }
+            for (ReportRow row : rows) {
+                json.add(row.toJson());
+                csv.add(row.toCsv());
+            }
+            append(directory.resolve(JSON_FILE), json);
+            append(directory.resolve(CSV_FILE), csv);
+            Map<String, ReportRow> current = new LinkedHashMap<>();
+            Map<String, ReportRow> before = latest(
+                readAll(directory.resolve(JSON_FILE)), current
+            );
+            if (runId == null) {
+                previous.putAll(before);
+            } else {
+                Map<String, ReportRow> last = read(directory.resolve(PREVIOUS_PREFIX + JSON_FILE));
+                for (String label : current.keySet()) {
+                    ReportRow failed = last.get(benchmarkOf(label));
+                    ReportRow earlier = failed != null ? failed : last.get(label);
+                    if (earlier != null) {
+                        previous.put(label, earlier);
+                    }
+                }
+            }
+            writeHtml(current.values(), previous);
+        });
+        return previous;
+    }
+
+    /**
+     * Moves results of a previous run aside, if they belong to a run of other id.
+     */
+    private void start(String runId) throws IOException {
+        Path idFile = directory.resolve(RUN_ID_FILE);
+        if (Files.isRegularFile(idFile)
+            && runId.equals(new String(Files.readAllBytes(idFile), StandardCharsets.UTF_8).trim())) {
+            return;
+        }
+        for (String file : new String[]{JSON_FILE, CSV_FILE, HTML_FILE}) {
+            Path current = directory.resolve(file);
+            if (Files.exists(current)) {
+                Files.move(
+                    current, directory.resolve(PREVIOUS_PREFIX + file),
+                    StandardCopyOption.REPLACE_EXISTING
+                );
+            }
+        }
+        Files.write(idFile, runId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void append(Path file, List<String> lines) throws IOException {
+        if (isTorn(file)) {
+            lines.add(0, "");
+        }
+        // each line is written and forced to disk before a next benchmark starts
+        Files.write(
+            file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND, StandardOpenOption.WRITE, StandardOpenOption.DSYNC
+        );
+    }
+
+    private static boolean isTorn(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            return false;
+        }
+        try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.position(channel.size() - 1).read(last);
+            return last.get(0) != '\n';
+        }
+    }
+
+    /**
+     * Reads rows of a report, a last row of each label wins, and a failure of a
+     * benchmark is gone, once it has results again.
+     */
+    static Map<String, ReportRow> read(Path file) throws IOException {
+        Map<String, ReportRow> rows = new LinkedHashMap<>();
+        latest(readAll(file), rows);
+        return rows;
+    }
+
+    /**
+     * Collects a last row of each label, and returns a row before it, by label.
+     * A failure is labelled with a name of a benchmark only, as it has no params
+     * nor mode, so it is a row before a next row of any label of that benchmark,
+     * and it is replaced by it.
+     */
+    private static Map<String, ReportRow> latest(List<ReportRow> rows,
+                                                 Map<String, ReportRow> current) {
+        Map<String, ReportRow> previous = new LinkedHashMap<>();
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            String label = rows.get(i).getLabel();
+            String benchmark = benchmarkOf(label);
+            Integer last = positions.get(label);
+            Integer failed = label.equals(benchmark) ? null : positions.get(benchmark);
+            if (failed != null && (last == null || failed > last)) {
+                previous.put(label, rows.get(failed));
+            } else if (last != null) {
+                previous.put(label, rows.get(last));
+            }
+            if (failed != null) {
+                current.remove(benchmark);
+            }
+            current.put(label, rows.get(i));
+            positions.put(label, i);
+        }
+        return previous;
+    }
+
+    private static String benchmarkOf(String label) {
+        int params = label.indexOf('(');
+        int mode = label.indexOf(" [");
+        int end = params < 0 ? mode : mode < 0 ? params : Math.min(params, mode);
+        return end < 0 ? label : label.substring(0, end);
+    }
+
+    /**
+     * Reads rows of a report, in order of writing. A torn line, of a run that
+     * crashed while writing, is skipped.
+     */
+    private static List<ReportRow> readAll(Path file) throws IOException {
+        List<ReportRow> rows = new ArrayList<>();
+        if (!Files.isRegularFile(file)) {
+            return rows;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                rows.add(ReportRow.parse(line));
+            } catch (IllegalArgumentException ex) {
+                // a torn line
+            }
+        }
+        return rows;
+    }
+
+    private void writeHtml(Collection<ReportRow> rows, Map<String, ReportRow> previous)
+        throws IOException {
+        StringBuilder html = new StringBuilder()
+            .append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n")
+            .append("<title>Benchmarks</title>\n<style>\n")
+            .append("table { border-collapse: collapse; font-family: monospace; }\n")
+            .append("th, td { border: 1px solid #ccc; padding: 2px 8px; text-align: right; }\n")
+            .append("td:first-child { text-align: left; }\n")
+            .append(".worse { color: #b00; } .better { color: #070; }\n")
+            .append("</style>\n</head>\n<body>\n<table>\n")
+            .append("<tr><th>Benchmark</th><th>Score</th><th>Previous</th><th>Change</th>")
+            .append("<th>Secondary</th></tr>\n");
+        for (ReportRow row : rows) {
+            ReportRow before = previous.get(row.getLabel());
+            double worsening = before == null ? Double.NaN : row.worseningSince(before);
+            String style = Double.isNaN(worsening) || worsening == 0d
+                ? ""
+                : worsening > 0 ? " class=\"worse\"" : " class=\"better\"";
+            List<String> secondary = new ArrayList<>();
+            for (Map.Entry<String, ReportRow.Metric> metric : row.getSecondary().entrySet()) {
+                secondary.add(metric.getKey() + ": " + metric.getValue());
+            }
+            if (row.getFailure() != null) {
+                style = " class=\"worse\"";
+            }
+            html.append("<tr><td>").append(escape(row.getLabel()))
+                .append("</td><td>").append(escape(score(row)))
+                .append("</td><td>")
+                .append(before == null ? "" : escape(score(before)))
+                .append("</td><td").append(style).append('>')
+                .append(escape(describe(row, before)))
+                .append("</td><td>").append(escape(String.join("\n", secondary)).replace("\n", "<br>"))
+                .append("</td></tr>\n");
+        }
+        html.append("</table>\n</body>\n</html>\n");
+        Path file = directory.resolve(HTML_FILE);
+        Path temp = Files.createTempFile(directory, HTML_FILE, ".tmp");
+        Files.write(temp, html.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String score(ReportRow row) {
+        return row.getFailure() == null ? row.getPrimary().toString() : "failed";
+    }
+
+    private static String describe(ReportRow row, @Nullable ReportRow previous) {
+        if (row.getFailure() != null) {
+            return "failed: " + row.getFailure();
+        }
+        if (previous == null) {
+            return "new";
+        }
+        if (previous.getFailure() != null) {
+            return "fixed, failed before";
+        }
+        double worsening = row.worseningSince(previous);
+        if (Double.isNaN(worsening)) {
+            return "incomparable with " + previous.getPrimary();
+        }
+        return String.format(
+            Locale.ROOT, "worsening %+.2f%% since %s", worsening * 100, previous.getPrimary()
+        );
+    }
+
+    private static String describe(Throwable failure) {
+        String text = failure.toString();
+        int end = text.indexOf('\n');
+        return end < 0 ? text : text.substring(0, end).trim();
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+            .replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings of JMH run, taken from {@link JmhBenchmark} annotation and overridden
+ * by system properties. In {@linkplain ExecutionProfile#SMOKE smoke} profile
+ * annotated values are capped first, so a run is short, while system properties
+ * still override them.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class BenchmarkSettings {
+
+    static final String PREFIX = "jmh.junit.";
+    static final String FORKS = PREFIX + "forks";
+    static final String WARMUP_ITERATIONS = PREFIX + "warmupIterations";
+    static final String WARMUP_TIME = PREFIX + "warmupTime";
+    static final String MEASUREMENT_ITERATIONS = PREFIX + "measurementIterations";
+    static final String MEASUREMENT_TIME = PREFIX + "measurementTime";
+    static final String MODES = PREFIX + "modes";
+    static final String TARGET_ERROR = PREFIX + "targetError";
+    static final String MIN_ITERATIONS = PREFIX + "minIterations";
+    static final String MAX_ITERATIONS = PREFIX + "maxIterations";
+    static final String BATCH_ITERATIONS = PREFIX + "batchIterations";
+    private static final int DEFAULT_MIN_ITERATIONS = 5;
+    private static final int DEFAULT_MAX_ITERATIONS = 50;
+    private static final int DEFAULT_BATCH_ITERATIONS = 5;
+    private static final int SMOKE_FORKS = 1;
+    private static final int SMOKE_WARMUP_ITERATIONS = 1;
+    private static final int SMOKE_MEASUREMENT_ITERATIONS = 2;
+    private static final long SMOKE_TIME_MILLIS = 100;
+
+    private final int forks;
+    private final int warmupIterations;
+    @Nullable
+    private final TimeValue warmupTime;
+    private final int measurementIterations;
+    @Nullable
+    private final TimeValue measurementTime;
+    private final List<Mode> modes;
+    private final List<String> jvmArgsAppend;
+    private final double targetError;
+    private final int minIterations;
+    private final int maxIterations;
+    private final int batchIterations;
+
+    private BenchmarkSettings(int forks,
+                              int warmupIterations,
+                              @Nullable TimeValue warmupTime,
+                              int measurementIterations,
+                              @Nullable TimeValue measurementTime,
+                              List<Mode> modes,
+                              List<String> jvmArgsAppend,
+                              double targetError,
+                              int minIterations,
+                              int maxIterations,
+                              int batchIterations) {
+        this.forks = forks;
+        this.warmupIterations = warmupIterations;
+        this.warmupTime = warmupTime;
+        this.measurementIterations = measurementIterations;
+        this.measurementTime = measurementTime;
+        this.modes = modes;
+        this.jvmArgsAppend = jvmArgsAppend;
+        this.targetError = targetError;
+        this.minIterations = minIterations;
+        this.maxIterations = maxIterations;
+        this.batchIterations = batchIterations;
+    }
+
+    static BenchmarkSettings of(JmhBenchmark benchmark) {
+        return of(benchmark, System.getProperties());
+    }
+
+    static BenchmarkSettings of(JmhBenchmark benchmark, Properties properties) {
+        TimeUnit unit = benchmark.timeUnit();
+        return new BenchmarkSettings(
+            intValue(properties, FORKS, benchmark.forks()),
+            intValue(properties, WARMUP_ITERATIONS, benchmark.warmupIterations()),
+            timeValue(properties, WARMUP_TIME, benchmark.warmupTime(), unit),
+            intValue(properties, MEASUREMENT_ITERATIONS, benchmark.measurementIterations()),
+            timeValue(properties, MEASUREMENT_TIME, benchmark.measurementTime(), unit),
+            modes(properties, benchmark.modes()),
+            Collections.unmodifiableList(Arrays.asList(benchmark.jvmArgsAppend())),
+            doubleValue(properties, TARGET_ERROR, benchmark.targetError()),
+            intValue(properties, MIN_ITERATIONS, benchmark.minIterations()),
+            intValue(properties, MAX_ITERATIONS, benchmark.maxIterations()),
+            intValue(properties, BATCH_ITERATIONS, benchmark.batchIterations())
+        );
+    }
+
+    /**
+     * Creates settings of {@linkplain ExecutionProfile#SMOKE smoke} profile.
+     *
+     * @param benchmark  an annotation
+     * @param properties system properties
+     * @return smoke settings
+     */
+    static BenchmarkSettings smoke(JmhBenchmark benchmark, Properties properties) {
+        TimeUnit unit = benchmark.timeUnit();
+        return new BenchmarkSettings(
+            intValue(properties, FORKS, cap(benchmark.forks(), SMOKE_FORKS)),
+            intValue(properties, WARMUP_ITERATIONS,
+                cap(benchmark.warmupIterations(), SMOKE_WARMUP_ITERATIONS)),
+            timeValue(properties, WARMUP_TIME, cap(benchmark.warmupTime(), unit), unit),
+            intValue(properties, MEASUREMENT_ITERATIONS,
+                cap(benchmark.measurementIterations(), SMOKE_MEASUREMENT_ITERATIONS)),
+            timeValue(properties, MEASUREMENT_TIME, cap(benchmark.measurementTime(), unit), unit),
+            modes(properties, benchmark.modes()),
+            Collections.unmodifiableList(Arrays.asList(benchmark.jvmArgsAppend())),
+            doubleValue(properties, TARGET_ERROR, JmhBenchmark.UNSET),
+            intValue(properties, MIN_ITERATIONS, benchmark.minIterations()),
+            intValue(properties, MAX_ITERATIONS, benchmark.maxIterations()),
+            intValue(properties, BATCH_ITERATIONS, benchmark.batchIterations())
+        );
+    }
+
+    /**
+     * Creates an adaptive measurement, if a target error is set.
+     *
+     * @return an adaptive measurement, or null if measurement isn't adaptive
+     */
+    @Nullable
+    AdaptiveMeasurement adaptive() {
+        if (targetError == JmhBenchmark.UNSET) {
+            return null;
+        }
+        int min = orDefault(minIterations, DEFAULT_MIN_ITERATIONS);
+        return new AdaptiveMeasurement(
+            targetError,
+            min,
+            orDefault(maxIterations, Math.max(min, DEFAULT_MAX_ITERATIONS)),
+            orDefault(batchIterations, DEFAULT_BATCH_ITERATIONS)
+        );
+    }
+
+    ChainedOptionsBuilder apply(ChainedOptionsBuilder builder) {
+        if (forks != JmhBenchmark.UNSET) {
+            builder.forks(forks);
+        }
+        if (warmupIterations != JmhBenchmark.UNSET) {
+            builder.warmupIterations(warmupIterations);
+        }
+        if (warmupTime != null) {
+            builder.warmupTime(warmupTime);
+        }
+        if (measurementIterations != JmhBenchmark.UNSET) {
+            builder.measurementIterations(measurementIterations);
+        }
+        if (measurementTime != null) {
+            builder.measurementTime(measurementTime);
+        }
+        for (Mode mode : modes) {
+            builder.mode(mode);
+        }
+        if (!jvmArgsAppend.isEmpty()) {
+            builder.jvmArgsAppend(jvmArgsAppend.toArray(new String[0]));
+        }
+        return builder;
+    }
+
+    /**
+     * Converts settings to command line arguments of JMH, except forks and JVM
+     * arguments, for a run in a separate process.
+     *
+     * @return command line arguments
+     */
+    List<String> toArguments() {
+        List<String> arguments = new ArrayList<>();
+        if (warmupIterations != JmhBenchmark.UNSET) {
+            arguments.add("-wi");
+            arguments.add(String.valueOf(warmupIterations));
+        }
+        if (warmupTime != null) {
+            arguments.add("-w");
+            arguments.add(warmupTime.convertTo(TimeUnit.MICROSECONDS) + "us");
+        }
+        if (measurementIterations != JmhBenchmark.UNSET) {
+            arguments.add("-i");
+            arguments.add(String.valueOf(measurementIterations));
+        }
+        if (measurementTime != null) {
+            arguments.add("-r");
+            arguments.add(measurementTime.convertTo(TimeUnit.MICROSECONDS) + "us");
+        }
+        if (!modes.isEmpty()) {
+            StringJoiner joiner = new StringJoiner(",");
+            for (Mode mode : modes) {
+                joiner.add(mode.shortLabel());
+            }
+            arguments.add("-bm");
+            arguments.add(joiner.toString());
+        }
+        return arguments;
+    }
+
+    List<String> getJvmArgsAppend() {
+        return jvmArgsAppend;
+    }
+
+    private static int intValue(Properties properties, String key, int annotated) {
+        String value = properties.getProperty(key);
+        return value == null ? annotated : Integer.parseInt(value.trim());
+    }
+
+    private static double doubleValue(Properties properties, String key, double annotated) {
+        String value = properties.getProperty(key);
+        return value == null ? annotated : Double.parseDouble(value.trim());
+    }
+
+    private static int cap(int annotated, int max) {
+        return annotated == JmhBenchmark.UNSET ? max : Math.min(annotated, max);
+    }
+
+    private static long cap(long annotated, TimeUnit unit) {
+        // at least one unit, for ex.: for times in seconds
+        long max = Math.max(unit.convert(SMOKE_TIME_MILLIS, TimeUnit.MILLISECONDS), 1);
+        return annotated == JmhBenchmark.UNSET ? max : Math.min(annotated, max);
+    }
+
+    private static int orDefault(int value, int defaultValue) {
+        return value == JmhBenchmark.UNSET ? defaultValue : value;
+    }
+
+    @Nullable
+    private static TimeValue timeValue(Properties properties, String key,
+                                       long annotated, TimeUnit unit) {
+        String value = properties.getProperty(key);
+        if (value != null) {
+            return TimeValue.milliseconds(Long.parseLong(value.trim()));
+        }
+        return annotated == JmhBenchmark.UNSET ? null : new TimeValue(annotated, unit);
+    }
+
+    private static List<Mode> modes(Properties properties, Mode[] annotated) {
+        String value = properties.getProperty(MODES);
+        if (value == null) {
+            return Collections.unmodifiableList(Arrays.asList(annotated));
+        }
+        List<Mode> modes = new ArrayList<>();
+        for (String label : value.split(",")) {
+            if (!label.trim().isEmpty()) {
+                modes.add(Mode.deepValueOf(label.trim()));
+            }
+        }
+        return Collections.unmodifiableList(modes);
+    }
+}
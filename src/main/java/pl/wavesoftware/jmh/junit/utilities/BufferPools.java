@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory used by buffer pools of this JVM, for ex.: {@code direct} and
+ * {@code mapped}, as reported by {@link BufferPoolMXBean}.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class BufferPools {
+
+    private static final int SETTLE_ROUNDS = 10;
+    private static final long SETTLE_PAUSE_MILLIS = 20;
+
+    private BufferPools() {
+        // not reachable
+    }
+
+    /**
+     * Gets memory used by each buffer pool.
+     *
+     * @return bytes used by each buffer pool
+     */
+    static Map<String, Long> used() {
+        Map<String, Long> used = new LinkedHashMap<>();
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            used.put(pool.getName(), pool.getMemoryUsed());
+        }
+        return used;
+    }
+
+    /**
+     * Gets memory retained by buffer pools. Buffers are released by cleaners,
+     * after their owners are collected, so garbage collection is requested until
+     * used memory stops falling for two rounds.
+     * <p>
+     * Both snapshots of a growth should be taken with it. A raw snapshot before
+     * still counts garbage buffers, and when they are freed meanwhile, a settled
+     * snapshot after would hide a leak of the same size.
+     *
+     * @return bytes used by each buffer pool, after unreachable buffers are released
+     * @throws InterruptedException if interrupted while waiting for cleaners
+     */
+    static Map<String, Long> retained() throws InterruptedException {
+        Map<String, Long> used = used();
+        for (int round = 0; round < SETTLE_ROUNDS; round++) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(SETTLE_PAUSE_MILLIS);
+            Map<String, Long> settled = used();
+            if (round > 0 && total(settled) >= total(used)) {
+                return settled;
+            }
+            used = settled;
+        }
+        return used;
+    }
+
+    /**
+     * Computes a growth of each buffer pool.
+     *
+     * @param before bytes used before
+     * @param after  bytes used after
+     * @return a growth in bytes of each buffer pool, negative if it shrunk
+     */
+    static Map<String, Long> growth(Map<String, Long> before, Map<String, Long> after) {
+        Map<String, Long> growth = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> pool : after.entrySet()) {
+            growth.put(pool.getKey(), pool.getValue() - before.getOrDefault(pool.getKey(), 0L));
+        }
+        return growth;
+    }
+
+    private static long total(Map<String, Long> used) {
+        long total = 0;
+        for (long bytes : used.values()) {
+            total += bytes;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.util.ListStatistics;
+
+/**
+ * Detects an end of warmup in a series of iteration scores, with least squares
+ * changepoint detection.
+ * <p>
+ * A series is split where two constant segments fit it best. If the segments
+ * differ significantly, and by more than a minimal relative effect, the left one
+ * is considered warmup and the search continues on the right one. So the last
+ * changepoint of a series is found, for ex.: after both C1 and C2 compilation.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class Changepoints {
+
+    private static final int MIN_SEGMENT = 2;
+    private static final double CONFIDENCE = 0.999;
+
+    private Changepoints() {
+        // not reachable
+    }
+
+    /**
+     * Finds an index of first steady state iteration.
+     *
+     * @param series    scores of iterations, in order of execution
+     * @param minEffect a minimal relative difference of segment means, for ex.:
+     *                  0.01 for 1%, smaller shifts are not counted as warmup
+     * @return a number of warmup iterations, 0 if there is no warmup
+     */
+    static int warmupEnd(double[] series, double minEffect) {
+        int start = 0;
+        while (series.length - start >= 2 * MIN_SEGMENT) {
+            int split = bestSplit(series, start);
+            ListStatistics left = statistics(series, start, split);
+            ListStatistics right = statistics(series, split, series.length);
+            double effect = Math.abs(left.getMean() - right.getMean())
+                / Math.max(Math.abs(right.getMean()), Double.MIN_NORMAL);
+            if (effect <= minEffect || !left.isDifferent(right, CONFIDENCE)) {
+                break;
+            }
+            start = split;
+        }
+        return start;
+    }
+
+    private static int bestSplit(double[] series, int start) {
+        int length = series.length - start;
+        double[] prefix = new double[length + 1];
+        for (int i = 0; i < length; i++) {
+            prefix[i + 1] = prefix[i] + series[start + i];
+        }
+        double total = prefix[length];
+        int best = start + MIN_SEGMENT;
+        double bestGain = Double.NEGATIVE_INFINITY;
+        for (int k = MIN_SEGMENT; k <= length - MIN_SEGMENT; k++) {
+            double leftMean = prefix[k] / k;
+            double rightMean = (total - prefix[k]) / (length - k);
+            double difference = leftMean - rightMean;
+            // a reduction of squared error, when one mean is replaced with two
+            double gain = (double) k * (length - k) / length * difference * difference;
+            if (gain > bestGain) {
+                bestGain = gain;
+                best = start + k;
+            }
+        }
+        return best;
+    }
+
+    private static ListStatistics statistics(double[] series, int from, int to) {
+        ListStatistics statistics = new ListStatistics();
+        for (int i = from; i < to; i++) {
+            statistics.addValue(series[i]);
+        }
+        return statistics;
+    }
+}
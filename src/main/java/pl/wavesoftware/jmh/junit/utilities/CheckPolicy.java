@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+/**
+ * Tells what {@link EnvironmentGuard} does, when an {@link EnvironmentCheck}
+ * detects a problem.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public enum CheckPolicy {
+    /**
+     * A test is skipped.
+     */
+    SKIP,
+    /**
+     * A test is executed, and a problem is published as a report entry.
+     */
+    WARN,
+    /**
+     * A test fails.
+     */
+    FAIL
+}
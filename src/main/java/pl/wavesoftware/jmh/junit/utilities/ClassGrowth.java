@@ -0,0 +1,58 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.util.Locale;
+
+/**
+ * A growth of live instances of a single class between two heap histograms.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class ClassGrowth {
+
+    private final String className;
+    private final long instances;
+    private final long bytes;
+
+    ClassGrowth(String className, long instances, long bytes) {
+        this.className = className;
+        this.instances = instances;
+        this.bytes = bytes;
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    long getInstances() {
+        return instances;
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            Locale.ROOT, "%+d instances, %s%s", instances, bytes < 0 ? "-" : "+",
+            JfrSummary.formatBytes(Math.abs(bytes))
+        );
+    }
+}
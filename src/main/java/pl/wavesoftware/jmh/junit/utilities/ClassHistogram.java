@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Numbers of live instances and their bytes of each class on a heap, taken with a
+ * {@code GC.class_histogram} {@link DiagnosticCommand}.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class ClassHistogram {
+
+    private static final Pattern ROW = Pattern.compile(
+        "^\\s*\\d+:\\s+(\\d+)\\s+(\\d+)\\s+(\\S+)(?: \\(.*\\))?\\s*$"
+    );
+    private static final int SETTLE_ROUNDS = 5;
+
+    private final Map<String, long[]> classes;
+
+    private ClassHistogram(Map<String, long[]> classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * Takes a histogram of live objects.
+     *
+     * @return a histogram of live objects
+     * @throws IOException if a histogram can't be taken
+     */
+    static ClassHistogram take() throws IOException {
+        return parse(new StringReader(capture()));
+    }
+
+    /**
+     * Captures an output of {@code GC.class_histogram} command. Full garbage
+     * collection is requested until used heap stops falling, so objects pending
+     * finalization or referenced only by soft caches being cleared don't show up
+     * as live. The output is kept unparsed, so a histogram taken before a test
+     * adds just a single string to a heap, while it is compared with a later one.
+     *
+     * @return an output of a command
+     * @throws IOException if a histogram can't be taken
+     */
+    static String capture() throws IOException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int round = 0; round < SETTLE_ROUNDS; round++) {
+            System.gc();
+            long settled = memory.getHeapMemoryUsage().getUsed();
+            if (settled >= used) {
+                break;
+            }
+            used = settled;
+        }
+        String output = DiagnosticCommand.execute("gcClassHistogram");
+        if (output == null) {
+            throw new IOException("GC.class_histogram command isn't available in this JVM");
+        }
+        return output;
+    }
+
+    /**
+     * Parses an output of {@code GC.class_histogram} command line by line.
+     *
+     * @param output an output of a command
+     * @return a histogram
+     * @throws IOException if an output can't be read
+     */
+    static ClassHistogram parse(Reader output) throws IOException {
+        Map<String, long[]> classes = new HashMap<>();
+        BufferedReader reader = new BufferedReader(output);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            Matcher matcher = ROW.matcher(line);
+            if (matcher.matches()) {
+                long[] counts = classes.computeIfAbsent(matcher.group(3), name -> new long[2]);
+                counts[0] += Long.parseLong(matcher.group(1));
+                counts[1] += Long.parseLong(matcher.group(2));
+            }
+        }
+        return new ClassHistogram(classes);
+    }
+
+    long getInstances(String className) {
+        long[] counts = classes.get(className);
+        return counts == null ? 0 : counts[0];
+    }
+
+    long getBytes(String className) {
+        long[] counts = classes.get(className);
+        return counts == null ? 0 : counts[1];
+    }
+
+    /**
+     * Computes a growth of each class, that has more instances or bytes than in an
+     * earlier histogram, largest growth in bytes first.
+     *
+     * @param before an earlier histogram
+     * @return classes that grew
+     */
+    List<ClassGrowth> growthSince(ClassHistogram before) {
+        List<ClassGrowth> growth = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : classes.entrySet()) {
+            String name = entry.getKey();
+            long instances = entry.getValue()[0] - before.getInstances(name);
+            long bytes = entry.getValue()[1] - before.getBytes(name);
+            if (instances > 0 || bytes > 0) {
+                growth.add(new ClassGrowth(name, instances, bytes));
+            }
+        }
+        growth.sort(Comparator.comparingLong(ClassGrowth::getBytes).reversed()
+            .thenComparing(ClassGrowth::getClassName));
+        return Collections.unmodifiableList(growth);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+/**
+ * Tells when {@link JmhCleaner} removes JMH generated sources.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public enum CleanupScope {
+    /**
+     * Cleanup after each test method. This is the default.
+     */
+    TEST,
+    /**
+     * Cleanup once, after all tests of a test class.
+     */
+    CLASS,
+    /**
+     * Cleanup once, after whole test plan has been executed. It's done by
+     * {@link JmhCleanerListener} or by JVM shutdown hook if listener isn't
+     * loaded by JUnit Platform launcher.
+     */
+    SESSION
+}
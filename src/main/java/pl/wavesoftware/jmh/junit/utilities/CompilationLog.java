@@ -0,0 +1,393 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * A summary of HotSpot compilation log ({@code -XX:+LogCompilation}), with
+ * assertions on JIT decisions: a tier a method was compiled at, inlining of a
+ * method into other, and deoptimizations of C2 compiled code.
+ * <p>
+ * A log is read line by line, and only a summary is kept in memory, so large logs
+ * of long benchmarks can be read. Methods are named as a fully qualified class
+ * name and a method name, for ex.: {@code pl.acme.Parser::parse}, overloads are
+ * not distinguished.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class CompilationLog {
+
+    /**
+     * A tier of code compiled by C2, with full optimization.
+     */
+    public static final int C2_TIER = 4;
+    /**
+     * A number of deoptimizations of C2 compiled code of a method, above which it is
+     * considered a deoptimization storm.
+     */
+    public static final int DEFAULT_DEOPTIMIZATION_LIMIT = 5;
+
+    private final Map<String, Integer> tiers = new HashMap<>();
+    private final Map<String, Integer> deoptimizations = new HashMap<>();
+    private final Map<String, Inlining> inlinings = new HashMap<>();
+
+    private CompilationLog() {
+        // use read method
+    }
+
+    /**
+     * Reads compilation logs, for ex.: of each fork of a benchmark.
+     *
+     * @param files files of compilation log
+     * @return a summary of logs
+     * @throws IOException if a file can't be read
+     */
+    public static CompilationLog read(Collection<Path> files) throws IOException {
+        CompilationLog log = new CompilationLog();
+        for (Path file : files) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Files.newInputStream(file), StandardCharsets.UTF_8))) {
+                log.consume(reader);
+            }
+        }
+        return log;
+    }
+
+    static CompilationLog read(BufferedReader reader) throws IOException {
+        CompilationLog log = new CompilationLog();
+        log.consume(reader);
+        return log;
+    }
+
+    /**
+     * Gets a highest tier, a method was compiled at: 1 to 3 for C1, 4 for C2.
+     *
+     * @param method a method name, for ex.: {@code pl.acme.Parser::parse}
+     * @return a highest tier, or 0 if a method wasn't compiled
+     */
+    public int getHighestTier(String method) {
+        return tiers.getOrDefault(method, 0);
+    }
+
+    /**
+     * Tells if a method was inlined into other method, directly or through other
+     * inlined methods, in any of C2 compilations.
+     *
+     * @param callee an inlined method
+     * @param caller a method compiled with callee inlined
+     * @return true, if callee was inlined
+     */
+    public boolean isInlined(String callee, String caller) {
+        Inlining inlining = inlinings.get(key(callee, caller));
+        return inlining != null && inlining.inlined;
+    }
+
+    /**
+     * Gets reasons given by C2 for not inlining a method into other, for ex.:
+     * {@code hot method too big}.
+     *
+     * @param callee a not inlined method
+     * @param caller a compiled method
+     * @return reasons of failed inlining
+     */
+    public Set<String> getInliningFailures(String callee, String caller) {
+        Inlining inlining = inlinings.get(key(callee, caller));
+        return inlining == null
+            ? Collections.emptySet()
+            : Collections.unmodifiableSet(inlining.failures);
+    }
+
+    /**
+     * Gets a number of times C2 compiled code of a method was made not entrant, for
+     * ex.: after an uncommon trap of a failed speculation.
+     *
+     * @param method a method name
+     * @return a number of deoptimizations
+     */
+    public int getDeoptimizations(String method) {
+        return deoptimizations.getOrDefault(method, 0);
+    }
+
+    /**
+     * Asserts that a method was compiled at least at given tier.
+     *
+     * @param method a method name
+     * @param tier   a minimal tier, for ex.: {@link #C2_TIER}
+     */
+    public void assertTier(String method, int tier) {
+        int highest = getHighestTier(method);
+        if (highest < tier) {
+            fail(String.format(
+                Locale.ROOT, "Method %s reached tier %d, expected at least tier %d",
+                method, highest, tier
+            ));
+        }
+    }
+
+    /**
+     * Asserts that a method was inlined into other method by C2.
+     *
+     * @param callee an inlined method
+     * @param caller a method compiled with callee inlined
+     */
+    public void assertInlined(String callee, String caller) {
+        if (isInlined(callee, caller)) {
+            return;
+        }
+        Set<String> failures = getInliningFailures(callee, caller);
+        fail(String.format(
+            Locale.ROOT, "Method %s wasn't inlined into %s by C2, %s",
+            callee, caller, failures.isEmpty()
+                ? "no inlining decision was logged"
+                : "reasons: " + String.join(", ", failures)
+        ));
+    }
+
+    /**
+     * Asserts that C2 compiled code of a method was deoptimized at most
+     * {@value #DEFAULT_DEOPTIMIZATION_LIMIT} times.
+     *
+     * @param method a method name
+     */
+    public void assertNoDeoptimizationStorm(String method) {
+        assertNoDeoptimizationStorm(method, DEFAULT_DEOPTIMIZATION_LIMIT);
+    }
+
+    /**
+     * Asserts that C2 compiled code of a method was deoptimized at most given
+     * number of times.
+     *
+     * @param method a method name
+     * @param limit  a maximum number of deoptimizations
+     */
+    public void assertNoDeoptimizationStorm(String method, int limit) {
+        int count = getDeoptimizations(method);
+        if (count > limit) {
+            fail(String.format(
+                Locale.ROOT, "Method %s was deoptimized %d times from C2 compiled code, "
+                    + "limit is %d", method, count, limit
+            ));
+        }
+    }
+
+    private void consume(BufferedReader reader) throws IOException {
+        Parser parser = new Parser();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            parser.line(line.trim());
+        }
+    }
+
+    private Inlining inlining(String callee, String caller) {
+        return inlinings.computeIfAbsent(key(callee, caller), key -> new Inlining());
+    }
+
+    private static String key(String callee, String caller) {
+        return callee + " -> " + caller;
+    }
+
+    /**
+     * A method in log attributes, for ex.: {@code pl/acme/Parser parse (I)V}.
+     */
+    private static String methodName(String attribute) {
+        String[] parts = attribute.split(" ");
+        return parts.length < 2 ? attribute : parts[0].replace('/', '.') + "::" + parts[1];
+    }
+
+    private static final class Inlining {
+        private boolean inlined;
+        private final Set<String> failures = new LinkedHashSet<>();
+    }
+
+    private static final class Compiled {
+        private final String method;
+        private final int tier;
+
+        private Compiled(String method, int tier) {
+            this.method = method;
+            this.tier = tier;
+        }
+    }
+
+    /**
+     * Parses lines of a log of a single JVM. A log has one element per line. Compiled
+     * code is logged as it is installed and invalidated, and then, at JVM exit, logs of
+     * each compiler thread follow, with a task element for each compilation.
+     */
+    private final class Parser {
+        private final Pattern attributePattern = Pattern.compile("(\\w+)='([^']*)'");
+        private final Map<String, Compiled> compiled = new HashMap<>();
+        private final Map<String, String> klasses = new HashMap<>();
+        private final Map<String, String> methods = new HashMap<>();
+        private final Deque<String> parsed = new ArrayDeque<>();
+        private boolean inTask;
+        private int taskTier;
+        @Nullable
+        private String callee;
+
+        private void line(String line) {
+            if (line.length() < 2 || line.charAt(0) != '<') {
+                return;
+            }
+            int end = line.charAt(1) == '/' ? 2 : 1;
+            while (end < line.length() && " />".indexOf(line.charAt(end)) < 0) {
+                end++;
+            }
+            String element = line.substring(1, end);
+            if ("/task".equals(element)) {
+                inTask = false;
+                return;
+            }
+            if ("/parse".equals(element)) {
+                if (inTask && !parsed.isEmpty()) {
+                    parsed.pop();
+                }
+                return;
+            }
+            if (inTask) {
+                taskElement(element, attributes(line));
+            } else {
+                codeElement(element, attributes(line));
+            }
+        }
+
+        private void codeElement(String element, Map<String, String> attributes) {
+            switch (element) {
+                case "task":
+                    inTask = true;
+                    taskTier = tier(attributes);
+                    klasses.clear();
+                    methods.clear();
+                    parsed.clear();
+                    callee = null;
+                    break;
+                case "nmethod":
+                    String method = attributes.get("method");
+                    if (method != null) {
+                        Compiled code = new Compiled(methodName(method), tier(attributes));
+                        compiled.put(attributes.get("compile_id"), code);
+                        tiers.merge(code.method, code.tier, Math::max);
+                    }
+                    break;
+                case "make_not_entrant":
+                    Compiled code = compiled.get(attributes.get("compile_id"));
+                    if (code != null && code.tier == C2_TIER) {
+                        deoptimizations.merge(code.method, 1, Integer::sum);
+                    }
+                    break;
+                default:
+                    // not needed
+            }
+        }
+
+        private void taskElement(String element, Map<String, String> attributes) {
+            switch (element) {
+                case "klass":
+                    String klass = attributes.getOrDefault("name", "?");
+                    klasses.put(attributes.get("id"), klass.replace('/', '.'));
+                    break;
+                case "method":
+                    String holder = klasses.getOrDefault(attributes.get("holder"), "?");
+                    methods.put(attributes.get("id"), holder + "::" + attributes.get("name"));
+                    break;
+                case "parse":
+                    parsed.push(methods.getOrDefault(attributes.get("method"), "?"));
+                    break;
+                case "call":
+                    callee = methods.get(attributes.get("method"));
+                    break;
+                case "inline_success":
+                case "inline_fail":
+                    decided("inline_success".equals(element), attributes.getOrDefault("reason", "?"));
+                    break;
+                default:
+                    // not needed
+            }
+        }
+
+        private void decided(boolean success, String reason) {
+            if (callee == null || taskTier != C2_TIER) {
+                return;
+            }
+            for (String caller : parsed) {
+                Inlining inlining = inlining(callee, caller);
+                if (success) {
+                    inlining.inlined = true;
+                } else {
+                    inlining.failures.add(reason);
+                }
+            }
+            callee = null;
+        }
+
+        private Map<String, String> attributes(String line) {
+            Map<String, String> attributes = new HashMap<>();
+            Matcher matcher = attributePattern.matcher(line);
+            while (matcher.find()) {
+                attributes.put(matcher.group(1), unescape(matcher.group(2)));
+            }
+            return attributes;
+        }
+
+        /**
+         * A tier is not logged for C2 compilations without tiered compilation, and
+         * for C2 compile tasks.
+         */
+        private int tier(Map<String, String> attributes) {
+            String level = attributes.get("level");
+            if (level != null) {
+                return Integer.parseInt(level);
+            }
+            String compiler = attributes.get("compiler");
+            return compiler == null || "c2".equals(compiler) || "jvmci".equals(compiler)
+                ? C2_TIER
+                : 1;
+        }
+
+        private String unescape(String value) {
+            if (value.indexOf('&') < 0) {
+                return value;
+            }
+            return value.replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&apos;", "'")
+                .replace("&quot;", "\"")
+                .replace("&amp;", "&");
+        }
+    }
+}
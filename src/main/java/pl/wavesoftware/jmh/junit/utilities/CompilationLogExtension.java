@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolutionException;
+import org.junit.jupiter.api.extension.ParameterResolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a compilation log of benchmark forks of a {@link LogCompilation} test, and
+ * resolves it as a {@link CompilationLog} parameter.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class CompilationLogExtension
+    implements BeforeEachCallback, ParameterResolver, AfterEachCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+        ExtensionContext.Namespace.create(CompilationLogExtension.class);
+    private static final String DIRECTORY = "directory";
+    private static final String LOG = "log";
+    private static final String FILE_PREFIX = "compilation-";
+
+    private final RecursiveDeleter deleter = new RecursiveDeleter();
+
+    @Override
+    public void beforeEach(ExtensionContext context) throws IOException {
+        Path directory = Files.createTempDirectory("jmh-compilation-");
+        context.getStore(NAMESPACE).put(DIRECTORY, directory);
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-XX:+UnlockDiagnosticVMOptions");
+        arguments.add("-XX:+LogCompilation");
+        // each fork writes its own file, HotSpot expands %p to a process id
+        arguments.add("-XX:LogFile=" + directory.resolve(FILE_PREFIX + "%p.log"));
+        if (printInlining(context)) {
+            arguments.add("-XX:+PrintInlining");
+        }
+        JmhBenchmarkExtension.appendJvmArgs(context, arguments.toArray(new String[0]));
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext,
+                                     ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == CompilationLog.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext,
+                                   ExtensionContext extensionContext) {
+        ExtensionContext.Store store = extensionContext.getStore(NAMESPACE);
+        return store.getOrComputeIfAbsent(LOG, key -> {
+            try {
+                return read(store.get(DIRECTORY, Path.class));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, CompilationLog.class);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) throws IOException {
+        Path directory = context.getStore(NAMESPACE).remove(DIRECTORY, Path.class);
+        if (directory != null) {
+            deleter.delete(directory);
+        }
+    }
+
+    private static CompilationLog read(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        if (files.isEmpty()) {
+            throw new ParameterResolutionException(
+                "No compilation log was written, run a benchmark in at least one fork"
+            );
+        }
+        return CompilationLog.read(files);
+    }
+
+    private static boolean printInlining(ExtensionContext context) {
+        return TestAnnotations.find(context, LogCompilation.class)
+            .map(LogCompilation::printInlining)
+            .orElse(false);
+    }
+}
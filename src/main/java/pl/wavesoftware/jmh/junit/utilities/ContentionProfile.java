@@ -0,0 +1,211 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.lang.management.LockInfo;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A profile of lock contention in a JVM, between its start and stop. Counters of
+ * each thread are read from {@link ThreadMXBean} at start, at every sample and at
+ * stop, so threads that end during a profile are counted too. Each sample also
+ * records a lock and a frame, where a blocked or parked thread waits.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class ContentionProfile {
+
+    private static final int STACK_DEPTH = 16;
+    private static final String LOCKS_PACKAGE = "java.util.concurrent.locks.";
+    private static final String SAMPLER_NAME = "lock-contention-sampler";
+
+    private final ThreadMXBean threads;
+    private final boolean wasEnabled;
+    private final Map<Long, ThreadInfo> first = new HashMap<>();
+    private final Map<Long, ThreadInfo> last = new HashMap<>();
+    private final Map<String, LockSamples> locks = new HashMap<>();
+    private final Thread sampler;
+    private volatile boolean running = true;
+
+    private ContentionProfile(ThreadMXBean threads, long intervalMillis) {
+        this.threads = threads;
+        this.wasEnabled = threads.isThreadContentionMonitoringEnabled();
+        threads.setThreadContentionMonitoringEnabled(true);
+        for (ThreadInfo info : threadInfos()) {
+            first.put(info.getThreadId(), info);
+        }
+        sampler = new Thread(() -> {
+            while (running) {
+                sample(threadInfos());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(intervalMillis);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }, SAMPLER_NAME);
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    /**
+     * Starts a profile, enabling thread contention monitoring.
+     *
+     * @param threads        a thread MX bean
+     * @param intervalMillis an interval of sampling stacks
+     * @return a started profile
+     * @throws UnsupportedOperationException if a JVM doesn't monitor contention
+     */
+    static ContentionProfile start(ThreadMXBean threads, long intervalMillis) {
+        if (!threads.isThreadContentionMonitoringSupported()) {
+            throw new UnsupportedOperationException(
+                "Thread contention monitoring isn't supported by this JVM"
+            );
+        }
+        return new ContentionProfile(threads, intervalMillis);
+    }
+
+    /**
+     * Stops a profile, and restores previous state of contention monitoring.
+     *
+     * @throws InterruptedException if interrupted, while waiting for a sampler
+     */
+    void stop() throws InterruptedException {
+        running = false;
+        sampler.join();
+        sample(threadInfos());
+        threads.setThreadContentionMonitoringEnabled(wasEnabled);
+    }
+
+    /**
+     * Gets contention of threads, that were blocked or waited during a profile,
+     * most blocked first.
+     *
+     * @return contention of threads
+     */
+    synchronized List<ThreadContention> getThreads() {
+        List<ThreadContention> contended = new ArrayList<>();
+        for (ThreadInfo end : last.values()) {
+            if (SAMPLER_NAME.equals(end.getThreadName())) {
+                continue;
+            }
+            ThreadInfo begin = first.get(end.getThreadId());
+            ThreadContention contention = new ThreadContention(
+                end.getThreadName(),
+                end.getBlockedCount() - (begin == null ? 0 : begin.getBlockedCount()),
+                end.getBlockedTime() - (begin == null ? 0 : Math.max(0, begin.getBlockedTime())),
+                end.getWaitedCount() - (begin == null ? 0 : begin.getWaitedCount()),
+                end.getWaitedTime() - (begin == null ? 0 : Math.max(0, begin.getWaitedTime()))
+            );
+            if (contention.isContended()) {
+                contended.add(contention);
+            }
+        }
+        contended.sort(Comparator.comparingLong(ThreadContention::getBlockedMillis)
+            .thenComparingLong(ThreadContention::getBlockedCount)
+            .reversed()
+            .thenComparing(ThreadContention::getName));
+        return contended;
+    }
+
+    /**
+     * Gets locks, that threads were sampled waiting for, most sampled first.
+     *
+     * @param top a maximal number of locks
+     * @return descriptions of locks, with a number of samples and a top frame
+     */
+    synchronized List<String> getTopLocks(int top) {
+        List<Map.Entry<String, LockSamples>> entries = new ArrayList<>(locks.entrySet());
+        entries.sort(Comparator.comparingLong(
+            (Map.Entry<String, LockSamples> entry) -> entry.getValue().total
+        ).reversed().thenComparing(Map.Entry::getKey));
+        List<String> described = new ArrayList<>();
+        int limit = Math.min(top, entries.size());
+        for (Map.Entry<String, LockSamples> entry : entries.subList(0, limit)) {
+            described.add(String.format(
+                Locale.ROOT, "%s: %d samples, at %s",
+                entry.getKey(), entry.getValue().total, entry.getValue().topFrame()
+            ));
+        }
+        return described;
+    }
+
+    synchronized void sample(ThreadInfo[] infos) {
+        for (ThreadInfo info : infos) {
+            if (info == null) {
+                continue;
+            }
+            last.put(info.getThreadId(), info);
+            LockInfo lock = info.getLockInfo();
+            if (lock != null && isContended(info.getThreadState(), lock)) {
+                locks.computeIfAbsent(lock.toString(), key -> new LockSamples())
+                    .add(waitingFrame(info.getStackTrace()));
+            }
+        }
+    }
+
+    private ThreadInfo[] threadInfos() {
+        return threads.getThreadInfo(threads.getAllThreadIds(), STACK_DEPTH);
+    }
+
+    private static boolean isContended(Thread.State state, LockInfo lock) {
+        if (state == Thread.State.BLOCKED) {
+            return true;
+        }
+        String type = lock.getClassName();
+        return (state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING)
+            && type.startsWith(LOCKS_PACKAGE) && !type.endsWith("$ConditionObject");
+    }
+
+    private static String waitingFrame(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            String type = frame.getClassName();
+            if (!type.startsWith(LOCKS_PACKAGE) && !type.endsWith(".Unsafe")) {
+                return frame.toString();
+            }
+        }
+        return stack.length == 0 ? "unknown" : stack[0].toString();
+    }
+
+    private static final class LockSamples {
+        private final Map<String, Long> frames = new LinkedHashMap<>();
+        private long total;
+
+        private void add(String frame) {
+            frames.merge(frame, 1L, Long::sum);
+            total++;
+        }
+
+        private String topFrame() {
+            return frames.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse("unknown");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Executes diagnostic commands of this JVM, the same as {@code jcmd} does, through
+ * the {@code DiagnosticCommand} MBean.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class DiagnosticCommand {
+
+    private static final String OBJECT_NAME = "com.sun.management:type=DiagnosticCommand";
+
+    private DiagnosticCommand() {
+        // not reachable
+    }
+
+    /**
+     * Executes a diagnostic command.
+     *
+     * @param operation an operation of MBean, for ex.: {@code gcClassHistogram} for
+     *                  {@code GC.class_histogram} command
+     * @param arguments arguments of a command
+     * @return an output of a command, or null if the MBean isn't available
+     */
+    @Nullable
+    static String execute(String operation, String... arguments) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            Object output = server.invoke(
+                new ObjectName(OBJECT_NAME), operation,
+                new Object[]{arguments},
+                new String[]{String[].class.getName()}
+            );
+            return String.valueOf(output);
+        } catch (JMException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A lock of a directory, exclusive between threads and between processes, for
+ * ex.: shards of tests running in parallel on the same build directory.
+ * <p>
+ * A lock file is kept in temporary directory, not in the locked one, so it can be
+ * removed while locked. A {@link FileLock} is held by the whole JVM, so threads
+ * are excluded with a reentrant lock first, and a file is locked only by the
+ * outermost holder.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class DirectoryLock {
+
+    private static final ConcurrentMap<Path, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+    private DirectoryLock() {
+        // not reachable
+    }
+
+    static void run(Path directory, Action action) throws IOException {
+        Path key = directory.toAbsolutePath().normalize();
+        ReentrantLock lock = LOCKS.computeIfAbsent(key, path -> new ReentrantLock());
+        lock.lock();
+        try {
+            if (lock.getHoldCount() > 1) {
+                action.run();
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(
+                lockFile(key), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock fileLock = channel.lock();
+                try {
+                    action.run();
+                } finally {
+                    fileLock.release();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static Path lockFile(Path directory) {
+        return Paths.get(
+            System.getProperty("java.io.tmpdir"),
+            "jmh-junit-" + Long.toHexString(StableHash.of(directory.toString())) + ".lock"
+        );
+    }
+
+    /**
+     * An action executed while directory is locked.
+     */
+    @FunctionalInterface
+    interface Action {
+        void run() throws IOException;
+    }
+}
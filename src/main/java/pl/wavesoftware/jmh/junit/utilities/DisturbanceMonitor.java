@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Samples steal time and cgroup throttling in a background thread while a test
+ * runs. Each sampling interval is compared with limits, so a burst of noise is
+ * seen, even if it is diluted over a long test. A window of samples can be
+ * restarted, when a disturbed benchmark is run again.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class DisturbanceMonitor {
+
+    private static final String SAMPLER_NAME = "quiet-machine-sampler";
+
+    private final Supplier<Optional<OsSample>> probe;
+    private final double maxSteal;
+    private final double maxThrottling;
+    private final Thread sampler;
+    private volatile boolean running = true;
+    private OsSample previous;
+    private double peakSteal;
+    private double peakThrottling;
+    private int reruns;
+    private int rerun;
+
+    private DisturbanceMonitor(Supplier<Optional<OsSample>> probe,
+                               OsSample start,
+                               long intervalNanos,
+                               double maxSteal,
+                               double maxThrottling,
+                               int reruns) {
+        this.probe = probe;
+        this.previous = start;
+        this.maxSteal = maxSteal;
+        this.maxThrottling = maxThrottling;
+        this.reruns = reruns;
+        sampler = new Thread(() -> {
+            while (running) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(intervalNanos);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                sample();
+            }
+        }, SAMPLER_NAME);
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    /**
+     * Starts sampling.
+     *
+     * @param probe         a source of samples
+     * @param start         a first sample
+     * @param intervalNanos an interval of sampling
+     * @param maxSteal      a maximum steal time in an interval
+     * @param maxThrottling a maximum fraction of throttled periods in an interval
+     * @param reruns        a number of times a disturbed benchmark can be run again
+     * @return a started monitor
+     */
+    static DisturbanceMonitor start(Supplier<Optional<OsSample>> probe,
+                                    OsSample start,
+                                    long intervalNanos,
+                                    double maxSteal,
+                                    double maxThrottling,
+                                    int reruns) {
+        return new DisturbanceMonitor(probe, start, intervalNanos, maxSteal, maxThrottling, reruns);
+    }
+
+    /**
+     * Tells if a benchmark should be run again, because it was disturbed, and
+     * reruns are left. If so, a window of samples is restarted.
+     *
+     * @return a disturbance, or {@code null} if a benchmark shouldn't be run again
+     */
+    @Nullable
+    synchronized String rerun() {
+        sample();
+        String disturbance = disturbance();
+        if (disturbance == null || reruns == 0) {
+            return null;
+        }
+        reruns--;
+        rerun++;
+        peakSteal = 0d;
+        peakThrottling = 0d;
+        return disturbance;
+    }
+
+    /**
+     * Stops sampling.
+     *
+     * @return a disturbance of a last window, or {@code null} if it was quiet
+     * @throws InterruptedException if interrupted, while waiting for a sampler
+     */
+    @Nullable
+    String stop() throws InterruptedException {
+        running = false;
+        sampler.interrupt();
+        sampler.join();
+        synchronized (this) {
+            sample();
+            String disturbance = disturbance();
+            return disturbance == null || rerun == 0
+                ? disturbance
+                : disturbance + ", after " + rerun + (rerun == 1 ? " rerun" : " reruns");
+        }
+    }
+
+    private synchronized void sample() {
+        Optional<OsSample> next = probe.get();
+        if (!next.isPresent()) {
+            return;
+        }
+        OsSample current = next.get();
+        peakSteal = Math.max(peakSteal, current.stealSince(previous));
+        peakThrottling = Math.max(peakThrottling, current.throttlingSince(previous));
+        previous = current;
+    }
+
+    @Nullable
+    private String disturbance() {
+        List<String> problems = new ArrayList<>();
+        if (peakSteal > maxSteal) {
+            problems.add(QuietMachineGate.percent("steal time", peakSteal, maxSteal));
+        }
+        if (peakThrottling > maxThrottling) {
+            problems.add(QuietMachineGate.percent("throttled periods", peakThrottling, maxThrottling));
+        }
+        return problems.isEmpty() ? null : String.join(", ", problems);
+    }
+}
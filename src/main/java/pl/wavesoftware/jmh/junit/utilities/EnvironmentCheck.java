@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import javax.annotation.Nullable;
+
+/**
+ * A check of JVM environment, that detects settings making benchmark results
+ * worthless. Checks are evaluated by {@link EnvironmentGuard}.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public interface EnvironmentCheck {
+
+    /**
+     * Gets a unique name of this check, for ex.: {@code debugger}.
+     *
+     * @return a name of check
+     */
+    String getName();
+
+    /**
+     * Checks an environment.
+     *
+     * @param environment a JVM environment
+     * @return a description of detected problem, or null if environment is fine
+     */
+    @Nullable
+    String detect(JvmEnvironment environment);
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import javax.annotation.Nullable;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Built-in checks of JVM environment.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class EnvironmentChecks {
+
+    /**
+     * A default minimal heap size checked by {@link #smallHeap()}.
+     */
+    public static final long DEFAULT_MIN_HEAP_BYTES = 256L * 1024 * 1024;
+    private static final int FULL_OPTIMIZATION_LEVEL = 4;
+
+    private EnvironmentChecks() {
+        // not reachable
+    }
+
+    /**
+     * Detects a java agent, for ex.: code coverage or profiler.
+     *
+     * @return a check
+     */
+    public static EnvironmentCheck javaAgent() {
+        return new SimpleCheck("javaAgent", environment ->
+            environment.hasArgument("-javaagent:") ? "java agent is attached" : null
+        );
+    }
+
+    /**
+     * Detects a JDWP debugger agent.
+     *
+     * @return a check
+     */
+    public static EnvironmentCheck debugger() {
+        return new SimpleCheck("debugger", environment ->
+            environment.hasArgument("-agentlib:jdwp")
+                || environment.hasArgument("-Xrunjdwp")
+                || environment.hasArgument("-Xdebug")
+                ? "debugger agent is attached" : null
+        );
+    }
+
+    /**
+     * Detects a native agent, other than debugger.
+     *
+     * @return a check
+     */
+    public static EnvironmentCheck nativeAgent() {
+        return new SimpleCheck("nativeAgent", environment -> {
+            for (String argument : environment.getInputArguments()) {
+                if (argument.startsWith("-agentpath:")
+                    || (argument.startsWith("-agentlib:") && !argument.startsWith("-agentlib:jdwp"))) {
+                    return "native agent is attached: " + argument;
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Detects JVM running in interpreted mode only, with {@code -Xint} or
+     * {@code -XX:-UseCompiler}.
+     *
+     * @return a check
+     */
+    public static EnvironmentCheck interpreterOnly() {
+        return new SimpleCheck("interpreterOnly", environment -> {
+            boolean interpreted = environment.hasArgument("-Xint")
+                || environment.hasArgument("-XX:-UseCompiler")
+                || environment.getVmInfo().contains("interpreted mode")
+                || "false".equals(environment.getVmOption("UseCompiler").orElse(null));
+            return interpreted ? "JIT compiler is disabled" : null;
+        });
+    }
+
+    /**
+     * Detects JVM compiling every method before its first use, with {@code -Xcomp}.
+     *
+     * @return a check
+     */
+    public static EnvironmentCheck compileOnly() {
+        return new SimpleCheck("compileOnly", environment ->
+            environment.hasArgument("-Xcomp")
+                || environment.getVmInfo().contains("compiled mode")
+                ? "methods are compiled before first use" : null
+        );
+    }
+
+    /**
+     * Detects tiered compilation stopped below full optimization, with
+     * {@code -XX:TieredStopAtLevel}.
+     *
+     * @return a check
+     */
+    public static EnvironmentCheck limitedTieredCompilation() {
+        return new SimpleCheck("limitedTieredCompilation", environment -> {
+            Optional<String> level = environment.getVmOption("TieredStopAtLevel");
+            if (!level.isPresent()) {
+                level = lastArgumentValue(environment, "-XX:TieredStopAtLevel=");
+            }
+            boolean tiered = !"false".equals(
+                environment.getVmOption("TieredCompilation").orElse(null)
+            ) && !environment.hasArgument("-XX:-TieredCompilation");
+            return tiered && level.isPresent() && isBelowFullOptimization(level.get())
+                ? "tiered compilation stops at level " + level.get() : null;
+        });
+    }
+
+    /**
+     * Detects a maximum heap smaller than {@value #DEFAULT_MIN_HEAP_BYTES} bytes.
+     *
+     * @return a check
+     */
+    public static EnvironmentCheck smallHeap() {
+        return smallHeap(DEFAULT_MIN_HEAP_BYTES);
+    }
+
+    /**
+     * Detects a maximum heap smaller than given size.
+     *
+     * @param minBytes a minimal size of heap in bytes
+     * @return a check
+     */
+    public static EnvironmentCheck smallHeap(long minBytes) {
+        return new SimpleCheck("smallHeap", environment ->
+            environment.getMaxHeapBytes() < minBytes
+                ? String.format(
+                    Locale.ROOT, "maximum heap of %d bytes is smaller than %d bytes",
+                    environment.getMaxHeapBytes(), minBytes
+                )
+                : null
+        );
+    }
+
+    /**
+     * Detects JVM running with assertions enabled.
+     *
+     * @return a check
+     */
+    public static EnvironmentCheck assertions() {
+        return new SimpleCheck("assertions", environment ->
+            environment.isAssertionsEnabled() ? "assertions are enabled" : null
+        );
+    }
+
+    private static Optional<String> lastArgumentValue(JvmEnvironment environment, String prefix) {
+        String value = null;
+        for (String argument : environment.getInputArguments()) {
+            if (argument.startsWith(prefix)) {
+                value = argument.substring(prefix.length());
+            }
+        }
+        return Optional.ofNullable(value);
+    }
+
+    private static boolean isBelowFullOptimization(String level) {
+        try {
+            return Integer.parseInt(level.trim()) < FULL_OPTIMIZATION_LEVEL;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    private static final class SimpleCheck implements EnvironmentCheck {
+        private final String name;
+        private final Function<JvmEnvironment, String> detector;
+
+        private SimpleCheck(String name, Function<JvmEnvironment, String> detector) {
+            this.name = name;
+            this.detector = detector;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Nullable
+        @Override
+        public String detect(JvmEnvironment environment) {
+            return detector.apply(environment);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * An extension that checks if JVM environment is fit for benchmarking, before
+ * each test. Each {@link EnvironmentCheck} has its own {@link CheckPolicy}, that
+ * tells if a test should be skipped, failed or only warned about a problem.
+ * <p>
+ * The environment is inspected once per JVM, and checks are evaluated once per
+ * guard. A fingerprint of environment, and every detected problem, are published
+ * as report entries of each test.
+ * <p>
+ * By default, tests are skipped if an agent or a debugger is attached, or if JIT
+ * compilation is disabled or limited, and warned about if heap is small or
+ * assertions are enabled.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;RegisterExtension
+ * static EnvironmentGuard guard = EnvironmentGuard.withDefaults()
+ *   .with(EnvironmentChecks.assertions(), CheckPolicy.FAIL);
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class EnvironmentGuard implements BeforeEachCallback {
+
+    static final String REPORT_KEY = "jmh.environment";
+
+    private final Map<String, Rule> rules;
+    private final JvmEnvironment environment;
+    @Nullable
+    private volatile List<Finding> findings;
+
+    EnvironmentGuard(Map<String, Rule> rules, JvmEnvironment environment) {
+        this.rules = Collections.unmodifiableMap(new LinkedHashMap<>(rules));
+        this.environment = environment;
+    }
+
+    /**
+     * Creates a guard with default checks and policies.
+     *
+     * @return a guard
+     */
+    public static EnvironmentGuard withDefaults() {
+        return withDefaults(JvmEnvironment.current());
+    }
+
+    /**
+     * Creates a guard without any checks. It only publishes a fingerprint of
+     * environment.
+     *
+     * @return a guard
+     */
+    public static EnvironmentGuard empty() {
+        return new EnvironmentGuard(Collections.emptyMap(), JvmEnvironment.current());
+    }
+
+    static EnvironmentGuard withDefaults(JvmEnvironment environment) {
+        return new EnvironmentGuard(Collections.emptyMap(), environment)
+            .with(EnvironmentChecks.javaAgent(), CheckPolicy.SKIP)
+            .with(EnvironmentChecks.debugger(), CheckPolicy.SKIP)
+            .with(EnvironmentChecks.nativeAgent(), CheckPolicy.SKIP)
+            .with(EnvironmentChecks.interpreterOnly(), CheckPolicy.SKIP)
+            .with(EnvironmentChecks.compileOnly(), CheckPolicy.SKIP)
+            .with(EnvironmentChecks.limitedTieredCompilation(), CheckPolicy.SKIP)
+            .with(EnvironmentChecks.smallHeap(), CheckPolicy.WARN)
+            .with(EnvironmentChecks.assertions(), CheckPolicy.WARN);
+    }
+
+    /**
+     * Adds a check, or replaces a check of the same name.
+     *
+     * @param check  a check
+     * @param policy a policy used if check detects a problem
+     * @return a guard
+     */
+    public EnvironmentGuard with(EnvironmentCheck check, CheckPolicy policy) {
+        Map<String, Rule> copy = new LinkedHashMap<>(rules);
+        copy.put(check.getName(), new Rule(check, policy));
+        return new EnvironmentGuard(copy, environment);
+    }
+
+    /**
+     * Removes a check of given name.
+     *
+     * @param name a name of check
+     * @return a guard
+     */
+    public EnvironmentGuard without(String name) {
+        Map<String, Rule> copy = new LinkedHashMap<>(rules);
+        copy.remove(name);
+        return new EnvironmentGuard(copy, environment);
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put(REPORT_KEY, environment.getFingerprint());
+        List<String> failures = new ArrayList<>();
+        List<String> skips = new ArrayList<>();
+        for (Finding finding : findings()) {
+            String description = finding.name + ": " + finding.problem;
+            entries.put(
+                REPORT_KEY + "." + finding.name,
+                finding.policy.name().toLowerCase(Locale.ROOT) + ": " + finding.problem
+            );
+            if (finding.policy == CheckPolicy.FAIL) {
+                failures.add(description);
+            } else if (finding.policy == CheckPolicy.SKIP) {
+                skips.add(description);
+            }
+        }
+        context.publishReportEntry(entries);
+        if (!failures.isEmpty()) {
+            fail("Environment is not fit for benchmarking\n" + String.join("\n", failures));
+        }
+        assumeTrue(skips.isEmpty(), () ->
+            "Skipping test due to environment: " + String.join(", ", skips)
+        );
+    }
+
+    List<Finding> findings() {
+        List<Finding> result = findings;
+        if (result == null) {
+            List<Finding> detected = new ArrayList<>();
+            for (Rule rule : rules.values()) {
+                String problem = rule.check.detect(environment);
+                if (problem != null) {
+                    detected.add(new Finding(rule.check.getName(), rule.policy, problem));
+                }
+            }
+            result = Collections.unmodifiableList(detected);
+            findings = result;
+        }
+        return result;
+    }
+
+    static final class Rule {
+        private final EnvironmentCheck check;
+        private final CheckPolicy policy;
+
+        Rule(EnvironmentCheck check, CheckPolicy policy) {
+            this.check = check;
+            this.policy = policy;
+        }
+    }
+
+    static final class Finding {
+        private final String name;
+        private final CheckPolicy policy;
+        private final String problem;
+
+        Finding(String name, CheckPolicy policy, String problem) {
+            this.name = name;
+            this.policy = policy;
+            this.problem = problem;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        CheckPolicy getPolicy() {
+            return policy;
+        }
+
+        String getProblem() {
+            return problem;
+        }
+    }
+}
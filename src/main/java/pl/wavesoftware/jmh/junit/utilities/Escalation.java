@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.util.ListStatistics;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Decides if a {@linkplain ExecutionProfile#SMOKE smoke} run of a benchmark should
+ * be escalated to a full run, because its score deviates strongly from a history.
+ * <p>
+ * A smoke score is compared with a median of last full runs of the same benchmark
+ * and environment, in a {@link ResultHistory} directory given with
+ * {@value #HISTORY_PROPERTY} system property. Smoke runs are short, so only a
+ * large relative deviation counts, 50% by default, or as given with
+ * {@value #THRESHOLD_PROPERTY} system property.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class Escalation {
+
+    static final String HISTORY_PROPERTY = BenchmarkSettings.PREFIX + "history";
+    static final String THRESHOLD_PROPERTY = BenchmarkSettings.PREFIX + "escalationThreshold";
+    private static final double DEFAULT_THRESHOLD = 0.5;
+    private static final int RUNS = 5;
+
+    private final ResultHistory history;
+    private final double threshold;
+
+    Escalation(ResultHistory history, double threshold) {
+        this.history = history;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Creates an escalation, if a history is given.
+     *
+     * @param properties system properties
+     * @return an escalation, or null if there is no history to compare with
+     */
+    @Nullable
+    static Escalation of(Properties properties) {
+        String directory = properties.getProperty(HISTORY_PROPERTY);
+        if (directory == null || directory.trim().isEmpty()) {
+            return null;
+        }
+        String threshold = properties.getProperty(THRESHOLD_PROPERTY);
+        return new Escalation(
+            ResultHistory.in(Paths.get(directory.trim())),
+            threshold == null ? DEFAULT_THRESHOLD : Double.parseDouble(threshold.trim())
+        );
+    }
+
+    /**
+     * Checks smoke results with a history.
+     *
+     * @param results results of a smoke run
+     * @return a reason of escalation, or null if results are in line with a history
+     * @throws IOException if a history can't be read
+     */
+    @Nullable
+    String check(Collection<RunResult> results) throws IOException {
+        for (RunResult result : results) {
+            Result<?> primary = result.getPrimaryResult();
+            String reason = check(
+                RunResults.label(result), primary.getScoreUnit(), primary.getScore()
+            );
+            if (reason != null) {
+                return reason;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    String check(String label, String unit, double score) throws IOException {
+        ListStatistics scores = new ListStatistics();
+        for (HistoryRecord run : history.lastRuns(label, RUNS)) {
+            if (run.getUnit().equals(unit)) {
+                scores.addValue(run.getScore());
+            }
+        }
+        if (scores.getN() == 0) {
+            return null;
+        }
+        double median = scores.getPercentile(50);
+        double deviation = (score - median) / Math.max(Math.abs(median), Double.MIN_NORMAL);
+        if (Math.abs(deviation) <= threshold) {
+            return null;
+        }
+        return String.format(
+            Locale.ROOT,
+            "%s: smoke score %.3f %s deviates %+.1f%% from median %.3f of %d runs",
+            label, score, unit, deviation * 100, median, scores.getN()
+        );
+    }
+}
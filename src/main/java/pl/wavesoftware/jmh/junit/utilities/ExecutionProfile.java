@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * A profile of execution of {@link JmhBenchmark} tests, chosen with
+ * {@value #PROPERTY} system property, for ex.: {@code smoke} for surefire and
+ * {@code full} for failsafe.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+enum ExecutionProfile {
+
+    /**
+     * A minimal run, that only checks a benchmark works: at most 1 fork, 1 short
+     * warmup and 2 short measurement iterations, without adaptive measurement.
+     */
+    SMOKE,
+
+    /**
+     * A run with settings of an annotation, it is a default.
+     */
+    FULL;
+
+    static final String PROPERTY = BenchmarkSettings.PREFIX + "profile";
+
+    static ExecutionProfile current() {
+        return of(System.getProperties());
+    }
+
+    static ExecutionProfile of(Properties properties) {
+        String value = properties.getProperty(PROPERTY);
+        if (value == null || value.trim().isEmpty()) {
+            return FULL;
+        }
+        for (ExecutionProfile profile : values()) {
+            if (profile.name().equalsIgnoreCase(value.trim())) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException(String.format(
+            Locale.ROOT, "Unknown execution profile in %s: %s, expected: smoke or full",
+            PROPERTY, value
+        ));
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import pl.wavesoftware.eid.exceptions.EidIllegalStateException;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * An access to Flight Recorder API of a running JVM. The API is used through
+ * reflection, as it isn't a part of Java 8 API, the library is built against.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class FlightRecorder {
+
+    private static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+    private static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+    private static final String ALLOCATION_IN_NEW_TLAB = "jdk.ObjectAllocationInNewTLAB";
+    private static final String ALLOCATION_OUTSIDE_TLAB = "jdk.ObjectAllocationOutsideTLAB";
+    private static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+    private static final String THREAD_PARK = "jdk.ThreadPark";
+    private static final Pattern PARK_FRAMES = Pattern.compile(
+        "(jdk\\.internal\\.misc|sun\\.misc)\\.Unsafe|java\\.util\\.concurrent\\.locks\\..*"
+    );
+
+    private FlightRecorder() {
+        // not reachable
+    }
+
+    /**
+     * Tells if Flight Recorder API is present in this JVM. Forks of a benchmark run
+     * on the same JVM by default.
+     *
+     * @return true, if Flight Recorder can be used
+     */
+    static boolean isAvailable() {
+        return Api.INSTANCE != null;
+    }
+
+    /**
+     * Starts a recording in this JVM.
+     *
+     * @param settings a name of settings, for ex.: {@code default}
+     * @return a handle of recording
+     * @throws IOException if a recording can't be started
+     */
+    static Object start(String settings) throws IOException {
+        Api api = api();
+        Object configuration = api.invoke(api.getConfiguration, null, settings);
+        Object recording = api.newInstance(api.recording, configuration);
+        api.invoke(api.start, recording);
+        return recording;
+    }
+
+    /**
+     * Stops a recording, and optionally dumps it to a file.
+     *
+     * @param recording a handle of recording
+     * @param file      a file to dump a recording to, or null to discard it
+     * @throws IOException if a recording can't be written
+     */
+    static void stop(Object recording, @Nullable Path file) throws IOException {
+        Api api = api();
+        try {
+            api.invoke(api.stop, recording);
+            if (file != null) {
+                api.invoke(api.dump, recording, file);
+            }
+        } finally {
+            api.invoke(api.close, recording);
+        }
+    }
+
+    /**
+     * Reads recordings event by event, and summarizes hot methods, allocation
+     * sites and lock contention.
+     *
+     * @param files recording files
+     * @return a summary of recordings
+     * @throws IOException if a file can't be read
+     */
+    static JfrSummary summarize(Collection<Path> files) throws IOException {
+        Api api = api();
+        JfrSummary summary = new JfrSummary();
+        for (Path file : files) {
+            Object recordingFile = api.newInstance(api.recordingFile, file);
+            try {
+                while ((Boolean) api.invoke(api.hasMoreEvents, recordingFile)) {
+                    consume(api, summary, api.invoke(api.readEvent, recordingFile));
+                }
+            } finally {
+                api.invoke(api.closeFile, recordingFile);
+            }
+        }
+        return summary;
+    }
+
+    private static void consume(Api api, JfrSummary summary, Object event) throws IOException {
+        Object type = api.invoke(api.getEventType, event);
+        String name = (String) api.invoke(api.getTypeName, type);
+        switch (name) {
+            case EXECUTION_SAMPLE:
+                summary.sampled(topFrame(api, event));
+                break;
+            case ALLOCATION_SAMPLE:
+                summary.allocationSampled(allocationSite(api, event), number(api, event, "weight"));
+                break;
+            case ALLOCATION_IN_NEW_TLAB:
+                summary.allocated(allocationSite(api, event), number(api, event, "tlabSize"));
+                break;
+            case ALLOCATION_OUTSIDE_TLAB:
+                summary.allocated(allocationSite(api, event), number(api, event, "allocationSize"));
+                break;
+            case MONITOR_ENTER:
+                summary.blocked(site(api, event, "monitorClass"), duration(api, event));
+                break;
+            case THREAD_PARK:
+                summary.blocked(parkSite(api, event), duration(api, event));
+                break;
+            default:
+                // not summarized
+        }
+    }
+
+    private static String allocationSite(Api api, Object event) throws IOException {
+        return site(api, event, "objectClass");
+    }
+
+    private static String site(Api api, Object event, String classField) throws IOException {
+        return className(api, event, classField) + " at " + topFrame(api, event, null);
+    }
+
+    /**
+     * A site of parking, skipping frames of park implementation, that are on top of
+     * each such event.
+     */
+    private static String parkSite(Api api, Object event) throws IOException {
+        return className(api, event, "parkedClass") + " at " + topFrame(api, event, PARK_FRAMES);
+    }
+
+    private static String className(Api api, Object event, String classField) throws IOException {
+        Object type = value(api, event, classField);
+        return type == null ? "?" : (String) api.invoke(api.getClassName, type);
+    }
+
+    private static String topFrame(Api api, Object event) throws IOException {
+        return topFrame(api, event, null);
+    }
+
+    private static String topFrame(Api api,
+                                   Object event,
+                                   @Nullable Pattern skipped) throws IOException {
+        Object stackTrace = api.invoke(api.getStackTrace, event);
+        if (stackTrace == null) {
+            return "?";
+        }
+        for (Object frame : (List<?>) api.invoke(api.getFrames, stackTrace)) {
+            if (!(Boolean) api.invoke(api.isJavaFrame, frame)) {
+                continue;
+            }
+            Object method = api.invoke(api.getMethod, frame);
+            String type = (String) api.invoke(api.getClassName, api.invoke(api.getMethodType, method));
+            if (skipped == null || !skipped.matcher(type).matches()) {
+                return type + "::" + api.invoke(api.getMethodName, method);
+            }
+        }
+        return "?";
+    }
+
+    private static long number(Api api, Object event, String field) throws IOException {
+        Object value = value(api, event, field);
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static long duration(Api api, Object event) throws IOException {
+        return ((Duration) api.invoke(api.getDuration, event)).toNanos();
+    }
+
+    @Nullable
+    private static Object value(Api api, Object event, String field) throws IOException {
+        if (!(Boolean) api.invoke(api.hasField, event, field)) {
+            return null;
+        }
+        return api.invoke(api.getValue, event, field);
+    }
+
+    private static Api api() {
+        Api api = Api.INSTANCE;
+        if (api == null) {
+            throw new IllegalStateException("Flight Recorder isn't available in this JVM");
+        }
+        return api;
+    }
+
+    /**
+     * Reflective handles of Flight Recorder API, resolved once.
+     */
+    private static final class Api {
+        @Nullable
+        private static final Api INSTANCE = load();
+
+        private final Class<?> recording;
+        private final Class<?> recordingFile;
+        private final Method getConfiguration;
+        private final Method start;
+        private final Method stop;
+        private final Method dump;
+        private final Method close;
+        private final Method hasMoreEvents;
+        private final Method readEvent;
+        private final Method closeFile;
+        private final Method getEventType;
+        private final Method getTypeName;
+        private final Method getStackTrace;
+        private final Method getDuration;
+        private final Method hasField;
+        private final Method getValue;
+        private final Method getFrames;
+        private final Method isJavaFrame;
+        private final Method getMethod;
+        private final Method getMethodType;
+        private final Method getMethodName;
+        private final Method getClassName;
+
+        private Api() throws ReflectiveOperationException {
+            recording = Class.forName("jdk.jfr.Recording");
+            recordingFile = Class.forName("jdk.jfr.consumer.RecordingFile");
+            Class<?> configuration = Class.forName("jdk.jfr.Configuration");
+            Class<?> recordedObject = Class.forName("jdk.jfr.consumer.RecordedObject");
+            Class<?> recordedEvent = Class.forName("jdk.jfr.consumer.RecordedEvent");
+            Class<?> recordedFrame = Class.forName("jdk.jfr.consumer.RecordedFrame");
+            Class<?> recordedMethod = Class.forName("jdk.jfr.consumer.RecordedMethod");
+            getConfiguration = configuration.getMethod("getConfiguration", String.class);
+            start = recording.getMethod("start");
+            stop = recording.getMethod("stop");
+            dump = recording.getMethod("dump", Path.class);
+            close = recording.getMethod("close");
+            hasMoreEvents = recordingFile.getMethod("hasMoreEvents");
+            readEvent = recordingFile.getMethod("readEvent");
+            closeFile = recordingFile.getMethod("close");
+            getEventType = recordedEvent.getMethod("getEventType");
+            getTypeName = Class.forName("jdk.jfr.EventType").getMethod("getName");
+            getStackTrace = recordedEvent.getMethod("getStackTrace");
+            getDuration = recordedEvent.getMethod("getDuration");
+            hasField = recordedObject.getMethod("hasField", String.class);
+            getValue = recordedObject.getMethod("getValue", String.class);
+            getFrames = Class.forName("jdk.jfr.consumer.RecordedStackTrace").getMethod("getFrames");
+            isJavaFrame = recordedFrame.getMethod("isJavaFrame");
+            getMethod = recordedFrame.getMethod("getMethod");
+            getMethodType = recordedMethod.getMethod("getType");
+            getMethodName = recordedMethod.getMethod("getName");
+            getClassName = Class.forName("jdk.jfr.consumer.RecordedClass").getMethod("getName");
+        }
+
+        @Nullable
+        private static Api load() {
+            try {
+                return new Api();
+            } catch (ReflectiveOperationException | LinkageError ex) {
+                return null;
+            }
+        }
+
+        private Object newInstance(Class<?> type, Object argument) throws IOException {
+            try {
+                for (Constructor<?> constructor : type.getConstructors()) {
+                    if (constructor.getParameterCount() == 1
+                        && constructor.getParameterTypes()[0].isInstance(argument)) {
+                        return constructor.newInstance(argument);
+                    }
+                }
+                throw new NoSuchMethodException(type.getName() + "(" + argument.getClass() + ")");
+            } catch (InvocationTargetException ex) {
+                throw unwrap(ex);
+            } catch (ReflectiveOperationException ex) {
+                throw new EidIllegalStateException("20261017:143112", ex);
+            }
+        }
+
+        @Nullable
+        private Object invoke(Method method,
+                              @Nullable Object target,
+                              Object... arguments) throws IOException {
+            try {
+                return method.invoke(target, arguments);
+            } catch (InvocationTargetException ex) {
+                throw unwrap(ex);
+            } catch (IllegalAccessException ex) {
+                throw new EidIllegalStateException("20261017:143127", ex);
+            }
+        }
+
+        private static RuntimeException unwrap(InvocationTargetException ex) throws IOException {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                return (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            return new EidIllegalStateException("20261017:143151", cause);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.Result;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A JMH profiler, that starts a Flight Recorder recording in each forked JVM, and
+ * writes it to a separate file at JVM exit. Its init line has settings and a path
+ * prefix of recording files, for ex.: {@code settings=default;file=target/jfr/bench}.
+ * Files are named with a fork number, for ex.: {@code bench.fork-1.jfr}.
+ * <p>
+ * Example:
+ * <pre>
+ * new OptionsBuilder().addProfiler(
+ *   FlightRecorderProfiler.class, "settings=profile;file=target/jfr/bench"
+ * );
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class FlightRecorderProfiler implements ExternalProfiler {
+
+    static final String FORK_SUFFIX = ".fork-";
+    private static final AtomicInteger FORKS = new AtomicInteger();
+
+    private final String settings;
+    private final String file;
+
+    /**
+     * Creates a profiler recording forks.
+     *
+     * @param initLine settings and a path prefix of recording files
+     */
+    public FlightRecorderProfiler(String initLine) {
+        Map<String, String> options = new HashMap<>();
+        for (String option : initLine.split(";")) {
+            int separator = option.indexOf('=');
+            if (separator > 0) {
+                options.put(option.substring(0, separator).trim(), option.substring(separator + 1).trim());
+            }
+        }
+        this.settings = options.getOrDefault("settings", "default");
+        this.file = options.getOrDefault("file", "");
+        if (file.isEmpty() || file.indexOf(',') >= 0 || settings.indexOf(',') >= 0) {
+            throw new IllegalArgumentException(
+                "Settings and a file prefix without commas are required, but was: " + initLine
+            );
+        }
+    }
+
+    static String initLine(String settings, String file) {
+        return "settings=" + settings + ";file=" + file;
+    }
+
+    @Override
+    public Collection<String> addJVMInvokeOptions(BenchmarkParams params) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<String> addJVMOptions(BenchmarkParams params) {
+        String filename = file + FORK_SUFFIX + FORKS.incrementAndGet() + ".jfr";
+        return Collections.singletonList(
+            "-XX:StartFlightRecording=settings=" + settings + ",filename=" + filename
+                + ",dumponexit=true"
+        );
+    }
+
+    @Override
+    public void beforeTrial(BenchmarkParams benchmarkParams) {
+        // nothing to prepare
+    }
+
+    @Override
+    public Collection<? extends Result<?>> afterTrial(BenchmarkResult br, long pid,
+                                                      File stdOut, File stdErr) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean allowPrintOut() {
+        return true;
+    }
+
+    @Override
+    public boolean allowPrintErr() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Records forked JVMs with Flight Recorder";
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Records a test with Flight Recorder, and publishes a summary of a recording as
+ * report entries: top hot methods ({@code jmh.jfr.hot.N}), allocation sites
+ * ({@code jmh.jfr.allocation.N}) and contended locks ({@code jmh.jfr.lock.N}).
+ * <p>
+ * Forks of a {@link JmhBenchmark} are recorded each to its own file, an in-process
+ * benchmark or a plain test is recorded in the test JVM. Recordings are written to
+ * {@code target/jfr}, or to a directory given by {@code jmh.junit.jfr.dir} system
+ * property, so they can be opened in JDK Mission Control. Flight Recorder is a part
+ * of a JVM, not an agent, so it doesn't trigger {@link JavaAgentSkip}. On a JVM
+ * without Flight Recorder, a test runs without a recording.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;FlightRecording(top = 10)
+ * &#64;JmhBenchmark(value = ParserBenchmark.class, forks = 1)
+ * void parse() {
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@Documented
+@Inherited
+@Target({ElementType.METHOD, ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(FlightRecordingExtension.class)
+public @interface FlightRecording {
+
+    /**
+     * Flight Recorder settings, {@code default} has a low overhead, and
+     * {@code profile} records more events.
+     *
+     * @return a name of settings
+     */
+    String settings() default "default";
+
+    /**
+     * A number of entries in each section of a summary.
+     *
+     * @return a number of top entries
+     */
+    int top() default 5;
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records a {@link FlightRecording} test, and publishes a summary of its recording.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class FlightRecordingExtension
+    implements BeforeEachCallback, BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    static final String DIRECTORY_PROPERTY = BenchmarkSettings.PREFIX + "jfr.dir";
+    private static final String DEFAULT_DIRECTORY = "target/jfr";
+    private static final ExtensionContext.Namespace NAMESPACE =
+        ExtensionContext.Namespace.create(FlightRecordingExtension.class);
+    private static final String RECORDING = "recording";
+    private static final String REPORT_KEY_PREFIX = "jmh.jfr.";
+
+    @Override
+    public void beforeEach(ExtensionContext context) throws IOException {
+        if (!FlightRecorder.isAvailable()) {
+            context.publishReportEntry(
+                REPORT_KEY_PREFIX + "recording", "Flight Recorder isn't available in this JVM"
+            );
+            return;
+        }
+        Path prefix = prefix(context);
+        Files.createDirectories(prefix.getParent());
+        for (Path file : forkRecordings(prefix)) {
+            Files.deleteIfExists(file);
+        }
+        String initLine = FlightRecorderProfiler.initLine(
+            recording(context).settings(), prefix.toString()
+        );
+        JmhBenchmarkExtension.customize(
+            context, builder -> builder.addProfiler(FlightRecorderProfiler.class, initLine)
+        );
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) throws IOException {
+        if (FlightRecorder.isAvailable()) {
+            context.getStore(NAMESPACE).put(
+                RECORDING, FlightRecorder.start(recording(context).settings())
+            );
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) throws IOException {
+        Object recording = context.getStore(NAMESPACE).remove(RECORDING);
+        if (recording == null) {
+            return;
+        }
+        Path prefix = prefix(context);
+        List<Path> files = forkRecordings(prefix);
+        if (files.isEmpty()) {
+            Path file = Paths.get(prefix + ".jfr");
+            FlightRecorder.stop(recording, file);
+            files = Collections.singletonList(file);
+        } else {
+            // benchmark was run in forks, test JVM was just waiting for them
+            FlightRecorder.stop(recording, null);
+        }
+        JfrSummary summary = FlightRecorder.summarize(files);
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put(REPORT_KEY_PREFIX + "recording", files.size() == 1
+            ? files.get(0).toString()
+            : files.size() + " files " + prefix + FlightRecorderProfiler.FORK_SUFFIX + "*.jfr"
+        );
+        entries.putAll(summary.toReportEntries(REPORT_KEY_PREFIX, recording(context).top()));
+        context.publishReportEntry(entries);
+    }
+
+    private static Path prefix(ExtensionContext context) {
+        Path directory = Paths.get(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY));
+        String name = context.getRequiredTestClass().getSimpleName()
+            + "." + context.getRequiredTestMethod().getName()
+            + "-" + context.getDisplayName();
+        return directory.toAbsolutePath().resolve(name.replaceAll("[^A-Za-z0-9._-]", "_"));
+    }
+
+    private static List<Path> forkRecordings(Path prefix) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(prefix.getParent())) {
+            return files;
+        }
+        String glob = prefix.getFileName() + FlightRecorderProfiler.FORK_SUFFIX + "*.jfr";
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(prefix.getParent(), glob)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    private static FlightRecording recording(ExtensionContext context) {
+        return TestAnnotations.require(context, FlightRecording.class);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fails a test if garbage collections during it exceed given limits, for ex.: when
+ * latency sensitive code triggers old generation collections under steady load.
+ * <p>
+ * GC notifications of every {@link java.lang.management.GarbageCollectorMXBean} are
+ * collected for a duration of a test, with pause durations, causes and heap usage
+ * before and after each collection. A timeline of collections is published as
+ * {@code jmh.gc.timeline.*} report entries. For a {@link JmhBenchmark} test, the
+ * notifications are collected in each fork during measurement iterations, and limits
+ * are checked for each benchmark. Bytes promoted are an increase of old generation
+ * during young collections. Collections of concurrent collectors, that run next to
+ * an application, don't count as pauses.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;JmhBenchmark(value = OrderBookBenchmark.class, forks = 1)
+ * &#64;GcBudget(maxOldCount = 0, maxPause = 20)
+ * void noOldCollections() {
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@Documented
+@Inherited
+@Target({ElementType.METHOD, ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(GcBudgetExtension.class)
+public @interface GcBudget {
+
+    /**
+     * A value used for limits that are not set.
+     */
+    int UNSET = -1;
+
+    /**
+     * A maximum duration of a single GC pause, in {@link #unit()}.
+     *
+     * @return a maximum pause
+     */
+    long maxPause() default UNSET;
+
+    /**
+     * A unit of a maximum pause.
+     *
+     * @return a time unit
+     */
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * A maximum number of young generation collections.
+     *
+     * @return a maximum number of young collections
+     */
+    long maxYoungCount() default UNSET;
+
+    /**
+     * A maximum number of old generation, or full, collections.
+     *
+     * @return a maximum number of old collections
+     */
+    long maxOldCount() default UNSET;
+
+    /**
+     * A maximum number of bytes promoted to old generation.
+     *
+     * @return a maximum of promoted bytes
+     */
+    long maxPromoted() default UNSET;
+
+    /**
+     * A maximum number of collections published in a timeline of a report.
+     *
+     * @return a number of collections in a timeline
+     */
+    int timeline() default 50;
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.openjdk.jmh.results.RunResult;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Collects garbage collections of a test, and checks them against its
+ * {@link GcBudget}.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class GcBudgetExtension
+    implements BeforeEachCallback, BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+        ExtensionContext.Namespace.create(GcBudgetExtension.class);
+    private static final String MONITOR = "monitor";
+    private static final String REPORT_KEY_PREFIX = "jmh.gc.";
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        JmhBenchmarkExtension.customize(
+            context, builder -> builder.addProfiler(GcNotificationProfiler.class)
+        );
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(MONITOR, GcMonitor.start());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) throws InterruptedException {
+        GcMonitor monitor = context.getStore(NAMESPACE).remove(MONITOR, GcMonitor.class);
+        if (monitor == null) {
+            return;
+        }
+        List<GcEvent> events = monitor.stop();
+        GcBudget budget = budget(context);
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(budget.timeline(), events.size()); i++) {
+            entries.put(REPORT_KEY_PREFIX + "timeline." + (i + 1), events.get(i).toString());
+        }
+        Map<String, GcTotals> measured = measured(context, events);
+        List<String> exceeded = new ArrayList<>();
+        for (Map.Entry<String, GcTotals> entry : measured.entrySet()) {
+            entries.put(REPORT_KEY_PREFIX + entry.getKey(), entry.getValue().toString());
+            for (String limit : entry.getValue().exceeded(budget)) {
+                exceeded.add(entry.getKey() + ": " + limit);
+            }
+        }
+        context.publishReportEntry(entries);
+        if (!context.getExecutionException().isPresent() && !exceeded.isEmpty()) {
+            fail("GC budget exceeded\n" + String.join("\n", exceeded));
+        }
+    }
+
+    /**
+     * Gets totals of each benchmark profiled in forks, or totals of a test itself.
+     */
+    private static Map<String, GcTotals> measured(ExtensionContext context,
+                                                  List<GcEvent> events) {
+        Map<String, GcTotals> measured = new LinkedHashMap<>();
+        for (RunResult result : JmhBenchmarkExtension.getResults(context)) {
+            GcTotals totals = GcTotals.of(result);
+            if (totals != null) {
+                measured.put(RunResults.label(result), totals);
+            }
+        }
+        if (measured.isEmpty()) {
+            measured.put(context.getDisplayName(), GcTotals.of(events));
+        }
+        return measured;
+    }
+
+    private static GcBudget budget(ExtensionContext context) {
+        return TestAnnotations.require(context, GcBudget.class);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+
+import java.lang.management.MemoryUsage;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A single garbage collection, taken from a GC notification.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class GcEvent {
+
+    private static final Pattern OLD_POOL = Pattern.compile(".*(Old|Tenured).*");
+    private static final Pattern CONCURRENT = Pattern.compile(".*(Concurrent|Cycles).*");
+
+    private final String collector;
+    private final String action;
+    private final String cause;
+    private final long startMillis;
+    private final long durationMillis;
+    private final long usedBefore;
+    private final long usedAfter;
+    private final long promoted;
+
+    GcEvent(String collector, String action, String cause, long startMillis,
+            long durationMillis, long usedBefore, long usedAfter, long promoted) {
+        this.collector = collector;
+        this.action = action;
+        this.cause = cause;
+        this.startMillis = startMillis;
+        this.durationMillis = durationMillis;
+        this.usedBefore = usedBefore;
+        this.usedAfter = usedAfter;
+        this.promoted = promoted;
+    }
+
+    static GcEvent of(GarbageCollectionNotificationInfo notification) {
+        GcInfo info = notification.getGcInfo();
+        Map<String, MemoryUsage> before = info.getMemoryUsageBeforeGc();
+        Map<String, MemoryUsage> after = info.getMemoryUsageAfterGc();
+        long oldBefore = 0;
+        long oldAfter = 0;
+        for (Map.Entry<String, MemoryUsage> pool : after.entrySet()) {
+            if (OLD_POOL.matcher(pool.getKey()).matches()) {
+                MemoryUsage previous = before.get(pool.getKey());
+                oldBefore += previous == null ? 0 : previous.getUsed();
+                oldAfter += pool.getValue().getUsed();
+            }
+        }
+        String action = notification.getGcAction();
+        return new GcEvent(
+            notification.getGcName(), action, notification.getGcCause(),
+            info.getStartTime(), info.getDuration(), used(before), used(after),
+            isMajor(action) ? 0 : Math.max(0, oldAfter - oldBefore)
+        );
+    }
+
+    String getCollector() {
+        return collector;
+    }
+
+    String getCause() {
+        return cause;
+    }
+
+    long getDurationMillis() {
+        return durationMillis;
+    }
+
+    long getPromoted() {
+        return promoted;
+    }
+
+    /**
+     * Tells if it is an old generation, or a full, collection.
+     *
+     * @return true for an old collection
+     */
+    boolean isOld() {
+        return isMajor(action);
+    }
+
+    /**
+     * Tells if a collection stopped an application. Cycles of concurrent collectors
+     * run next to an application.
+     *
+     * @return true for a pause
+     */
+    boolean isPause() {
+        return !CONCURRENT.matcher(collector).matches() && !action.contains("cycle");
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            Locale.ROOT, "+%d ms %s, %s (%s): %s %d ms, heap %s -> %s, promoted %s",
+            startMillis, collector, action, cause, isPause() ? "pause" : "concurrent",
+            durationMillis, JfrSummary.formatBytes(usedBefore),
+            JfrSummary.formatBytes(usedAfter), JfrSummary.formatBytes(promoted)
+        );
+    }
+
+    private static boolean isMajor(String action) {
+        return action.contains("major");
+    }
+
+    private static long used(Map<String, MemoryUsage> pools) {
+        long used = 0;
+        for (MemoryUsage usage : pools.values()) {
+            used += usage.getUsed();
+        }
+        return used;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects GC notifications of every garbage collector of this JVM, between its
+ * start and stop. Only collections done after start are collected.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class GcMonitor implements NotificationListener {
+
+    private static final long DELIVERY_TIMEOUT_MILLIS = 1_000;
+
+    private final List<GarbageCollectorMXBean> collectors;
+    private final Map<String, Long> startCounts = new HashMap<>();
+    private final List<GcEvent> events = new ArrayList<>();
+
+    private GcMonitor(List<GarbageCollectorMXBean> collectors) {
+        this.collectors = collectors;
+        for (GarbageCollectorMXBean collector : collectors) {
+            startCounts.put(collector.getName(), collector.getCollectionCount());
+        }
+    }
+
+    /**
+     * Starts collecting GC notifications.
+     *
+     * @return a started monitor
+     */
+    static GcMonitor start() {
+        GcMonitor monitor = new GcMonitor(ManagementFactory.getGarbageCollectorMXBeans());
+        for (GarbageCollectorMXBean collector : monitor.collectors) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener(monitor, null, null);
+            }
+        }
+        return monitor;
+    }
+
+    /**
+     * Stops collecting GC notifications. As notifications are delivered
+     * asynchronously, it waits a while for ones of collections already done.
+     *
+     * @return collections in order of notifications
+     * @throws InterruptedException if interrupted while waiting for notifications
+     */
+    List<GcEvent> stop() throws InterruptedException {
+        long expected = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            expected += collector.getCollectionCount() - startCounts.get(collector.getName());
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DELIVERY_TIMEOUT_MILLIS);
+        while (getEvents().size() < expected && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        for (GarbageCollectorMXBean collector : collectors) {
+            if (collector instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) collector).removeNotificationListener(this);
+                } catch (ListenerNotFoundException ex) {
+                    // not registered
+                }
+            }
+        }
+        return getEvents();
+    }
+
+    synchronized List<GcEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+            .equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+            (CompositeData) notification.getUserData()
+        );
+        Long startCount = startCounts.get(info.getGcName());
+        if (startCount != null && info.getGcInfo().getId() <= startCount) {
+            return;
+        }
+        synchronized (this) {
+            events.add(GcEvent.of(info));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.runner.IterationType;
+import pl.wavesoftware.eid.exceptions.EidIllegalStateException;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A JMH profiler, that collects GC notifications during each measurement iteration,
+ * and reports a maximal pause ({@code gc.pause.max}), numbers of young and old
+ * collections ({@code gc.young.count}, {@code gc.old.count}) and bytes promoted to
+ * old generation ({@code gc.promoted}) as secondary results.
+ * <p>
+ * Example:
+ * <pre>
+ * new OptionsBuilder().addProfiler(GcNotificationProfiler.class);
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class GcNotificationProfiler implements InternalProfiler {
+
+    @Nullable
+    private GcMonitor monitor;
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams,
+                                IterationParams iterationParams) {
+        if (iterationParams.getType() == IterationType.MEASUREMENT) {
+            monitor = GcMonitor.start();
+        }
+    }
+
+    @Override
+    public Collection<? extends Result<?>> afterIteration(BenchmarkParams benchmarkParams,
+                                                          IterationParams iterationParams,
+                                                          IterationResult result) {
+        GcMonitor current = monitor;
+        if (current == null) {
+            return Collections.emptyList();
+        }
+        monitor = null;
+        try {
+            return GcTotals.of(current.stop()).toResults();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new EidIllegalStateException("20261017:181204", ex);
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "GC pauses, young and old collections and promotion, from GC notifications";
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.ScalarResult;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Totals of garbage collections, that are checked against a {@link GcBudget}. They
+ * are computed from GC notifications, or read from results of a benchmark profiled
+ * with {@link GcNotificationProfiler}.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class GcTotals {
+
+    static final String MAX_PAUSE = "gc.pause.max";
+    static final String YOUNG_COUNT = "gc.young.count";
+    static final String OLD_COUNT = "gc.old.count";
+    static final String PROMOTED = "gc.promoted";
+
+    private final long maxPauseMillis;
+    private final long youngCount;
+    private final long oldCount;
+    private final long promoted;
+
+    GcTotals(long maxPauseMillis, long youngCount, long oldCount, long promoted) {
+        this.maxPauseMillis = maxPauseMillis;
+        this.youngCount = youngCount;
+        this.oldCount = oldCount;
+        this.promoted = promoted;
+    }
+
+    static GcTotals of(Collection<GcEvent> events) {
+        long maxPause = 0;
+        long young = 0;
+        long old = 0;
+        long promoted = 0;
+        for (GcEvent event : events) {
+            if (event.isPause()) {
+                maxPause = Math.max(maxPause, event.getDurationMillis());
+            }
+            if (event.isOld()) {
+                old++;
+            } else {
+                young++;
+            }
+            promoted += event.getPromoted();
+        }
+        return new GcTotals(maxPause, young, old, promoted);
+    }
+
+    /**
+     * Reads totals from secondary results of a benchmark.
+     *
+     * @param result a result of a benchmark
+     * @return totals, or null if a benchmark wasn't profiled
+     */
+    @Nullable
+    static GcTotals of(RunResult result) {
+        Map<String, ?> secondary = result.getAggregatedResult().getSecondaryResults();
+        if (!secondary.containsKey(MAX_PAUSE)) {
+            return null;
+        }
+        return new GcTotals(
+            score(secondary, MAX_PAUSE), score(secondary, YOUNG_COUNT),
+            score(secondary, OLD_COUNT), score(secondary, PROMOTED)
+        );
+    }
+
+    List<ScalarResult> toResults() {
+        return Arrays.asList(
+            new ScalarResult(MAX_PAUSE, maxPauseMillis, "ms", AggregationPolicy.MAX),
+            new ScalarResult(YOUNG_COUNT, youngCount, "counts", AggregationPolicy.SUM),
+            new ScalarResult(OLD_COUNT, oldCount, "counts", AggregationPolicy.SUM),
+            new ScalarResult(PROMOTED, promoted, "bytes", AggregationPolicy.SUM)
+        );
+    }
+
+    /**
+     * Finds limits of a budget, that are exceeded.
+     *
+     * @param budget a GC budget
+     * @return descriptions of exceeded limits
+     */
+    List<String> exceeded(GcBudget budget) {
+        List<String> exceeded = new ArrayList<>();
+        if (budget.maxPause() != GcBudget.UNSET
+            && maxPauseMillis > budget.unit().toMillis(budget.maxPause())) {
+            exceeded.add(String.format(Locale.ROOT, "max pause %d ms, limit %d %s",
+                maxPauseMillis, budget.maxPause(), LatencyHistogram.unitSymbol(budget.unit())));
+        }
+        if (budget.maxYoungCount() != GcBudget.UNSET && youngCount > budget.maxYoungCount()) {
+            exceeded.add(String.format(Locale.ROOT, "%d young collections, limit %d",
+                youngCount, budget.maxYoungCount()));
+        }
+        if (budget.maxOldCount() != GcBudget.UNSET && oldCount > budget.maxOldCount()) {
+            exceeded.add(String.format(Locale.ROOT, "%d old collections, limit %d",
+                oldCount, budget.maxOldCount()));
+        }
+        if (budget.maxPromoted() != GcBudget.UNSET && promoted > budget.maxPromoted()) {
+            exceeded.add(String.format(Locale.ROOT, "promoted %s, limit %s",
+                JfrSummary.formatBytes(promoted), JfrSummary.formatBytes(budget.maxPromoted())));
+        }
+        return exceeded;
+    }
+
+    private static long score(Map<String, ?> secondary, String label) {
+        Result<?> result = (Result<?>) secondary.get(label);
+        return result == null ? 0L : Math.round(result.getScore());
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            Locale.ROOT, "max pause %d ms, %d young and %d old collections, promoted %s",
+            maxPauseMillis, youngCount, oldCount, JfrSummary.formatBytes(promoted)
+        );
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Finds a git commit of a tested code. It is taken from {@value #PROPERTY}
+ * system property, from commit variables of popular CI servers, or read from
+ * {@code .git} directory of a working directory or its parents, without running
+ * git itself.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class GitCommit {
+
+    static final String PROPERTY = "jmh.junit.commit";
+    static final String UNKNOWN = "unknown";
+
+    private static final String[] VARIABLES = {"GIT_COMMIT", "GITHUB_SHA", "CI_COMMIT_SHA"};
+    private static final String REF_PREFIX = "ref: ";
+    private static final String GITDIR_PREFIX = "gitdir: ";
+
+    private GitCommit() {
+        // not reachable
+    }
+
+    static String current() {
+        String commit = System.getProperty(PROPERTY);
+        for (int i = 0; commit == null && i < VARIABLES.length; i++) {
+            commit = System.getenv(VARIABLES[i]);
+        }
+        if (commit == null) {
+            commit = read(Paths.get(System.getProperty("user.dir")).toAbsolutePath());
+        }
+        return commit == null || commit.trim().isEmpty() ? UNKNOWN : commit.trim();
+    }
+
+    @Nullable
+    static String read(Path directory) {
+        try {
+            for (Path current = directory; current != null; current = current.getParent()) {
+                Path git = current.resolve(".git");
+                if (Files.isRegularFile(git)) {
+                    // a worktree or a submodule points to its git directory
+                    String pointer = firstLine(git);
+                    if (pointer != null && pointer.startsWith(GITDIR_PREFIX)) {
+                        return head(current.resolve(pointer.substring(GITDIR_PREFIX.length())));
+                    }
+                }
+                if (Files.isDirectory(git)) {
+                    return head(git);
+                }
+            }
+            return null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static String head(Path git) throws IOException {
+        String head = firstLine(git.resolve("HEAD"));
+        if (head == null || !head.startsWith(REF_PREFIX)) {
+            return head;
+        }
+        String ref = head.substring(REF_PREFIX.length());
+        // refs of a worktree are kept in a common git directory
+        String common = firstLine(git.resolve("commondir"));
+        Path refs = common != null ? git.resolve(common) : git;
+        String commit = firstLine(refs.resolve(ref));
+        return commit != null ? commit : packedRef(refs, ref);
+    }
+
+    @Nullable
+    private static String packedRef(Path git, String ref) throws IOException {
+        Path packed = git.resolve("packed-refs");
+        if (!Files.isRegularFile(packed)) {
+            return null;
+        }
+        for (String line : Files.readAllLines(packed, StandardCharsets.UTF_8)) {
+            if (line.endsWith(" " + ref)) {
+                return line.substring(0, line.indexOf(' '));
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static String firstLine(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        return lines.isEmpty() ? null : lines.get(0).trim();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.time.Instant;
+
+/**
+ * A result of a single run of a benchmark, stored in a {@link ResultHistory}.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class HistoryRecord {
+
+    private final Instant timestamp;
+    private final String label;
+    private final String fingerprint;
+    private final String commit;
+    private final String unit;
+    private final double score;
+    private final double scoreError;
+    private final double[] samples;
+
+    HistoryRecord(Instant timestamp,
+                  String label,
+                  String fingerprint,
+                  String commit,
+                  String unit,
+                  double score,
+                  double scoreError,
+                  double[] samples) {
+        this.timestamp = timestamp;
+        this.label = label;
+        this.fingerprint = fingerprint;
+        this.commit = commit;
+        this.unit = unit;
+        this.score = score;
+        this.scoreError = scoreError;
+        this.samples = samples.clone();
+    }
+
+    /**
+     * Gets a time when a result was recorded.
+     *
+     * @return a time of a run
+     */
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets a label of a benchmark: its name, parameters and mode, for ex.:
+     * {@code pl.acme.MyBenchmark.run(size=10) [thrpt]}.
+     *
+     * @return a label of a benchmark
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Gets a description of JVM and machine, that a benchmark run on.
+     *
+     * @return an environment fingerprint
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Gets a git commit of a tested code.
+     *
+     * @return a commit id, or {@code unknown}
+     */
+    public String getCommit() {
+        return commit;
+    }
+
+    /**
+     * Gets a unit of a score, for ex.: {@code ops/ms}.
+     *
+     * @return a score unit
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * Gets a primary score of a benchmark.
+     *
+     * @return a score
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Gets an error of a primary score, {@code NaN} if unknown.
+     *
+     * @return a score error
+     */
+    public double getScoreError() {
+        return scoreError;
+    }
+
+    /**
+     * Gets raw scores of every measurement iteration of every fork.
+     *
+     * @return raw scores of iterations
+     */
+    public double[] getSamples() {
+        return samples.clone();
+    }
+
+    @Override
+    public String toString() {
+        return label + " @ " + commit + ": " + RunResults.format(score, scoreError, unit);
+    }
+}
@@ -21,7 +21,6 @@ import org.junit.jupiter.api.extension.ExtensionContext;
 
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
-import java.util.List;
 
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
@@ -35,12 +34,13 @@ import static org.junit.jupiter.api.Assumptions.assumeTrue;
  * &#64;RegisterExtension
  * static JavaAgentSkip javaAgentSkip = JavaAgentSkip.ifPresent();
  * </pre>
+ * To check other settings of JVM, that affect benchmarks, use {@link EnvironmentGuard}.
  * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
  * @since 29.03.16
  */
 public final class JavaAgentSkip implements BeforeEachCallback {
 
-    private static final String JAVAAGENT = "-javaagent:";
+    private static final EnvironmentCheck JAVA_AGENT = EnvironmentChecks.javaAgent();
     static final String DEFAULT_MESSAGE_FORMAT =
         "Skipping test due to JavaAgentSkip set to %s";
 
@@ -48,7 +48,7 @@ public final class JavaAgentSkip implements BeforeEachCallback {
         ManagementFactory.getRuntimeMXBean();
     private final boolean isActive;
     private final String messageFormat;
-    private final RuntimeMXBean runtimeMxBean;
+    private final JvmEnvironment environment;
 
     private JavaAgentSkip(boolean isActive) {
         this(isActive, DEFAULT_MESSAGE_FORMAT, DEFAULT_RUNTIME_MXBEAN);
@@ -57,7 +57,9 @@ public final class JavaAgentSkip implements BeforeEachCallback {
     protected JavaAgentSkip(boolean isActive, String messageFormat, RuntimeMXBean runtimeMxBean) {
         this.isActive = isActive;
         this.messageFormat = messageFormat;
-        this.runtimeMxBean = runtimeMxBean;
+        this.environment = runtimeMxBean == DEFAULT_RUNTIME_MXBEAN
+            ? JvmEnvironment.current()
+            : JvmEnvironment.of(runtimeMxBean);
     }
 
     @Override
@@ -108,14 +110,6 @@ public final class JavaAgentSkip implements BeforeEachCallback {
     }
 
     private boolean isAgentThere() {
-        List<String> arguments = runtimeMxBean.getInputArguments();
-        boolean agent = false;
-        for (String argument : arguments) {
-            if (argument.startsWith(JAVAAGENT)) {
-                agent = true;
-                break;
-            }
-        }
-        return agent;
+        return JAVA_AGENT.detect(environment) != null;
     }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A summary of Flight Recorder events: hot methods by execution samples,
+ * allocation sites by allocated bytes, and contended locks by blocked time.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class JfrSummary {
+
+    private static final String[] BYTE_UNITS = {"B", "KiB", "MiB", "GiB", "TiB"};
+
+    private final Map<String, Long> samples = new HashMap<>();
+    private final Map<String, Long> sampledAllocations = new HashMap<>();
+    private final Map<String, Long> allocations = new HashMap<>();
+    private final Map<String, Long> blockedTimes = new HashMap<>();
+    private final Map<String, Long> blockedCounts = new HashMap<>();
+    private long totalSamples;
+
+    void sampled(String method) {
+        samples.merge(method, 1L, Long::sum);
+        totalSamples++;
+    }
+
+    /**
+     * Counts a sampled allocation, weighted by bytes allocated since a previous
+     * sample. Such samples are preferred over TLAB allocation events.
+     */
+    void allocationSampled(String site, long bytes) {
+        sampledAllocations.merge(site, bytes, Long::sum);
+    }
+
+    void allocated(String site, long bytes) {
+        allocations.merge(site, bytes, Long::sum);
+    }
+
+    void blocked(String site, long nanos) {
+        blockedTimes.merge(site, nanos, Long::sum);
+        blockedCounts.merge(site, 1L, Long::sum);
+    }
+
+    long getTotalSamples() {
+        return totalSamples;
+    }
+
+    List<String> hotMethods(int top) {
+        List<String> methods = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : top(samples, top)) {
+            methods.add(String.format(
+                Locale.ROOT, "%s, %.1f%% of %d samples",
+                entry.getKey(), entry.getValue() * 100.0 / totalSamples, totalSamples
+            ));
+        }
+        return methods;
+    }
+
+    List<String> allocationSites(int top) {
+        Map<String, Long> bytes = sampledAllocations.isEmpty() ? allocations : sampledAllocations;
+        List<String> sites = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : top(bytes, top)) {
+            sites.add(entry.getKey() + ", " + formatBytes(entry.getValue()));
+        }
+        return sites;
+    }
+
+    List<String> contendedLocks(int top) {
+        List<String> locks = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : top(blockedTimes, top)) {
+            locks.add(String.format(
+                Locale.ROOT, "%s, %.3f ms in %d events",
+                entry.getKey(), entry.getValue() / 1e6, blockedCounts.get(entry.getKey())
+            ));
+        }
+        return locks;
+    }
+
+    /**
+     * Creates report entries, numbered from 1 in each section, for ex.:
+     * {@code jmh.jfr.hot.1}.
+     *
+     * @param prefix a prefix of keys
+     * @param top    a number of entries in each section
+     * @return report entries
+     */
+    Map<String, String> toReportEntries(String prefix, int top) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        put(entries, prefix + "hot.", hotMethods(top));
+        put(entries, prefix + "allocation.", allocationSites(top));
+        put(entries, prefix + "lock.", contendedLocks(top));
+        return entries;
+    }
+
+    static String formatBytes(long bytes) {
+        double value = bytes;
+        int unit = 0;
+        while (value >= 1024 && unit < BYTE_UNITS.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return unit == 0
+            ? bytes + " " + BYTE_UNITS[0]
+            : String.format(Locale.ROOT, "%.1f %s", value, BYTE_UNITS[unit]);
+    }
+
+    private static void put(Map<String, String> entries, String prefix, List<String> values) {
+        for (int i = 0; i < values.size(); i++) {
+            entries.put(prefix + (i + 1), values.get(i));
+        }
+    }
+
+    private static List<Map.Entry<String, Long>> top(Map<String, Long> values, int top) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(values.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed()
+            .thenComparing(Map.Entry.comparingByKey()));
+        return entries.subList(0, Math.min(top, entries.size()));
+    }
+}
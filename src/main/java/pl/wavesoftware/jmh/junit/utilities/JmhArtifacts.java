@@ -0,0 +1,256 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JMH generated artifacts that belong to a given set of benchmark classes.
+ * <p>
+ * JMH annotation processor generates, into a {@code generated} sub-package of a
+ * benchmark class package, a {@code <Class>_jmhType*} files for benchmark state and
+ * a {@code <Class>_<method>_jmhTest} file for each benchmark method. It also lists
+ * all benchmarks in a shared {@code META-INF/BenchmarkList} file. Only those
+ * files, and only entries of that list, are removed, so other test classes
+ * executed in parallel can still use theirs.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class JmhArtifacts {
+
+    static final String BENCHMARK_LIST = "META-INF/BenchmarkList";
+    private static final String GENERATED = "generated";
+    private static final String JAVA = ".java";
+    private static final String JMH_TYPE = "_jmhType";
+    private static final String JMH_TEST = "_jmhTest";
+    private static final String LIST_ENTRY_FORMAT = "JMH S %d %s ";
+    /**
+     * {@link FileLock} is held by the whole JVM, so threads of it need to be
+     * coordinated separately.
+     */
+    private static final Object BENCHMARK_LIST_MONITOR = new Object();
+
+    private final Map<String, Set<String>> ownedFiles;
+    private final List<String> listEntryPrefixes;
+
+    private JmhArtifacts(Map<String, Set<String>> ownedFiles, List<String> listEntryPrefixes) {
+        this.ownedFiles = ownedFiles;
+        this.listEntryPrefixes = listEntryPrefixes;
+    }
+
+    /**
+     * Records artifacts generated for given benchmark classes and their nested classes.
+     *
+     * @param benchmarkClasses benchmark classes
+     * @return artifacts of given classes
+     */
+    static JmhArtifacts of(Class<?>... benchmarkClasses) {
+        Map<String, Set<String>> ownedFiles = new LinkedHashMap<>();
+        List<String> listEntryPrefixes = new ArrayList<>();
+        for (Class<?> benchmarkClass : benchmarkClasses) {
+            record(benchmarkClass, ownedFiles, listEntryPrefixes);
+        }
+        return new JmhArtifacts(ownedFiles, listEntryPrefixes);
+    }
+
+    /**
+     * Deletes owned artifacts from given generated sources directory.
+     *
+     * @param generatedDir a root of JMH generated sources
+     * @throws IOException if files can't be deleted or benchmark list can't be rewritten
+     */
+    void delete(Path generatedDir) throws IOException {
+        for (Path file : find(generatedDir)) {
+            Files.deleteIfExists(file);
+        }
+        for (String packagePath : ownedFiles.keySet()) {
+            deleteEmptyParents(generatedDir.resolve(packagePath), generatedDir);
+        }
+        Path benchmarkList = generatedDir.resolve(BENCHMARK_LIST);
+        if (Files.isRegularFile(benchmarkList)) {
+            rewriteBenchmarkList(benchmarkList);
+            deleteEmptyParents(benchmarkList.getParent(), generatedDir);
+        }
+    }
+
+    private static void record(Class<?> type,
+                               Map<String, Set<String>> ownedFiles,
+                               List<String> listEntryPrefixes) {
+        String packagePath = packageOf(type).replace('.', '/');
+        String generatedPackage = packagePath.isEmpty() ? GENERATED : packagePath + "/" + GENERATED;
+        String prefix = generatedPrefix(type);
+        Set<String> names = ownedFiles.computeIfAbsent(generatedPackage, key -> new HashSet<>());
+        names.add(prefix + JMH_TYPE);
+        for (Class<?> current = type; current != null && current != Object.class;
+             current = current.getSuperclass()) {
+            for (Method method : current.getDeclaredMethods()) {
+                names.add(prefix + "_" + method.getName() + JMH_TEST);
+            }
+        }
+        String benchmarkName = type.getName().replace('$', '.');
+        listEntryPrefixes.add(String.format(LIST_ENTRY_FORMAT, benchmarkName.length(), benchmarkName));
+        for (Class<?> nested : type.getDeclaredClasses()) {
+            record(nested, ownedFiles, listEntryPrefixes);
+        }
+    }
+
+    private static String packageOf(Class<?> type) {
+        String name = type.getName();
+        int lastDot = name.lastIndexOf('.');
+        return lastDot < 0 ? "" : name.substring(0, lastDot);
+    }
+
+    private static String generatedPrefix(Class<?> type) {
+        String name = type.getName();
+        return name.substring(name.lastIndexOf('.') + 1).replace('$', '_');
+    }
+
+    /**
+     * Finds owned generated source files in given generated sources directory.
+     *
+     * @param generatedDir a root of JMH generated sources
+     * @return a list of owned files
+     * @throws IOException if directories can't be listed
+     */
+    List<Path> find(Path generatedDir) throws IOException {
+        List<Path> found = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> entry : ownedFiles.entrySet()) {
+            Path packageDir = generatedDir.resolve(entry.getKey());
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(packageDir, "*" + JAVA)) {
+                for (Path file : stream) {
+                    if (isOwned(file.getFileName().toString(), entry.getValue())) {
+                        found.add(file);
+                    }
+                }
+            } catch (NoSuchFileException ex) {
+                // nothing was generated
+            }
+        }
+        return found;
+    }
+
+    private static boolean isOwned(String fileName, Set<String> names) {
+        String name = fileName.substring(0, fileName.length() - JAVA.length());
+        if (names.contains(name)) {
+            return true;
+        }
+        int jmhType = name.lastIndexOf(JMH_TYPE + "_");
+        return jmhType > 0 && names.contains(name.substring(0, jmhType + JMH_TYPE.length()));
+    }
+
+    static void deleteEmptyParents(Path dir, Path root) throws IOException {
+        for (Path current = dir; current != null && current.startsWith(root)
+            && !current.equals(root); current = current.getParent()) {
+            try {
+                Files.deleteIfExists(current);
+            } catch (DirectoryNotEmptyException ex) {
+                return;
+            }
+        }
+    }
+
+    private void rewriteBenchmarkList(Path benchmarkList) throws IOException {
+        synchronized (BENCHMARK_LIST_MONITOR) {
+            boolean empty;
+            try (FileChannel channel = FileChannel.open(
+                benchmarkList, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    List<String> kept = foreignEntries(read(channel));
+                    write(channel, join(kept));
+                    empty = kept.isEmpty();
+                } finally {
+                    lock.release();
+                }
+            }
+            if (empty) {
+                Files.deleteIfExists(benchmarkList);
+            }
+        }
+    }
+
+    private List<String> foreignEntries(String content) {
+        if (content.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> kept = new ArrayList<>();
+        for (String line : content.split("\n")) {
+            if (!line.trim().isEmpty() && !isOwnedEntry(line)) {
+                kept.add(line);
+            }
+        }
+        return kept;
+    }
+
+    private boolean isOwnedEntry(String line) {
+        for (String prefix : listEntryPrefixes) {
+            if (line.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String read(FileChannel channel) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) channel.size());
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        channel.position(0);
+        while (channel.read(buffer) > 0) {
+            buffer.flip();
+            out.write(buffer.array(), 0, buffer.limit());
+            buffer.clear();
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void write(FileChannel channel, byte[] content) throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static byte[] join(List<String> lines) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.openjdk.jmh.annotations.Mode;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs each JMH {@code @Benchmark} method of a benchmark class in-process, as a
+ * separate invocation of annotated test template.
+ * <p>
+ * Results of a benchmark are published as report entries, and can be received by
+ * test method as {@link org.openjdk.jmh.results.RunResult} or a
+ * {@code Collection<RunResult>} parameter. {@link EnvironmentGuard} with default
+ * checks and targeted {@link JmhCleaner} are registered automatically.
+ * <p>
+ * Attributes left with default values are taken from JMH annotations of
+ * benchmark, or from JMH defaults. Every attribute can be overridden with system
+ * properties: {@code jmh.junit.forks}, {@code jmh.junit.warmupIterations},
+ * {@code jmh.junit.warmupTime}, {@code jmh.junit.measurementIterations},
+ * {@code jmh.junit.measurementTime} (both times in milliseconds) and
+ * {@code jmh.junit.modes} (comma separated, for ex.: {@code thrpt,avgt}),
+ * {@code jmh.junit.targetError}, {@code jmh.junit.minIterations},
+ * {@code jmh.junit.maxIterations} and {@code jmh.junit.batchIterations}.
+ * <p>
+ * With {@code jmh.junit.profile=smoke} system property, for ex.: set for surefire
+ * while failsafe runs the same tests in full, a benchmark is only checked to work:
+ * with at most 1 fork, 1 warmup and 2 measurement iterations of 100 ms, and without
+ * adaptive measurement. If {@code jmh.junit.history} points to a
+ * {@link ResultHistory} directory, and a smoke score deviates from a median of last
+ * runs by more than {@code jmh.junit.escalationThreshold} (0.5 by default), a
+ * benchmark is run again in full. Smoke results aren't checked by
+ * {@link RegressionGate} nor recorded in a {@link ResultHistory}.
+ * <p>
+ * If {@link #targetError()} is set, measurement is adaptive. Iterations are run in
+ * batches, until a relative half-width of 99.9% confidence interval of a score
+ * falls below the target, and warmup ends where iteration scores get steady. Fixed
+ * warmup and measurement iteration counts are ignored then. Each batch after the
+ * first is a new JMH run, so it starts new forks and repeats the warmup found in
+ * the first one. To keep that cost low, a batch is sized to reach the target with
+ * a width of confidence interval observed so far, not fixed.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;JmhBenchmark(value = MyBenchmark.class, forks = 1, measurementIterations = 5)
+ * void benchmark(RunResult result) {
+ *   assertThat(result.getPrimaryResult().getScore()).isGreaterThan(1000);
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@Documented
+@TestTemplate
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(JmhBenchmarkExtension.class)
+public @interface JmhBenchmark {
+
+    /**
+     * A value used for attributes that are not set.
+     */
+    int UNSET = -1;
+
+    /**
+     * A benchmark class. By default, the test class itself.
+     *
+     * @return a benchmark class
+     */
+    Class<?> value() default Void.class;
+
+    /**
+     * A number of forks, 0 runs benchmark in the test JVM.
+     *
+     * @return a number of forks
+     */
+    int forks() default UNSET;
+
+    /**
+     * A number of warmup iterations.
+     *
+     * @return a number of warmup iterations
+     */
+    int warmupIterations() default UNSET;
+
+    /**
+     * A time of each warmup iteration, in {@link #timeUnit()}.
+     *
+     * @return a warmup iteration time
+     */
+    long warmupTime() default UNSET;
+
+    /**
+     * A number of measurement iterations.
+     *
+     * @return a number of measurement iterations
+     */
+    int measurementIterations() default UNSET;
+
+    /**
+     * A time of each measurement iteration, in {@link #timeUnit()}.
+     *
+     * @return a measurement iteration time
+     */
+    long measurementTime() default UNSET;
+
+    /**
+     * A unit of warmup and measurement iteration time.
+     *
+     * @return a time unit
+     */
+    TimeUnit timeUnit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * Benchmark modes.
+     *
+     * @return benchmark modes
+     */
+    Mode[] modes() default {};
+
+    /**
+     * Extra JVM arguments appended to forked JVMs.
+     *
+     * @return JVM arguments
+     */
+    String[] jvmArgsAppend() default {};
+
+    /**
+     * A target relative half-width of confidence interval of a score, for ex.:
+     * 0.01 for 1%. If set, measurement is adaptive.
+     *
+     * @return a target relative error
+     */
+    double targetError() default UNSET;
+
+    /**
+     * A minimal number of steady state measurement iterations of adaptive
+     * measurement, 5 by default.
+     *
+     * @return a minimal number of iterations
+     */
+    int minIterations() default UNSET;
+
+    /**
+     * A maximal number of measurement iterations of adaptive measurement,
+     * including ones found to be warmup, 50 by default.
+     *
+     * @return a maximal number of iterations
+     */
+    int maxIterations() default UNSET;
+
+    /**
+     * A minimal number of measurement iterations run in a batch of adaptive
+     * measurement, 5 by default. A batch is larger, if a width of confidence
+     * interval observed so far needs more iterations to reach a target.
+     *
+     * @return a minimal number of iterations in batch
+     */
+    int batchIterations() default UNSET;
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.TestTemplateInvocationContext;
+import org.junit.jupiter.api.extension.TestTemplateInvocationContextProvider;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.junit.platform.commons.support.HierarchyTraversalMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Provides an invocation of {@link JmhBenchmark} test template for each
+ * {@code @Benchmark} method of a benchmark class.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class JmhBenchmarkExtension implements TestTemplateInvocationContextProvider {
+
+    static final ExtensionContext.Namespace NAMESPACE =
+        ExtensionContext.Namespace.create(JmhBenchmarkExtension.class);
+    private static final String RESULTS = "results";
+    private static final String AB_RESULTS = "abResults";
+    private static final String CUSTOMIZERS = "customizers";
+    private static final String PROFILE = "profile";
+    private static final String SURFACE = "surface";
+
+    @Override
+    public boolean supportsTestTemplate(ExtensionContext context) {
+        return context.getTestMethod()
+            .map(method -> AnnotationSupport.isAnnotated(method, JmhBenchmark.class))
+            .orElse(false);
+    }
+
+    @Override
+    public Stream<TestTemplateInvocationContext> provideTestTemplateInvocationContexts(
+        ExtensionContext context) {
+        Method testMethod = context.getRequiredTestMethod();
+        JmhBenchmark annotation = TestAnnotations.require(context, JmhBenchmark.class);
+        Class<?> testClass = context.getRequiredTestClass();
+        Class<?> benchmarkClass = annotation.value() == Void.class
+            ? testClass
+            : annotation.value();
+        List<String> benchmarks = benchmarkMethods(benchmarkClass);
+        if (benchmarks.isEmpty()) {
+            throw new IllegalArgumentException(
+                "There are no @Benchmark methods in " + benchmarkClass.getName()
+            );
+        }
+        BenchmarkSettings settings = BenchmarkSettings.of(annotation);
+        BenchmarkSettings smoke = ExecutionProfile.current() == ExecutionProfile.SMOKE
+            ? BenchmarkSettings.smoke(annotation, System.getProperties())
+            : null;
+        Shard shard = Shard.current();
+        return benchmarks.stream().map(method -> new BenchmarkInvocation(
+            testClass, benchmarkClass, method, settings, smoke, shard
+        ));
+    }
+
+    /**
+     * Gets results of a benchmark executed for current test invocation.
+     *
+     * @param context an extension context of test invocation
+     * @return results of benchmark, or empty collection if no benchmark was executed
+     */
+    @SuppressWarnings("unchecked")
+    static Collection<RunResult> getResults(ExtensionContext context) {
+        Collection<RunResult> results = context.getStore(NAMESPACE)
+            .get(RESULTS, Collection.class);
+        return results == null ? Collections.emptyList() : results;
+    }
+
+    static void putResults(ExtensionContext context, Collection<RunResult> results) {
+        context.getStore(NAMESPACE).put(RESULTS, results);
+    }
+
+    /**
+     * Gets a profile, that results of current test invocation were measured with.
+     * A smoke run escalated to a full run has full profile.
+     *
+     * @param context an extension context of test invocation
+     * @return an execution profile
+     */
+    static ExecutionProfile getProfile(ExtensionContext context) {
+        ExecutionProfile profile = context.getStore(NAMESPACE)
+            .get(PROFILE, ExecutionProfile.class);
+        return profile == null ? ExecutionProfile.FULL : profile;
+    }
+
+    static void putProfile(ExtensionContext context, ExecutionProfile profile) {
+        context.getStore(NAMESPACE).put(PROFILE, profile);
+    }
+
+    /**
+     * Gets results of A/B comparison executed for current test invocation.
+     *
+     * @param context an extension context of test invocation
+     * @return results of comparison, or empty collection if no comparison was executed
+     */
+    @SuppressWarnings("unchecked")
+    static Collection<AbResult> getAbResults(ExtensionContext context) {
+        Collection<AbResult> results = context.getStore(NAMESPACE)
+            .get(AB_RESULTS, Collection.class);
+        return results == null ? Collections.emptyList() : results;
+    }
+
+    static void putAbResults(ExtensionContext context, Collection<AbResult> results) {
+        context.getStore(NAMESPACE).put(AB_RESULTS, results);
+    }
+
+    /**
+     * Gets a response surface of parameter exploration executed for current test
+     * invocation.
+     *
+     * @param context an extension context of test invocation
+     * @return a response surface, or null if no exploration was executed
+     */
+    @Nullable
+    static ResponseSurface getSurface(ExtensionContext context) {
+        return context.getStore(NAMESPACE).get(SURFACE, ResponseSurface.class);
+    }
+
+    static void putSurface(ExtensionContext context, ResponseSurface surface) {
+        context.getStore(NAMESPACE).put(SURFACE, surface);
+    }
+
+    /**
+     * Registers a customizer of JMH options for a benchmark of current test
+     * invocation. It should be called before test execution, for ex.: in before
+     * each callback of other extension.
+     *
+     * @param context    an extension context of test invocation
+     * @param customizer a customizer of JMH options
+     */
+    static void customize(ExtensionContext context,
+                          Consumer<ChainedOptionsBuilder> customizer) {
+        getCustomizers(context).add(customizer);
+    }
+
+    /**
+     * Registers JVM arguments to be appended to forks of a benchmark of current
+     * test invocation, next to ones already set, for ex.: by annotation.
+     *
+     * @param context   an extension context of test invocation
+     * @param arguments JVM arguments
+     */
+    static void appendJvmArgs(ExtensionContext context, String... arguments) {
+        customize(context, builder -> {
+            List<String> appended = new ArrayList<>(
+                builder.build().getJvmArgsAppend().orElse(Collections.emptyList())
+            );
+            appended.addAll(Arrays.asList(arguments));
+            builder.jvmArgsAppend(appended.toArray(new String[0]));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Consumer<ChainedOptionsBuilder>> getCustomizers(ExtensionContext context) {
+        return context.getStore(NAMESPACE)
+            .getOrComputeIfAbsent(CUSTOMIZERS, key -> new CopyOnWriteArrayList<>(), List.class);
+    }
+
+    private static List<String> benchmarkMethods(Class<?> benchmarkClass) {
+        Set<String> methods = new TreeSet<>();
+        for (Method method : AnnotationSupport.findAnnotatedMethods(
+            benchmarkClass, Benchmark.class, HierarchyTraversalMode.TOP_DOWN)) {
+            methods.add(method.getName());
+        }
+        return new ArrayList<>(methods);
+    }
+}
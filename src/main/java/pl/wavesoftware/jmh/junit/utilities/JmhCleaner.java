@@ -16,17 +16,22 @@
 
 package pl.wavesoftware.jmh.junit.utilities;
 
-import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.AfterAllCallback;
 import org.junit.jupiter.api.extension.AfterEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.annotation.Testable;
+import org.junit.platform.commons.support.AnnotationSupport;
 
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * This class handles cleaning JMH test annotation that are being produced by JMH library.
@@ -38,44 +43,158 @@ import java.nio.file.Files;
  * &#64;RegisterExtension
  * static JmhCleaner cleaner = new JmhCleaner(MyClassTest.class);
  * </pre>
+ * By default cleanup is done after each test. Use {@link #inScope(CleanupScope)} to
+ * do it once per test class or once per test session:
+ * <pre>
+ * &#64;RegisterExtension
+ * static JmhCleaner cleaner = new JmhCleaner(MyClassTest.class)
+ *   .inScope(CleanupScope.SESSION);
+ * </pre>
+ * When tests are executed in parallel use {@link #targeted(Class[])}, so that only
+ * artifacts generated for own benchmarks are removed. Use
+ * {@link #cachingIn(JmhStubCache)} to move generated sources to a cache instead of
+ * deleting them.
+ * <p>
+ * Cleanup of a directory is exclusive between threads and processes, so it is safe
+ * for shards of tests running in parallel on the same build directory.
  * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
  * @since 25.03.16
  */
-public final class JmhCleaner implements AfterEachCallback {
+public final class JmhCleaner implements AfterEachCallback, AfterAllCallback {
     private static final String GENERATED_TEST_SOURCES = "generated-test-sources";
     private static final String TEST_ANNOTATIONS = "test-annotations";
-    private static final File[] EMPTY_FILES = new File[0];
+    private static final ClassValue<Boolean> HAS_TESTS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return hasTests(type);
+        }
+    };
+    private static final ConcurrentMap<URI, File> DIRECTORIES = new ConcurrentHashMap<>();
     private final Class<?> testClass;
+    private final CleanupScope scope;
+    private final RecursiveDeleter deleter;
+    private final SessionCleanup sessionCleanup;
+    @Nullable
+    private final Class<?>[] targets;
+    @Nullable
+    private final JmhArtifacts artifacts;
+    @Nullable
+    private final JmhStubCache cache;
+    @Nullable
+    private volatile File generatedTestAnnotationsDir;
 
     /**
      * Default constructor for JMH cleaner class
      * @param testClass a test class
      */
     public JmhCleaner(Class<?> testClass) {
-        this.testClass = validateTestClass(testClass);
+        this(
+            validateTestClass(testClass), CleanupScope.TEST,
+            new RecursiveDeleter(), SessionCleanup.getInstance(), null, null
+        );
+    }
+
+    JmhCleaner(Class<?> testClass,
+               CleanupScope scope,
+               RecursiveDeleter deleter,
+               SessionCleanup sessionCleanup,
+               @Nullable Class<?>[] targets,
+               @Nullable JmhStubCache cache) {
+        this.testClass = testClass;
+        this.scope = scope;
+        this.deleter = deleter;
+        this.sessionCleanup = sessionCleanup;
+        this.targets = targets;
+        this.artifacts = targets == null ? null : JmhArtifacts.of(targets);
+        this.cache = cache;
+    }
+
+    /**
+     * Creates a copy of this cleaner that will do its cleanup in given scope.
+     *
+     * @param scope a scope of cleanup
+     * @return a JmhCleaner extension
+     */
+    public JmhCleaner inScope(CleanupScope scope) {
+        return new JmhCleaner(testClass, scope, deleter, sessionCleanup, targets, cache);
+    }
+
+    /**
+     * Creates a copy of this cleaner that removes only JMH artifacts generated for
+     * given benchmark classes, or for the test class if none are given. Entries of
+     * those benchmarks are also removed from shared {@code META-INF/BenchmarkList},
+     * if it's placed in generated sources. It makes cleanup safe for test classes
+     * executed in parallel.
+     * <p>
+     * In {@link CleanupScope#SESSION} scope all generated sources are removed anyway,
+     * as no other test is running at that time.
+     *
+     * @param benchmarkClasses benchmark classes which artifacts should be removed
+     * @return a JmhCleaner extension
+     */
+    public JmhCleaner targeted(Class<?>... benchmarkClasses) {
+        Class<?>[] owners = benchmarkClasses.length == 0
+            ? new Class<?>[]{testClass}
+            : benchmarkClasses.clone();
+        return new JmhCleaner(testClass, scope, deleter, sessionCleanup, owners, cache);
+    }
+
+    /**
+     * Creates a copy of this cleaner that moves sources generated for benchmarks into
+     * given cache, instead of deleting them. Benchmarks are the ones given to
+     * {@link #targeted(Class[])}, or the test class itself.
+     *
+     * @param cache a cache of JMH generated sources
+     * @return a JmhCleaner extension
+     */
+    public JmhCleaner cachingIn(JmhStubCache cache) {
+        return new JmhCleaner(testClass, scope, deleter, sessionCleanup, targets, cache);
     }
 
     @Override
     public void afterEach(ExtensionContext context) throws IOException, URISyntaxException {
-        cleanup();
+        if (scope == CleanupScope.TEST) {
+            cleanup();
+        }
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) throws IOException, URISyntaxException {
+        if (scope == CleanupScope.CLASS) {
+            cleanup();
+        } else if (scope == CleanupScope.SESSION) {
+            storeInCache();
+            sessionCleanup.register(getGeneratedTestAnnotationsDir());
+        }
     }
 
     File getGeneratedTestAnnotationsDir() throws URISyntaxException, IOException {
-        String location = testClass.getProtectionDomain().getCodeSource().getLocation().toURI().getPath();
-        File file = new File(location).getCanonicalFile().getParentFile();
-        return resolve(file, GENERATED_TEST_SOURCES, TEST_ANNOTATIONS);
+        File dir = generatedTestAnnotationsDir;
+        if (dir == null) {
+            dir = generatedTestAnnotationsDir(testClass);
+            generatedTestAnnotationsDir = dir;
+        }
+        return dir;
     }
 
-    private static Class<?> validateTestClass(Class<?> testClass) {
-        boolean hasTests = false;
-        for (Method method : testClass.getDeclaredMethods()) {
-            Test annot = method.getAnnotation(Test.class);
-            if (!Modifier.isStatic(method.getModifiers()) && annot != null) {
-                hasTests = true;
-                break;
-            }
+    /**
+     * Resolves a directory with JMH generated sources for given class. It's resolved
+     * once for each code source location.
+     */
+    static File generatedTestAnnotationsDir(Class<?> testClass)
+        throws URISyntaxException, IOException {
+        URI location = testClass.getProtectionDomain().getCodeSource().getLocation().toURI();
+        File dir = DIRECTORIES.get(location);
+        if (dir == null) {
+            File file = new File(location.getPath()).getCanonicalFile().getParentFile();
+            dir = resolve(file, GENERATED_TEST_SOURCES, TEST_ANNOTATIONS);
+            DIRECTORIES.putIfAbsent(location, dir);
         }
-        if (!hasTests) {
+        return dir;
+    }
+
+    private static Class<?> validateTestClass(Class<?> testClass) {
+        if (!HAS_TESTS.get(testClass)) {
             throw new IllegalArgumentException(
                 "You need to pass a test class to constructor of JmhCleaner!!"
             );
@@ -83,34 +202,44 @@ public final class JmhCleaner implements AfterEachCallback {
         return testClass;
     }
 
-    private static void deleteRecursive(final File file) throws IOException {
-        //to end the recursive loop
-        if (!file.exists()) {
-            return;
+    private static boolean hasTests(Class<?> testClass) {
+        for (Method method : testClass.getDeclaredMethods()) {
+            if (!Modifier.isStatic(method.getModifiers())
+                && AnnotationSupport.isAnnotated(method, Testable.class)) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        //if directory, go inside and call recursively
-        if (file.isDirectory()) {
-            File[] files = file.listFiles();
-            for (File f : ensureFileArray(files)) {
-                //call recursively
-                deleteRecursive(f);
+    private void cleanup() throws IOException, URISyntaxException {
+        Path testAnnotationsPath = getGeneratedTestAnnotationsDir().toPath();
+        DirectoryLock.run(testAnnotationsPath, () -> {
+            storeInCache(testAnnotationsPath);
+            if (artifacts == null) {
+                deleter.delete(testAnnotationsPath);
+            } else {
+                artifacts.delete(testAnnotationsPath);
             }
-        }
-        //call delete to delete files and empty directory
-        Files.delete(file.toPath());
+        });
     }
 
-    private static File[] ensureFileArray(@Nullable File[] files) {
-        return (files == null) ? EMPTY_FILES : files;
+    private void storeInCache() throws IOException, URISyntaxException {
+        Path testAnnotationsPath = getGeneratedTestAnnotationsDir().toPath();
+        DirectoryLock.run(testAnnotationsPath, () -> storeInCache(testAnnotationsPath));
     }
 
-    private void cleanup() throws IOException, URISyntaxException {
-        File testAnnotationsPath = getGeneratedTestAnnotationsDir();
-        deleteRecursive(testAnnotationsPath);
+    private void storeInCache(Path testAnnotationsPath) throws IOException {
+        if (cache == null) {
+            return;
+        }
+        Class<?>[] benchmarks = targets == null ? new Class<?>[]{testClass} : targets;
+        for (Class<?> benchmark : benchmarks) {
+            cache.store(benchmark, testAnnotationsPath);
+        }
     }
 
-    private File resolve(File parent, String... paths) {
+    private static File resolve(File parent, String... paths) {
         StringBuilder sb = new StringBuilder(parent.getPath());
         for (String path : paths) {
             sb.append(File.separator).append(path);
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+import pl.wavesoftware.eid.exceptions.EidIllegalStateException;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+/**
+ * A JUnit Platform listener that removes JMH generated sources once per test session.
+ * <p>
+ * It's registered automatically by {@link java.util.ServiceLoader}. It cleans up
+ * directories of {@link JmhCleaner} extensions created with
+ * {@link CleanupScope#SESSION} scope. If system property
+ * {@value #AUTO_CLEANUP_PROPERTY} is set to {@code true}, generated sources of every
+ * executed test class are removed as well, without registering any extension.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class JmhCleanerListener implements TestExecutionListener {
+
+    /**
+     * A system property that enables cleanup for every executed test class.
+     */
+    public static final String AUTO_CLEANUP_PROPERTY = "jmh.junit.cleaner.auto";
+
+    private final SessionCleanup sessionCleanup;
+    private final boolean auto;
+
+    /**
+     * Default constructor used by {@link java.util.ServiceLoader}.
+     */
+    public JmhCleanerListener() {
+        this(SessionCleanup.getInstance(), Boolean.getBoolean(AUTO_CLEANUP_PROPERTY));
+    }
+
+    JmhCleanerListener(SessionCleanup sessionCleanup, boolean auto) {
+        this.sessionCleanup = sessionCleanup;
+        this.auto = auto;
+    }
+
+    @Override
+    public void testPlanExecutionStarted(TestPlan testPlan) {
+        sessionCleanup.listenerStarted();
+    }
+
+    @Override
+    public void executionFinished(TestIdentifier testIdentifier,
+                                  TestExecutionResult testExecutionResult) {
+        if (!auto) {
+            return;
+        }
+        TestSource source = testIdentifier.getSource().orElse(null);
+        if (source instanceof ClassSource) {
+            Class<?> testClass = ((ClassSource) source).getJavaClass();
+            try {
+                sessionCleanup.register(JmhCleaner.generatedTestAnnotationsDir(testClass));
+            } catch (URISyntaxException | IOException ex) {
+                throw new EidIllegalStateException("20261017:110412", ex);
+            }
+        }
+    }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        try {
+            sessionCleanup.cleanup();
+        } catch (IOException ex) {
+            throw new EidIllegalStateException("20261017:110437", ex);
+        }
+    }
+}
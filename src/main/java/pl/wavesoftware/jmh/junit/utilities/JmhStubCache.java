@@ -0,0 +1,332 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.util.Version;
+import pl.wavesoftware.eid.exceptions.EidIllegalStateException;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local, size bounded cache of JMH generated benchmark sources.
+ * <p>
+ * Generated sources are moved out of the source tree into a cache entry keyed by
+ * a hash of a JMH version and bytecode of benchmark class, including its nested
+ * classes, superclasses and {@code @State} classes it uses. So nothing is
+ * left for code analysis tools, while sources of unchanged benchmarks can be
+ * restored with {@link #restore(Class, Path)}, for ex.: by a build that compiles
+ * tests with annotation processing disabled.
+ * <p>
+ * The cache lives outside of build directory, so it survives {@code mvn clean}. When
+ * it grows above its size limit, least recently used entries are evicted.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;RegisterExtension
+ * static JmhCleaner cleaner = new JmhCleaner(MyClassTest.class)
+ *   .cachingIn(JmhStubCache.defaultCache());
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class JmhStubCache {
+
+    /**
+     * A system property with a cache directory.
+     */
+    public static final String DIRECTORY_PROPERTY = "jmh.junit.cache.dir";
+    /**
+     * A system property with a maximum size of cache in bytes.
+     */
+    public static final String MAX_SIZE_PROPERTY = "jmh.junit.cache.maxBytes";
+    private static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+    private static final String FORMAT_VERSION = "jmh-stub-cache:1";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final AtomicLong TEMP_COUNTER = new AtomicLong();
+
+    private final Path root;
+    private final long maxSize;
+    private final RecursiveDeleter deleter = new RecursiveDeleter();
+
+    private JmhStubCache(Path root, long maxSize) {
+        this.root = root;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Creates a cache in directory given by {@value #DIRECTORY_PROPERTY} system property,
+     * or in {@code ~/.cache/jmh-junit-utilities} by default. Its size is limited by
+     * {@value #MAX_SIZE_PROPERTY} system property, 256 MiB by default.
+     *
+     * @return a cache
+     */
+    public static JmhStubCache defaultCache() {
+        String defaultDir = Paths.get(
+            System.getProperty("user.home"), ".cache", "jmh-junit-utilities"
+        ).toString();
+        return inDirectory(
+            Paths.get(System.getProperty(DIRECTORY_PROPERTY, defaultDir)),
+            Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE)
+        );
+    }
+
+    /**
+     * Creates a cache in given directory.
+     *
+     * @param root    a cache directory
+     * @param maxSize a maximum size of cache in bytes
+     * @return a cache
+     */
+    public static JmhStubCache inDirectory(Path root, long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive, but was: " + maxSize);
+        }
+        return new JmhStubCache(root, maxSize);
+    }
+
+    /**
+     * Moves sources generated for given benchmark class into the cache. If the cache
+     * already holds an entry for the same bytecode, generated sources are just removed.
+     *
+     * @param benchmarkClass a benchmark class
+     * @param generatedDir   a root of JMH generated sources
+     * @throws IOException if sources can't be moved
+     */
+    public void store(Class<?> benchmarkClass, Path generatedDir) throws IOException {
+        JmhArtifacts artifacts = JmhArtifacts.of(benchmarkClass);
+        List<Path> files = artifacts.find(generatedDir);
+        if (files.isEmpty()) {
+            return;
+        }
+        Path entry = entry(benchmarkClass);
+        if (Files.isDirectory(entry)) {
+            touch(entry);
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } else {
+            moveIntoCache(files, generatedDir, entry);
+        }
+        artifacts.delete(generatedDir);
+        evict();
+    }
+
+    /**
+     * Restores sources of given benchmark class from the cache, if its bytecode is
+     * unchanged since they were stored.
+     *
+     * @param benchmarkClass a benchmark class
+     * @param generatedDir   a root of JMH generated sources
+     * @return true, if sources were restored
+     * @throws IOException if sources can't be copied
+     */
+    public boolean restore(Class<?> benchmarkClass, Path generatedDir) throws IOException {
+        Path entry = entry(benchmarkClass);
+        if (!Files.isDirectory(entry)) {
+            return false;
+        }
+        List<Path> files = listFiles(entry);
+        for (Path file : files) {
+            Path target = generatedDir.resolve(entry.relativize(file).toString());
+            Files.createDirectories(target.getParent());
+            Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        touch(entry);
+        return true;
+    }
+
+    Path entry(Class<?> benchmarkClass) throws IOException {
+        return root.resolve(hash(benchmarkClass));
+    }
+
+    private void moveIntoCache(List<Path> files, Path generatedDir, Path entry) throws IOException {
+        Files.createDirectories(root);
+        Path temp = root.resolve(
+            entry.getFileName() + ".tmp-" + TEMP_COUNTER.incrementAndGet() + "-" + System.nanoTime()
+        );
+        for (Path file : files) {
+            Path target = temp.resolve(generatedDir.relativize(file).toString());
+            Files.createDirectories(target.getParent());
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        try {
+            Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            if (!Files.isDirectory(entry)) {
+                throw ex;
+            }
+            // other writer was first, its entry is as good as ours
+            deleter.delete(temp);
+        }
+    }
+
+    private void evict() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root)) {
+            for (Path path : stream) {
+                if (Files.isDirectory(path) && !path.getFileName().toString().contains(".tmp-")) {
+                    try {
+                        Entry entry = new Entry(path, Files.getLastModifiedTime(path), size(path));
+                        entries.add(entry);
+                        total += entry.size;
+                    } catch (NoSuchFileException ex) {
+                        // evicted concurrently
+                    }
+                }
+            }
+        }
+        entries.sort(Comparator.comparing(entry -> entry.lastUsed));
+        for (Entry entry : entries) {
+            if (total <= maxSize) {
+                return;
+            }
+            deleter.delete(entry.path);
+            total -= entry.size;
+        }
+    }
+
+    private static void touch(Path entry) throws IOException {
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    private static long size(Path entry) throws IOException {
+        long size = 0;
+        for (Path file : listFiles(entry)) {
+            size += Files.size(file);
+        }
+        return size;
+    }
+
+    private static List<Path> listFiles(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+
+    private static String hash(Class<?> benchmarkClass) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(FORMAT_VERSION.getBytes(StandardCharsets.UTF_8));
+        digest.update(Version.getPlainVersion().getBytes(StandardCharsets.UTF_8));
+        for (Class<?> type : keyClasses(benchmarkClass).values()) {
+            update(digest, type);
+        }
+        byte[] bytes = digest.digest();
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Collects classes, which bytecode JMH generated sources depend on: a benchmark
+     * class, its nested classes and superclasses, and {@code @State} classes used as
+     * parameters of its methods. Classes of JDK are skipped.
+     *
+     * @param benchmarkClass a benchmark class
+     * @return classes by name, so a hash doesn't depend on order of reflection
+     */
+    static SortedMap<String, Class<?>> keyClasses(Class<?> benchmarkClass) {
+        SortedMap<String, Class<?>> classes = new TreeMap<>();
+        collect(benchmarkClass, classes);
+        return classes;
+    }
+
+    private static void collect(@Nullable Class<?> type, SortedMap<String, Class<?>> classes) {
+        if (type == null || type.getClassLoader() == null
+            || classes.putIfAbsent(type.getName(), type) != null) {
+            return;
+        }
+        collect(type.getSuperclass(), classes);
+        for (Class<?> nested : type.getDeclaredClasses()) {
+            collect(nested, classes);
+        }
+        for (Method method : type.getDeclaredMethods()) {
+            for (Class<?> parameter : method.getParameterTypes()) {
+                if (parameter.isAnnotationPresent(State.class)) {
+                    collect(parameter, classes);
+                }
+            }
+        }
+    }
+
+    private static void update(MessageDigest digest, Class<?> type) throws IOException {
+        String resource = type.getName().replace('.', '/') + ".class";
+        try (InputStream input = type.getClassLoader().getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IOException("Can't read bytecode of " + type.getName());
+            }
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new EidIllegalStateException("20261017:131208", ex);
+        }
+    }
+
+    private static final class Entry {
+        private final Path path;
+        private final FileTime lastUsed;
+        private final long size;
+
+        private Entry(Path path, FileTime lastUsed, long size) {
+            this.path = path;
+            this.lastUsed = lastUsed;
+            this.size = size;
+        }
+    }
+}
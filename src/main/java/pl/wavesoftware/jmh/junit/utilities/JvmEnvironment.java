@@ -0,0 +1,208 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import javax.annotation.Nullable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * A snapshot of JVM settings that can affect benchmark results. The current
+ * environment is read from {@link RuntimeMXBean} once per JVM, while VM options
+ * are read from {@link HotSpotDiagnosticMXBean} on first use and cached.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class JvmEnvironment {
+
+    private static final long MIB = 1024L * 1024;
+
+    private final List<String> inputArguments;
+    private final Function<String, String> vmOptionReader;
+    private final long maxHeapBytes;
+    private final String vmInfo;
+    private final boolean assertionsEnabled;
+    private final ConcurrentMap<String, Optional<String>> vmOptions = new ConcurrentHashMap<>();
+
+    JvmEnvironment(List<String> inputArguments,
+                   Function<String, String> vmOptionReader,
+                   long maxHeapBytes,
+                   String vmInfo,
+                   boolean assertionsEnabled) {
+        this.inputArguments = Collections.unmodifiableList(new ArrayList<>(inputArguments));
+        this.vmOptionReader = vmOptionReader;
+        this.maxHeapBytes = maxHeapBytes;
+        this.vmInfo = vmInfo;
+        this.assertionsEnabled = assertionsEnabled;
+    }
+
+    /**
+     * Gets an environment of current JVM.
+     *
+     * @return a current environment
+     */
+    public static JvmEnvironment current() {
+        return Current.INSTANCE;
+    }
+
+    static JvmEnvironment of(RuntimeMXBean runtime) {
+        List<String> arguments = runtime.getInputArguments();
+        return new JvmEnvironment(
+            arguments, name -> null, Runtime.getRuntime().maxMemory(),
+            System.getProperty("java.vm.info", ""), hasAssertionArgument(arguments)
+        );
+    }
+
+    /**
+     * Gets arguments passed to JVM, excluding arguments of main method.
+     *
+     * @return JVM arguments
+     */
+    public List<String> getInputArguments() {
+        return inputArguments;
+    }
+
+    /**
+     * Checks if any JVM argument starts with given prefix.
+     *
+     * @param prefix a prefix of argument, for ex.: {@code -agentlib:jdwp}
+     * @return true, if there is such argument
+     */
+    public boolean hasArgument(String prefix) {
+        for (String argument : inputArguments) {
+            if (argument.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets a value of HotSpot VM option, for ex.: {@code TieredStopAtLevel}.
+     *
+     * @param name a name of VM option
+     * @return a value, or empty if there is no such option or it can't be read
+     */
+    public Optional<String> getVmOption(String name) {
+        return vmOptions.computeIfAbsent(
+            name, key -> Optional.ofNullable(vmOptionReader.apply(key))
+        );
+    }
+
+    /**
+     * Gets a maximum size of heap.
+     *
+     * @return a maximum heap size in bytes
+     */
+    public long getMaxHeapBytes() {
+        return maxHeapBytes;
+    }
+
+    /**
+     * Gets an info of VM, for ex.: {@code mixed mode, sharing}.
+     *
+     * @return a VM info
+     */
+    public String getVmInfo() {
+        return vmInfo;
+    }
+
+    /**
+     * Checks if JVM runs with assertions enabled.
+     *
+     * @return true, if assertions are enabled
+     */
+    public boolean isAssertionsEnabled() {
+        return assertionsEnabled;
+    }
+
+    /**
+     * Gets a short description of JVM, machine and settings relevant for
+     * benchmarks.
+     *
+     * @return a fingerprint of environment
+     */
+    public String getFingerprint() {
+        return String.format(
+            Locale.ROOT, "%s, %s, heap %d MiB, assertions %s, args %s",
+            JvmFingerprint.current(), vmInfo, maxHeapBytes / MIB,
+            assertionsEnabled ? "on" : "off", inputArguments
+        );
+    }
+
+    private static boolean hasAssertionArgument(List<String> arguments) {
+        for (String argument : arguments) {
+            if (argument.equals("-ea") || argument.startsWith("-ea:")
+                || argument.startsWith("-enableassertions")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Current {
+        private static final JvmEnvironment INSTANCE = create();
+
+        private Current() {
+            // not reachable
+        }
+
+        private static JvmEnvironment create() {
+            List<String> arguments = ManagementFactory.getRuntimeMXBean().getInputArguments();
+            HotSpotDiagnosticMXBean diagnostic = diagnosticMxBean();
+            return new JvmEnvironment(
+                arguments,
+                name -> vmOption(diagnostic, name),
+                Runtime.getRuntime().maxMemory(),
+                System.getProperty("java.vm.info", ""),
+                hasAssertionArgument(arguments) || Current.class.desiredAssertionStatus()
+            );
+        }
+
+        @Nullable
+        private static HotSpotDiagnosticMXBean diagnosticMxBean() {
+            try {
+                return ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+        }
+
+        @Nullable
+        private static String vmOption(@Nullable HotSpotDiagnosticMXBean diagnostic, String name) {
+            if (diagnostic == null) {
+                return null;
+            }
+            try {
+                return diagnostic.getVMOption(name).getValue();
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+        }
+    }
+}
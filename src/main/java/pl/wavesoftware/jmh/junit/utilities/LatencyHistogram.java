@@ -0,0 +1,254 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * A histogram of latencies in nanoseconds, with a fixed relative precision, in the
+ * manner of HdrHistogram. Values are counted in log-linear buckets of a preallocated
+ * array, so recording a value is constant time and doesn't allocate.
+ * <p>
+ * A value is tracked with a resolution better than 0.1% of its magnitude, up to an
+ * hour. Longer values are counted as an hour, but a maximum is kept exact.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class LatencyHistogram {
+
+    static final long HIGHEST_TRACKABLE_VALUE = TimeUnit.HOURS.toNanos(1);
+    private static final int SUB_BUCKET_HALF_COUNT_MAGNITUDE = 10;
+    private static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_HALF_COUNT_MAGNITUDE;
+    private static final long SUB_BUCKET_MASK = (SUB_BUCKET_HALF_COUNT << 1) - 1L;
+    private static final int LEADING_ZERO_COUNT_BASE =
+        Long.SIZE - SUB_BUCKET_HALF_COUNT_MAGNITUDE - 1;
+    private static final double HUNDRED = 100d;
+
+    private final long[] counts;
+    private long totalCount;
+    private long min;
+    private long max;
+    private double sum;
+
+    LatencyHistogram() {
+        int buckets = bucketIndex(HIGHEST_TRACKABLE_VALUE) + 2;
+        counts = new long[buckets << SUB_BUCKET_HALF_COUNT_MAGNITUDE];
+        reset();
+    }
+
+    /**
+     * Records a single latency.
+     *
+     * @param nanos a latency in nanoseconds, negative values are recorded as zero
+     */
+    void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        counts[countsIndex(Math.min(value, HIGHEST_TRACKABLE_VALUE))]++;
+        totalCount++;
+        sum += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0L);
+        totalCount = 0L;
+        min = Long.MAX_VALUE;
+        max = 0L;
+        sum = 0d;
+    }
+
+    /**
+     * Gets a number of recorded latencies.
+     *
+     * @return a number of recorded latencies
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Gets a minimal recorded latency.
+     *
+     * @return a minimal latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getMin() {
+        return totalCount == 0 ? 0L : min;
+    }
+
+    /**
+     * Gets a maximal recorded latency.
+     *
+     * @return a maximal latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets a mean of recorded latencies.
+     *
+     * @return a mean latency in nanoseconds, or {@code NaN} if nothing was recorded
+     */
+    public double getMean() {
+        return totalCount == 0 ? Double.NaN : sum / totalCount;
+    }
+
+    /**
+     * Gets a latency at given percentile. It is the highest value equivalent, within
+     * the precision of histogram, to a recorded value at that percentile.
+     *
+     * @param percentile a percentile, from 0 to 100, for ex.: 99.9
+     * @return a latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > HUNDRED) {
+            throw new IllegalArgumentException(
+                "Percentile must be between 0 and 100, but was: " + percentile
+            );
+        }
+        if (totalCount == 0) {
+            return 0L;
+        }
+        long countAtPercentile = Math.max(1L, (long) Math.ceil(percentile * totalCount / HUNDRED));
+        if (countAtPercentile >= totalCount) {
+            return max;
+        }
+        long cumulative = 0;
+        for (int index = 0; index < counts.length; index++) {
+            cumulative += counts[index];
+            if (cumulative >= countAtPercentile) {
+                long lowest = valueFromIndex(index);
+                long highest = lowest + (1L << bucketIndex(lowest)) - 1;
+                return Math.max(getMin(), Math.min(highest, max));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Asserts, that a latency at given percentile doesn't exceed a limit.
+     *
+     * @param percentile a percentile, from 0 to 100, for ex.: 99.9
+     * @param limit      a maximum latency
+     * @param unit       a unit of limit
+     */
+    public void assertPercentile(double percentile, long limit, TimeUnit unit) {
+        long value = getValueAtPercentile(percentile);
+        if (value > unit.toNanos(limit)) {
+            fail(String.format(
+                Locale.ROOT, "Latency at %s percentile is %s, exceeding %d %s\n%s",
+                formatPercentile(percentile), format(value), limit, unitSymbol(unit), this
+            ));
+        }
+    }
+
+    /**
+     * Asserts, that a maximal latency doesn't exceed a limit.
+     *
+     * @param limit a maximum latency
+     * @param unit  a unit of limit
+     */
+    public void assertMax(long limit, TimeUnit unit) {
+        if (max > unit.toNanos(limit)) {
+            fail(String.format(
+                Locale.ROOT, "Maximal latency is %s, exceeding %d %s\n%s",
+                format(max), limit, unitSymbol(unit), this
+            ));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            Locale.ROOT, "p50 %s, p99 %s, p99.9 %s, max %s, mean %s of %d executions",
+            format(getValueAtPercentile(50)), format(getValueAtPercentile(99)),
+            format(getValueAtPercentile(99.9)), format(max),
+            totalCount == 0 ? "-" : format(Math.round(getMean())), totalCount
+        );
+    }
+
+    static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile)
+            ? String.format(Locale.ROOT, "p%d", (long) percentile)
+            : String.format(Locale.ROOT, "p%s", percentile);
+    }
+
+    /**
+     * Formats a latency with a unit that fits its magnitude.
+     *
+     * @param nanos a latency in nanoseconds
+     * @return a formatted latency, for ex.: {@code 12.3 us}
+     */
+    static String format(long nanos) {
+        TimeUnit[] units = {TimeUnit.SECONDS, TimeUnit.MILLISECONDS, TimeUnit.MICROSECONDS};
+        for (TimeUnit unit : units) {
+            long scale = unit.toNanos(1);
+            if (nanos >= scale) {
+                return String.format(
+                    Locale.ROOT, "%.1f %s", (double) nanos / scale, unitSymbol(unit)
+                );
+            }
+        }
+        return nanos + " ns";
+    }
+
+    static String unitSymbol(TimeUnit unit) {
+        switch (unit) {
+            case NANOSECONDS:
+                return "ns";
+            case MICROSECONDS:
+                return "us";
+            case MILLISECONDS:
+                return "ms";
+            case SECONDS:
+                return "s";
+            default:
+                return unit.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static int bucketIndex(long value) {
+        return LEADING_ZERO_COUNT_BASE - Long.numberOfLeadingZeros(value | SUB_BUCKET_MASK);
+    }
+
+    private static int countsIndex(long value) {
+        int bucketIndex = bucketIndex(value);
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << SUB_BUCKET_HALF_COUNT_MAGNITUDE)
+            + (subBucketIndex - SUB_BUCKET_HALF_COUNT);
+    }
+
+    private static long valueFromIndex(int index) {
+        int bucketIndex = (index >> SUB_BUCKET_HALF_COUNT_MAGNITUDE) - 1;
+        int subBucketIndex = (index & (SUB_BUCKET_HALF_COUNT - 1)) + SUB_BUCKET_HALF_COUNT;
+        if (bucketIndex < 0) {
+            subBucketIndex -= SUB_BUCKET_HALF_COUNT;
+            bucketIndex = 0;
+        }
+        return (long) subBucketIndex << bucketIndex;
+    }
+}
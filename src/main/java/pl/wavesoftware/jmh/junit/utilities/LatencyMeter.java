@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures latency of each execution of a repeated body in current thread. It is
+ * passed as a parameter to test methods annotated with {@link LatencyTest}.
+ * <p>
+ * With a target rate, executions are started on a fixed schedule, and each latency
+ * is counted from an intended start of execution, not from its actual start. So time
+ * spent waiting behind a slow execution is recorded, as a client sending requests
+ * at that rate would see it.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class LatencyMeter {
+
+    private final int warmup;
+    private final int invocations;
+    private final double ratePerSecond;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private boolean measured;
+
+    LatencyMeter(int warmup, int invocations, double ratePerSecond) {
+        if (invocations <= 0) {
+            throw new IllegalArgumentException(
+                "Number of invocations must be positive, but was: " + invocations
+            );
+        }
+        if (ratePerSecond != LatencyTest.UNSET && ratePerSecond <= 0) {
+            throw new IllegalArgumentException(
+                "Rate per second must be positive, but was: " + ratePerSecond
+            );
+        }
+        this.warmup = warmup;
+        this.invocations = invocations;
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    /**
+     * Executes a body for warmup, and then records latency of each its execution.
+     * A histogram is reused by subsequent measurements.
+     *
+     * @param body a body to measure
+     * @return a histogram of latencies
+     * @throws Throwable if body throws
+     */
+    public LatencyHistogram measure(Executable body) throws Throwable {
+        for (int i = 0; i < warmup; i++) {
+            body.execute();
+        }
+        histogram.reset();
+        if (ratePerSecond == LatencyTest.UNSET) {
+            for (int i = 0; i < invocations; i++) {
+                long start = System.nanoTime();
+                body.execute();
+                histogram.record(System.nanoTime() - start);
+            }
+        } else {
+            measurePaced(body);
+        }
+        measured = true;
+        return histogram;
+    }
+
+    /**
+     * Gets a histogram of last measurement.
+     *
+     * @return a histogram of latencies
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    boolean isMeasured() {
+        return measured;
+    }
+
+    boolean isPaced() {
+        return ratePerSecond != LatencyTest.UNSET;
+    }
+
+    private void measurePaced(Executable body) throws Throwable {
+        double interval = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long start = System.nanoTime();
+        for (int i = 0; i < invocations; i++) {
+            long intended = start + (long) (i * interval);
+            while (System.nanoTime() < intended) {
+                // spin, sleeping is far less precise than an interval
+            }
+            body.execute();
+            histogram.record(System.nanoTime() - intended);
+        }
+    }
+}
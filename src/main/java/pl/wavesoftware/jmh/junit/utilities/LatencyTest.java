@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marks a test, that measures latency of a repeated body with a {@link LatencyMeter}
+ * parameter. Each execution of a body is timed with {@link System#nanoTime()} and
+ * recorded into a preallocated {@link LatencyHistogram}, so measurement itself doesn't
+ * allocate. Percentiles can be asserted by the test or with limits of this annotation,
+ * and are published as {@code jmh.latency.*} report entries.
+ * <p>
+ * If {@link #ratePerSecond()} is set, executions are started on a fixed schedule, and
+ * latency is measured from an intended start time. So a stall delays next executions
+ * and gets counted in their latency, instead of being hidden by coordinated omission.
+ * <p>
+ * A test is skipped when a Java agent is present, the same way {@link JavaAgentSkip}
+ * does, as agents distort latency of hot code.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;LatencyTest(invocations = 100_000, warmup = 10_000, p99 = 50, max = 2_000)
+ * void lookup(LatencyMeter meter) throws Throwable {
+ *   LatencyHistogram histogram = meter.measure(() -&gt; cache.get(KEY));
+ *   histogram.assertPercentile(99.9, 200, TimeUnit.MICROSECONDS);
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@Documented
+@Test
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(LatencyTestExtension.class)
+public @interface LatencyTest {
+
+    /**
+     * A value used for limits that are not set.
+     */
+    int UNSET = -1;
+
+    /**
+     * A number of measured executions of a body.
+     *
+     * @return a number of executions
+     */
+    int invocations() default 100_000;
+
+    /**
+     * A number of executions of a body before measurement, so code under test gets
+     * compiled and its lazy initialization is done.
+     *
+     * @return a number of warmup executions
+     */
+    int warmup() default 10_000;
+
+    /**
+     * A target rate of executions per second. If set, executions are paced and
+     * latency is corrected for coordinated omission.
+     *
+     * @return a target rate
+     */
+    double ratePerSecond() default UNSET;
+
+    /**
+     * A maximum median latency, in {@link #unit()}.
+     *
+     * @return a limit of 50th percentile
+     */
+    long p50() default UNSET;
+
+    /**
+     * A maximum 99th percentile of latency, in {@link #unit()}.
+     *
+     * @return a limit of 99th percentile
+     */
+    long p99() default UNSET;
+
+    /**
+     * A maximum 99.9th percentile of latency, in {@link #unit()}.
+     *
+     * @return a limit of 99.9th percentile
+     */
+    long p999() default UNSET;
+
+    /**
+     * A maximum latency, in {@link #unit()}.
+     *
+     * @return a limit of maximum
+     */
+    long max() default UNSET;
+
+    /**
+     * A unit of latency limits.
+     *
+     * @return a time unit
+     */
+    TimeUnit unit() default TimeUnit.MICROSECONDS;
+}
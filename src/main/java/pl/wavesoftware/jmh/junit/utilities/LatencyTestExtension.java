@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Provides a {@link LatencyMeter} to a {@link LatencyTest}, and checks measured
+ * latency against limits of its annotation.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class LatencyTestExtension
+    implements BeforeEachCallback, ParameterResolver, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+        ExtensionContext.Namespace.create(LatencyTestExtension.class);
+    private static final String METER = "meter";
+    private static final String REPORT_KEY_PREFIX = "jmh.latency.";
+    private static final String AGENT_MESSAGE_FORMAT =
+        "Refusing to measure latency with a java agent present (JavaAgentSkip set to %s)";
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+
+    private final JavaAgentSkip agentSkip;
+
+    LatencyTestExtension() {
+        this(JavaAgentSkip.ifPresent(AGENT_MESSAGE_FORMAT));
+    }
+
+    LatencyTestExtension(JavaAgentSkip agentSkip) {
+        this.agentSkip = agentSkip;
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        agentSkip.beforeEach(context);
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext,
+                                     ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == LatencyMeter.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext,
+                                   ExtensionContext extensionContext) {
+        LatencyTest test = latencyTest(extensionContext);
+        LatencyMeter meter = new LatencyMeter(
+            test.warmup(), test.invocations(), test.ratePerSecond()
+        );
+        extensionContext.getStore(NAMESPACE).put(METER, meter);
+        return meter;
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        if (context.getExecutionException().isPresent()) {
+            return;
+        }
+        LatencyMeter meter = context.getStore(NAMESPACE).get(METER, LatencyMeter.class);
+        if (meter == null || !meter.isMeasured()) {
+            fail("No latency was measured, use LatencyMeter parameter");
+        }
+        LatencyTest test = latencyTest(context);
+        LatencyHistogram histogram = meter.getHistogram();
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            entries.put(REPORT_KEY_PREFIX + LatencyHistogram.formatPercentile(percentile),
+                LatencyHistogram.format(histogram.getValueAtPercentile(percentile)));
+        }
+        entries.put(REPORT_KEY_PREFIX + "max", LatencyHistogram.format(histogram.getMax()));
+        entries.put(REPORT_KEY_PREFIX + "executions", String.format(
+            Locale.ROOT, "%d%s", histogram.getTotalCount(),
+            meter.isPaced() ? " at " + test.ratePerSecond() + "/s" : ""
+        ));
+        context.publishReportEntry(entries);
+        List<String> exceeded = new ArrayList<>();
+        check(exceeded, "p50", histogram.getValueAtPercentile(50), test.p50(), test);
+        check(exceeded, "p99", histogram.getValueAtPercentile(99), test.p99(), test);
+        check(exceeded, "p99.9", histogram.getValueAtPercentile(99.9), test.p999(), test);
+        check(exceeded, "max", histogram.getMax(), test.max(), test);
+        if (!exceeded.isEmpty()) {
+            fail("Latency limit exceeded\n" + String.join("\n", exceeded)
+                + "\n" + histogram);
+        }
+    }
+
+    private static void check(List<String> exceeded, String name, long nanos,
+                              long limit, LatencyTest test) {
+        if (limit != LatencyTest.UNSET && nanos > test.unit().toNanos(limit)) {
+            exceeded.add(String.format(
+                Locale.ROOT, "%s: %s, limit %d %s", name, LatencyHistogram.format(nanos),
+                limit, LatencyHistogram.unitSymbol(test.unit())
+            ));
+        }
+    }
+
+    private static LatencyTest latencyTest(ExtensionContext context) {
+        return TestAnnotations.require(context, LatencyTest.class);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Profiles lock and monitor contention of a test. Thread contention monitoring of
+ * a JVM is enabled for a duration of a test, and blocked and waited counts and
+ * times of each participating thread are recorded. Stacks of threads waiting for a
+ * monitor or a lock are sampled, to find contended locks and places they are taken.
+ * <p>
+ * Threads with the most blocked time and top contended locks are published as
+ * {@code jmh.contention.*} report entries. A test fails when a thread, which name
+ * matches {@link #threads()}, exceeds any of the budgets. Blocked counts and times
+ * come from {@code synchronized} monitors, while {@code java.util.concurrent} locks
+ * park threads, which counts as waiting.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;Test
+ * &#64;LockContention(threads = "worker-.*", maxBlockedTime = 0, maxBlockedCount = 0)
+ * void workersDontBlock() throws InterruptedException {
+ *   pool.runAll(tasks);
+ * }
+ * </pre>
+ * See {@link LockFree} for a shortcut.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@Documented
+@Inherited
+@Target({ElementType.METHOD, ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(LockContentionExtension.class)
+public @interface LockContention {
+
+    /**
+     * A value used for budgets that are not set.
+     */
+    int UNSET = -1;
+
+    /**
+     * A regular expression of names of threads, that budgets are checked for. All
+     * participating threads by default.
+     *
+     * @return a pattern of thread names
+     */
+    String threads() default ".*";
+
+    /**
+     * A maximum number of times a thread was blocked on entering a monitor.
+     *
+     * @return a blocked count budget
+     */
+    long maxBlockedCount() default UNSET;
+
+    /**
+     * A maximum time a thread was blocked on entering a monitor, in {@link #unit()}.
+     *
+     * @return a blocked time budget
+     */
+    long maxBlockedTime() default UNSET;
+
+    /**
+     * A maximum time a thread was waiting or parked, in {@link #unit()}.
+     *
+     * @return a waited time budget
+     */
+    long maxWaitedTime() default UNSET;
+
+    /**
+     * A unit of time budgets.
+     *
+     * @return a time unit
+     */
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * An interval of sampling stacks of contended threads, in milliseconds.
+     *
+     * @return a sampling interval
+     */
+    long sampleInterval() default 10;
+
+    /**
+     * A number of threads and locks published in a report.
+     *
+     * @return a number of reported threads and locks
+     */
+    int top() default 5;
+}
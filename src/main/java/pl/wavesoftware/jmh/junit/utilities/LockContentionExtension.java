@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Profiles lock contention of a test annotated with {@link LockContention}, and
+ * checks its threads against budgets.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class LockContentionExtension
+    implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+        ExtensionContext.Namespace.create(LockContentionExtension.class);
+    private static final String PROFILE = "profile";
+    private static final String REPORT_KEY_PREFIX = "jmh.contention.";
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadContentionMonitoringSupported(),
+            "Thread contention monitoring isn't supported by this JVM"
+        );
+        ContentionProfile profile = ContentionProfile.start(
+            threads, lockContention(context).sampleInterval()
+        );
+        context.getStore(NAMESPACE).put(PROFILE, profile);
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) throws InterruptedException {
+        ContentionProfile profile = context.getStore(NAMESPACE)
+            .remove(PROFILE, ContentionProfile.class);
+        if (profile == null) {
+            return;
+        }
+        profile.stop();
+        LockContention contention = lockContention(context);
+        List<ThreadContention> threads = profile.getThreads();
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (ThreadContention thread
+            : threads.subList(0, Math.min(contention.top(), threads.size()))) {
+            entries.put(REPORT_KEY_PREFIX + "thread." + thread.getName(), thread.toString());
+        }
+        List<String> locks = profile.getTopLocks(contention.top());
+        for (int i = 0; i < locks.size(); i++) {
+            entries.put(REPORT_KEY_PREFIX + "lock." + (i + 1), locks.get(i));
+        }
+        if (!entries.isEmpty()) {
+            context.publishReportEntry(entries);
+        }
+        if (context.getExecutionException().isPresent()) {
+            return;
+        }
+        List<String> exceeded = exceeded(threads, contention);
+        if (!exceeded.isEmpty()) {
+            fail("Lock contention budget exceeded\n" + String.join("\n", exceeded)
+                + (locks.isEmpty() ? "" : "\nContended locks:\n" + String.join("\n", locks)));
+        }
+    }
+
+    /**
+     * Finds threads, that exceed budgets of a contention annotation.
+     *
+     * @param threads    contention of threads
+     * @param contention an annotation with budgets
+     * @return descriptions of threads exceeding budgets
+     */
+    static List<String> exceeded(List<ThreadContention> threads, LockContention contention) {
+        Pattern names = Pattern.compile(contention.threads());
+        long maxBlockedMillis = toMillis(contention, contention.maxBlockedTime());
+        long maxWaitedMillis = toMillis(contention, contention.maxWaitedTime());
+        List<String> exceeded = new ArrayList<>();
+        for (ThreadContention thread : threads) {
+            if (!names.matcher(thread.getName()).matches()) {
+                continue;
+            }
+            boolean over = isOver(thread.getBlockedCount(), contention.maxBlockedCount())
+                || isOver(thread.getBlockedMillis(), maxBlockedMillis)
+                || isOver(thread.getWaitedMillis(), maxWaitedMillis);
+            if (over) {
+                exceeded.add(thread.getName() + ": " + thread);
+            }
+        }
+        return exceeded;
+    }
+
+    private static boolean isOver(long value, long limit) {
+        return limit != LockContention.UNSET && value > limit;
+    }
+
+    private static long toMillis(LockContention contention, long value) {
+        return value == LockContention.UNSET
+            ? LockContention.UNSET
+            : contention.unit().toMillis(value);
+    }
+
+    private static LockContention lockContention(ExtensionContext context) {
+        return TestAnnotations.require(context, LockContention.class);
+    }
+}
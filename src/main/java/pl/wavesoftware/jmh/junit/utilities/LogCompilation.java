@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Enables HotSpot compilation log in forks of a {@link JmhBenchmark}, so a test can
+ * assert JIT decisions on hot paths, with a {@link CompilationLog} parameter.
+ * <p>
+ * A benchmark has to run in at least one fork, as flags of a running JVM can't be
+ * changed. Java agents disturb JIT decisions as well, so benchmarks are skipped
+ * when an agent is present, as for any {@link JmhBenchmark}, or with
+ * {@link JavaAgentSkip}.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;LogCompilation
+ * &#64;JmhBenchmark(value = ParserBenchmark.class, forks = 1)
+ * void parserIsInlined(CompilationLog log) {
+ *   log.assertTier("pl.acme.Parser::parse", CompilationLog.C2_TIER);
+ *   log.assertInlined("pl.acme.Lexer::next", "pl.acme.Parser::parse");
+ *   log.assertNoDeoptimizationStorm("pl.acme.Parser::parse");
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@Documented
+@Inherited
+@Target({ElementType.METHOD, ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(CompilationLogExtension.class)
+public @interface LogCompilation {
+
+    /**
+     * Enables also {@code -XX:+PrintInlining}, that prints inlining trees to
+     * output of a fork, for a manual inspection. Assertions don't need it.
+     *
+     * @return true, if inlining should be printed
+     */
+    boolean printInlining() default false;
+}
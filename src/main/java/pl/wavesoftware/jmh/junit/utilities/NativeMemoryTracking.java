@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An access to Native Memory Tracking of this JVM, through {@code VM.native_memory}
+ * {@link DiagnosticCommand}. Tracking has to be enabled with
+ * {@code -XX:NativeMemoryTracking=summary} when a JVM starts.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class NativeMemoryTracking {
+
+    static final String JVM_ARGUMENT = "-XX:NativeMemoryTracking=summary";
+    static final String TOTAL = "Total";
+    private static final Pattern CATEGORY = Pattern.compile(
+        "^-?\\s*(.+?):? \\(?reserved=\\d+KB(?: [+-]\\d+KB)?, committed=\\d+KB(?: ([+-]\\d+)KB)?\\)?$"
+    );
+    private static final long KILOBYTE = 1024;
+
+    private NativeMemoryTracking() {
+        // not reachable
+    }
+
+    /**
+     * Takes a baseline, that a later diff is computed against.
+     *
+     * @return true, if tracking is enabled and a baseline was taken
+     */
+    static boolean baseline() {
+        String output = execute("baseline");
+        return output != null && output.contains("Baseline succeeded");
+    }
+
+    /**
+     * Gets a growth of committed native memory of each category since a baseline.
+     *
+     * @return a growth in bytes of each category, with a total, or an empty map if
+     * tracking isn't enabled
+     */
+    static Map<String, Long> committedGrowth() {
+        String output = execute("summary.diff");
+        return output == null ? new LinkedHashMap<>() : parseCommittedGrowth(output);
+    }
+
+    /**
+     * Parses an output of {@code VM.native_memory summary.diff} command.
+     *
+     * @param output an output of a command
+     * @return a growth in bytes of each category, that changed, with a total
+     */
+    static Map<String, Long> parseCommittedGrowth(String output) {
+        Map<String, Long> growth = new LinkedHashMap<>();
+        for (String line : output.split("\\R")) {
+            Matcher matcher = CATEGORY.matcher(line.trim());
+            if (matcher.matches() && matcher.group(2) != null) {
+                growth.put(matcher.group(1).trim(), Long.parseLong(
+                    matcher.group(2).replace("+", "")
+                ) * KILOBYTE);
+            }
+        }
+        return growth;
+    }
+
+    @Nullable
+    private static String execute(String argument) {
+        String output = DiagnosticCommand.execute("vmNativeMemory", argument);
+        return output == null || output.toLowerCase(Locale.ROOT).contains("not enabled")
+            ? null
+            : output;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails a test if objects created by it stay alive after it ends, for ex.: when a
+ * cache or a pool keeps them.
+ * <p>
+ * A heap histogram of live objects is taken with {@code GC.class_histogram}
+ * diagnostic command before and after a test body, each after full garbage
+ * collection settles. Classes which instances or bytes grew the most are published
+ * as {@code jmh.heap.*} report entries, and a test fails when any class not
+ * {@linkplain #excluding() excluded} grew by more than {@link #maxInstances()}
+ * instances or {@link #maxBytes()} bytes. Objects referenced by fields of a test
+ * instance are alive after a test body too, so they count as retained.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;Test
+ * &#64;NoRetainedGrowth(excluding = SessionRegistry.class, maxInstances = 0)
+ * void requestsDontLeak() {
+ *   client.sendAll(requests);
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@Documented
+@Inherited
+@Target({ElementType.METHOD, ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(NoRetainedGrowthExtension.class)
+public @interface NoRetainedGrowth {
+
+    /**
+     * Classes, which growth is expected.
+     *
+     * @return excluded classes
+     */
+    Class<?>[] excluding() default {};
+
+    /**
+     * Regular expressions of names of classes, which growth is expected, as they
+     * appear in a histogram, for ex.: {@code java\.lang\.invoke\..*} or {@code \[B}.
+     *
+     * @return patterns of excluded class names
+     */
+    String[] excludingNames() default {};
+
+    /**
+     * A maximum growth of a number of instances of a class.
+     *
+     * @return a maximum growth of instances
+     */
+    long maxInstances() default 100;
+
+    /**
+     * A maximum growth of bytes of instances of a class.
+     *
+     * @return a maximum growth of bytes
+     */
+    long maxBytes() default 1024 * 1024;
+
+    /**
+     * A number of classes, that grew the most, published in a report.
+     *
+     * @return a number of reported classes
+     */
+    int top() default 10;
+}
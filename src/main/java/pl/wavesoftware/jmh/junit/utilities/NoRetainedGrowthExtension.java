@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Compares heap histograms taken before and after a test annotated with
+ * {@link NoRetainedGrowth}.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class NoRetainedGrowthExtension
+    implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+        ExtensionContext.Namespace.create(NoRetainedGrowthExtension.class);
+    private static final String HISTOGRAM = "histogram";
+    private static final String REPORT_KEY_PREFIX = "jmh.heap.";
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) throws IOException {
+        context.getStore(NAMESPACE).put(HISTOGRAM, ClassHistogram.capture());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) throws IOException {
+        String before = context.getStore(NAMESPACE).remove(HISTOGRAM, String.class);
+        if (before == null || context.getExecutionException().isPresent()) {
+            return;
+        }
+        NoRetainedGrowth annotation = annotation(context);
+        ClassHistogram after = ClassHistogram.take();
+        List<ClassGrowth> growth = retained(
+            after.growthSince(ClassHistogram.parse(new StringReader(before))), annotation
+        );
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (ClassGrowth grown : growth.subList(0, Math.min(annotation.top(), growth.size()))) {
+            entries.put(REPORT_KEY_PREFIX + grown.getClassName(), grown.toString());
+        }
+        if (!entries.isEmpty()) {
+            context.publishReportEntry(entries);
+        }
+        List<String> exceeded = new ArrayList<>();
+        for (ClassGrowth grown : growth) {
+            if (grown.getInstances() > annotation.maxInstances()
+                || grown.getBytes() > annotation.maxBytes()) {
+                exceeded.add(grown.getClassName() + ": " + grown);
+            }
+        }
+        if (!exceeded.isEmpty()) {
+            fail("Heap retained by test grew\n" + String.join("\n", exceeded));
+        }
+    }
+
+    /**
+     * Filters out growth of excluded classes.
+     *
+     * @param growth     growth of classes
+     * @param annotation an annotation with exclusions
+     * @return growth of classes, that are not excluded
+     */
+    static List<ClassGrowth> retained(List<ClassGrowth> growth, NoRetainedGrowth annotation) {
+        List<Pattern> excluded = new ArrayList<>();
+        for (Class<?> type : annotation.excluding()) {
+            excluded.add(Pattern.compile(Pattern.quote(type.getName())));
+        }
+        for (String name : annotation.excludingNames()) {
+            excluded.add(Pattern.compile(name));
+        }
+        List<ClassGrowth> retained = new ArrayList<>();
+        for (ClassGrowth grown : growth) {
+            if (excluded.stream().noneMatch(
+                pattern -> pattern.matcher(grown.getClassName()).matches())) {
+                retained.add(grown);
+            }
+        }
+        return retained;
+    }
+
+    private static NoRetainedGrowth annotation(ExtensionContext context) {
+        return TestAnnotations.require(context, NoRetainedGrowth.class);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails a test if it retains more off-heap memory than a given budget, for ex.: when
+ * direct buffers or memory-mapped files leak, which heap based checks don't see.
+ * <p>
+ * Memory used by {@code direct} and {@code mapped} buffer pools is read before and
+ * after a test. Buffers are released by cleaners after their owners are collected,
+ * so garbage collection is requested before the second read, and only retained
+ * memory is counted. If a JVM runs with {@code -XX:NativeMemoryTracking=summary},
+ * a growth of committed native memory of each category is reported as well, from a
+ * {@code VM.native_memory summary.diff} command. Growth is published as
+ * {@code jmh.offheap.*} report entries.
+ * <p>
+ * For a {@link JmhBenchmark} test, the memory is measured in each fork by
+ * {@link OffHeapProfiler}, around measurement iterations, and budgets are checked
+ * for each benchmark. Native memory of forks is tracked with {@link #trackNative()}.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;JmhBenchmark(value = ChannelBenchmark.class, forks = 1)
+ * &#64;OffHeapBudget(maxRetained = 0, trackNative = true, maxNativeGrowth = 16 &lt;&lt; 20)
+ * void noBufferLeaks() {
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@Documented
+@Inherited
+@Target({ElementType.METHOD, ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(OffHeapBudgetExtension.class)
+public @interface OffHeapBudget {
+
+    /**
+     * A value used for budgets that are not set.
+     */
+    int UNSET = -1;
+
+    /**
+     * A maximum number of bytes retained in buffer pools.
+     *
+     * @return a retained bytes budget
+     */
+    long maxRetained() default UNSET;
+
+    /**
+     * A maximum growth of total committed native memory, in bytes. It is checked
+     * only when Native Memory Tracking is enabled.
+     *
+     * @return a native memory growth budget
+     */
+    long maxNativeGrowth() default UNSET;
+
+    /**
+     * Enables Native Memory Tracking in forks of a benchmark. A test JVM has to be
+     * started with {@code -XX:NativeMemoryTracking=summary} instead.
+     *
+     * @return true, if forks should track native memory
+     */
+    boolean trackNative() default false;
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.openjdk.jmh.results.RunResult;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Measures off-heap memory retained by a test, and checks it against its
+ * {@link OffHeapBudget}.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class OffHeapBudgetExtension
+    implements BeforeEachCallback, BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+        ExtensionContext.Namespace.create(OffHeapBudgetExtension.class);
+    private static final String POOLS = "pools";
+    private static final String REPORT_KEY_PREFIX = "jmh.offheap.";
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        JmhBenchmarkExtension.customize(
+            context, builder -> builder.addProfiler(OffHeapProfiler.class)
+        );
+        if (budget(context).trackNative()) {
+            JmhBenchmarkExtension.appendJvmArgs(context, NativeMemoryTracking.JVM_ARGUMENT);
+        }
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) throws InterruptedException {
+        context.getStore(NAMESPACE).put(POOLS, BufferPools.retained());
+        NativeMemoryTracking.baseline();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterTestExecution(ExtensionContext context) throws InterruptedException {
+        Map<String, Long> before = context.getStore(NAMESPACE).remove(POOLS, Map.class);
+        if (before == null || context.getExecutionException().isPresent()) {
+            return;
+        }
+        Map<String, OffHeapGrowth> measured = new LinkedHashMap<>();
+        for (RunResult result : JmhBenchmarkExtension.getResults(context)) {
+            OffHeapGrowth growth = OffHeapGrowth.of(result);
+            if (growth != null) {
+                measured.put(RunResults.label(result), growth);
+            }
+        }
+        if (measured.isEmpty()) {
+            measured.put(context.getDisplayName(), new OffHeapGrowth(
+                BufferPools.growth(before, BufferPools.retained()),
+                NativeMemoryTracking.committedGrowth()
+            ));
+        }
+        OffHeapBudget budget = budget(context);
+        Map<String, String> entries = new LinkedHashMap<>();
+        List<String> exceeded = new ArrayList<>();
+        for (Map.Entry<String, OffHeapGrowth> entry : measured.entrySet()) {
+            entries.put(REPORT_KEY_PREFIX + entry.getKey(), entry.getValue().toString());
+            for (String limit : entry.getValue().exceeded(budget)) {
+                exceeded.add(entry.getKey() + ": " + limit);
+            }
+        }
+        context.publishReportEntry(entries);
+        if (!exceeded.isEmpty()) {
+            fail("Off-heap budget exceeded\n" + String.join("\n", exceeded));
+        }
+    }
+
+    private static OffHeapBudget budget(ExtensionContext context) {
+        return TestAnnotations.require(context, OffHeapBudget.class);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.ScalarResult;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * A growth of off-heap memory: buffer pools retained after a test, and committed
+ * native memory of each Native Memory Tracking category, if it is enabled. It is
+ * checked against an {@link OffHeapBudget}.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class OffHeapGrowth {
+
+    static final String POOL_PREFIX = "offheap.pool.";
+    static final String NATIVE_PREFIX = "offheap.native.";
+
+    private final Map<String, Long> pools;
+    private final Map<String, Long> nativeMemory;
+
+    OffHeapGrowth(Map<String, Long> pools, Map<String, Long> nativeMemory) {
+        this.pools = Collections.unmodifiableMap(new LinkedHashMap<>(pools));
+        this.nativeMemory = Collections.unmodifiableMap(new LinkedHashMap<>(nativeMemory));
+    }
+
+    /**
+     * Reads a growth from secondary results of a benchmark profiled with
+     * {@link OffHeapProfiler}.
+     *
+     * @param result a result of a benchmark
+     * @return a growth, or null if a benchmark wasn't profiled
+     */
+    @Nullable
+    static OffHeapGrowth of(RunResult result) {
+        Map<String, Long> pools = new LinkedHashMap<>();
+        Map<String, Long> nativeMemory = new LinkedHashMap<>();
+        Map<String, ?> secondary = result.getAggregatedResult().getSecondaryResults();
+        for (Map.Entry<String, ?> entry : secondary.entrySet()) {
+            long bytes = Math.round(((Result<?>) entry.getValue()).getScore());
+            if (entry.getKey().startsWith(POOL_PREFIX)) {
+                pools.put(entry.getKey().substring(POOL_PREFIX.length()), bytes);
+            } else if (entry.getKey().startsWith(NATIVE_PREFIX)) {
+                nativeMemory.put(entry.getKey().substring(NATIVE_PREFIX.length()), bytes);
+            }
+        }
+        return pools.isEmpty() ? null : new OffHeapGrowth(pools, nativeMemory);
+    }
+
+    /**
+     * Gets bytes retained by all buffer pools.
+     *
+     * @return retained bytes, or zero if pools shrunk
+     */
+    long getRetained() {
+        long retained = 0;
+        for (long bytes : pools.values()) {
+            retained += bytes;
+        }
+        return Math.max(0, retained);
+    }
+
+    /**
+     * Gets a growth of total committed native memory.
+     *
+     * @return a growth in bytes, or null if Native Memory Tracking isn't enabled
+     */
+    @Nullable
+    Long getNativeGrowth() {
+        return nativeMemory.get(NativeMemoryTracking.TOTAL);
+    }
+
+    Map<String, Long> getPools() {
+        return pools;
+    }
+
+    Map<String, Long> getNativeMemory() {
+        return nativeMemory;
+    }
+
+    List<ScalarResult> toResults() {
+        List<ScalarResult> results = new ArrayList<>();
+        for (Map.Entry<String, Long> pool : pools.entrySet()) {
+            results.add(new ScalarResult(
+                POOL_PREFIX + pool.getKey(), pool.getValue(), "bytes", AggregationPolicy.MAX
+            ));
+        }
+        for (Map.Entry<String, Long> category : nativeMemory.entrySet()) {
+            results.add(new ScalarResult(
+                NATIVE_PREFIX + category.getKey(), category.getValue(), "bytes",
+                AggregationPolicy.MAX
+            ));
+        }
+        return results;
+    }
+
+    /**
+     * Finds limits of a budget, that are exceeded.
+     *
+     * @param budget an off-heap budget
+     * @return descriptions of exceeded limits
+     */
+    List<String> exceeded(OffHeapBudget budget) {
+        List<String> exceeded = new ArrayList<>();
+        if (budget.maxRetained() != OffHeapBudget.UNSET && getRetained() > budget.maxRetained()) {
+            exceeded.add("retained " + JfrSummary.formatBytes(getRetained())
+                + " in buffer pools, limit " + JfrSummary.formatBytes(budget.maxRetained()));
+        }
+        Long nativeGrowth = getNativeGrowth();
+        if (budget.maxNativeGrowth() != OffHeapBudget.UNSET && nativeGrowth != null
+            && nativeGrowth > budget.maxNativeGrowth()) {
+            exceeded.add("native memory grew by " + JfrSummary.formatBytes(nativeGrowth)
+                + ", limit " + JfrSummary.formatBytes(budget.maxNativeGrowth()));
+        }
+        return exceeded;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ");
+        joiner.add("retained " + JfrSummary.formatBytes(getRetained()));
+        for (Map.Entry<String, Long> pool : pools.entrySet()) {
+            joiner.add(pool.getKey() + " " + signed(pool.getValue()));
+        }
+        if (nativeMemory.isEmpty()) {
+            joiner.add("native memory not tracked");
+        }
+        for (Map.Entry<String, Long> category : nativeMemory.entrySet()) {
+            joiner.add("native " + category.getKey() + " " + signed(category.getValue()));
+        }
+        return joiner.toString();
+    }
+
+    private static String signed(long bytes) {
+        return (bytes < 0 ? "-" : "+") + JfrSummary.formatBytes(Math.abs(bytes));
+    }
+}
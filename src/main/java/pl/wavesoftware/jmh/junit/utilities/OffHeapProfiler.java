@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.runner.IterationType;
+import pl.wavesoftware.eid.exceptions.EidIllegalStateException;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A JMH profiler, that measures off-heap memory retained by a benchmark. Buffer
+ * pools are read before the first measurement iteration, and after the last one,
+ * when unreachable buffers are released. Their growth is reported as
+ * {@code offheap.pool.*} secondary results. If a JVM runs with
+ * {@code -XX:NativeMemoryTracking=summary}, a growth of committed native memory of
+ * each category is reported as {@code offheap.native.*} too.
+ * <p>
+ * Example:
+ * <pre>
+ * new OptionsBuilder()
+ *   .addProfiler(OffHeapProfiler.class)
+ *   .jvmArgsAppend("-XX:NativeMemoryTracking=summary");
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class OffHeapProfiler implements InternalProfiler {
+
+    @Nullable
+    private Map<String, Long> before;
+    private int iterations;
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams,
+                                IterationParams iterationParams) {
+        if (iterationParams.getType() == IterationType.MEASUREMENT && before == null) {
+            try {
+                before = BufferPools.retained();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new EidIllegalStateException("20261017:203144", ex);
+            }
+            NativeMemoryTracking.baseline();
+        }
+    }
+
+    @Override
+    public Collection<? extends Result<?>> afterIteration(BenchmarkParams benchmarkParams,
+                                                          IterationParams iterationParams,
+                                                          IterationResult result) {
+        if (iterationParams.getType() != IterationType.MEASUREMENT || before == null
+            || ++iterations < iterationParams.getCount()) {
+            return Collections.emptyList();
+        }
+        try {
+            Map<String, Long> pools = BufferPools.growth(before, BufferPools.retained());
+            return new OffHeapGrowth(pools, NativeMemoryTracking.committedGrowth()).toResults();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new EidIllegalStateException("20261017:184517", ex);
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "Off-heap memory retained in buffer pools and native memory";
+    }
+}
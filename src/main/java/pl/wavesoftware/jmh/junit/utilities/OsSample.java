@@ -0,0 +1,193 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+/**
+ * A sample of operating system activity counters, read from Linux
+ * {@code /proc/loadavg}, {@code /proc/stat} and cgroup {@code cpu.stat}. CPU and
+ * throttling counters are cumulative, so the activity of a period is a difference
+ * of two samples.
+ * <p>
+ * A load average counts runnable tasks of a whole host, also in a container, so
+ * it is divided by a number of CPUs of a host, not by a quota of a container.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class OsSample {
+
+    private static final Path ROOT = Paths.get("/");
+    private static final String[] CGROUP_DIRS = {
+        "sys/fs/cgroup", "sys/fs/cgroup/cpu", "sys/fs/cgroup/cpu,cpuacct"
+    };
+    private static final int IDLE = 3;
+    private static final int IOWAIT = 4;
+    private static final int STEAL = 7;
+    private static final int COUNTED_FIELDS = 8;
+
+    private final double loadAverage;
+    private final long cpuTotal;
+    private final long cpuIdle;
+    private final long cpuSteal;
+    private final long periods;
+    private final long throttledPeriods;
+    private final int hostCpus;
+
+    OsSample(double loadAverage, long cpuTotal, long cpuIdle, long cpuSteal,
+             long periods, long throttledPeriods, int hostCpus) {
+        this.loadAverage = loadAverage;
+        this.cpuTotal = cpuTotal;
+        this.cpuIdle = cpuIdle;
+        this.cpuSteal = cpuSteal;
+        this.periods = periods;
+        this.throttledPeriods = throttledPeriods;
+        this.hostCpus = hostCpus;
+    }
+
+    /**
+     * Reads a sample of current machine.
+     *
+     * @return a sample, or empty if system doesn't provide Linux proc files
+     */
+    static Optional<OsSample> current() {
+        return read(ROOT);
+    }
+
+    static Optional<OsSample> read(Path root) {
+        Path statFile = root.resolve("proc/stat");
+        if (!Files.isReadable(statFile)) {
+            return Optional.empty();
+        }
+        try {
+            String stat = readFile(statFile);
+            long[] cpu = cpuCounters(stat);
+            double load = Double.parseDouble(
+                readFile(root.resolve("proc/loadavg")).trim().split("\\s+")[0]
+            );
+            long periods = 0;
+            long throttled = 0;
+            for (String dir : CGROUP_DIRS) {
+                Path cgroup = root.resolve(dir);
+                Path cpuStat = cgroup.resolve("cpu.stat");
+                if (Files.isReadable(cpuStat)) {
+                    String content = readFile(cpuStat);
+                    periods = counter(content, "nr_periods");
+                    throttled = counter(content, "nr_throttled");
+                    break;
+                }
+            }
+            return Optional.of(new OsSample(
+                load, cpu[0], cpu[1], cpu[2], periods, throttled, hostCpus(stat)
+            ));
+        } catch (IOException | RuntimeException ex) {
+            return Optional.empty();
+        }
+    }
+
+    double getLoadAverage() {
+        return loadAverage;
+    }
+
+    /**
+     * Gets a number of online CPUs of a host, also when running in a container.
+     *
+     * @return a number of CPUs
+     */
+    int getHostCpus() {
+        return hostCpus;
+    }
+
+    double getLoadPerCpu() {
+        return loadAverage / Math.max(1, hostCpus);
+    }
+
+    double cpuUsageSince(OsSample earlier) {
+        long total = cpuTotal - earlier.cpuTotal;
+        return total <= 0 ? 0d : 1d - (double) (cpuIdle - earlier.cpuIdle) / total;
+    }
+
+    double stealSince(OsSample earlier) {
+        long total = cpuTotal - earlier.cpuTotal;
+        return total <= 0 ? 0d : (double) (cpuSteal - earlier.cpuSteal) / total;
+    }
+
+    double throttlingSince(OsSample earlier) {
+        long total = periods - earlier.periods;
+        return total <= 0 ? 0d : (double) (throttledPeriods - earlier.throttledPeriods) / total;
+    }
+
+    /**
+     * Parses the aggregated {@code cpu} line of {@code /proc/stat}.
+     *
+     * @param stat a content of {@code /proc/stat}
+     * @return total, idle and steal ticks
+     */
+    static long[] cpuCounters(String stat) {
+        for (String line : stat.split("\n")) {
+            if (line.startsWith("cpu ")) {
+                String[] fields = line.substring("cpu ".length()).trim().split("\\s+");
+                long total = 0;
+                for (int i = 0; i < Math.min(COUNTED_FIELDS, fields.length); i++) {
+                    total += Long.parseLong(fields[i]);
+                }
+                long idle = Long.parseLong(fields[IDLE]) + Long.parseLong(fields[IOWAIT]);
+                long steal = fields.length > STEAL ? Long.parseLong(fields[STEAL]) : 0L;
+                return new long[]{total, idle, steal};
+            }
+        }
+        throw new IllegalArgumentException("No cpu line in /proc/stat");
+    }
+
+    /**
+     * Counts per CPU {@code cpuN} lines of {@code /proc/stat}, that aren't limited
+     * by a cgroup, unlike {@link Runtime#availableProcessors()}.
+     *
+     * @param stat a content of {@code /proc/stat}
+     * @return a number of CPUs of a host
+     */
+    static int hostCpus(String stat) {
+        int cpus = 0;
+        for (String line : stat.split("\n")) {
+            if (line.length() > "cpu".length() && line.startsWith("cpu")
+                && Character.isDigit(line.charAt("cpu".length()))) {
+                cpus++;
+            }
+        }
+        return cpus > 0 ? cpus : Runtime.getRuntime().availableProcessors();
+    }
+
+    static long counter(String cpuStat, String name) {
+        for (String line : cpuStat.split("\n")) {
+            String[] fields = line.trim().split("\\s+");
+            if (fields.length == 2 && fields[0].equals(name)) {
+                return Long.parseLong(fields[1]);
+            }
+        }
+        return 0L;
+    }
+
+    private static String readFile(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+    }
+}
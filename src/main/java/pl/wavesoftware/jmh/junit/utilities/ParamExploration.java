@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Turns a {@link JmhBenchmark} test into an exploration of a space of
+ * {@code @Param} values of a benchmark, when a full cartesian product would take
+ * too long.
+ * <p>
+ * A space is sampled with a Latin hypercube or a coarse grid first. Then, pairs
+ * of near points which scores differ by more than {@link #cliff()} are refined,
+ * by running a point half way between them, until they are adjacent or
+ * {@link #maxPoints()} are run. So performance cliffs, for ex.: when data stops
+ * fitting a cache, are found with far fewer runs. Every {@code @Param} field of a
+ * benchmark class, and of {@code @State} classes a benchmark method takes, is a
+ * dimension, and each point gives all of them to JMH. Their values should be
+ * listed in order, for ex.: ascending sizes.
+ * If a benchmark runs in many modes, a score of a first one is explored.
+ * <p>
+ * Each point runs in a separate JVM, and up to {@link #parallelism()} of them run
+ * at once, each pinned to own, disjoint CPUs with Linux {@code taskset}. If they
+ * can't be pinned, points run one by one. A response surface is published as a
+ * report entry, and a test method can receive a {@link ResponseSurface} parameter.
+ * Forks running at once still share memory bandwidth and caches of a last level,
+ * so scores are good to locate cliffs, not to compare precisely.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;JmhBenchmark(value = CacheBenchmark.class, warmupIterations = 2, measurementIterations = 3)
+ * &#64;ParamExploration(samples = 12, maxPoints = 30)
+ * void cliffs(ResponseSurface surface) {
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ParamExploration {
+
+    /**
+     * A way to choose initial points.
+     *
+     * @return a sampling
+     */
+    Sampling sampling() default Sampling.LATIN_HYPERCUBE;
+
+    /**
+     * A number of initial points: samples of Latin hypercube, or values of each
+     * dimension of a grid.
+     *
+     * @return a number of samples
+     */
+    int samples() default 10;
+
+    /**
+     * A maximum number of points run, including initial ones.
+     *
+     * @return a maximum number of points
+     */
+    int maxPoints() default 30;
+
+    /**
+     * A relative difference of scores of near points, that is refined, for ex.:
+     * 0.25 for 25%.
+     *
+     * @return a cliff threshold
+     */
+    double cliff() default 0.25;
+
+    /**
+     * A number of points run at once, limited by allowed CPUs. By default, a half
+     * of allowed CPUs, so each point gets at least two of them.
+     *
+     * @return a parallelism
+     */
+    int parallelism() default 0;
+
+    /**
+     * A seed of Latin hypercube sampling, so runs are repeatable.
+     *
+     * @return a seed
+     */
+    long seed() default 1;
+
+    /**
+     * A way to choose initial points of exploration.
+     */
+    enum Sampling {
+        /**
+         * Each dimension is split into equal strata, one for each sample, so every
+         * dimension is covered evenly.
+         */
+        LATIN_HYPERCUBE,
+
+        /**
+         * Evenly spaced values of each dimension, in every combination.
+         */
+        GRID
+    }
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * Explores a space of parameters of a benchmark, see {@link ParamExploration}.
+ * Each point runs in a separate JVM. Points run at once only if each can be
+ * pinned to its own CPUs with {@code taskset}.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class ParamExplorer {
+
+    private static final String IGNORE_LOCK_PROPERTY = "jmh.ignoreLock";
+
+    private final ParamExploration exploration;
+    private final String classpath;
+    private final List<List<Integer>> slots;
+    private final Launcher launcher;
+    private final RecursiveDeleter deleter = new RecursiveDeleter();
+
+    ParamExplorer(ParamExploration exploration,
+                  String classpath,
+                  List<List<Integer>> slots,
+                  Launcher launcher) {
+        if (exploration.samples() < 1 || exploration.maxPoints() < 1) {
+            throw new IllegalArgumentException(String.format(
+                Locale.ROOT, "Samples and max points must be positive, but were: %d and %d",
+                exploration.samples(), exploration.maxPoints()
+            ));
+        }
+        this.exploration = exploration;
+        this.classpath = classpath;
+        this.slots = slots;
+        this.launcher = launcher;
+    }
+
+    static ParamExplorer of(ParamExploration exploration) {
+        return of(
+            exploration, System.getProperties(), Shard.allowedCpus(),
+            TasksetProfiler.isAvailable(), AbRunner::launch
+        );
+    }
+
+    static ParamExplorer of(ParamExploration exploration,
+                            Properties properties,
+                            List<Integer> allowedCpus,
+                            boolean pinnable,
+                            Launcher launcher) {
+        int parallelism = exploration.parallelism() > 0
+            ? exploration.parallelism()
+            : Math.max(1, allowedCpus.size() / 2);
+        return new ParamExplorer(
+            exploration,
+            properties.getProperty("java.class.path", System.getProperty("java.class.path")),
+            slots(parallelism, allowedCpus, pinnable), launcher
+        );
+    }
+
+    /**
+     * Splits CPUs into disjoint sets, one for each point run at once. Unpinned
+     * forks would compete for cores and caches, and distort cliffs, so points run
+     * one by one, unpinned, if they can't be pinned.
+     *
+     * @param parallelism a requested parallelism
+     * @param cpus        CPUs allowed for this process
+     * @param pinnable    if forks can be pinned with {@code taskset}
+     * @return CPUs of each slot, or a single slot without CPUs
+     */
+    static List<List<Integer>> slots(int parallelism, List<Integer> cpus, boolean pinnable) {
+        int count = Math.min(parallelism, cpus.size());
+        if (!pinnable || count < 2) {
+            return Collections.singletonList(Collections.emptyList());
+        }
+        List<List<Integer>> slots = new ArrayList<>();
+        for (int slot = 0; slot < count; slot++) {
+            slots.add(Shard.split(cpus, count, slot));
+        }
+        return slots;
+    }
+
+    /**
+     * Explores a space of parameters of a benchmark.
+     *
+     * @param benchmark      a full name of a benchmark method
+     * @param benchmarkClass a class of a benchmark method
+     * @param settings       settings of a benchmark
+     * @return a response surface
+     * @throws IOException if a fork fails, its log is left for inspection then
+     */
+    ResponseSurface run(String benchmark,
+                        Class<?> benchmarkClass,
+                        BenchmarkSettings settings) throws IOException {
+        ParamSpace space = ParamSpace.of(
+            benchmarkClass, benchmark.substring(benchmark.lastIndexOf('.') + 1)
+        );
+        List<int[]> initial = exploration.sampling() == ParamExploration.Sampling.GRID
+            ? space.grid(exploration.samples())
+            : space.latinHypercube(exploration.samples(), new Random(exploration.seed()));
+        Path workDir = Files.createTempDirectory("jmh-explore-");
+        Map<List<Integer>, Score> scores = new LinkedHashMap<>();
+        run(benchmark, settings, space, workDir, limit(initial, scores.size()), false, scores);
+        while (scores.size() < exploration.maxPoints()) {
+            List<int[]> refined = new ArrayList<>();
+            for (Pair pair : pairs(space, scores)) {
+                if (!pair.isAdjacent() && !scores.containsKey(key(pair.middle))
+                    && refined.stream().noneMatch(point -> Arrays.equals(point, pair.middle))) {
+                    refined.add(pair.middle);
+                }
+            }
+            if (refined.isEmpty()) {
+                break;
+            }
+            refined = limit(refined.subList(0, Math.min(refined.size(), slots.size())), scores.size());
+            run(benchmark, settings, space, workDir, refined, true, scores);
+        }
+        deleter.delete(workDir);
+        return surface(benchmark, space, scores);
+    }
+
+    private List<int[]> limit(List<int[]> points, int done) {
+        return new ArrayList<>(points.subList(
+            0, Math.min(points.size(), Math.max(0, exploration.maxPoints() - done))
+        ));
+    }
+
+    /**
+     * Finds pairs of near points, which scores differ by more than a threshold,
+     * the most different first.
+     */
+    private List<Pair> pairs(ParamSpace space, Map<List<Integer>, Score> scores) {
+        List<Score> all = new ArrayList<>(scores.values());
+        int neighbours = 2 * space.getNames().size();
+        Set<List<List<Integer>>> seen = new LinkedHashSet<>();
+        List<Pair> pairs = new ArrayList<>();
+        for (Score score : all) {
+            List<Score> nearest = new ArrayList<>(all);
+            nearest.remove(score);
+            nearest.sort(Comparator.comparingDouble(other -> space.distance(score.point, other.point)));
+            for (Score other : nearest.subList(0, Math.min(neighbours, nearest.size()))) {
+                double change = Math.abs(score.value - other.value)
+                    / Math.max(Math.min(Math.abs(score.value), Math.abs(other.value)), Double.MIN_NORMAL);
+                boolean ordered = compare(score.point, other.point) < 0;
+                Score first = ordered ? score : other;
+                Score second = ordered ? other : score;
+                if (change > exploration.cliff()
+                    && seen.add(Arrays.asList(key(first.point), key(second.point)))) {
+                    pairs.add(new Pair(first, second, space.middle(first.point, second.point), change));
+                }
+            }
+        }
+        pairs.sort(Comparator.comparingDouble((Pair pair) -> pair.change).reversed());
+        return pairs;
+    }
+
+    private void run(String benchmark,
+                     BenchmarkSettings settings,
+                     ParamSpace space,
+                     Path workDir,
+                     List<int[]> points,
+                     boolean refined,
+                     Map<List<Integer>, Score> scores) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(slots.size());
+        BlockingQueue<List<Integer>> free = new ArrayBlockingQueue<>(slots.size(), false, slots);
+        try {
+            List<Future<Score>> futures = new ArrayList<>();
+            for (int[] point : points) {
+                Path json = workDir.resolve("point-" + (scores.size() + futures.size()) + ".json");
+                Callable<Score> task = () -> {
+                    List<Integer> cpus = free.take();
+                    try {
+                        launcher.launch(
+                            cpus.isEmpty()
+                                ? Collections.emptyList()
+                                : TasksetProfiler.command(Shard.formatCpuList(cpus)),
+                            classpath, jvmArgs(settings),
+                            arguments(benchmark, settings, space.params(point), json), json
+                        );
+                    } finally {
+                        free.add(cpus);
+                    }
+                    return read(json, benchmark, point, refined);
+                };
+                futures.add(executor.submit(task));
+            }
+            for (Future<Score> future : futures) {
+                Score score = future.get();
+                scores.put(key(score.point), score);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while exploring " + benchmark);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException("Exploration of " + benchmark + " failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Appends an option, that lets JMH run next to other instances, if points of
+     * exploration run at once, each pinned to own CPUs.
+     */
+    private List<String> jvmArgs(BenchmarkSettings settings) {
+        List<String> jvmArgs = new ArrayList<>(settings.getJvmArgsAppend());
+        if (slots.size() > 1) {
+            jvmArgs.add("-D" + IGNORE_LOCK_PROPERTY + "=true");
+        }
+        return jvmArgs;
+    }
+
+    private static List<String> arguments(String benchmark,
+                                          BenchmarkSettings settings,
+                                          Map<String, String> params,
+                                          Path json) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+            "^" + Pattern.quote(benchmark) + "$", "-f", "0", "-foe", "true"
+        ));
+        arguments.addAll(settings.toArguments());
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            arguments.add("-p");
+            arguments.add(param.getKey() + "=" + param.getValue());
+        }
+        arguments.addAll(Arrays.asList("-rf", "json", "-rff", json.toString()));
+        return arguments;
+    }
+
+    /**
+     * Reads a score of a point, in a first mode of a benchmark. Every param is
+     * given, so there is one result of each mode, unless JMH found params, that
+     * weren't explored.
+     */
+    private static Score read(Path json, String benchmark, int[] point, boolean refined)
+        throws IOException {
+        String text = new String(Files.readAllBytes(json), StandardCharsets.UTF_8);
+        Score score = null;
+        try {
+            for (Object element : (List<?>) Json.parse(text)) {
+                Map<?, ?> result = (Map<?, ?>) element;
+                if (!benchmark.equals(result.get("benchmark"))) {
+                    continue;
+                }
+                String mode = (String) result.get("mode");
+                if (score != null && score.mode.equals(mode)) {
+                    throw new IOException(
+                        "Many results of " + benchmark + " in " + mode + " mode, with params "
+                            + result.get("params") + " not explored, in: " + json
+                    );
+                }
+                if (score == null) {
+                    Map<?, ?> metric = (Map<?, ?>) result.get("primaryMetric");
+                    score = new Score(
+                        point, mode,
+                        Double.parseDouble(String.valueOf(metric.get("score"))),
+                        Double.parseDouble(String.valueOf(metric.get("scoreError"))),
+                        (String) metric.get("scoreUnit"), refined
+                    );
+                }
+            }
+        } catch (ClassCastException | NullPointerException | IllegalArgumentException ex) {
+            throw new IOException("Invalid results file: " + json, ex);
+        }
+        if (score == null) {
+            throw new IOException("No results of " + benchmark + " in: " + json);
+        }
+        return score;
+    }
+
+    private ResponseSurface surface(String benchmark,
+                                    ParamSpace space,
+                                    Map<List<Integer>, Score> scores) {
+        List<Score> sorted = new ArrayList<>(scores.values());
+        sorted.sort((first, second) -> compare(first.point, second.point));
+        List<SurfacePoint> points = new ArrayList<>();
+        for (Score score : sorted) {
+            points.add(new SurfacePoint(
+                space.params(score.point), score.value, score.error, score.unit, score.refined
+            ));
+        }
+        List<String> cliffs = new ArrayList<>();
+        for (Pair pair : pairs(space, scores)) {
+            if (pair.isAdjacent()) {
+                List<String> common = params(space, pair.first.point, pair.second.point, true);
+                cliffs.add(String.format(
+                    Locale.ROOT, "%s -> %s%s: %+.1f%%",
+                    String.join(", ", params(space, pair.first.point, pair.second.point, false)),
+                    String.join(", ", params(space, pair.second.point, pair.first.point, false)),
+                    common.isEmpty() ? "" : " at " + String.join(", ", common),
+                    (pair.second.value - pair.first.value) / Math.abs(pair.first.value) * 100
+                ));
+            }
+        }
+        String mode = sorted.isEmpty() ? "" : " [" + sorted.get(0).mode + "]";
+        return new ResponseSurface(
+            benchmark + mode, space.getNames(), points, cliffs, space.size()
+        );
+    }
+
+    /**
+     * Lists parameters of a point, that are equal to, or differ from other point.
+     */
+    private static List<String> params(ParamSpace space, int[] point, int[] other, boolean equal) {
+        Map<String, String> params = space.params(point);
+        Map<String, String> otherParams = space.params(other);
+        List<String> listed = new ArrayList<>();
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            if (param.getValue().equals(otherParams.get(param.getKey())) == equal) {
+                listed.add(param.getKey() + "=" + param.getValue());
+            }
+        }
+        return listed;
+    }
+
+    private static int compare(int[] first, int[] second) {
+        for (int i = 0; i < first.length; i++) {
+            int compared = Integer.compare(first[i], second[i]);
+            if (compared != 0) {
+                return compared;
+            }
+        }
+        return 0;
+    }
+
+    private static List<Integer> key(int[] point) {
+        List<Integer> key = new ArrayList<>();
+        for (int index : point) {
+            key.add(index);
+        }
+        return key;
+    }
+
+    /**
+     * Launches JMH in a new JVM, with a command prefix.
+     */
+    @FunctionalInterface
+    interface Launcher {
+        void launch(List<String> prefix,
+                    String classpath,
+                    List<String> jvmArgs,
+                    List<String> arguments,
+                    Path json) throws IOException;
+    }
+
+    private static final class Score {
+        private final int[] point;
+        private final String mode;
+        private final double value;
+        private final double error;
+        private final String unit;
+        private final boolean refined;
+
+        private Score(int[] point,
+                      String mode,
+                      double value,
+                      double error,
+                      String unit,
+                      boolean refined) {
+            this.point = point;
+            this.mode = mode;
+            this.value = value;
+            this.error = error;
+            this.unit = unit;
+            this.refined = refined;
+        }
+    }
+
+    private static final class Pair {
+        private final Score first;
+        private final Score second;
+        private final int[] middle;
+        private final double change;
+
+        private Pair(Score first, Score second, int[] middle, double change) {
+            this.first = first;
+            this.second = second;
+            this.middle = middle;
+            this.change = change;
+        }
+
+        private boolean isAdjacent() {
+            return Arrays.equals(middle, first.point) || Arrays.equals(middle, second.point);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A space of {@link Param} values of a benchmark. Values of each dimension keep
+ * an order they are listed in, so neighbouring indexes are expected to be close,
+ * for ex.: sizes in ascending order. A point is an array of value indexes, one
+ * for each dimension.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class ParamSpace {
+
+    private final List<String> names;
+    private final List<List<String>> values;
+
+    ParamSpace(Map<String, List<String>> dimensions) {
+        this.names = Collections.unmodifiableList(new ArrayList<>(dimensions.keySet()));
+        List<List<String>> list = new ArrayList<>();
+        for (List<String> dimension : dimensions.values()) {
+            list.add(Collections.unmodifiableList(new ArrayList<>(dimension)));
+        }
+        this.values = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Reads a space from {@link Param} fields of a benchmark class, its
+     * superclasses, and {@link State} classes a benchmark method takes, with their
+     * own dependencies. JMH runs every combination of params, that aren't given, so
+     * each of them has to be a dimension.
+     *
+     * @param benchmarkClass a benchmark class
+     * @param method         a name of a benchmark method
+     * @return a space of parameters
+     */
+    static ParamSpace of(Class<?> benchmarkClass, String method) {
+        Map<String, List<String>> dimensions = new LinkedHashMap<>();
+        Set<Class<?>> visited = new LinkedHashSet<>();
+        collect(benchmarkClass, dimensions, visited);
+        for (Class<?> type = benchmarkClass; type != null; type = type.getSuperclass()) {
+            for (Method declared : type.getDeclaredMethods()) {
+                if (declared.getName().equals(method)) {
+                    collectStates(declared, dimensions, visited);
+                }
+            }
+        }
+        if (dimensions.isEmpty()) {
+            throw new IllegalArgumentException(
+                "There are no @Param fields of " + benchmarkClass.getName() + "." + method
+            );
+        }
+        return new ParamSpace(dimensions);
+    }
+
+    private static void collect(Class<?> stateClass,
+                                Map<String, List<String>> dimensions,
+                                Set<Class<?>> visited) {
+        if (!visited.add(stateClass)) {
+            return;
+        }
+        for (Class<?> type = stateClass; type != null; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                Param param = field.getAnnotation(Param.class);
+                if (param != null && !dimensions.containsKey(field.getName())) {
+                    dimensions.put(field.getName(), values(field, param));
+                }
+            }
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(Setup.class)
+                    || method.isAnnotationPresent(TearDown.class)) {
+                    collectStates(method, dimensions, visited);
+                }
+            }
+        }
+    }
+
+    private static void collectStates(Method method,
+                                      Map<String, List<String>> dimensions,
+                                      Set<Class<?>> visited) {
+        for (Class<?> parameter : method.getParameterTypes()) {
+            if (parameter.isAnnotationPresent(State.class)) {
+                collect(parameter, dimensions, visited);
+            }
+        }
+    }
+
+    List<String> getNames() {
+        return names;
+    }
+
+    int size() {
+        long size = 1;
+        for (List<String> dimension : values) {
+            size = Math.min(size * dimension.size(), Integer.MAX_VALUE);
+        }
+        return (int) size;
+    }
+
+    /**
+     * Samples a space with Latin hypercube: each dimension is split into equal
+     * strata, one for each sample, and strata are shuffled independently, so every
+     * dimension is covered evenly with few points.
+     *
+     * @param samples a number of samples
+     * @param random  a source of randomness
+     * @return distinct points
+     */
+    List<int[]> latinHypercube(int samples, Random random) {
+        int[][] points = new int[samples][names.size()];
+        for (int dimension = 0; dimension < names.size(); dimension++) {
+            List<Integer> strata = new ArrayList<>();
+            for (int i = 0; i < samples; i++) {
+                strata.add(i);
+            }
+            Collections.shuffle(strata, random);
+            int count = values.get(dimension).size();
+            for (int i = 0; i < samples; i++) {
+                double position = (strata.get(i) + random.nextDouble()) / samples;
+                points[i][dimension] = Math.min((int) (position * count), count - 1);
+            }
+        }
+        return distinct(Arrays.asList(points));
+    }
+
+    /**
+     * Samples a space with a coarse grid: evenly spaced values of each dimension,
+     * including first and last one.
+     *
+     * @param levels a maximum number of values of each dimension
+     * @return distinct points
+     */
+    List<int[]> grid(int levels) {
+        List<int[]> points = new ArrayList<>();
+        points.add(new int[names.size()]);
+        for (int dimension = 0; dimension < names.size(); dimension++) {
+            int count = values.get(dimension).size();
+            int used = Math.max(1, Math.min(levels, count));
+            List<int[]> expanded = new ArrayList<>();
+            for (int[] point : points) {
+                for (int level = 0; level < used; level++) {
+                    int[] copy = point.clone();
+                    copy[dimension] = used == 1
+                        ? 0
+                        : (int) Math.round((double) level * (count - 1) / (used - 1));
+                    expanded.add(copy);
+                }
+            }
+            points = expanded;
+        }
+        return distinct(points);
+    }
+
+    /**
+     * Finds a point half way between two points, with indexes rounded towards the
+     * first one.
+     *
+     * @param first  a first point
+     * @param second a second point
+     * @return a middle point, equal to one of given points if they are adjacent
+     */
+    int[] middle(int[] first, int[] second) {
+        int[] middle = new int[first.length];
+        for (int i = 0; i < first.length; i++) {
+            middle[i] = first[i] + (second[i] - first[i]) / 2;
+        }
+        return middle;
+    }
+
+    /**
+     * Calculates a distance of points, with indexes of each dimension scaled to
+     * [0, 1], so dimensions with many values don't dominate.
+     *
+     * @param first  a first point
+     * @param second a second point
+     * @return a distance of points
+     */
+    double distance(int[] first, int[] second) {
+        double sum = 0;
+        for (int i = 0; i < first.length; i++) {
+            int span = Math.max(values.get(i).size() - 1, 1);
+            double difference = (double) (first[i] - second[i]) / span;
+            sum += difference * difference;
+        }
+        return Math.sqrt(sum);
+    }
+
+    Map<String, String> params(int[] point) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 0; i < point.length; i++) {
+            params.put(names.get(i), values.get(i).get(point[i]));
+        }
+        return params;
+    }
+
+    private static List<int[]> distinct(List<int[]> points) {
+        Set<List<Integer>> seen = new LinkedHashSet<>();
+        List<int[]> distinct = new ArrayList<>();
+        for (int[] point : points) {
+            List<Integer> key = new ArrayList<>();
+            for (int index : point) {
+                key.add(index);
+            }
+            if (seen.add(key)) {
+                distinct.add(point);
+            }
+        }
+        return distinct;
+    }
+
+    private static List<String> values(Field field, Param param) {
+        List<String> values = new ArrayList<>();
+        if (param.value().length > 0 && !Param.BLANK_ARGS.equals(param.value()[0])) {
+            values.addAll(Arrays.asList(param.value()));
+        } else if (field.getType().isEnum()) {
+            for (Object constant : field.getType().getEnumConstants()) {
+                values.add(((Enum<?>) constant).name());
+            }
+        } else if (field.getType() == boolean.class || field.getType() == Boolean.class) {
+            values.addAll(Arrays.asList("false", "true"));
+        } else {
+            throw new IllegalArgumentException(
+                "Values of @Param field should be listed: " + field
+            );
+        }
+        for (String value : values) {
+            if (value.contains(",")) {
+                // JMH splits values given on command line with commas
+                throw new IllegalArgumentException(
+                    "Explored values of @Param can't contain commas: " + field + " = " + value
+                );
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import pl.wavesoftware.eid.exceptions.EidIllegalStateException;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * An extension that waits, before a test, until the machine is quiet, and marks
+ * a test as tainted if CPU was stolen by hypervisor or throttled by cgroup quota
+ * while it ran. It can be useful on shared CI agents, where other jobs disturb
+ * benchmarks.
+ * <p>
+ * While a test runs, steal time and throttled periods are sampled in background,
+ * and each sampling interval is compared with limits, so a burst of noise isn't
+ * diluted by a long test. A disturbed {@link JmhBenchmark} test can run its
+ * benchmark again, see: {@link #withReruns(int)}, and only results of a last run
+ * are passed to a test.
+ * <p>
+ * The machine is quiet, when its 1 minute load average per available CPU, and
+ * CPU usage measured between two samples, are below limits. If it doesn't get
+ * quiet before a timeout, a test is run anyway and marked as tainted. A tainted
+ * test has a {@value #TAINTED_KEY} report entry, and depending on a policy is
+ * just marked ({@link CheckPolicy#WARN}, default), skipped or failed.
+ * <p>
+ * It reads Linux {@code /proc} and cgroup files, on other systems it does nothing.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;RegisterExtension
+ * static QuietMachineGate quiet = QuietMachineGate.withDefaults()
+ *   .withTimeout(Duration.ofMinutes(2))
+ *   .withReruns(2)
+ *   .onTaint(CheckPolicy.SKIP);
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class QuietMachineGate implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    static final String REPORT_KEY = "jmh.quiet";
+    static final String TAINTED_KEY = "jmh.tainted";
+    private static final ExtensionContext.Namespace NAMESPACE =
+        ExtensionContext.Namespace.create(QuietMachineGate.class);
+    private static final String MONITOR = "monitor";
+
+    private final Supplier<Optional<OsSample>> probe;
+    private final Limits limits;
+    private final Duration timeout;
+    private final Duration interval;
+    private final CheckPolicy policy;
+    private final int reruns;
+
+    QuietMachineGate(Supplier<Optional<OsSample>> probe,
+                     Limits limits,
+                     Duration timeout,
+                     Duration interval,
+                     CheckPolicy policy,
+                     int reruns) {
+        this.probe = probe;
+        this.limits = limits;
+        this.timeout = timeout;
+        this.interval = interval;
+        this.policy = policy;
+        this.reruns = reruns;
+    }
+
+    /**
+     * Creates a gate with default limits: load 1.0 per CPU, 30% of CPU usage, 5%
+     * of steal time and 5% of throttled periods. It waits up to a minute, sampling
+     * every 500 ms.
+     *
+     * @return a gate
+     */
+    public static QuietMachineGate withDefaults() {
+        return new QuietMachineGate(
+            OsSample::current, new Limits(1d, 0.3d, 0.05d, 0.05d),
+            Duration.ofMinutes(1), Duration.ofMillis(500), CheckPolicy.WARN, 0
+        );
+    }
+
+    /**
+     * Sets a maximum time to wait for a quiet machine.
+     *
+     * @param timeout a timeout
+     * @return a gate
+     */
+    public QuietMachineGate withTimeout(Duration timeout) {
+        return new QuietMachineGate(probe, limits, timeout, interval, policy, reruns);
+    }
+
+    /**
+     * Sets a time between samples, used to measure CPU usage, steal time and
+     * throttling.
+     *
+     * @param interval a sampling interval
+     * @return a gate
+     */
+    public QuietMachineGate withInterval(Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Interval must be positive, but was: " + interval);
+        }
+        return new QuietMachineGate(probe, limits, timeout, interval, policy, reruns);
+    }
+
+    /**
+     * Sets a maximum 1 minute load average per CPU of a quiet machine. A load of a
+     * host is divided by CPUs of a host, also in a container.
+     *
+     * @param loadPerCpu a load per CPU
+     * @return a gate
+     */
+    public QuietMachineGate withMaxLoadPerCpu(double loadPerCpu) {
+        return new QuietMachineGate(probe, new Limits(
+            loadPerCpu, limits.cpuUsage, limits.steal, limits.throttling
+        ), timeout, interval, policy, reruns);
+    }
+
+    /**
+     * Sets a maximum CPU usage of a quiet machine, for ex.: 0.3 for 30%.
+     *
+     * @param cpuUsage a fraction of CPU time
+     * @return a gate
+     */
+    public QuietMachineGate withMaxCpuUsage(double cpuUsage) {
+        return new QuietMachineGate(probe, new Limits(
+            limits.loadPerCpu, fraction(cpuUsage), limits.steal, limits.throttling
+        ), timeout, interval, policy, reruns);
+    }
+
+    /**
+     * Sets a maximum steal time in a sampling interval during a test, for ex.: 0.05
+     * for 5%.
+     *
+     * @param steal a fraction of CPU time
+     * @return a gate
+     */
+    public QuietMachineGate withMaxSteal(double steal) {
+        return new QuietMachineGate(probe, new Limits(
+            limits.loadPerCpu, limits.cpuUsage, fraction(steal), limits.throttling
+        ), timeout, interval, policy, reruns);
+    }
+
+    /**
+     * Sets a maximum fraction of cgroup periods throttled in a sampling interval
+     * during a test, for ex.: 0.05 for 5%.
+     *
+     * @param throttling a fraction of periods
+     * @return a gate
+     */
+    public QuietMachineGate withMaxThrottling(double throttling) {
+        return new QuietMachineGate(probe, new Limits(
+            limits.loadPerCpu, limits.cpuUsage, limits.steal, fraction(throttling)
+        ), timeout, interval, policy, reruns);
+    }
+
+    /**
+     * Sets what to do with a tainted test.
+     *
+     * @param policy a policy
+     * @return a gate
+     */
+    public QuietMachineGate onTaint(CheckPolicy policy) {
+        return new QuietMachineGate(probe, limits, timeout, interval, policy, reruns);
+    }
+
+    /**
+     * Sets how many times a disturbed {@link JmhBenchmark} test runs its benchmark
+     * again, before it is treated as tainted. Other tests can't be run again by an
+     * extension, so they are just tainted.
+     *
+     * @param reruns a number of reruns
+     * @return a gate
+     */
+    public QuietMachineGate withReruns(int reruns) {
+        if (reruns < 0) {
+            throw new IllegalArgumentException("Reruns can't be negative, but was: " + reruns);
+        }
+        return new QuietMachineGate(probe, limits, timeout, interval, policy, reruns);
+    }
+
+    /**
+     * Gets a monitor of a running test, if a gate is registered for it.
+     *
+     * @param context a context of a test
+     * @return a monitor, or {@code null}
+     */
+    @Nullable
+    static DisturbanceMonitor getMonitor(ExtensionContext context) {
+        return context.getStore(NAMESPACE).get(MONITOR, DisturbanceMonitor.class);
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        Optional<OsSample> first = probe.get();
+        if (!first.isPresent()) {
+            context.publishReportEntry(REPORT_KEY, "not supported on this system");
+            return;
+        }
+        long started = System.nanoTime();
+        long deadline = started + timeout.toNanos();
+        OsSample previous = first.get();
+        while (true) {
+            sleep();
+            Optional<OsSample> next = probe.get();
+            if (!next.isPresent()) {
+                return;
+            }
+            OsSample current = next.get();
+            String noise = noise(previous, current);
+            if (noise == null) {
+                context.publishReportEntry(REPORT_KEY, String.format(
+                    Locale.ROOT, "quiet after %d ms",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)
+                ));
+                break;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                taint(context, "machine not quiet after " + timeout.toMillis() + " ms: " + noise);
+                break;
+            }
+            previous = current;
+        }
+        Optional<OsSample> start = probe.get();
+        if (start.isPresent()) {
+            context.getStore(NAMESPACE).put(MONITOR, DisturbanceMonitor.start(
+                probe, start.get(), interval.toNanos(), limits.steal, limits.throttling, reruns
+            ));
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) throws InterruptedException {
+        DisturbanceMonitor monitor = context.getStore(NAMESPACE)
+            .remove(MONITOR, DisturbanceMonitor.class);
+        if (monitor == null) {
+            return;
+        }
+        String disturbance = monitor.stop();
+        if (disturbance != null) {
+            taint(context, "disturbed during test: " + disturbance);
+        }
+    }
+
+    @Nullable
+    String noise(OsSample previous, OsSample current) {
+        List<String> problems = new ArrayList<>();
+        if (current.getLoadPerCpu() > limits.loadPerCpu) {
+            problems.add(String.format(
+                Locale.ROOT, "load %.2f per cpu > %.2f", current.getLoadPerCpu(), limits.loadPerCpu
+            ));
+        }
+        double usage = current.cpuUsageSince(previous);
+        if (usage > limits.cpuUsage) {
+            problems.add(percent("cpu usage", usage, limits.cpuUsage));
+        }
+        return problems.isEmpty() ? null : String.join(", ", problems);
+    }
+
+    private void taint(ExtensionContext context, String reason) {
+        context.publishReportEntry(TAINTED_KEY, reason);
+        if (policy == CheckPolicy.FAIL) {
+            fail("Test is tainted, " + reason);
+        }
+        assumeTrue(policy != CheckPolicy.SKIP, () -> "Skipping tainted test, " + reason);
+    }
+
+    private void sleep() {
+        try {
+            TimeUnit.NANOSECONDS.sleep(interval.toNanos());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new EidIllegalStateException("20261017:162409", ex);
+        }
+    }
+
+    static String percent(String name, double value, double limit) {
+        return String.format(Locale.ROOT, "%s %.1f%% > %.1f%%", name, value * 100, limit * 100);
+    }
+
+    private static double fraction(double value) {
+        if (value < 0 || value > 1) {
+            throw new IllegalArgumentException("Fraction should be between 0 and 1: " + value);
+        }
+        return value;
+    }
+
+    static final class Limits {
+        private final double loadPerCpu;
+        private final double cpuUsage;
+        private final double steal;
+        private final double throttling;
+
+        Limits(double loadPerCpu, double cpuUsage, double steal, double throttling) {
+            this.loadPerCpu = loadPerCpu;
+            this.cpuUsage = cpuUsage;
+            this.steal = steal;
+            this.throttling = throttling;
+        }
+    }
+}
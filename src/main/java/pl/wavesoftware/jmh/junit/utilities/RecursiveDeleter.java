@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Deletes a directory tree using NIO. Sibling subdirectories are deleted in
+ * parallel on a fork-join pool, while regular files of a single directory are
+ * deleted by the task that lists that directory. On a pool without
+ * parallelism a plain {@link Files#walkFileTree(Path, java.nio.file.FileVisitor)}
+ * is used instead.
+ * <p>
+ * Symbolic links are never followed, the link itself is deleted.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class RecursiveDeleter {
+
+    private final ForkJoinPool pool;
+
+    RecursiveDeleter() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    RecursiveDeleter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Deletes given path with all its contents. Does nothing if path do not exist.
+     *
+     * @param root a path to delete
+     * @throws IOException if any of files can't be deleted
+     */
+    void delete(Path root) throws IOException {
+        if (!Files.exists(root, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        if (!isDirectory(root)) {
+            Files.deleteIfExists(root);
+            return;
+        }
+        if (pool.getParallelism() <= 1) {
+            Files.walkFileTree(root, new DeletingVisitor());
+            return;
+        }
+        try {
+            pool.invoke(new DeleteTask(root));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static boolean isDirectory(Path path) {
+        return Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS);
+    }
+
+    private static final class DeleteTask extends RecursiveAction {
+        private static final long serialVersionUID = 20261017L;
+
+        private final transient Path directory;
+
+        private DeleteTask(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                List<DeleteTask> subtasks = deleteFilesAndForkDirectories();
+                ForkJoinTask.invokeAll(subtasks);
+                Files.deleteIfExists(directory);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private List<DeleteTask> deleteFilesAndForkDirectories() throws IOException {
+            List<DeleteTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path entry : stream) {
+                    if (isDirectory(entry)) {
+                        subtasks.add(new DeleteTask(entry));
+                    } else {
+                        Files.deleteIfExists(entry);
+                    }
+                }
+            } catch (NoSuchFileException ex) {
+                // already removed by other cleaner
+                return Collections.emptyList();
+            }
+            return subtasks;
+        }
+    }
+
+    private static final class DeletingVisitor extends SimpleFileVisitor<Path> {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            Files.deleteIfExists(file);
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, @Nullable IOException exc) throws IOException {
+            if (exc != null) {
+                throw exc;
+            }
+            Files.deleteIfExists(dir);
+            return FileVisitResult.CONTINUE;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.openjdk.jmh.results.RunResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * An extension that fails a {@link JmhBenchmark} test if a benchmark got
+ * significantly slower than its stored baseline.
+ * <p>
+ * Baselines are kept in a local file, keyed by benchmark, its parameters, mode and
+ * a JVM fingerprint, or taken from a {@link ResultHistory}. Raw iteration scores
+ * are compared with Welch's t-test, and the test fails if the difference is
+ * significant and the score got worse by more than a threshold (5% by default).
+ * Baselines in a file are only written when explicitly asked, with
+ * {@link #updatingBaselines()} or {@value #UPDATE_PROPERTY} system property.
+ * Results of smoke runs aren't checked, see: {@link JmhBenchmark}.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;RegisterExtension
+ * static RegressionGate gate = RegressionGate.withBaselines(
+ *   Paths.get("src/test/resources/benchmark-baselines.tsv")
+ * ).withThreshold(0.1);
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class RegressionGate implements AfterTestExecutionCallback {
+
+    /**
+     * A system property, that if set to {@code true} makes gate store current
+     * results as new baselines.
+     */
+    public static final String UPDATE_PROPERTY = "jmh.junit.baseline.update";
+    private static final double DEFAULT_THRESHOLD = 0.05;
+    private static final double DEFAULT_CONFIDENCE = 0.99;
+    private static final String REPORT_KEY_PREFIX = "jmh.regression.";
+
+    private final BaselineStore baselines;
+    private final double threshold;
+    private final double confidence;
+    private final boolean update;
+    private final String fingerprint;
+
+    RegressionGate(BaselineStore baselines,
+                   double threshold,
+                   double confidence,
+                   boolean update,
+                   String fingerprint) {
+        this.baselines = baselines;
+        this.threshold = threshold;
+        this.confidence = confidence;
+        this.update = update;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Creates a regression gate with baselines in given file.
+     *
+     * @param file a file with baselines
+     * @return a regression gate
+     */
+    public static RegressionGate withBaselines(Path file) {
+        return new RegressionGate(
+            new Baselines(file), DEFAULT_THRESHOLD, DEFAULT_CONFIDENCE,
+            Boolean.getBoolean(UPDATE_PROPERTY), JvmFingerprint.current()
+        );
+    }
+
+    /**
+     * Creates a regression gate, that compares results with recent runs of the same
+     * benchmark in a result history: with a run of a median score among last 5 runs,
+     * so a single noisy run doesn't become a baseline. Results that pass are recorded
+     * in the history, so baselines follow accepted changes, and the history shouldn't
+     * be registered as an extension separately. Regressed results aren't recorded,
+     * unless baselines are updated with {@link #updatingBaselines()} or
+     * {@value #UPDATE_PROPERTY} system property, to accept a slowdown.
+     *
+     * @param history a result history
+     * @return a regression gate
+     */
+    public static RegressionGate withHistory(ResultHistory history) {
+        return new RegressionGate(
+            history.asBaselines(), DEFAULT_THRESHOLD, DEFAULT_CONFIDENCE,
+            Boolean.getBoolean(UPDATE_PROPERTY), history.getFingerprint()
+        );
+    }
+
+    /**
+     * Sets a relative worsening of score that fails a test, for ex.: 0.05 for 5%.
+     *
+     * @param threshold a regression threshold
+     * @return a regression gate
+     */
+    public RegressionGate withThreshold(double threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold can't be negative: " + threshold);
+        }
+        return new RegressionGate(baselines, threshold, confidence, update, fingerprint);
+    }
+
+    /**
+     * Sets a confidence level of statistical test, for ex.: 0.99.
+     *
+     * @param confidence a confidence level
+     * @return a regression gate
+     */
+    public RegressionGate withConfidence(double confidence) {
+        if (confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException(
+                "Confidence should be between 0 and 1, exclusive: " + confidence
+            );
+        }
+        return new RegressionGate(baselines, threshold, confidence, update, fingerprint);
+    }
+
+    /**
+     * Makes gate store current results as new baselines, instead of comparing them.
+     *
+     * @return a regression gate
+     */
+    public RegressionGate updatingBaselines() {
+        return new RegressionGate(baselines, threshold, confidence, true, fingerprint);
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) throws IOException {
+        if (JmhBenchmarkExtension.getProfile(context) == ExecutionProfile.SMOKE) {
+            // smoke runs are too short to compare, escalated ones have full profile
+            return;
+        }
+        Collection<RunResult> results = JmhBenchmarkExtension.getResults(context);
+        Map<String, String> entries = new LinkedHashMap<>();
+        List<String> regressions = new ArrayList<>();
+        for (RunResult result : results) {
+            String label = RunResults.label(result);
+            String unit = result.getPrimaryResult().getScoreUnit();
+            String verdict = check(
+                label, unit, RunResults.isHigherBetter(result.getParams().getMode()),
+                RunResults.samples(result)
+            );
+            entries.put(REPORT_KEY_PREFIX + label, verdict);
+            if (verdict.startsWith(Verdicts.REGRESSION)) {
+                regressions.add(label + ": " + verdict);
+            }
+        }
+        if (update && !results.isEmpty()) {
+            baselines.save();
+        }
+        if (regressions.isEmpty()) {
+            // a regressed result would become a baseline, and a rerun would pass
+            baselines.record(results);
+        }
+        if (!entries.isEmpty()) {
+            context.publishReportEntry(entries);
+        }
+        if (!regressions.isEmpty()) {
+            fail(String.join("\n", regressions));
+        }
+    }
+
+    String check(String label,
+                 String unit,
+                 boolean higherIsBetter,
+                 double[] samples) throws IOException {
+        if (update) {
+            baselines.put(label, fingerprint, unit, samples);
+            return Verdicts.UPDATED;
+        }
+        Baselines.Baseline baseline = baselines.get(label, fingerprint);
+        if (baseline == null) {
+            return Verdicts.NO_BASELINE;
+        }
+        if (!baseline.getUnit().equals(unit)) {
+            return Verdicts.INCOMPARABLE + ": baseline in " + baseline.getUnit() + ", current in " + unit;
+        }
+        ScoreComparison comparison = ScoreComparison.of(
+            baseline.getSamples(), samples, higherIsBetter, confidence
+        );
+        String description = comparison.describe(unit);
+        return comparison.isRegression(threshold)
+            ? Verdicts.REGRESSION + ": " + description
+            : Verdicts.OK + ": " + description;
+    }
+
+    static final class Verdicts {
+        static final String OK = "ok";
+        static final String REGRESSION = "regression";
+        static final String NO_BASELINE = "no baseline";
+        static final String UPDATED = "baseline updated";
+        static final String INCOMPARABLE = "incomparable";
+
+        private Verdicts() {
+            // not reachable
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A result of a single benchmark in a {@link BenchmarkReporter} report: a primary
+ * score, and secondary ones, for ex.: of profilers, or a failure of a benchmark,
+ * that has no scores. It is stored as a single line of JSON, so a report can be
+ * appended to and read back line by line.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class ReportRow {
+
+    private final String label;
+    @Nullable
+    private final Mode mode;
+    private final Metric primary;
+    private final Map<String, Metric> secondary;
+    @Nullable
+    private final String failure;
+
+    ReportRow(String label, Mode mode, Metric primary, Map<String, Metric> secondary) {
+        this(label, mode, primary, secondary, null);
+    }
+
+    private ReportRow(String label,
+                      @Nullable Mode mode,
+                      Metric primary,
+                      Map<String, Metric> secondary,
+                      @Nullable String failure) {
+        this.label = label;
+        this.mode = mode;
+        this.primary = primary;
+        this.secondary = Collections.unmodifiableMap(new LinkedHashMap<>(secondary));
+        this.failure = failure;
+    }
+
+    static ReportRow of(RunResult result) {
+        Map<String, Metric> secondary = new LinkedHashMap<>();
+        for (String name : result.getSecondaryResults().keySet()) {
+            secondary.put(name, Metric.of(result.getSecondaryResults().get(name)));
+        }
+        return new ReportRow(
+            RunResults.label(result), result.getParams().getMode(),
+            Metric.of(result.getPrimaryResult()), secondary
+        );
+    }
+
+    /**
+     * Creates a row of a benchmark, that failed without results.
+     *
+     * @param label   a label of a benchmark
+     * @param failure a description of a failure
+     * @return a row
+     */
+    static ReportRow failed(String label, String failure) {
+        return new ReportRow(
+            label, null, new Metric(Double.NaN, Double.NaN, ""), Collections.emptyMap(), failure
+        );
+    }
+
+    /**
+     * Reads a row from a line of JSON.
+     *
+     * @param line a line of JSON
+     * @return a row
+     * @throws IllegalArgumentException if a line isn't a valid row
+     */
+    static ReportRow parse(String line) {
+        try {
+            Map<?, ?> object = (Map<?, ?>) Json.parse(line);
+            Map<String, Metric> secondary = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) object.get("secondary")).entrySet()) {
+                secondary.put((String) entry.getKey(), Metric.parse((Map<?, ?>) entry.getValue()));
+            }
+            String mode = (String) object.get("mode");
+            String failure = (String) object.get("failure");
+            if (mode == null && failure == null) {
+                throw new IllegalArgumentException("Invalid report row: " + line);
+            }
+            return new ReportRow(
+                (String) object.get("label"), mode == null ? null : Mode.deepValueOf(mode),
+                Metric.parse(object), secondary, failure
+            );
+        } catch (ClassCastException | NullPointerException ex) {
+            throw new IllegalArgumentException("Invalid report row: " + line, ex);
+        }
+    }
+
+    String getLabel() {
+        return label;
+    }
+
+    Metric getPrimary() {
+        return primary;
+    }
+
+    Map<String, Metric> getSecondary() {
+        return secondary;
+    }
+
+    /**
+     * Gets a failure of a benchmark, that has no scores.
+     *
+     * @return a description of a failure, or {@code null} if a benchmark succeeded
+     */
+    @Nullable
+    String getFailure() {
+        return failure;
+    }
+
+    /**
+     * Calculates a relative change of a score since a previous run. Positive values
+     * mean a score got worse, regardless if it is a time or a throughput.
+     *
+     * @param previous a row of a previous run
+     * @return a relative change, {@code NaN} if scores aren't comparable
+     */
+    double worseningSince(ReportRow previous) {
+        if (mode == null || failure != null || previous.failure != null
+            || !primary.unit.equals(previous.primary.unit) || previous.primary.score == 0d) {
+            return Double.NaN;
+        }
+        double change = (primary.score - previous.primary.score) / Math.abs(previous.primary.score);
+        return RunResults.isHigherBetter(mode) ? -change : change;
+    }
+
+    String toJson() {
+        StringBuilder json = new StringBuilder("{\"label\":").append(Json.quote(label))
+            .append(",\"mode\":").append(mode == null ? "null" : Json.quote(mode.shortLabel()))
+            .append(',').append(primary.toJsonFields())
+            .append(",\"secondary\":{");
+        boolean first = true;
+        for (Map.Entry<String, Metric> entry : secondary.entrySet()) {
+            json.append(first ? "" : ",").append(Json.quote(entry.getKey()))
+                .append(":{").append(entry.getValue().toJsonFields()).append('}');
+            first = false;
+        }
+        json.append('}');
+        if (failure != null) {
+            json.append(",\"failure\":").append(Json.quote(failure));
+        }
+        return json.append('}').toString();
+    }
+
+    String toCsv() {
+        return String.join(",", csv(label), csv(mode == null ? "" : mode.shortLabel()),
+            number(primary.score), number(primary.error), csv(primary.unit),
+            csv(failure == null ? "" : failure));
+    }
+
+    static String csvHeader() {
+        return "label,mode,score,error,unit,failure";
+    }
+
+    private static String csv(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String number(double value) {
+        return Double.isFinite(value) ? Double.toString(value) : "";
+    }
+
+    /**
+     * A score with its error and unit.
+     */
+    static final class Metric {
+        private final double score;
+        private final double error;
+        private final String unit;
+
+        Metric(double score, double error, String unit) {
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        static Metric of(Result<?> result) {
+            return new Metric(result.getScore(), result.getScoreError(), result.getScoreUnit());
+        }
+
+        private static Metric parse(Map<?, ?> object) {
+            return new Metric(
+                value(object.get("score")), value(object.get("error")), (String) object.get("unit")
+            );
+        }
+
+        double getScore() {
+            return score;
+        }
+
+        String getUnit() {
+            return unit;
+        }
+
+        private String toJsonFields() {
+            return "\"score\":" + json(score) + ",\"error\":" + json(error)
+                + ",\"unit\":" + Json.quote(unit);
+        }
+
+        private static String json(double value) {
+            return Double.isFinite(value) ? Double.toString(value) : "null";
+        }
+
+        private static double value(Object value) {
+            return value == null ? Double.NaN : (Double) value;
+        }
+
+        @Override
+        public String toString() {
+            return RunResults.format(score, error, unit);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            Locale.ROOT, "%s: %s", label, failure == null ? primary : "failed, " + failure
+        );
+    }
+}
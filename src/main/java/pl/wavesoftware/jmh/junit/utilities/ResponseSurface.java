@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A response surface of a benchmark: scores at explored points of a space of its
+ * parameters, see {@link ParamExploration}.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class ResponseSurface {
+
+    private static final String SEPARATOR = "  ";
+
+    private final String label;
+    private final List<String> names;
+    private final List<SurfacePoint> points;
+    private final List<String> cliffs;
+    private final int spaceSize;
+
+    ResponseSurface(String label,
+                    List<String> names,
+                    List<SurfacePoint> points,
+                    List<String> cliffs,
+                    int spaceSize) {
+        this.label = label;
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        this.points = Collections.unmodifiableList(new ArrayList<>(points));
+        this.cliffs = Collections.unmodifiableList(new ArrayList<>(cliffs));
+        this.spaceSize = spaceSize;
+    }
+
+    /**
+     * Gets a label of a benchmark: its name and mode.
+     *
+     * @return a label of a benchmark
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Gets names of explored parameters.
+     *
+     * @return names of parameters
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Gets explored points, ordered by values of parameters.
+     *
+     * @return explored points
+     */
+    public List<SurfacePoint> getPoints() {
+        return points;
+    }
+
+    /**
+     * Gets descriptions of cliffs: adjacent points, which scores differ by more
+     * than a threshold, for ex.:
+     * {@code size=256 -> size=512 at direction=forward: +310.5%}.
+     *
+     * @return descriptions of cliffs
+     */
+    public List<String> getCliffs() {
+        return cliffs;
+    }
+
+    /**
+     * Gets a size of a full cartesian product of parameters.
+     *
+     * @return a size of a space
+     */
+    public int getSpaceSize() {
+        return spaceSize;
+    }
+
+    /**
+     * Formats a surface as a table, with a column for each parameter, a score and
+     * an error, and a mark of refined points.
+     *
+     * @return a table
+     */
+    public String toTable() {
+        List<String[]> rows = new ArrayList<>();
+        String[] header = new String[names.size() + 3];
+        for (int i = 0; i < names.size(); i++) {
+            header[i] = names.get(i);
+        }
+        header[names.size()] = "score";
+        header[names.size() + 1] = "error";
+        header[names.size() + 2] = "unit";
+        rows.add(header);
+        for (SurfacePoint point : points) {
+            String[] row = new String[header.length];
+            for (int i = 0; i < names.size(); i++) {
+                row[i] = point.getParams().get(names.get(i));
+            }
+            row[names.size()] = String.format(Locale.ROOT, "%.3f", point.getScore());
+            row[names.size() + 1] = String.format(Locale.ROOT, "%.3f", point.getScoreError());
+            row[names.size() + 2] = point.getUnit() + (point.isRefined() ? " *" : "");
+            rows.add(row);
+        }
+        int[] widths = new int[header.length];
+        for (String[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                widths[i] = Math.max(widths[i], row[i].length());
+            }
+        }
+        StringBuilder table = new StringBuilder();
+        for (String[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                boolean number = i >= names.size() && i < names.size() + 2;
+                String cell = String.format(
+                    Locale.ROOT, "%" + (number ? "" : "-") + widths[i] + "s", row[i]
+                );
+                if (i > 0) {
+                    table.append(SEPARATOR);
+                }
+                table.append(i == row.length - 1 ? cell.trim() : cell);
+            }
+            table.append('\n');
+        }
+        return table.toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format(
+            Locale.ROOT, "%s, %d of %d points (* refined)\n",
+            label, points.size(), spaceSize
+        ));
+        text.append(toTable());
+        for (String cliff : cliffs) {
+            text.append("cliff: ").append(cliff).append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.util.ListStatistics;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * An extension that keeps a history of results of {@link JmhBenchmark} tests, so
+ * slow drifts over many runs can be seen.
+ * <p>
+ * Every result is appended to a binary log in given directory, with its
+ * parameters, raw iteration samples, a git commit and a JVM fingerprint. Results
+ * of smoke runs aren't recorded, see: {@link JmhBenchmark}. A git commit is taken
+ * from {@code jmh.junit.commit} system property, CI server variables or a
+ * {@code .git} directory. A compact index makes queries, like
+ * {@link #lastRuns(String, int)} or {@link #rollingMedian(String, Duration)},
+ * read only matching records. Queries return results of a current fingerprint, so
+ * results of other machines don't mix, unless {@link #withFingerprint(String)} is
+ * used. A {@link RegressionGate} can compare results with a history too, see:
+ * {@link RegressionGate#withHistory(ResultHistory)}.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;RegisterExtension
+ * static ResultHistory history = ResultHistory.in(Paths.get("target/benchmark-history"));
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class ResultHistory implements AfterTestExecutionCallback {
+
+    private static final int BASELINE_RUNS = 5;
+
+    private final ResultLog log;
+    private final String fingerprint;
+    private final String commit;
+    private final Clock clock;
+
+    ResultHistory(ResultLog log, String fingerprint, String commit, Clock clock) {
+        this.log = log;
+        this.fingerprint = fingerprint;
+        this.commit = commit;
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a result history kept in given directory.
+     *
+     * @param directory a directory of a history
+     * @return a result history
+     */
+    public static ResultHistory in(Path directory) {
+        return new ResultHistory(
+            new ResultLog(directory), JvmFingerprint.current(), GitCommit.current(),
+            Clock.systemUTC()
+        );
+    }
+
+    /**
+     * Sets a fingerprint of an environment, that results are recorded and queried
+     * with. By default it describes a current JVM and machine.
+     *
+     * @param fingerprint an environment fingerprint
+     * @return a result history
+     */
+    public ResultHistory withFingerprint(String fingerprint) {
+        return new ResultHistory(log, fingerprint, commit, clock);
+    }
+
+    /**
+     * Sets a git commit, that results are recorded with.
+     *
+     * @param commit a commit id
+     * @return a result history
+     */
+    public ResultHistory withCommit(String commit) {
+        return new ResultHistory(log, fingerprint, commit, clock);
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) throws IOException {
+        if (JmhBenchmarkExtension.getProfile(context) == ExecutionProfile.SMOKE) {
+            // short smoke runs would skew a history
+            return;
+        }
+        record(JmhBenchmarkExtension.getResults(context));
+    }
+
+    /**
+     * Gets last runs of a benchmark.
+     *
+     * @param label a label of a benchmark: its name, parameters and mode, for ex.:
+     *              {@code pl.acme.MyBenchmark.run(size=10) [thrpt]}
+     * @param count a maximum number of runs
+     * @return last runs, oldest first
+     * @throws IOException if a history can't be read
+     */
+    public List<HistoryRecord> lastRuns(String label, int count) throws IOException {
+        return log.find(label, fingerprint, time -> true, count);
+    }
+
+    /**
+     * Gets runs of a benchmark since given time.
+     *
+     * @param label a label of a benchmark
+     * @param since a time of an oldest run
+     * @return runs since given time, oldest first
+     * @throws IOException if a history can't be read
+     */
+    public List<HistoryRecord> runsSince(String label, Instant since) throws IOException {
+        return log.find(label, fingerprint, time -> !time.isBefore(since), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Calculates a rolling median of scores of a benchmark, for ex.: over 90 days.
+     * For each run, it is a median of scores of runs in a window ending with it.
+     * Only runs from a last window before now, and a window before them, are read.
+     *
+     * @param label  a label of a benchmark
+     * @param window a length of a window
+     * @return medians at times of runs
+     * @throws IOException if a history can't be read
+     */
+    public SortedMap<Instant, Double> rollingMedian(String label, Duration window)
+        throws IOException {
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Window should be positive: " + window);
+        }
+        Instant now = clock.instant();
+        List<HistoryRecord> runs = runsSince(label, now.minus(window).minus(window));
+        SortedMap<Instant, Double> medians = new TreeMap<>();
+        int first = 0;
+        for (int i = 0; i < runs.size(); i++) {
+            Instant time = runs.get(i).getTimestamp();
+            while (!runs.get(first).getTimestamp().isAfter(time.minus(window))) {
+                first++;
+            }
+            if (time.isBefore(now.minus(window))) {
+                continue;
+            }
+            ListStatistics statistics = new ListStatistics();
+            for (int j = first; j <= i; j++) {
+                statistics.addValue(runs.get(j).getScore());
+            }
+            medians.put(time, statistics.getPercentile(50));
+        }
+        return medians;
+    }
+
+    void record(Collection<RunResult> results) throws IOException {
+        Instant now = clock.instant();
+        List<HistoryRecord> records = new ArrayList<>();
+        for (RunResult result : results) {
+            records.add(toRecord(result, now));
+        }
+        log.append(records);
+    }
+
+    HistoryRecord toRecord(RunResult result, Instant timestamp) {
+        Result<?> primary = result.getPrimaryResult();
+        return new HistoryRecord(
+            timestamp, RunResults.label(result), fingerprint, commit,
+            primary.getScoreUnit(), primary.getScore(), primary.getScoreError(),
+            RunResults.samples(result)
+        );
+    }
+
+    void append(List<HistoryRecord> records) throws IOException {
+        log.append(records);
+    }
+
+    String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Selects a run of a median score, among runs in the unit of a last one.
+     *
+     * @param runs runs, from oldest
+     * @return a run of a median score, or {@code null} if there are no runs
+     */
+    @Nullable
+    static HistoryRecord medianRun(List<HistoryRecord> runs) {
+        if (runs.isEmpty()) {
+            return null;
+        }
+        String unit = runs.get(runs.size() - 1).getUnit();
+        List<HistoryRecord> comparable = new ArrayList<>();
+        for (HistoryRecord run : runs) {
+            if (run.getUnit().equals(unit)) {
+                comparable.add(run);
+            }
+        }
+        comparable.sort(Comparator.comparingDouble(HistoryRecord::getScore));
+        return comparable.get((comparable.size() - 1) / 2);
+    }
+
+    /**
+     * Uses a history as baselines of a regression gate: a baseline is a run of a
+     * median score among last {@value #BASELINE_RUNS} runs of a benchmark, so a
+     * single lucky or unlucky run doesn't move it. Results are recorded after they
+     * are checked, unless any of them regressed, so a rerun can't pass by
+     * comparing with a regression.
+     *
+     * @return a baseline store
+     */
+    BaselineStore asBaselines() {
+        return new BaselineStore() {
+            @Override
+            public Baselines.Baseline get(String label, String fingerprint) throws IOException {
+                HistoryRecord median = medianRun(
+                    log.find(label, fingerprint, time -> true, BASELINE_RUNS)
+                );
+                return median == null
+                    ? null
+                    : new Baselines.Baseline(median.getUnit(), median.getSamples());
+            }
+
+            @Override
+            public void put(String label, String fingerprint, String unit, double[] samples) {
+                // results, that didn't regress, are recorded by record()
+            }
+
+            @Override
+            public void save() {
+                // records are appended right away
+            }
+
+            @Override
+            public void record(Collection<RunResult> results) throws IOException {
+                // a gate doesn't check smoke runs, so they never get here
+                ResultHistory.this.record(results);
+            }
+        };
+    }
+}
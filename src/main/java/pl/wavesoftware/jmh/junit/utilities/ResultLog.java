@@ -0,0 +1,268 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * An append-only binary log of benchmark results, with a compact index.
+ * <p>
+ * A log file holds records one after another: a magic number, a length of a
+ * payload and a payload with a time, a label, an environment fingerprint, a
+ * commit, a unit, a score and raw samples. An index file holds a fixed size entry
+ * per record: a {@link StableHash} of a label and a fingerprint, a time and an
+ * offset of a record in a log. Queries scan an index backwards, block by block,
+ * and read only matching records from a log at their offsets, so they don't parse
+ * whole history, and a log isn't limited in size by a memory mapping.
+ * <p>
+ * Records are appended while a directory is locked with {@link DirectoryLock}.
+ * A record is written to a log before its index entry, so after a crash an index
+ * can lag behind a log. It is caught up from a log, and a torn record at the end
+ * of a log is cut off, before next append or query.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class ResultLog {
+
+    static final String LOG_FILE = "results.log";
+    static final String INDEX_FILE = "results.idx";
+
+    private static final int MAGIC = 0x4a4d4852;
+    private static final int HEADER = 2 * Integer.BYTES;
+    private static final int ENTRY = 3 * Long.BYTES;
+    private static final int BLOCK_ENTRIES = 4096;
+
+    private final Path directory;
+
+    ResultLog(Path directory) {
+        this.directory = directory;
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    void append(List<HistoryRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(directory);
+        DirectoryLock.run(directory, () -> {
+            try (FileChannel log = open(LOG_FILE); FileChannel index = open(INDEX_FILE)) {
+                recover(log, index);
+                for (HistoryRecord record : records) {
+                    long offset = log.size();
+                    writeFully(log, encode(record), offset);
+                    writeFully(index, entry(record, offset), index.size());
+                }
+            }
+        });
+    }
+
+    /**
+     * Finds records of a benchmark in an environment, that match a filter, in order
+     * of time.
+     *
+     * @param label       a label of a benchmark
+     * @param fingerprint an environment fingerprint
+     * @param filter      a filter of times of records, checked on index only
+     * @param limit       a maximum number of latest records to read
+     * @return matching records, oldest first
+     * @throws IOException if a log can't be read
+     */
+    List<HistoryRecord> find(String label,
+                             String fingerprint,
+                             Predicate<Instant> filter,
+                             int limit) throws IOException {
+        List<HistoryRecord> found = new ArrayList<>();
+        if (limit <= 0 || !Files.isRegularFile(directory.resolve(LOG_FILE))) {
+            return found;
+        }
+        long hash = hash(label, fingerprint);
+        DirectoryLock.run(directory, () -> {
+            try (FileChannel log = open(LOG_FILE); FileChannel index = open(INDEX_FILE)) {
+                recover(log, index);
+                long position = index.size();
+                while (position > 0 && found.size() < limit) {
+                    int count = (int) Math.min(position / ENTRY, BLOCK_ENTRIES);
+                    position -= (long) count * ENTRY;
+                    ByteBuffer entries = ByteBuffer.allocate(count * ENTRY);
+                    readFully(index, entries, position);
+                    for (int at = entries.limit() - ENTRY; at >= 0 && found.size() < limit; at -= ENTRY) {
+                        if (entries.getLong(at) == hash
+                            && filter.test(Instant.ofEpochMilli(entries.getLong(at + Long.BYTES)))) {
+                            HistoryRecord record = read(log, entries.getLong(at + 2 * Long.BYTES));
+                            if (record.getLabel().equals(label)
+                                && record.getFingerprint().equals(fingerprint)) {
+                                found.add(record);
+                            }
+                        }
+                    }
+                }
+            }
+        });
+        found.sort(Comparator.comparing(HistoryRecord::getTimestamp));
+        return found;
+    }
+
+    private FileChannel open(String name) throws IOException {
+        return FileChannel.open(
+            directory.resolve(name),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+        );
+    }
+
+    /**
+     * Catches up an index with a log, and cuts off a torn record at the end of a log.
+     */
+    private static void recover(FileChannel log, FileChannel index) throws IOException {
+        long indexSize = index.size() - index.size() % ENTRY;
+        index.truncate(indexSize);
+        long position = 0;
+        if (indexSize > 0) {
+            ByteBuffer last = ByteBuffer.allocate(ENTRY);
+            readFully(index, last, indexSize - ENTRY);
+            position = last.getLong(2 * Long.BYTES);
+            position += HEADER + header(log, position).getInt(Integer.BYTES);
+        }
+        long size = log.size();
+        while (position + HEADER <= size) {
+            ByteBuffer header = header(log, position);
+            int length = header.getInt(Integer.BYTES);
+            if (header.getInt(0) != MAGIC || length < 0 || position + HEADER + length > size) {
+                break;
+            }
+            ByteBuffer record = ByteBuffer.allocate(HEADER + length);
+            readFully(log, record, position);
+            writeFully(index, entry(decode(record, 0), position), index.size());
+            position += HEADER + length;
+        }
+        if (position < size) {
+            log.truncate(position);
+        }
+    }
+
+    private static HistoryRecord read(FileChannel log, long offset) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(HEADER + header(log, offset).getInt(Integer.BYTES));
+        readFully(log, record, offset);
+        return decode(record, 0);
+    }
+
+    private static ByteBuffer header(FileChannel log, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        readFully(log, header, position);
+        return header;
+    }
+
+    private static long hash(String label, String fingerprint) {
+        return StableHash.of(label + '\n' + fingerprint);
+    }
+
+    private static ByteBuffer entry(HistoryRecord record, long offset) {
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY);
+        entry.putLong(hash(record.getLabel(), record.getFingerprint()));
+        entry.putLong(record.getTimestamp().toEpochMilli());
+        entry.putLong(offset);
+        entry.flip();
+        return entry;
+    }
+
+    static ByteBuffer encode(HistoryRecord record) {
+        byte[][] texts = {
+            bytes(record.getLabel()), bytes(record.getFingerprint()),
+            bytes(record.getCommit()), bytes(record.getUnit())
+        };
+        double[] samples = record.getSamples();
+        int length = Long.BYTES + 2 * Double.BYTES + Integer.BYTES + samples.length * Double.BYTES;
+        for (byte[] text : texts) {
+            length += Integer.BYTES + text.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + length);
+        buffer.putInt(MAGIC).putInt(length);
+        buffer.putLong(record.getTimestamp().toEpochMilli());
+        for (byte[] text : texts) {
+            buffer.putInt(text.length).put(text);
+        }
+        buffer.putDouble(record.getScore()).putDouble(record.getScoreError());
+        buffer.putInt(samples.length);
+        for (double sample : samples) {
+            buffer.putDouble(sample);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    static HistoryRecord decode(ByteBuffer source, int offset) {
+        ByteBuffer buffer = source.duplicate();
+        buffer.position(offset + HEADER);
+        Instant timestamp = Instant.ofEpochMilli(buffer.getLong());
+        String label = text(buffer);
+        String fingerprint = text(buffer);
+        String commit = text(buffer);
+        String unit = text(buffer);
+        double score = buffer.getDouble();
+        double error = buffer.getDouble();
+        double[] samples = new double[buffer.getInt()];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = buffer.getDouble();
+        }
+        return new HistoryRecord(timestamp, label, fingerprint, commit, unit, score, error, samples);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+        throws IOException {
+        long at = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, at);
+            if (read < 0) {
+                throw new IOException("Unexpected end of a result log at " + at);
+            }
+            at += read;
+        }
+        buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+        throws IOException {
+        long at = position;
+        while (buffer.hasRemaining()) {
+            at += channel.write(buffer, at);
+        }
+    }
+}
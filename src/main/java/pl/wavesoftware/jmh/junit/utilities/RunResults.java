@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Helpers to describe JMH run results.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class RunResults {
+
+    private RunResults() {
+        // not reachable
+    }
+
+    /**
+     * Creates a label of benchmark result, that is unique within a run. It
+     * contains a benchmark name, its parameters and mode, for ex.:
+     * {@code pl.acme.MyBenchmark.run(size=10) [thrpt]}.
+     *
+     * @param result a result of a benchmark
+     * @return a label
+     */
+    static String label(RunResult result) {
+        BenchmarkParams params = result.getParams();
+        StringBuilder sb = new StringBuilder(params.getBenchmark());
+        Collection<String> keys = params.getParamsKeys();
+        if (!keys.isEmpty()) {
+            sb.append('(');
+            boolean first = true;
+            for (String key : keys) {
+                if (!first) {
+                    sb.append(", ");
+                }
+                sb.append(key).append('=').append(params.getParam(key));
+                first = false;
+            }
+            sb.append(')');
+        }
+        return sb.append(" [").append(params.getMode().shortLabel()).append(']').toString();
+    }
+
+    static String format(Result<?> result) {
+        return format(result.getScore(), result.getScoreError(), result.getScoreUnit());
+    }
+
+    static String format(double score, double error, String unit) {
+        return String.format(Locale.ROOT, "%.3f ± %.3f %s", score, error, unit);
+    }
+
+    /**
+     * Collects primary scores of every measurement iteration of every fork.
+     *
+     * @param result a result of a benchmark
+     * @return raw scores of iterations
+     */
+    static double[] samples(RunResult result) {
+        List<Double> scores = new ArrayList<>();
+        for (BenchmarkResult benchmarkResult : result.getBenchmarkResults()) {
+            for (IterationResult iteration : benchmarkResult.getIterationResults()) {
+                scores.add(iteration.getPrimaryResult().getScore());
+            }
+        }
+        double[] samples = new double[scores.size()];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = scores.get(i);
+        }
+        return samples;
+    }
+
+    /**
+     * Tells if higher score is better in given mode. It is only for throughput,
+     * other modes measure time.
+     *
+     * @param mode a benchmark mode
+     * @return true, if higher score is better
+     */
+    static boolean isHigherBetter(Mode mode) {
+        return mode == Mode.Throughput;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.util.Locale;
+
+/**
+ * A throughput of a body measured by {@link ScalingMeter} at a single thread count.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class ScalingLevel {
+
+    private final int threads;
+    private final boolean virtual;
+    private final long operations;
+    private final double throughput;
+    private final double efficiency;
+
+    ScalingLevel(int threads, boolean virtual, long operations,
+                 double throughput, double efficiency) {
+        this.threads = threads;
+        this.virtual = virtual;
+        this.operations = operations;
+        this.throughput = throughput;
+        this.efficiency = efficiency;
+    }
+
+    /**
+     * Gets a number of threads executing a body concurrently.
+     *
+     * @return a number of threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Tells if a body was executed by virtual threads.
+     *
+     * @return true for virtual threads, false for platform threads
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Gets a number of executions of a body measured by all threads.
+     *
+     * @return a number of executions
+     */
+    public long getOperations() {
+        return operations;
+    }
+
+    /**
+     * Gets a throughput of all threads.
+     *
+     * @return executions per second
+     */
+    public double getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * Gets a throughput per thread, relative to a throughput per thread at the lowest
+     * thread count of the same kind of threads.
+     *
+     * @return a scaling efficiency, 1.0 for linear scaling
+     */
+    public double getEfficiency() {
+        return efficiency;
+    }
+
+    String getLabel() {
+        return (virtual ? "virtual." : "platform.") + threads;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            Locale.ROOT, "%.0f ops/s, efficiency %.1f%%", throughput, efficiency * 100
+        );
+    }
+}
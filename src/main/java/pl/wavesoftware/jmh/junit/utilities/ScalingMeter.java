@@ -0,0 +1,220 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures throughput of a body executed concurrently by increasing numbers of
+ * threads. It is passed as a parameter to test methods annotated with
+ * {@link ScalingTest}. A body has to be thread safe.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class ScalingMeter {
+
+    private static final int WARMUP = 0;
+    private static final int MEASUREMENT = 1;
+    private static final int STOPPED = 2;
+
+    private final int[] threadCounts;
+    private final long warmupNanos;
+    private final long durationNanos;
+    private final boolean virtualThreads;
+    private final ThreadFactory platformThreads = body -> {
+        Thread thread = new Thread(body, "scaling-test");
+        thread.setDaemon(true);
+        return thread;
+    };
+    private List<ScalingLevel> levels = Collections.emptyList();
+    private volatile int phase;
+
+    ScalingMeter(int[] threadCounts, long warmupNanos, long durationNanos,
+                 boolean virtualThreads) {
+        for (int count : threadCounts) {
+            if (count <= 0) {
+                throw new IllegalArgumentException(
+                    "Thread counts must be positive, but was: " + count
+                );
+            }
+        }
+        if (durationNanos <= 0) {
+            throw new IllegalArgumentException(
+                "Duration must be positive, but was: " + durationNanos + " ns"
+            );
+        }
+        this.threadCounts = threadCounts.length == 0
+            ? defaultThreadCounts(Runtime.getRuntime().availableProcessors())
+            : threadCounts.clone();
+        this.warmupNanos = warmupNanos;
+        this.durationNanos = durationNanos;
+        this.virtualThreads = virtualThreads && VirtualThreads.isAvailable();
+    }
+
+    static ScalingMeter of(ScalingTest test) {
+        return new ScalingMeter(
+            test.threads(), test.unit().toNanos(test.warmup()),
+            test.unit().toNanos(test.duration()), test.virtualThreads()
+        );
+    }
+
+    /**
+     * Gets default thread counts: powers of two below a number of processors, and
+     * that number itself.
+     *
+     * @param processors a number of processors
+     * @return thread counts
+     */
+    static int[] defaultThreadCounts(int processors) {
+        List<Integer> counts = new ArrayList<>();
+        for (int count = 1; count < processors; count <<= 1) {
+            counts.add(count);
+        }
+        counts.add(processors);
+        return counts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Executes a body concurrently at each thread count, with platform threads and
+     * then with virtual threads, if they are available.
+     *
+     * @param body a body to measure
+     * @return measured levels, in order of execution
+     * @throws Throwable if body throws
+     */
+    public List<ScalingLevel> measure(Executable body) throws Throwable {
+        List<ScalingLevel> measured = new ArrayList<>();
+        measure(body, false, platformThreads, measured);
+        if (virtualThreads) {
+            measure(body, true, VirtualThreads.factory(), measured);
+        }
+        levels = Collections.unmodifiableList(measured);
+        return levels;
+    }
+
+    /**
+     * Gets levels of last measurement.
+     *
+     * @return measured levels, or empty list if nothing was measured
+     */
+    public List<ScalingLevel> getLevels() {
+        return levels;
+    }
+
+    private void measure(Executable body, boolean virtual, ThreadFactory factory,
+                         List<ScalingLevel> measured) throws Throwable {
+        int lowest = Integer.MAX_VALUE;
+        double lowestThroughput = Double.NaN;
+        for (int count : threadCounts) {
+            if (count < lowest) {
+                lowest = count;
+            }
+        }
+        List<long[]> results = new ArrayList<>();
+        for (int count : threadCounts) {
+            results.add(run(body, count, factory));
+        }
+        for (int i = 0; i < threadCounts.length; i++) {
+            if (threadCounts[i] == lowest) {
+                lowestThroughput = throughput(results.get(i));
+                break;
+            }
+        }
+        for (int i = 0; i < threadCounts.length; i++) {
+            int count = threadCounts[i];
+            double throughput = throughput(results.get(i));
+            double efficiency = (throughput / count) / (lowestThroughput / lowest);
+            measured.add(new ScalingLevel(
+                count, virtual, results.get(i)[0], throughput, efficiency
+            ));
+        }
+    }
+
+    /**
+     * Runs a body at a single thread count.
+     *
+     * @return a number of operations and measurement time in nanoseconds
+     */
+    private long[] run(Executable body, int count, ThreadFactory factory)
+        throws Throwable {
+        CountDownLatch ready = new CountDownLatch(count);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(count);
+        LongAdder operations = new LongAdder();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        phase = WARMUP;
+        for (int i = 0; i < count; i++) {
+            factory.newThread(() -> {
+                try {
+                    ready.countDown();
+                    start.await();
+                    long executed = 0;
+                    int current;
+                    while ((current = phase) != STOPPED) {
+                        body.execute();
+                        if (current == MEASUREMENT) {
+                            executed++;
+                        }
+                    }
+                    operations.add(executed);
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                    phase = STOPPED;
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        ready.await();
+        start.countDown();
+        sleep(warmupNanos, failure);
+        phase = MEASUREMENT;
+        long begin = System.nanoTime();
+        sleep(durationNanos, failure);
+        phase = STOPPED;
+        long elapsed = System.nanoTime() - begin;
+        done.await();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return new long[]{operations.sum(), elapsed};
+    }
+
+    private void sleep(long nanos, AtomicReference<Throwable> failure)
+        throws InterruptedException {
+        long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        while (remaining > 0 && failure.get() == null) {
+            TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(10)));
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    private static double throughput(long[] result) {
+        return result[0] / (result[1] / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marks a test, that measures how throughput of a body scales with a number of
+ * threads, with a {@link ScalingMeter} parameter. At each thread count, threads
+ * are released together by a start barrier, execute a body in a loop for a warmup
+ * and a fixed measurement time, and their executions are counted.
+ * <p>
+ * Scaling efficiency at {@code n} threads is a throughput per thread, relative to a
+ * throughput per thread at the lowest thread count, so 100% means linear scaling.
+ * A test fails when efficiency at any thread count, up to a number of available
+ * processors, falls below {@link #minEfficiency()}. Results are published as
+ * {@code jmh.scaling.*} report entries.
+ * <p>
+ * Platform threads are always measured. Virtual threads are measured as well, when
+ * a JVM supports them (JDK 21+), which is detected at runtime.
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;ScalingTest(minEfficiency = 0.7)
+ * void counterScales(ScalingMeter meter) throws Throwable {
+ *   meter.measure(() -&gt; counter.increment());
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@Documented
+@Test
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(ScalingTestExtension.class)
+public @interface ScalingTest {
+
+    /**
+     * Thread counts to measure. By default, powers of two below a number of available
+     * processors, and that number itself, for ex.: 1, 2, 4, 6 on six processors.
+     *
+     * @return thread counts
+     */
+    int[] threads() default {};
+
+    /**
+     * A time of warmup at each thread count, in {@link #unit()}.
+     *
+     * @return a warmup time
+     */
+    long warmup() default 200;
+
+    /**
+     * A time of measurement at each thread count, in {@link #unit()}.
+     *
+     * @return a measurement time
+     */
+    long duration() default 1_000;
+
+    /**
+     * A unit of warmup and measurement time.
+     *
+     * @return a time unit
+     */
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * Measures virtual threads too, if a JVM supports them.
+     *
+     * @return true, if virtual threads should be measured
+     */
+    boolean virtualThreads() default true;
+
+    /**
+     * A minimal scaling efficiency, for ex.: 0.7 for 70%. Zero disables the check.
+     *
+     * @return a minimal efficiency
+     */
+    double minEfficiency() default 0;
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Provides a {@link ScalingMeter} to a {@link ScalingTest}, and checks measured
+ * scaling efficiency against a minimum of its annotation.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class ScalingTestExtension implements ParameterResolver, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+        ExtensionContext.Namespace.create(ScalingTestExtension.class);
+    private static final String METER = "meter";
+    private static final String REPORT_KEY_PREFIX = "jmh.scaling.";
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext,
+                                     ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == ScalingMeter.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext,
+                                   ExtensionContext extensionContext) {
+        ScalingMeter meter = ScalingMeter.of(scalingTest(extensionContext));
+        extensionContext.getStore(NAMESPACE).put(METER, meter);
+        return meter;
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        if (context.getExecutionException().isPresent()) {
+            return;
+        }
+        ScalingMeter meter = context.getStore(NAMESPACE).get(METER, ScalingMeter.class);
+        if (meter == null || meter.getLevels().isEmpty()) {
+            fail("No scaling was measured, use ScalingMeter parameter");
+        }
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (ScalingLevel level : meter.getLevels()) {
+            entries.put(REPORT_KEY_PREFIX + level.getLabel(), level.toString());
+        }
+        ScalingTest test = scalingTest(context);
+        if (test.virtualThreads() && !VirtualThreads.isAvailable()) {
+            entries.put(REPORT_KEY_PREFIX + "virtual",
+                "Virtual threads aren't available in this JVM");
+        }
+        context.publishReportEntry(entries);
+        List<String> inefficient = inefficient(
+            meter.getLevels(), test.minEfficiency(),
+            Runtime.getRuntime().availableProcessors()
+        );
+        if (!inefficient.isEmpty()) {
+            fail("Scaling efficiency below minimum\n" + String.join("\n", inefficient));
+        }
+    }
+
+    /**
+     * Finds levels with efficiency below a minimum. Levels with more threads than
+     * processors are not checked, as they can't scale any further.
+     *
+     * @param levels        measured levels
+     * @param minEfficiency a minimal efficiency
+     * @param processors    a number of available processors
+     * @return descriptions of inefficient levels
+     */
+    static List<String> inefficient(Collection<ScalingLevel> levels, double minEfficiency,
+                                    int processors) {
+        List<String> inefficient = new ArrayList<>();
+        for (ScalingLevel level : levels) {
+            if (level.getThreads() <= processors && level.getEfficiency() < minEfficiency) {
+                inefficient.add(String.format(
+                    Locale.ROOT, "%s: %s, minimum %.1f%%",
+                    level.getLabel(), level, minEfficiency * 100
+                ));
+            }
+        }
+        return inefficient;
+    }
+
+    private static ScalingTest scalingTest(ExtensionContext context) {
+        return TestAnnotations.require(context, ScalingTest.class);
+    }
+}
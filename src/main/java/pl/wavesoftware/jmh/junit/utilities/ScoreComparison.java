@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.util.ListStatistics;
+import org.openjdk.jmh.util.Statistics;
+
+import java.util.Locale;
+
+/**
+ * A comparison of raw iteration scores of a benchmark with its baseline.
+ * <p>
+ * A difference is significant if Welch's t-test rejects equality of means at
+ * given confidence level. It requires at least two samples on both sides.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class ScoreComparison {
+
+    private static final int MIN_SAMPLES = 2;
+
+    private final Statistics baseline;
+    private final Statistics current;
+    private final boolean higherIsBetter;
+    private final double confidence;
+
+    private ScoreComparison(Statistics baseline,
+                            Statistics current,
+                            boolean higherIsBetter,
+                            double confidence) {
+        this.baseline = baseline;
+        this.current = current;
+        this.higherIsBetter = higherIsBetter;
+        this.confidence = confidence;
+    }
+
+    static ScoreComparison of(double[] baseline,
+                              double[] current,
+                              boolean higherIsBetter,
+                              double confidence) {
+        return new ScoreComparison(
+            new ListStatistics(baseline), new ListStatistics(current),
+            higherIsBetter, confidence
+        );
+    }
+
+    /**
+     * A relative change of mean score. Positive values mean the current score is
+     * worse than baseline, for ex.: 0.1 means 10% slower.
+     *
+     * @return a relative change
+     */
+    double getWorsening() {
+        double base = baseline.getMean();
+        if (base == 0d) {
+            return 0d;
+        }
+        double change = (current.getMean() - base) / Math.abs(base);
+        return higherIsBetter ? -change : change;
+    }
+
+    boolean isSignificant() {
+        return baseline.getN() >= MIN_SAMPLES
+            && current.getN() >= MIN_SAMPLES
+            && baseline.isDifferent(current, confidence);
+    }
+
+    boolean isRegression(double threshold) {
+        return isSignificant() && getWorsening() > threshold;
+    }
+
+    String describe(String unit) {
+        return String.format(
+            Locale.ROOT, "baseline %s, current %s, worsening %+.2f%%, %s",
+            RunResults.format(baseline.getMean(), baseline.getMeanErrorAt(confidence), unit),
+            RunResults.format(current.getMean(), current.getMeanErrorAt(confidence), unit),
+            getWorsening() * 100,
+            isSignificant() ? "significant" : "not significant"
+        );
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import pl.wavesoftware.eid.exceptions.EidIllegalStateException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A registry of directories to be removed once per test session.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class SessionCleanup {
+
+    private static final SessionCleanup INSTANCE = new SessionCleanup(new RecursiveDeleter());
+
+    private final Set<File> directories = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean listenerActive = new AtomicBoolean(false);
+    private final AtomicBoolean hookInstalled = new AtomicBoolean(false);
+    private final RecursiveDeleter deleter;
+
+    SessionCleanup(RecursiveDeleter deleter) {
+        this.deleter = deleter;
+    }
+
+    static SessionCleanup getInstance() {
+        return INSTANCE;
+    }
+
+    void listenerStarted() {
+        listenerActive.set(true);
+    }
+
+    /**
+     * Registers a directory to be deleted at the end of the session. Registering
+     * the same directory many times results in a single removal.
+     *
+     * @param directory a directory to delete
+     */
+    void register(File directory) {
+        directories.add(directory);
+        if (!listenerActive.get() && hookInstalled.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(
+                new Thread(this::cleanupOnShutdown, "jmh-cleaner-session")
+            );
+        }
+    }
+
+    /**
+     * Deletes all registered directories.
+     *
+     * @throws IOException if any of directories can't be deleted
+     */
+    void cleanup() throws IOException {
+        List<File> registered = new ArrayList<>(directories);
+        directories.removeAll(registered);
+        for (File directory : registered) {
+            DirectoryLock.run(directory.toPath(), () -> deleter.delete(directory.toPath()));
+        }
+    }
+
+    private void cleanupOnShutdown() {
+        try {
+            cleanup();
+        } catch (IOException ex) {
+            // reported by uncaught exception handler of a hook thread
+            throw new EidIllegalStateException("20261017:201533", ex);
+        }
+    }
+}
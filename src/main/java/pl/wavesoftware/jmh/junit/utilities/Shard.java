@@ -0,0 +1,182 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * A shard of benchmarks executed by this JVM. Benchmarks are partitioned by a
+ * stable hash of their names, so every shard selects the same benchmarks on any
+ * machine.
+ * <p>
+ * Forks of a shard can be pinned to a set of CPUs, so shards running in parallel
+ * on one machine don't disturb each other. CPUs are given explicitly, or taken
+ * as a part of CPUs allowed for this process, split evenly between shards of one
+ * host.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class Shard {
+
+    static final String INDEX = BenchmarkSettings.PREFIX + "shard.index";
+    static final String COUNT = BenchmarkSettings.PREFIX + "shard.count";
+    static final String CPUS = BenchmarkSettings.PREFIX + "shard.cpus";
+    static final String PIN = BenchmarkSettings.PREFIX + "shard.pin";
+    static final String PER_HOST = BenchmarkSettings.PREFIX + "shard.perHost";
+    private static final Path PROC_STATUS = Paths.get("/proc/self/status");
+    private static final String CPUS_ALLOWED = "Cpus_allowed_list:";
+
+    private final int index;
+    private final int count;
+    private final List<Integer> cpus;
+
+    Shard(int index, int count, List<Integer> cpus) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException(String.format(
+                Locale.ROOT, "Invalid shard: index %d, count %d", index, count
+            ));
+        }
+        this.index = index;
+        this.count = count;
+        this.cpus = Collections.unmodifiableList(new ArrayList<>(cpus));
+    }
+
+    static Shard current() {
+        return of(System.getProperties(), allowedCpus());
+    }
+
+    static Shard of(Properties properties, List<Integer> allowedCpus) {
+        int index = Integer.parseInt(properties.getProperty(INDEX, "0").trim());
+        int count = Integer.parseInt(properties.getProperty(COUNT, "1").trim());
+        String explicit = properties.getProperty(CPUS);
+        List<Integer> cpus;
+        if (explicit != null) {
+            cpus = parseCpuList(explicit);
+        } else if (Boolean.parseBoolean(properties.getProperty(PIN, "false"))) {
+            int perHost = Integer.parseInt(
+                properties.getProperty(PER_HOST, Integer.toString(count)).trim()
+            );
+            cpus = split(allowedCpus, perHost, index % perHost);
+        } else {
+            cpus = Collections.emptyList();
+        }
+        return new Shard(index, count, cpus);
+    }
+
+    boolean isSharded() {
+        return count > 1;
+    }
+
+    boolean includes(String benchmark) {
+        return shardOf(benchmark, count) == index;
+    }
+
+    static int shardOf(String benchmark, int count) {
+        return (int) Long.remainderUnsigned(StableHash.of(benchmark), count);
+    }
+
+    /**
+     * Gets CPUs to pin forks of this shard to.
+     *
+     * @return CPUs, or empty list if forks aren't pinned
+     */
+    List<Integer> getCpus() {
+        return cpus;
+    }
+
+    String getName() {
+        return isSharded() ? "shard-" + index + "-of-" + count : "unsharded";
+    }
+
+    @Override
+    public String toString() {
+        return "shard " + index + " of " + count;
+    }
+
+    static List<Integer> split(List<Integer> cpus, int parts, int part) {
+        if (cpus.size() < parts) {
+            throw new IllegalArgumentException(String.format(
+                Locale.ROOT, "Can't split %d cpus between %d shards", cpus.size(), parts
+            ));
+        }
+        int size = cpus.size() / parts;
+        return cpus.subList(part * size, (part + 1) * size);
+    }
+
+    static List<Integer> parseCpuList(String list) {
+        List<Integer> cpus = new ArrayList<>();
+        for (String range : list.trim().split(",")) {
+            if (range.trim().isEmpty()) {
+                continue;
+            }
+            String[] bounds = range.trim().split("-");
+            int from = Integer.parseInt(bounds[0].trim());
+            int to = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : from;
+            for (int cpu = from; cpu <= to; cpu++) {
+                cpus.add(cpu);
+            }
+        }
+        return cpus;
+    }
+
+    static String formatCpuList(List<Integer> cpus) {
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        while (i < cpus.size()) {
+            int j = i;
+            while (j + 1 < cpus.size() && cpus.get(j + 1) == cpus.get(j) + 1) {
+                j++;
+            }
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(cpus.get(i));
+            if (j > i) {
+                sb.append('-').append(cpus.get(j));
+            }
+            i = j + 1;
+        }
+        return sb.toString();
+    }
+
+    static List<Integer> allowedCpus() {
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS, StandardCharsets.US_ASCII)) {
+                if (line.startsWith(CPUS_ALLOWED)) {
+                    return parseCpuList(line.substring(CPUS_ALLOWED.length()));
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            // not a Linux, all processors are assumed to be allowed
+        }
+        List<Integer> cpus = new ArrayList<>();
+        for (int cpu = 0; cpu < Runtime.getRuntime().availableProcessors(); cpu++) {
+            cpus.add(cpu);
+        }
+        return cpus;
+    }
+}
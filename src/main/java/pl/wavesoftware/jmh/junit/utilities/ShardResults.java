@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes JMH results of each benchmark as JSON, to a directory of its shard, and
+ * merges results of all shards into one JMH JSON report.
+ * <p>
+ * Results are written if {@value #DIRECTORY_PROPERTY} system property is set. To
+ * merge results, for ex.: after all shards are done, run:
+ * <pre>
+ * java -cp ... pl.wavesoftware.jmh.junit.utilities.ShardResults target/jmh-results target/jmh.json
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class ShardResults {
+
+    /**
+     * A system property with a directory for JSON results.
+     */
+    public static final String DIRECTORY_PROPERTY = "jmh.junit.results.dir";
+    private static final String JSON = ".json";
+
+    private ShardResults() {
+        // not reachable
+    }
+
+    /**
+     * Merges JSON results of all shards.
+     *
+     * @param args a directory with results of shards, and an output file
+     * @throws IOException if results can't be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: ShardResults <results-dir> <output.json>");
+        }
+        merge(Paths.get(args[0]), Paths.get(args[1]));
+    }
+
+    /**
+     * Merges JSON results found in given directory, and its subdirectories, into
+     * one JSON array. Results are ordered by file paths, so the output is the same
+     * for the same results.
+     *
+     * @param directory a directory with results of shards
+     * @param output    an output file
+     * @throws IOException if results can't be read or written
+     */
+    public static void merge(Path directory, Path output) throws IOException {
+        List<Path> files;
+        Path target = output.toAbsolutePath().normalize();
+        try (Stream<Path> stream = Files.walk(directory)) {
+            files = stream
+                .filter(path -> path.toString().endsWith(JSON))
+                .filter(path -> !path.toAbsolutePath().normalize().equals(target))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+        List<String> elements = new ArrayList<>();
+        for (Path file : files) {
+            String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+            String body = arrayBody(content, file);
+            if (!body.isEmpty()) {
+                elements.add(body);
+            }
+        }
+        String merged = "[\n" + String.join(",\n", elements) + "\n]\n";
+        writeAtomically(output, merged);
+    }
+
+    static void write(Path directory, Shard shard, String benchmark,
+                      Collection<RunResult> results) throws IOException {
+        Path file = directory.resolve(shard.getName()).resolve(benchmark + JSON);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8.name())) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(results);
+        }
+        writeAtomically(file, bytes.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    private static String arrayBody(String content, Path file) throws IOException {
+        if (!content.startsWith("[") || !content.endsWith("]")) {
+            throw new IOException("Not a JSON array of JMH results: " + file);
+        }
+        return content.substring(1, content.length() - 1).trim();
+    }
+
+    private static void writeAtomically(Path file, String content) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        Files.write(temp, content.getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
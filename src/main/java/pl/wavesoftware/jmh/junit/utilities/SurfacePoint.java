@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A score of a benchmark at a single point of a {@link ResponseSurface}.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class SurfacePoint {
+
+    private final Map<String, String> params;
+    private final double score;
+    private final double scoreError;
+    private final String unit;
+    private final boolean refined;
+
+    SurfacePoint(Map<String, String> params,
+                 double score,
+                 double scoreError,
+                 String unit,
+                 boolean refined) {
+        this.params = Collections.unmodifiableMap(new LinkedHashMap<>(params));
+        this.score = score;
+        this.scoreError = scoreError;
+        this.unit = unit;
+        this.refined = refined;
+    }
+
+    /**
+     * Gets values of parameters of a point.
+     *
+     * @return values of parameters by name
+     */
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    /**
+     * Gets a primary score of a benchmark.
+     *
+     * @return a score
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Gets an error of a primary score, {@code NaN} if unknown.
+     *
+     * @return a score error
+     */
+    public double getScoreError() {
+        return scoreError;
+    }
+
+    /**
+     * Gets a unit of a score.
+     *
+     * @return a score unit
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * Tells if a point was added to refine a cliff, rather than sampled initially.
+     *
+     * @return true, if a point was refined
+     */
+    public boolean isRefined() {
+        return refined;
+    }
+
+    @Override
+    public String toString() {
+        return params + ": " + RunResults.format(score, scoreError, unit);
+    }
+}
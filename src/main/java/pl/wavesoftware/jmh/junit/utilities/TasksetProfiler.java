@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.Result;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A JMH profiler, that doesn't profile anything, but starts forked JVMs with
+ * Linux {@code taskset}, so they are pinned to given CPUs. Its init line is a
+ * CPU list, for ex.: {@code 0-3,8}.
+ * <p>
+ * Example:
+ * <pre>
+ * new OptionsBuilder().addProfiler(TasksetProfiler.class, "0-3");
+ * </pre>
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+public final class TasksetProfiler implements ExternalProfiler {
+
+    private static final String TASKSET = "taskset";
+
+    private final String cpus;
+
+    /**
+     * Creates a profiler pinning forks to given CPUs.
+     *
+     * @param cpus a CPU list, for ex.: {@code 0-3,8}
+     */
+    public TasksetProfiler(String cpus) {
+        if (Shard.parseCpuList(cpus).isEmpty()) {
+            throw new IllegalArgumentException("A list of CPUs is required, but was: " + cpus);
+        }
+        this.cpus = cpus.trim();
+    }
+
+    @Override
+    public Collection<String> addJVMInvokeOptions(BenchmarkParams params) {
+        return command(cpus);
+    }
+
+    /**
+     * Builds a command prefix, that pins a process to given CPUs.
+     *
+     * @param cpus a CPU list, for ex.: {@code 0-3,8}
+     * @return a command prefix
+     */
+    static List<String> command(String cpus) {
+        return Arrays.asList(TASKSET, "-c", cpus);
+    }
+
+    /**
+     * Tells if {@code taskset} can be found on a {@code PATH}.
+     *
+     * @return true, if processes can be pinned
+     */
+    static boolean isAvailable() {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return false;
+        }
+        for (String directory : path.split(Pattern.quote(File.pathSeparator))) {
+            if (!directory.isEmpty() && Files.isExecutable(Paths.get(directory, TASKSET))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Collection<String> addJVMOptions(BenchmarkParams params) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void beforeTrial(BenchmarkParams benchmarkParams) {
+        // nothing to prepare
+    }
+
+    @Override
+    public Collection<? extends Result<?>> afterTrial(BenchmarkResult br, long pid,
+                                                      File stdOut, File stdErr) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean allowPrintOut() {
+        return true;
+    }
+
+    @Override
+    public boolean allowPrintErr() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Pins forked JVMs to CPUs with taskset";
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import pl.wavesoftware.eid.exceptions.EidIllegalStateException;
+
+import java.lang.annotation.Annotation;
+import java.util.Optional;
+
+/**
+ * Finds annotations, that configure extensions, on a test method or its class.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class TestAnnotations {
+
+    private TestAnnotations() {
+        // not reachable
+    }
+
+    /**
+     * Finds an annotation on a test method, or on a test class if a method isn't
+     * annotated.
+     *
+     * @param context a context of a test
+     * @param type    a type of annotation
+     * @param <A>     a type of annotation
+     * @return an annotation, or empty if a test isn't annotated
+     */
+    static <A extends Annotation> Optional<A> find(ExtensionContext context, Class<A> type) {
+        Optional<A> annotation = context.getTestMethod()
+            .flatMap(method -> AnnotationSupport.findAnnotation(method, type));
+        if (!annotation.isPresent()) {
+            annotation = context.getTestClass()
+                .flatMap(testClass -> AnnotationSupport.findAnnotation(testClass, type));
+        }
+        return annotation;
+    }
+
+    /**
+     * Gets an annotation of a test, that an extension requires.
+     *
+     * @param context a context of a test
+     * @param type    a type of annotation
+     * @param <A>     a type of annotation
+     * @return an annotation
+     * @throws EidIllegalStateException if a test isn't annotated
+     */
+    static <A extends Annotation> A require(ExtensionContext context, Class<A> type) {
+        return find(context, type).orElseThrow(() -> new EidIllegalStateException(
+            "20261017:214503",
+            "Test should be annotated with @" + type.getSimpleName() + ": " + context.getUniqueId()
+        ));
+    }
+}
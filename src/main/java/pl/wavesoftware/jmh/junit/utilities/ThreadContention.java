@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.util.Locale;
+
+/**
+ * Contention of a single thread during a test: how many times and how long it was
+ * blocked on monitors, and waiting or parked.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class ThreadContention {
+
+    private final String name;
+    private final long blockedCount;
+    private final long blockedMillis;
+    private final long waitedCount;
+    private final long waitedMillis;
+
+    ThreadContention(String name, long blockedCount, long blockedMillis,
+                     long waitedCount, long waitedMillis) {
+        this.name = name;
+        this.blockedCount = blockedCount;
+        this.blockedMillis = blockedMillis;
+        this.waitedCount = waitedCount;
+        this.waitedMillis = waitedMillis;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    long getBlockedCount() {
+        return blockedCount;
+    }
+
+    long getBlockedMillis() {
+        return blockedMillis;
+    }
+
+    long getWaitedCount() {
+        return waitedCount;
+    }
+
+    long getWaitedMillis() {
+        return waitedMillis;
+    }
+
+    boolean isContended() {
+        return blockedCount > 0 || waitedCount > 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            Locale.ROOT, "blocked %d times for %d ms, waited %d times for %d ms",
+            blockedCount, blockedMillis, waitedCount, waitedMillis
+        );
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * An access to virtual threads of a running JVM. They are created through
+ * reflection, as they aren't a part of Java 8 API, the library is built against.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class VirtualThreads {
+
+    @Nullable
+    private static final ThreadFactory FACTORY = load();
+
+    private VirtualThreads() {
+        // not reachable
+    }
+
+    /**
+     * Tells if virtual threads can be created in this JVM, which is true since
+     * JDK 21, or with preview features enabled on JDK 19 and 20.
+     *
+     * @return true, if virtual threads are available
+     */
+    static boolean isAvailable() {
+        return FACTORY != null;
+    }
+
+    /**
+     * Gets a factory of virtual threads.
+     *
+     * @return a factory of virtual threads
+     * @throws IllegalStateException if virtual threads aren't available
+     */
+    static ThreadFactory factory() {
+        if (FACTORY == null) {
+            throw new IllegalStateException(
+                "Virtual threads aren't available in this JVM: " + System.getProperty("java.version")
+            );
+        }
+        return FACTORY;
+    }
+
+    @Nullable
+    private static ThreadFactory load() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            ThreadFactory threads = (ThreadFactory) factory.invoke(builder);
+            // preview features of JDK 19 and 20 fail only when a thread is created
+            threads.newThread(() -> { });
+            return threads;
+        } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException ex) {
+            return null;
+        }
+    }
+}
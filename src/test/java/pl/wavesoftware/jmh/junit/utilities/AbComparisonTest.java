@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.openjdk.jmh.annotations.Mode;
+
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class AbComparisonTest {
+
+    @BeforeAll
+    static void setUp() {
+        System.setProperty(AbRunner.BASELINE_PROPERTY, System.getProperty("java.class.path"));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        System.clearProperty(AbRunner.BASELINE_PROPERTY);
+    }
+
+    @JmhBenchmark(
+        value = SampleBenchmark.class,
+        warmupIterations = 1,
+        warmupTime = 20,
+        measurementIterations = 2,
+        measurementTime = 20,
+        modes = Mode.AverageTime
+    )
+    @AbComparison(pairs = 2, threshold = 10)
+    void testSameClasspath(AbResult result, Collection<AbResult> results) {
+        // then
+        assertThat(results).containsExactly(result);
+        assertThat(result.getLabel()).startsWith(SampleBenchmark.class.getName()).endsWith("[avgt]");
+        assertThat(result.getBaselineScores()).hasSize(2);
+        assertThat(result.getCandidateScores()).hasSize(2);
+        assertThat(result.getCandidateScores()[0]).isPositive();
+        assertThat(result.isCandidateSlower()).isFalse();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class AbRunnerTest {
+
+    private static final String BENCHMARK = "pl.acme.MyBenchmark.run";
+    private static final String RESULT = "{\"benchmark\": \"%s\", \"mode\": \"avgt\", "
+        + "\"params\": {\"size\": \"10\"}, "
+        + "\"primaryMetric\": {\"score\": %s, \"scoreUnit\": \"ns/op\"}}";
+
+    @Test
+    void testRun() throws IOException, NoSuchMethodException {
+        // given
+        String baseline = Files.createTempDirectory("ab-baseline").toString();
+        String candidate = Files.createTempDirectory("ab-candidate").toString();
+        List<String> order = new ArrayList<>();
+        AbRunner.Launcher launcher = (classpath, jvmArgs, arguments, json) -> {
+            boolean isBaseline = classpath.equals(baseline);
+            order.add(isBaseline ? "A" : "B");
+            assertThat(arguments).contains("-f", "0", "-rf", "json", "-rff", json.toString());
+            double score = (isBaseline ? 100 : 110) + order.size();
+            write(json, "[" + String.format(Locale.ROOT, RESULT, BENCHMARK, score) + ", "
+                + String.format(Locale.ROOT, RESULT, BENCHMARK + "Other", 1.0) + "]");
+        };
+        AbRunner runner = new AbRunner(baseline, candidate, 4, 0.99, 0, launcher);
+
+        // when
+        List<AbResult> results = runner.run(BENCHMARK, settings());
+
+        // then
+        assertThat(order).containsExactly("A", "B", "B", "A", "A", "B", "B", "A");
+        assertThat(results).hasSize(1);
+        AbResult result = results.get(0);
+        assertThat(result.getLabel()).isEqualTo(BENCHMARK + "(size=10) [avgt]");
+        assertThat(result.getUnit()).isEqualTo("ns/op");
+        assertThat(result.getBaselineScores()).containsExactly(101, 104, 105, 108);
+        assertThat(result.getCandidateScores()).containsExactly(112, 113, 116, 117);
+        assertThat(result.isCandidateSlower()).isTrue();
+        assertThat(result.toString()).endsWith("at 99.0%, candidate slower");
+    }
+
+    @Test
+    void testOf_Throughput() {
+        // when
+        AbResult result = AbResult.of(
+            "b [thrpt]", "ops/s", true,
+            new double[]{100, 102, 98, 101}, new double[]{110, 111, 108, 112}, 0.99, 0
+        );
+
+        // then
+        assertThat(result.getWorsening()).isCloseTo(-0.0998, within(0.001));
+        assertThat(result.isCandidateFaster()).isTrue();
+        assertThat(result.isCandidateSlower()).isFalse();
+    }
+
+    @Test
+    void testOf_Threshold() {
+        // when
+        AbResult result = AbResult.of(
+            "b [avgt]", "ns/op", false,
+            new double[]{100, 100, 100}, new double[]{101, 102, 101}, 0.90, 0.05
+        );
+
+        // then
+        assertThat(result.getWorseningLow()).isPositive();
+        assertThat(result.isCandidateSlower()).isFalse();
+        assertThat(result.toString()).contains("no significant slowdown");
+    }
+
+    @Test
+    void testOf_MissingBaseline() throws NoSuchMethodException {
+        // given
+        AbComparison comparison = comparison("defaults");
+
+        // when
+        ThrowingCallable throwingCallable = () -> AbRunner.of(
+            comparison, new Properties(), (classpath, jvmArgs, arguments, json) -> {
+            }
+        );
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining(AbRunner.BASELINE_PROPERTY);
+    }
+
+    @Test
+    void testOf_NonExistingEntry() throws NoSuchMethodException {
+        // given
+        AbComparison comparison = comparison("defaults");
+        Properties properties = new Properties();
+        properties.setProperty(AbRunner.BASELINE_PROPERTY, "target/non-existing.jar");
+
+        // when
+        ThrowingCallable throwingCallable = () -> AbRunner.of(
+            comparison, properties, (classpath, jvmArgs, arguments, json) -> {
+            }
+        );
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("An entry of baseline classpath doesn't exist: target/non-existing.jar");
+    }
+
+    private static void write(Path json, String content) throws IOException {
+        Files.write(json, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static BenchmarkSettings settings() throws NoSuchMethodException {
+        return BenchmarkSettings.of(
+            Annotated.class.getDeclaredMethod("defaults").getAnnotation(JmhBenchmark.class),
+            new Properties()
+        );
+    }
+
+    private static AbComparison comparison(String method) throws NoSuchMethodException {
+        return Annotated.class.getDeclaredMethod(method).getAnnotation(AbComparison.class);
+    }
+
+    private static final class Annotated {
+        @JmhBenchmark
+        @AbComparison
+        void defaults() {
+            // only annotation is used
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class AdaptiveMeasurementTest {
+
+    @JmhBenchmark(
+        value = SampleBenchmark.class,
+        forks = 0,
+        measurementTime = 10,
+        targetError = 0.5,
+        minIterations = 3,
+        maxIterations = 12,
+        batchIterations = 2
+    )
+    void testAdaptive(RunResult result) {
+        // then
+        assertThat(RunResults.samples(result).length).isBetween(3, 12);
+        assertThat(result.getPrimaryResult().getScore()).isPositive();
+    }
+
+    @Test
+    void testIsConverged() {
+        // given
+        AdaptiveMeasurement measurement = new AdaptiveMeasurement(0.01, 3, 10, 2);
+
+        // when
+        boolean steady = measurement.isConverged(new double[]{100.0, 100.1, 99.9, 100.0, 100.05});
+        boolean noisy = measurement.isConverged(new double[]{80.0, 120.0, 95.0, 110.0, 90.0});
+        boolean few = measurement.isConverged(new double[]{100.0, 100.0});
+
+        // then
+        assertThat(steady).isTrue();
+        assertThat(noisy).isFalse();
+        assertThat(few).isFalse();
+    }
+
+    @Test
+    void testRemainingIterations() {
+        // given
+        AdaptiveMeasurement measurement = new AdaptiveMeasurement(0.01, 3, 1000, 2);
+        double[] noisy = {80.0, 120.0, 95.0, 110.0, 90.0, 105.0};
+        double[] steady = {100.0, 100.1, 99.9, 100.0, 100.05};
+
+        // when
+        int oneFork = measurement.remainingIterations(noisy, 1);
+        int twoForks = measurement.remainingIterations(noisy, 2);
+        int converged = measurement.remainingIterations(steady, 1);
+        int few = measurement.remainingIterations(new double[]{100.0}, 1);
+
+        // then
+        assertThat(oneFork).isGreaterThan(100);
+        assertThat(twoForks).isEqualTo((oneFork + 1) / 2);
+        assertThat(converged).isZero();
+        assertThat(few).isEqualTo(2);
+    }
+
+    @Test
+    void testInvalidIterations() {
+        // when
+        ThrowingCallable throwingCallable = () -> new AdaptiveMeasurement(0.01, 10, 5, 1);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Invalid iterations: min 10 (at least 2), max 5 (at least min), "
+                + "batch 1 (at least 1)");
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opentest4j.AssertionFailedError;
+import org.openjdk.jmh.results.RunResult;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@ExtendWith(MockitoExtension.class)
+class AllocationBudgetTest {
+
+    private static volatile Object sink;
+
+    @Mock
+    private ExtensionContext context;
+    @Mock
+    private ExtensionContext.Store store;
+
+    @JmhBenchmark(
+        value = SampleBenchmark.class,
+        forks = 0,
+        warmupIterations = 0,
+        measurementIterations = 1,
+        measurementTime = 20
+    )
+    @AllocationBudget(bytesPerOp = 16)
+    void testBenchmark(Collection<RunResult> results) {
+        // then
+        assertThat(results).allSatisfy(result ->
+            assertThat(AllocationBudgetExtension.normalizedAllocationRate(result)).isNotNull()
+        );
+    }
+
+    @Test
+    @AllocationBudget
+    void testAllocationFree(AllocationMeter meter) throws Throwable {
+        // given
+        long[] values = {3, 5, 7, 11};
+
+        // when
+        double bytesPerOp = meter.measure(() -> sink = values[values.length - 1] > 10);
+
+        // then
+        assertThat(bytesPerOp).isZero();
+    }
+
+    @Test
+    void testMeasure_Allocating() throws Throwable {
+        // given
+        AllocationMeter meter = new AllocationMeter(
+            1_000, 1_000, AllocationMeter.threadMxBean()
+        );
+
+        // when
+        double bytesPerOp = meter.measure(() -> sink = new byte[64]);
+
+        // then
+        assertThat(bytesPerOp).isBetween(64d, 128d);
+        assertThat(meter.getBytesPerOp()).isEqualTo(bytesPerOp);
+    }
+
+    @Test
+    void testAfterTestExecution_Exceeded() throws Throwable {
+        // given
+        AllocationMeter meter = new AllocationMeter(
+            1_000, 1_000, AllocationMeter.threadMxBean()
+        );
+        meter.measure(() -> sink = new byte[64]);
+        when(context.getExecutionException()).thenReturn(Optional.empty());
+        when(context.getTestMethod()).thenReturn(Optional.of(
+            AllocationBudgetTest.class.getDeclaredMethod("testAllocationFree", AllocationMeter.class)
+        ));
+        when(context.getStore(any())).thenReturn(store);
+        when(store.get("meter", AllocationMeter.class)).thenReturn(meter);
+        when(context.getDisplayName()).thenReturn("allocating()");
+
+        // when
+        ThrowingCallable throwingCallable = () ->
+            new AllocationBudgetExtension().afterTestExecution(context);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(AssertionFailedError.class)
+            .hasMessageStartingWith("Allocation budget exceeded\nallocating(): ")
+            .hasMessageEndingWith(" B/op, budget 0 B/op");
+        verify(context).publishReportEntry(anyMap());
+    }
+
+    @Test
+    void testAfterTestExecution_NotMeasured() throws NoSuchMethodException {
+        // given
+        when(context.getExecutionException()).thenReturn(Optional.empty());
+        when(context.getTestMethod()).thenReturn(Optional.of(
+            AllocationBudgetTest.class.getDeclaredMethod("testAllocationFree", AllocationMeter.class)
+        ));
+        when(context.getStore(any())).thenReturn(store);
+
+        // when
+        ThrowingCallable throwingCallable = () ->
+            new AllocationBudgetExtension().afterTestExecution(context);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(AssertionFailedError.class)
+            .hasMessage("No allocations were measured, use @JmhBenchmark or AllocationMeter parameter");
+    }
+
+    @Test
+    void testMeter_InvalidOperations() {
+        // when
+        ThrowingCallable throwingCallable = () ->
+            new AllocationMeter(0, 0, AllocationMeter.threadMxBean());
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Number of operations must be positive, but was: 0");
+    }
+}
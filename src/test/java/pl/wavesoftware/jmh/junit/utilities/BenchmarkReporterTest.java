@@ -0,0 +1,327 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.RunResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class BenchmarkReporterTest {
+
+    private static final String LABEL = "pl.acme.Bench.run(size=10) [thrpt]";
+    private static final Path REPORTED = TemporaryPaths.directory("reports");
+
+    @RegisterExtension
+    static AfterTestExecutionCallback reporting = context -> {
+        BenchmarkReporter.in(REPORTED).withRunId("reporting").afterTestExecution(context);
+        for (RunResult result : JmhBenchmarkExtension.getResults(context)) {
+            String label = RunResults.label(result);
+            assertThat(BenchmarkReporter.read(REPORTED.resolve(BenchmarkReporter.JSON_FILE)))
+                .containsKey(label);
+            assertThat(Files.readAllLines(REPORTED.resolve(BenchmarkReporter.CSV_FILE)))
+                .startsWith(ReportRow.csvHeader())
+                .anyMatch(line -> line.startsWith("\"" + label + "\","));
+            assertThat(new String(
+                Files.readAllBytes(REPORTED.resolve(BenchmarkReporter.HTML_FILE)),
+                StandardCharsets.UTF_8
+            )).contains(label + "</td>");
+        }
+    };
+
+    private Path directory;
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        TemporaryPaths.delete(REPORTED);
+    }
+
+    @BeforeEach
+    void before() {
+        directory = TemporaryPaths.directory("reports");
+    }
+
+    @AfterEach
+    void after() throws IOException {
+        TemporaryPaths.delete(directory);
+    }
+
+    @JmhBenchmark(
+        value = SampleBenchmark.class,
+        forks = 0,
+        warmupIterations = 0,
+        measurementIterations = 2,
+        measurementTime = 10
+    )
+    void testReporting(RunResult result) {
+        // then
+        assertThat(result.getPrimaryResult().getScore()).isPositive();
+    }
+
+    @Test
+    void testJsonRoundTrip() {
+        // given
+        ReportRow row = new ReportRow(
+            "pl.acme.\"Quoted\".run [thrpt]", Mode.Throughput,
+            new ReportRow.Metric(12.5, Double.NaN, "ops/ms"),
+            Collections.singletonMap("gc.alloc.rate", new ReportRow.Metric(3d, 0.5, "MB/sec"))
+        );
+
+        // when
+        ReportRow parsed = ReportRow.parse(row.toJson());
+
+        // then
+        assertThat(parsed.getLabel()).isEqualTo(row.getLabel());
+        assertThat(parsed.getPrimary().getScore()).isEqualTo(12.5);
+        assertThat(parsed.getPrimary().getUnit()).isEqualTo("ops/ms");
+        assertThat(parsed.getSecondary()).containsOnlyKeys("gc.alloc.rate");
+        assertThat(parsed.getSecondary().get("gc.alloc.rate").getScore()).isEqualTo(3d);
+        assertThat(parsed.toJson()).isEqualTo(row.toJson());
+        assertThat(row.toCsv())
+            .isEqualTo("\"pl.acme.\"\"Quoted\"\".run [thrpt]\",\"thrpt\",12.5,,\"ops/ms\",\"\"");
+    }
+
+    @Test
+    void testWorseningSince() {
+        // given
+        ReportRow before = row(LABEL, Mode.Throughput, 100, "ops/ms");
+        ReportRow after = row(LABEL, Mode.Throughput, 80, "ops/ms");
+        ReportRow slower = row(LABEL, Mode.AverageTime, 120, "ms/op");
+        ReportRow faster = row(LABEL, Mode.AverageTime, 100, "ms/op");
+
+        // when
+        double throughput = after.worseningSince(before);
+        double time = slower.worseningSince(faster);
+        double incomparable = after.worseningSince(faster);
+
+        // then
+        assertThat(throughput).isEqualTo(0.2);
+        assertThat(time).isEqualTo(0.2);
+        assertThat(incomparable).isNaN();
+    }
+
+    @Test
+    void testFailedRow() {
+        // given
+        ReportRow row = ReportRow.failed(LABEL, "java.lang.IllegalStateException: \"boom\"");
+
+        // when
+        ReportRow parsed = ReportRow.parse(row.toJson());
+
+        // then
+        assertThat(parsed.getFailure()).isEqualTo("java.lang.IllegalStateException: \"boom\"");
+        assertThat(parsed.getPrimary().getScore()).isNaN();
+        assertThat(parsed.worseningSince(row(LABEL, Mode.Throughput, 100, "ops/ms"))).isNaN();
+        assertThat(row(LABEL, Mode.Throughput, 100, "ops/ms").worseningSince(parsed)).isNaN();
+        assertThat(row.toCsv())
+            .isEqualTo("\"" + LABEL + "\",\"\",,,\"\",\"java.lang.IllegalStateException: \"\"boom\"\"\"");
+    }
+
+    @Test
+    void testAfterTestExecution_Failure() throws Exception {
+        // given
+        ExtensionContext context = mock(ExtensionContext.class);
+        when(context.getStore(any())).thenReturn(mock(ExtensionContext.Store.class));
+        when(context.getExecutionException()).thenReturn(Optional.of(
+            new IllegalStateException("Benchmark crashed\n\tat forked JVM")
+        ));
+        when(context.getTestMethod()).thenReturn(Optional.of(
+            BenchmarkReporterTest.class.getDeclaredMethod("testReporting", RunResult.class)
+        ));
+        when(context.getDisplayName()).thenReturn("sum");
+        String label = SampleBenchmark.class.getName() + ".sum";
+
+        // when
+        new BenchmarkReporter(directory, null).afterTestExecution(context);
+
+        // then
+        assertThat(BenchmarkReporter.read(directory.resolve(BenchmarkReporter.JSON_FILE)))
+            .containsOnlyKeys(label);
+        assertThat(new String(
+            Files.readAllBytes(directory.resolve(BenchmarkReporter.HTML_FILE)),
+            StandardCharsets.UTF_8
+        )).contains("class=\"worse\">failed: java.lang.IllegalStateException: Benchmark crashed<");
+        verify(context).publishReportEntry(Collections.singletonMap(
+            "jmh.report." + label + ".failure",
+            "java.lang.IllegalStateException: Benchmark crashed"
+        ));
+    }
+
+    @Test
+    void testFailureFixed_NoRunId() throws IOException {
+        // given
+        BenchmarkReporter reporter = new BenchmarkReporter(directory, null);
+        reporter.write(Collections.singletonList(row(LABEL, Mode.Throughput, 100, "ops/ms")));
+        reporter.write(Collections.singletonList(
+            ReportRow.failed("pl.acme.Bench.run", "java.lang.IllegalStateException: boom")
+        ));
+
+        // when
+        Map<String, ReportRow> previous = reporter.write(
+            Collections.singletonList(row(LABEL, Mode.Throughput, 125, "ops/ms"))
+        );
+
+        // then
+        assertThat(previous).containsKey(LABEL);
+        assertThat(previous.get(LABEL).getFailure()).isEqualTo("java.lang.IllegalStateException: boom");
+        assertThat(BenchmarkReporter.read(directory.resolve(BenchmarkReporter.JSON_FILE)))
+            .containsOnlyKeys(LABEL);
+        assertThat(new String(
+            Files.readAllBytes(directory.resolve(BenchmarkReporter.HTML_FILE)),
+            StandardCharsets.UTF_8
+        )).contains(">fixed, failed before<").doesNotContain("failed: ");
+    }
+
+    @Test
+    void testFailureFixed_RunIdChanged() throws IOException {
+        // given
+        BenchmarkReporter.in(directory).withRunId("41").write(Collections.singletonList(
+            ReportRow.failed("pl.acme.Bench.run", "java.lang.IllegalStateException: boom")
+        ));
+        BenchmarkReporter reporter = BenchmarkReporter.in(directory).withRunId("42");
+
+        // when
+        Map<String, ReportRow> previous = reporter.write(Arrays.asList(
+            row(LABEL, Mode.Throughput, 100, "ops/ms"),
+            row("pl.acme.Bench.run(size=10) [avgt]", Mode.AverageTime, 10, "ns/op")
+        ));
+
+        // then
+        assertThat(previous).containsOnlyKeys(LABEL, "pl.acme.Bench.run(size=10) [avgt]");
+        assertThat(previous.values()).allSatisfy(row -> assertThat(row.getFailure()).isNotNull());
+        assertThat(new String(
+            Files.readAllBytes(directory.resolve(BenchmarkReporter.HTML_FILE)),
+            StandardCharsets.UTF_8
+        )).doesNotContain("failed: ");
+    }
+
+    @Test
+    void testRotation_RunIdChanged() throws IOException {
+        // given
+        Files.createDirectories(directory);
+        Files.write(
+            directory.resolve(BenchmarkReporter.JSON_FILE),
+            Arrays.asList(row(LABEL, Mode.Throughput, 100, "ops/ms").toJson(), "{\"label\":\"pl.")
+        );
+        Files.write(directory.resolve(BenchmarkReporter.RUN_ID_FILE), Collections.singleton("41"));
+        BenchmarkReporter reporter = BenchmarkReporter.in(directory).withRunId("42");
+
+        // when
+        Map<String, ReportRow> previous = reporter.write(
+            Collections.singletonList(row(LABEL, Mode.Throughput, 50, "ops/ms"))
+        );
+        reporter.withRunId("42").write(
+            Collections.singletonList(row("pl.acme.Bench.other [thrpt]", Mode.Throughput, 10, "ops/ms"))
+        );
+
+        // then
+        assertThat(previous).containsOnlyKeys(LABEL);
+        assertThat(previous.get(LABEL).getPrimary().getScore()).isEqualTo(100d);
+        assertThat(directory.resolve(BenchmarkReporter.RUN_ID_FILE)).hasContent("42");
+        assertThat(BenchmarkReporter.read(
+            directory.resolve(BenchmarkReporter.PREVIOUS_PREFIX + BenchmarkReporter.JSON_FILE)
+        )).containsOnlyKeys(LABEL);
+        assertThat(BenchmarkReporter.read(directory.resolve(BenchmarkReporter.JSON_FILE)))
+            .containsOnlyKeys(LABEL, "pl.acme.Bench.other [thrpt]");
+        String html = new String(
+            Files.readAllBytes(directory.resolve(BenchmarkReporter.HTML_FILE)),
+            StandardCharsets.UTF_8
+        );
+        assertThat(html)
+            .contains("pl.acme.Bench.run(size=10) [thrpt]")
+            .contains("class=\"worse\">worsening +50.00%");
+    }
+
+    @Test
+    void testPreviousRow_NoRunId() throws IOException {
+        // given
+        BenchmarkReporter reporter = new BenchmarkReporter(directory, null);
+        reporter.write(Collections.singletonList(row(LABEL, Mode.Throughput, 100, "ops/ms")));
+
+        // when
+        Map<String, ReportRow> previous = new BenchmarkReporter(directory, null).write(
+            Collections.singletonList(row(LABEL, Mode.Throughput, 125, "ops/ms"))
+        );
+
+        // then
+        assertThat(previous).containsOnlyKeys(LABEL);
+        assertThat(previous.get(LABEL).getPrimary().getScore()).isEqualTo(100d);
+        assertThat(directory.resolve(BenchmarkReporter.PREVIOUS_PREFIX + BenchmarkReporter.JSON_FILE))
+            .doesNotExist();
+        assertThat(directory.resolve(BenchmarkReporter.RUN_ID_FILE)).doesNotExist();
+        assertThat(new String(
+            Files.readAllBytes(directory.resolve(BenchmarkReporter.HTML_FILE)),
+            StandardCharsets.UTF_8
+        )).contains("class=\"better\">worsening -25.00%");
+    }
+
+    @Test
+    void testIncrementalWrites() throws IOException {
+        // given
+        BenchmarkReporter reporter = BenchmarkReporter.in(directory).withRunId("1");
+        reporter.write(Collections.singletonList(row(LABEL, Mode.Throughput, 100, "ops/ms")));
+
+        // when
+        Files.write(
+            directory.resolve(BenchmarkReporter.JSON_FILE),
+            "{\"label\":\"torn".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND
+        );
+        reporter.write(Collections.singletonList(
+            row("pl.acme.Bench.other [thrpt]", Mode.Throughput, 10, "ops/ms")
+        ));
+
+        // then
+        List<String> csv = Files.readAllLines(directory.resolve(BenchmarkReporter.CSV_FILE));
+        assertThat(csv).hasSize(3).startsWith(ReportRow.csvHeader());
+        assertThat(BenchmarkReporter.read(directory.resolve(BenchmarkReporter.JSON_FILE)))
+            .containsOnlyKeys(LABEL, "pl.acme.Bench.other [thrpt]");
+        assertThat(directory.resolve(BenchmarkReporter.PREVIOUS_PREFIX + BenchmarkReporter.JSON_FILE))
+            .doesNotExist();
+    }
+
+    private static ReportRow row(String label, Mode mode, double score, String unit) {
+        return new ReportRow(
+            label, mode, new ReportRow.Metric(score, 1d, unit), Collections.emptyMap()
+        );
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class BenchmarkSettingsTest {
+
+    @Test
+    void testApply_Annotation() throws NoSuchMethodException {
+        // given
+        JmhBenchmark annotation = annotation("annotated");
+        BenchmarkSettings settings = BenchmarkSettings.of(annotation, new Properties());
+
+        // when
+        Options options = settings.apply(new OptionsBuilder()).build();
+
+        // then
+        assertThat(options.getForkCount().get()).isEqualTo(2);
+        assertThat(options.getWarmupIterations().get()).isEqualTo(3);
+        assertThat(options.getMeasurementIterations().get()).isEqualTo(4);
+        assertThat(options.getMeasurementTime().get()).isEqualTo(TimeValue.milliseconds(1000));
+        assertThat(options.getBenchModes()).containsExactly(Mode.AverageTime);
+        assertThat(options.getWarmupTime().hasValue()).isFalse();
+    }
+
+    @Test
+    void testApply_SystemProperties() throws NoSuchMethodException {
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(BenchmarkSettings.FORKS, "0");
+        properties.setProperty(BenchmarkSettings.WARMUP_TIME, "150");
+        properties.setProperty(BenchmarkSettings.MEASUREMENT_ITERATIONS, " 7 ");
+        properties.setProperty(BenchmarkSettings.MODES, "thrpt, sample");
+        BenchmarkSettings settings = BenchmarkSettings.of(annotation("annotated"), properties);
+
+        // when
+        Options options = settings.apply(new OptionsBuilder()).build();
+
+        // then
+        assertThat(options.getForkCount().get()).isZero();
+        assertThat(options.getWarmupIterations().get()).isEqualTo(3);
+        assertThat(options.getWarmupTime().get()).isEqualTo(TimeValue.milliseconds(150));
+        assertThat(options.getMeasurementIterations().get()).isEqualTo(7);
+        assertThat(options.getBenchModes())
+            .containsExactlyInAnyOrder(Mode.Throughput, Mode.SampleTime);
+    }
+
+    @Test
+    void testApply_Defaults() throws NoSuchMethodException {
+        // given
+        BenchmarkSettings settings = BenchmarkSettings.of(annotation("defaults"), new Properties());
+
+        // when
+        Options options = settings.apply(new OptionsBuilder()).build();
+
+        // then
+        assertThat(options.getForkCount().hasValue()).isFalse();
+        assertThat(options.getMeasurementIterations().hasValue()).isFalse();
+        assertThat(options.getBenchModes()).isEmpty();
+    }
+
+    @Test
+    void testAdaptive() throws NoSuchMethodException {
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(BenchmarkSettings.TARGET_ERROR, "0.02");
+
+        // when
+        AdaptiveMeasurement fixed = BenchmarkSettings.of(annotation("defaults"), new Properties())
+            .adaptive();
+        AdaptiveMeasurement adaptive = BenchmarkSettings.of(annotation("defaults"), properties)
+            .adaptive();
+
+        // then
+        assertThat(fixed).isNull();
+        assertThat(adaptive).isNotNull();
+    }
+
+    @Test
+    void testToArguments() throws NoSuchMethodException {
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(BenchmarkSettings.WARMUP_TIME, "150");
+        BenchmarkSettings settings = BenchmarkSettings.of(annotation("annotated"), properties);
+
+        // when
+        List<String> arguments = settings.toArguments();
+
+        // then
+        assertThat(arguments).containsExactly(
+            "-wi", "3", "-w", "150000us", "-i", "4", "-r", "1000000us", "-bm", "avgt"
+        );
+    }
+
+    @Test
+    void testSmoke() throws NoSuchMethodException {
+        // given
+        BenchmarkSettings annotated = BenchmarkSettings.smoke(annotation("annotated"), new Properties());
+        BenchmarkSettings defaults = BenchmarkSettings.smoke(annotation("defaults"), new Properties());
+
+        // when
+        Options options = annotated.apply(new OptionsBuilder()).build();
+        Options defaultOptions = defaults.apply(new OptionsBuilder()).build();
+
+        // then
+        assertThat(options.getForkCount().get()).isEqualTo(1);
+        assertThat(options.getWarmupIterations().get()).isEqualTo(1);
+        assertThat(options.getWarmupTime().get()).isEqualTo(TimeValue.milliseconds(100));
+        assertThat(options.getMeasurementIterations().get()).isEqualTo(2);
+        assertThat(options.getMeasurementTime().get()).isEqualTo(TimeValue.milliseconds(100));
+        assertThat(options.getBenchModes()).containsExactly(Mode.AverageTime);
+        assertThat(defaultOptions.getForkCount().get()).isEqualTo(1);
+        assertThat(defaultOptions.getMeasurementIterations().get()).isEqualTo(2);
+    }
+
+    @Test
+    void testSmoke_SystemProperties() throws NoSuchMethodException {
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(BenchmarkSettings.MEASUREMENT_ITERATIONS, "7");
+        properties.setProperty(BenchmarkSettings.TARGET_ERROR, "0.02");
+        JmhBenchmark annotation = annotation("adaptive");
+
+        // when
+        BenchmarkSettings smoke = BenchmarkSettings.smoke(annotation, new Properties());
+        BenchmarkSettings overridden = BenchmarkSettings.smoke(annotation, properties);
+
+        // then
+        assertThat(smoke.adaptive()).isNull();
+        assertThat(smoke.apply(new OptionsBuilder()).build().getForkCount().get()).isZero();
+        assertThat(smoke.apply(new OptionsBuilder()).build().getMeasurementTime().get())
+            .isEqualTo(new TimeValue(1, TimeUnit.SECONDS));
+        assertThat(overridden.adaptive()).isNotNull();
+        assertThat(overridden.toArguments()).containsSequence("-i", "7");
+    }
+
+    @Test
+    void testExecutionProfile() {
+        // given
+        Properties smoke = new Properties();
+        smoke.setProperty(ExecutionProfile.PROPERTY, " Smoke ");
+        Properties invalid = new Properties();
+        invalid.setProperty(ExecutionProfile.PROPERTY, "quick");
+
+        // when
+        ThrowingCallable throwingCallable = () -> ExecutionProfile.of(invalid);
+
+        // then
+        assertThat(ExecutionProfile.of(new Properties())).isEqualTo(ExecutionProfile.FULL);
+        assertThat(ExecutionProfile.of(smoke)).isEqualTo(ExecutionProfile.SMOKE);
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Unknown execution profile in jmh.junit.profile: quick, expected: smoke or full");
+    }
+
+    private static JmhBenchmark annotation(String method) throws NoSuchMethodException {
+        return Annotated.class.getDeclaredMethod(method).getAnnotation(JmhBenchmark.class);
+    }
+
+    private static final class Annotated {
+        @JmhBenchmark(
+            forks = 2,
+            warmupIterations = 3,
+            measurementIterations = 4,
+            measurementTime = 1000,
+            modes = Mode.AverageTime
+        )
+        void annotated() {
+            // only annotation is used
+        }
+
+        @JmhBenchmark
+        void defaults() {
+            // only annotation is used
+        }
+
+        @JmhBenchmark(
+            forks = 0,
+            measurementTime = 5,
+            timeUnit = TimeUnit.SECONDS,
+            targetError = 0.01
+        )
+        void adaptive() {
+            // only annotation is used
+        }
+    }
+}
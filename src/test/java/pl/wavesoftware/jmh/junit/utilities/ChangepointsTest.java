@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class ChangepointsTest {
+
+    @Test
+    void testWarmupEnd_TwoPhases() {
+        // given
+        double[] series = {
+            10.0, 11.0, 10.5,
+            50.0, 52.0, 51.0, 49.5,
+            100.1, 99.8, 100.3, 99.9, 100.0, 100.2, 99.7, 100.1
+        };
+
+        // when
+        int warmup = Changepoints.warmupEnd(series, 0.01);
+
+        // then
+        assertThat(warmup).isEqualTo(7);
+    }
+
+    @Test
+    void testWarmupEnd_Steady() {
+        // given
+        double[] series = {100.1, 99.8, 100.3, 99.9, 100.0, 100.2, 99.7, 100.1, 99.9, 100.0};
+
+        // when
+        int warmup = Changepoints.warmupEnd(series, 0.01);
+
+        // then
+        assertThat(warmup).isZero();
+    }
+
+    @Test
+    void testWarmupEnd_BelowEffect() {
+        // given
+        double[] series = {99.0, 99.1, 99.0, 99.1, 100.0, 100.1, 100.0, 100.1};
+
+        // when
+        int lowEffect = Changepoints.warmupEnd(series, 0.001);
+        int highEffect = Changepoints.warmupEnd(series, 0.05);
+
+        // then
+        assertThat(lowEffect).isEqualTo(4);
+        assertThat(highEffect).isZero();
+    }
+
+    @Test
+    void testWarmupEnd_Short() {
+        // when
+        int warmup = Changepoints.warmupEnd(new double[]{1, 100, 100}, 0.01);
+
+        // then
+        assertThat(warmup).isZero();
+    }
+}
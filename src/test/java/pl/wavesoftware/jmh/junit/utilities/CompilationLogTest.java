@@ -0,0 +1,175 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class CompilationLogTest {
+
+    private static final String LOG = String.join("\n",
+        "<?xml version='1.0' encoding='UTF-8'?>",
+        "<hotspot_log version='160 1' process='5769' time_ms='1'>",
+        "<tty>",
+        "<nmethod compile_id='57' compiler='c1' level='3' method='pl/acme/Hot small (I)I' bytes='8'/>",
+        "<nmethod compile_id='59' compiler='c2' level='4' method='pl/acme/Hot big (I)I' bytes='31'/>",
+        "<nmethod compile_id='60' compiler='c2' level='4' method='pl/acme/Hot &lt;init&gt; ()V'/>",
+        "<uncommon_trap thread='5770' reason='unstable_if' action='reinterpret' compile_id='59'"
+            + " compiler='c2' level='4'>",
+        "<jvms bci='6' method='pl/acme/Hot big (I)I' bytes='31'/>",
+        "</uncommon_trap>",
+        "<make_not_entrant thread='5770' compile_id='59' compiler='c2' level='4'/>",
+        "<make_not_entrant thread='5777' compile_id='57' compiler='c1' level='3'/>",
+        "<nmethod compile_id='61' compiler='c2' level='4' method='pl/acme/Hot big (I)I' bytes='31'/>",
+        "<make_not_entrant thread='5770' compile_id='61' compiler='c2' level='4'/>",
+        "</tty>",
+        "<compilation_log thread='5777'>",
+        "<task compile_id='58' method='pl/acme/Hot big (I)I' bytes='31' level='3'>",
+        "<klass id='1249' name='pl.acme.Hot' flags='1'/>",
+        "<method id='1250' holder='1249' name='big' return='1112' arguments='1112'/>",
+        "<parse method='1250'  stamp='0.082'>",
+        "<method id='1253' holder='1249' name='tiny' return='1112' arguments='1112'/>",
+        "<call method='1253' instr='invokestatic'/>",
+        "<inline_success reason='inline'/>",
+        "<parse method='1253'>",
+        "</parse>",
+        "</parse>",
+        "</task>",
+        "</compilation_log>",
+        "<compilation_log thread='5778'>",
+        "<task compile_id='59' method='pl/acme/Hot big (I)I' bytes='31'>",
+        "<type id='1112' name='int'/>",
+        "<klass id='1249' name='pl.acme.Hot' flags='1'/>",
+        "<klass id='1260' name='pl/acme/Util' flags='1'/>",
+        "<method id='1250' holder='1249' name='big' return='1112' arguments='1112'/>",
+        "<parse method='1250' uses='4352.000000' stamp='0.083'>",
+        "<bc code='184' bci='14'/>",
+        "<method id='1252' holder='1249' name='small' return='1112' arguments='1112'/>",
+        "<call method='1252' count='12285' prof_factor='1.000000' inline='1'/>",
+        "<inline_success reason='inline (hot)'/>",
+        "<parse method='1252' uses='12285.000000' stamp='0.083'>",
+        "<method id='1261' holder='1260' name='mix' return='1112' arguments='1112'/>",
+        "<call method='1261' count='12285' inline='1'/>",
+        "<inline_success reason='inline (hot)'/>",
+        "<parse method='1261'>",
+        "<parse_done stamp='0.083'/>",
+        "</parse>",
+        "<parse_done stamp='0.083'/>",
+        "</parse>",
+        "<method id='1262' holder='1260' name='huge' return='1112' arguments='1112'/>",
+        "<call method='1262' count='12285' inline='1'/>",
+        "<inline_fail reason='hot method too big'/>",
+        "<method id='1253' holder='1249' name='tiny' return='1112' arguments='1112'/>",
+        "<call method='1253' count='12285' inline='1'/>",
+        "<inline_fail reason='already compiled into a big method'/>",
+        "<parse_done stamp='0.083'/>",
+        "</parse>",
+        "<task_done success='1' nmsize='184' stamp='0.084'/>",
+        "</task>",
+        "</compilation_log>",
+        "</hotspot_log>"
+    );
+
+    @Test
+    void testTiers() throws IOException {
+        // given
+        CompilationLog log = read();
+
+        // when
+        int big = log.getHighestTier("pl.acme.Hot::big");
+        int small = log.getHighestTier("pl.acme.Hot::small");
+        int constructor = log.getHighestTier("pl.acme.Hot::<init>");
+        int unknown = log.getHighestTier("pl.acme.Hot::unknown");
+
+        // then
+        assertThat(big).isEqualTo(CompilationLog.C2_TIER);
+        assertThat(small).isEqualTo(3);
+        assertThat(constructor).isEqualTo(CompilationLog.C2_TIER);
+        assertThat(unknown).isZero();
+    }
+
+    @Test
+    void testInlining() throws IOException {
+        // given
+        CompilationLog log = read();
+
+        // then
+        assertThat(log.isInlined("pl.acme.Hot::small", "pl.acme.Hot::big")).isTrue();
+        assertThat(log.isInlined("pl.acme.Util::mix", "pl.acme.Hot::small")).isTrue();
+        assertThat(log.isInlined("pl.acme.Util::mix", "pl.acme.Hot::big")).isTrue();
+        assertThat(log.isInlined("pl.acme.Util::huge", "pl.acme.Hot::big")).isFalse();
+        assertThat(log.isInlined("pl.acme.Hot::tiny", "pl.acme.Hot::big")).isFalse();
+        assertThat(log.getInliningFailures("pl.acme.Util::huge", "pl.acme.Hot::big"))
+            .containsExactly("hot method too big");
+    }
+
+    @Test
+    void testDeoptimizations() throws IOException {
+        // given
+        CompilationLog log = read();
+
+        // when
+        int big = log.getDeoptimizations("pl.acme.Hot::big");
+        int small = log.getDeoptimizations("pl.acme.Hot::small");
+
+        // then
+        assertThat(big).isEqualTo(2);
+        assertThat(small).isZero();
+    }
+
+    @Test
+    void testAssertions() throws IOException {
+        // given
+        CompilationLog log = read();
+
+        // when
+        ThrowingCallable tier = () -> log.assertTier("pl.acme.Hot::small", 4);
+        ThrowingCallable inlined = () -> log.assertInlined("pl.acme.Util::huge", "pl.acme.Hot::big");
+        ThrowingCallable storm = () -> log.assertNoDeoptimizationStorm("pl.acme.Hot::big", 1);
+        ThrowingCallable passing = () -> {
+            log.assertTier("pl.acme.Hot::big", CompilationLog.C2_TIER);
+            log.assertInlined("pl.acme.Hot::small", "pl.acme.Hot::big");
+            log.assertNoDeoptimizationStorm("pl.acme.Hot::big");
+        };
+
+        // then
+        assertThatCode(tier).isInstanceOf(AssertionError.class)
+            .hasMessage("Method pl.acme.Hot::small reached tier 3, expected at least tier 4");
+        assertThatCode(inlined).isInstanceOf(AssertionError.class)
+            .hasMessage("Method pl.acme.Util::huge wasn't inlined into pl.acme.Hot::big by C2, "
+                + "reasons: hot method too big");
+        assertThatCode(storm).isInstanceOf(AssertionError.class)
+            .hasMessage("Method pl.acme.Hot::big was deoptimized 2 times from C2 compiled code, "
+                + "limit is 1");
+        assertThatCode(passing).doesNotThrowAnyException();
+    }
+
+    private static CompilationLog read() throws IOException {
+        return CompilationLog.read(new BufferedReader(new StringReader(LOG)));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class DirectoryLockTest {
+
+    private static final Path DIRECTORY = Paths.get("target", "directory-lock-test");
+
+    @Test
+    void testRun_Reentrant() throws IOException {
+        // given
+        AtomicInteger calls = new AtomicInteger();
+
+        // when
+        DirectoryLock.run(DIRECTORY, () ->
+            DirectoryLock.run(DIRECTORY, calls::incrementAndGet)
+        );
+
+        // then
+        assertThat(calls).hasValue(1);
+        assertThat(DirectoryLock.lockFile(DIRECTORY.toAbsolutePath().normalize())).exists();
+    }
+
+    @Test
+    void testRun_Exclusive() throws InterruptedException, ExecutionException {
+        // given
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 16; i++) {
+            futures.add(executor.submit(() -> {
+                DirectoryLock.run(DIRECTORY, () -> {
+                    maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                    Thread.yield();
+                    inside.decrementAndGet();
+                });
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(maxInside).hasValue(1);
+    }
+}
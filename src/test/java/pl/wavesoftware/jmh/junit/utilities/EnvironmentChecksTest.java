@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class EnvironmentChecksTest {
+
+    private static final long HEAP = 1024L * 1024 * 1024;
+    private static final String MIXED_MODE = "mixed mode";
+
+    @Test
+    void testDebugger() {
+        // given
+        JvmEnvironment environment = environment(
+            "-agentlib:jdwp=transport=dt_socket,server=y,suspend=n,address=5005"
+        );
+
+        // when
+        String problem = EnvironmentChecks.debugger().detect(environment);
+
+        // then
+        assertThat(problem).isEqualTo("debugger agent is attached");
+        assertThat(EnvironmentChecks.nativeAgent().detect(environment)).isNull();
+    }
+
+    @Test
+    void testNativeAgent() {
+        // given
+        JvmEnvironment environment = environment("-agentpath:/opt/async-profiler/libasyncProfiler.so");
+
+        // when
+        String problem = EnvironmentChecks.nativeAgent().detect(environment);
+
+        // then
+        assertThat(problem).startsWith("native agent is attached: -agentpath:");
+    }
+
+    @Test
+    void testInterpreterOnly() {
+        // given
+        JvmEnvironment argument = environment("-Xint");
+        JvmEnvironment option = new JvmEnvironment(
+            Collections.emptyList(), options("UseCompiler", "false"), HEAP, MIXED_MODE, false
+        );
+
+        // when
+        String fromArgument = EnvironmentChecks.interpreterOnly().detect(argument);
+        String fromOption = EnvironmentChecks.interpreterOnly().detect(option);
+
+        // then
+        assertThat(fromArgument).isEqualTo("JIT compiler is disabled");
+        assertThat(fromOption).isEqualTo("JIT compiler is disabled");
+        assertThat(EnvironmentChecks.interpreterOnly().detect(environment())).isNull();
+    }
+
+    @Test
+    void testCompileOnly() {
+        // given
+        JvmEnvironment environment = new JvmEnvironment(
+            Collections.emptyList(), options(), HEAP, "compiled mode, sharing", false
+        );
+
+        // when
+        String problem = EnvironmentChecks.compileOnly().detect(environment);
+
+        // then
+        assertThat(problem).isEqualTo("methods are compiled before first use");
+    }
+
+    @Test
+    void testLimitedTieredCompilation() {
+        // given
+        JvmEnvironment limited = environment("-XX:TieredStopAtLevel=1");
+        JvmEnvironment full = new JvmEnvironment(
+            Collections.emptyList(), options("TieredStopAtLevel", "4"), HEAP, MIXED_MODE, false
+        );
+        JvmEnvironment notTiered = environment("-XX:-TieredCompilation", "-XX:TieredStopAtLevel=1");
+
+        // when
+        String problem = EnvironmentChecks.limitedTieredCompilation().detect(limited);
+
+        // then
+        assertThat(problem).isEqualTo("tiered compilation stops at level 1");
+        assertThat(EnvironmentChecks.limitedTieredCompilation().detect(full)).isNull();
+        assertThat(EnvironmentChecks.limitedTieredCompilation().detect(notTiered)).isNull();
+    }
+
+    @Test
+    void testSmallHeap() {
+        // given
+        JvmEnvironment environment = new JvmEnvironment(
+            Collections.emptyList(), options(), 64L * 1024 * 1024, MIXED_MODE, false
+        );
+
+        // when
+        String problem = EnvironmentChecks.smallHeap().detect(environment);
+
+        // then
+        assertThat(problem)
+            .isEqualTo("maximum heap of 67108864 bytes is smaller than 268435456 bytes");
+        assertThat(EnvironmentChecks.smallHeap(1024).detect(environment)).isNull();
+    }
+
+    @Test
+    void testAssertions() {
+        // given
+        JvmEnvironment environment = new JvmEnvironment(
+            Collections.emptyList(), options(), HEAP, MIXED_MODE, true
+        );
+
+        // when
+        String problem = EnvironmentChecks.assertions().detect(environment);
+
+        // then
+        assertThat(problem).isEqualTo("assertions are enabled");
+        assertThat(EnvironmentChecks.assertions().detect(environment())).isNull();
+    }
+
+    @Test
+    void testCurrent() {
+        // when
+        JvmEnvironment environment = JvmEnvironment.current();
+
+        // then
+        assertThat(environment).isSameAs(JvmEnvironment.current());
+        assertThat(environment.getFingerprint()).startsWith(JvmFingerprint.current());
+        assertThat(environment.getVmOption("TieredCompilation")).isPresent();
+        assertThat(environment.getVmOption("NoSuchOption")).isEmpty();
+    }
+
+    private static JvmEnvironment environment(String... arguments) {
+        return new JvmEnvironment(Arrays.asList(arguments), options(), HEAP, MIXED_MODE, false);
+    }
+
+    private static java.util.function.Function<String, String> options(String... pairs) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            options.put(pairs[i], pairs[i + 1]);
+        }
+        return options::get;
+    }
+}
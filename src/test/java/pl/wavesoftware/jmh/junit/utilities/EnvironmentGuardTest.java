@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opentest4j.AssertionFailedError;
+import org.opentest4j.TestAbortedException;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@ExtendWith(MockitoExtension.class)
+class EnvironmentGuardTest {
+
+    private static final long HEAP = 1024L * 1024 * 1024;
+
+    @Mock
+    private ExtensionContext context;
+    @Captor
+    private ArgumentCaptor<Map<String, String>> entries;
+
+    @Test
+    void testBeforeEach_Clean() {
+        // given
+        EnvironmentGuard guard = EnvironmentGuard.withDefaults(environment(false, "-Xmx1g"));
+
+        // when
+        guard.beforeEach(context);
+
+        // then
+        verify(context).publishReportEntry(entries.capture());
+        assertThat(entries.getValue())
+            .containsOnlyKeys(EnvironmentGuard.REPORT_KEY)
+            .containsValue(environment(false, "-Xmx1g").getFingerprint());
+    }
+
+    @Test
+    void testBeforeEach_Skip() {
+        // given
+        EnvironmentGuard guard = EnvironmentGuard.withDefaults(
+            environment(true, "-Xint", "-javaagent:jacoco.jar")
+        );
+
+        // when
+        ThrowingCallable throwingCallable = () -> guard.beforeEach(context);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(TestAbortedException.class)
+            .hasMessage("Assumption failed: Skipping test due to environment: "
+                + "javaAgent: java agent is attached, interpreterOnly: JIT compiler is disabled");
+        verify(context).publishReportEntry(entries.capture());
+        assertThat(entries.getValue())
+            .containsEntry("jmh.environment.assertions", "warn: assertions are enabled")
+            .containsEntry("jmh.environment.javaAgent", "skip: java agent is attached");
+    }
+
+    @Test
+    void testBeforeEach_Fail() {
+        // given
+        EnvironmentGuard guard = EnvironmentGuard.withDefaults(environment(true))
+            .with(EnvironmentChecks.assertions(), CheckPolicy.FAIL);
+
+        // when
+        ThrowingCallable throwingCallable = () -> guard.beforeEach(context);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(AssertionFailedError.class)
+            .hasMessage("Environment is not fit for benchmarking\nassertions: assertions are enabled");
+    }
+
+    @Test
+    void testWithout() {
+        // given
+        EnvironmentGuard guard = EnvironmentGuard.withDefaults(environment(true, "-Xcomp"))
+            .without("compileOnly")
+            .without("assertions");
+
+        // when
+        guard.beforeEach(context);
+
+        // then
+        assertThat(guard.findings()).isEmpty();
+    }
+
+    @Test
+    void testFindings_Cached() {
+        // given
+        EnvironmentGuard guard = EnvironmentGuard.withDefaults(environment(true));
+
+        // when
+        guard.beforeEach(context);
+
+        // then
+        assertThat(guard.findings()).isSameAs(guard.findings()).hasSize(1);
+    }
+
+    private static JvmEnvironment environment(boolean assertions, String... arguments) {
+        return new JvmEnvironment(
+            Arrays.asList(arguments), name -> null, HEAP, "mixed mode", assertions
+        );
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openjdk.jmh.results.RunResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class ExecutionProfileTest {
+
+    private static final String SUM = SampleBenchmark.class.getName() + ".sum [thrpt]";
+    private static final String CONSUME_CPU =
+        SampleBenchmark.class.getName() + ".consumeCpu [thrpt]";
+    private static final String OTHER = "pl.acme.Bench.run [thrpt]";
+    private static final Path HISTORY = TemporaryPaths.directory("history");
+    private static final ResultHistory RECORDS = ResultHistory.in(HISTORY);
+
+    @RegisterExtension
+    static AfterTestExecutionCallback recording = context -> {
+        RECORDS.afterTestExecution(context);
+        for (RunResult result : JmhBenchmarkExtension.getResults(context)) {
+            String label = RunResults.label(result);
+            // only a smoke run escalated to a full run is recorded
+            assertThat(RECORDS.lastRuns(label, 10)).hasSize(label.equals(SUM) ? 2 : 0);
+        }
+    };
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        RECORDS.append(Arrays.asList(record(SUM, 1d), record(OTHER, 1d)));
+        System.setProperty(ExecutionProfile.PROPERTY, "smoke");
+        System.setProperty(Escalation.HISTORY_PROPERTY, HISTORY.toString());
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        System.clearProperty(ExecutionProfile.PROPERTY);
+        System.clearProperty(Escalation.HISTORY_PROPERTY);
+        TemporaryPaths.delete(HISTORY);
+    }
+
+    @JmhBenchmark(
+        value = SampleBenchmark.class,
+        forks = 0,
+        warmupIterations = 0,
+        measurementIterations = 3,
+        measurementTime = 10
+    )
+    void testSmoke(RunResult result) {
+        // then
+        boolean escalated = RunResults.label(result).equals(SUM);
+        assertThat(RunResults.samples(result)).hasSize(escalated ? 3 : 2);
+    }
+
+    @Test
+    void testEscalation() throws IOException {
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(Escalation.HISTORY_PROPERTY, HISTORY.toString());
+        properties.setProperty(Escalation.THRESHOLD_PROPERTY, "0.2");
+        Escalation escalation = Escalation.of(properties);
+
+        // when
+        String outlier = escalation.check(OTHER, "ops/s", 1.5);
+        String close = escalation.check(OTHER, "ops/s", 1.1);
+        String otherUnit = escalation.check(OTHER, "ops/ms", 1.5);
+
+        // then
+        assertThat(outlier).isEqualTo(
+            OTHER + ": smoke score 1.500 ops/s deviates +50.0% from median 1.000 of 1 runs"
+        );
+        assertThat(close).isNull();
+        assertThat(otherUnit).isNull();
+        assertThat(Escalation.of(new Properties())).isNull();
+    }
+
+    private static HistoryRecord record(String label, double score) {
+        return new HistoryRecord(
+            Instant.now(), label, JvmFingerprint.current(), "seed", "ops/s", score, Double.NaN,
+            new double[]{score}
+        );
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A small benchmark with two parameters, used in tests of parameter exploration.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@State(Scope.Benchmark)
+public class ExplorationBenchmark {
+
+    @Param({"16", "64", "256", "1024", "4096", "16384"})
+    private int size;
+
+    @Param({"forward", "backward"})
+    private String direction;
+
+    private int[] data;
+
+    @Setup
+    public void setUp() {
+        data = new int[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = i;
+        }
+    }
+
+    @Benchmark
+    public long sum() {
+        long sum = 0;
+        if ("forward".equals(direction)) {
+            for (int value : data) {
+                sum += value;
+            }
+        } else {
+            for (int i = data.length - 1; i >= 0; i--) {
+                sum += data[i];
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.openjdk.jmh.annotations.Mode;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class FlightRecordingTest {
+
+    private static volatile long sink;
+
+    @Test
+    void testSummarize() throws IOException {
+        // given
+        assumeTrue(FlightRecorder.isAvailable(), "Flight Recorder isn't available");
+        Path file = Files.createTempFile("flight-recording-test", ".jfr");
+        Object recording = FlightRecorder.start("profile");
+        burn(500);
+        FlightRecorder.stop(recording, file);
+
+        // when
+        JfrSummary summary = FlightRecorder.summarize(Collections.singletonList(file));
+
+        // then
+        List<String> hotMethods = summary.hotMethods(3);
+        assertThat(summary.getTotalSamples()).isPositive();
+        assertThat(hotMethods).isNotEmpty();
+        assertThat(hotMethods.get(0)).startsWith(FlightRecordingTest.class.getName() + "::burn");
+        Files.delete(file);
+    }
+
+    @FlightRecording
+    @JmhBenchmark(
+        value = SampleBenchmark.class,
+        forks = 1,
+        warmupIterations = 0,
+        measurementIterations = 1,
+        measurementTime = 100,
+        modes = Mode.AverageTime
+    )
+    void testForkRecording(TestInfo info) throws IOException {
+        // given
+        assumeTrue(FlightRecorder.isAvailable(), "Flight Recorder isn't available");
+        String prefix = "FlightRecordingTest.testForkRecording-" + info.getDisplayName()
+            + FlightRecorderProfiler.FORK_SUFFIX;
+
+        // when
+        int recordings = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(
+            Paths.get("target", "jfr"), prefix + "*.jfr")) {
+            for (Path file : stream) {
+                assertThat(Files.size(file)).isPositive();
+                recordings++;
+            }
+        }
+
+        // then
+        assertThat(recordings).isEqualTo(1);
+    }
+
+    private static void burn(long millis) {
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        long value = 0;
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 10_000; i++) {
+                value = value * 31 + i;
+            }
+        }
+        sink = value;
+    }
+}
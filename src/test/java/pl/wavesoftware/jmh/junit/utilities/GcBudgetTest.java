@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class GcBudgetTest {
+
+    private static volatile Object sink;
+
+    @JmhBenchmark(
+        value = SampleBenchmark.class,
+        forks = 0,
+        warmupIterations = 0,
+        measurementIterations = 2,
+        measurementTime = 20
+    )
+    @GcBudget(maxOldCount = 0)
+    void testBenchmark(Collection<RunResult> results) {
+        // then
+        assertThat(results).allSatisfy(result ->
+            assertThat(GcTotals.of(result)).isNotNull()
+        );
+    }
+
+    @Test
+    @GcBudget(maxYoungCount = 1_000)
+    void testMonitor() throws InterruptedException {
+        // given
+        GcMonitor monitor = GcMonitor.start();
+
+        // when
+        for (int i = 0; i < 1_000; i++) {
+            sink = new byte[64 * 1024];
+        }
+        System.gc();
+        List<GcEvent> events = monitor.stop();
+
+        // then
+        assertThat(events).isNotEmpty();
+        assertThat(events).anySatisfy(event -> {
+            assertThat(event.isOld()).isTrue();
+            assertThat(event.getCause()).isEqualTo("System.gc()");
+        });
+        assertThat(GcTotals.of(events).toString()).contains(" old collections, promoted ");
+    }
+
+    @Test
+    void testExceeded() throws NoSuchMethodException {
+        // given
+        GcBudget budget = GcBudgetTest.class
+            .getDeclaredMethod("steadyState")
+            .getAnnotation(GcBudget.class);
+        GcTotals totals = GcTotals.of(Arrays.asList(
+            new GcEvent("G1 Young Generation", "end of minor GC", "G1 Evacuation Pause",
+                100, 4, 64 << 20, 16 << 20, 3 << 20),
+            new GcEvent("G1 Young Generation", "end of minor GC", "G1 Evacuation Pause",
+                300, 12, 64 << 20, 20 << 20, 2 << 20),
+            new GcEvent("G1 Concurrent GC", "end of concurrent GC pause", "No GC",
+                310, 80, 20 << 20, 20 << 20, 0),
+            new GcEvent("G1 Old Generation", "end of major GC", "Allocation Failure",
+                400, 9, 64 << 20, 10 << 20, 0)
+        ));
+
+        // when
+        List<String> exceeded = totals.exceeded(budget);
+
+        // then
+        assertThat(exceeded).containsExactly(
+            "max pause 12 ms, limit 10000 us",
+            "3 young collections, limit 2",
+            "1 old collections, limit 0",
+            "promoted 5.0 MiB, limit 4.0 MiB"
+        );
+        assertThat(totals.toResults())
+            .extracting(ScalarResult::getLabel)
+            .containsExactly("gc.pause.max", "gc.young.count", "gc.old.count", "gc.promoted");
+    }
+
+    @Test
+    void testEventToString() {
+        // given
+        GcEvent event = new GcEvent("G1 Young Generation", "end of minor GC",
+            "G1 Evacuation Pause", 1_200, 3, 48 << 20, 8 << 20, 1 << 20);
+
+        // then
+        assertThat(event.isPause()).isTrue();
+        assertThat(event.isOld()).isFalse();
+        assertThat(event.toString()).isEqualTo(
+            "+1200 ms G1 Young Generation, end of minor GC (G1 Evacuation Pause): "
+                + "pause 3 ms, heap 48.0 MiB -> 8.0 MiB, promoted 1.0 MiB"
+        );
+    }
+
+    @GcBudget(maxPause = 10_000, unit = TimeUnit.MICROSECONDS, maxYoungCount = 2,
+        maxOldCount = 0, maxPromoted = 4 << 20)
+    private void steadyState() {
+        // used as an annotated method only
+    }
+}
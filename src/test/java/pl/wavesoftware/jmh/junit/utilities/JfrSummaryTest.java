@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class JfrSummaryTest {
+
+    @Test
+    void testToReportEntries() {
+        // given
+        JfrSummary summary = new JfrSummary();
+        for (int i = 0; i < 3; i++) {
+            summary.sampled("pl.acme.Parser::parse");
+        }
+        summary.sampled("pl.acme.Lexer::next");
+        summary.allocated("byte[] at pl.acme.Lexer::next", 4096);
+        summary.allocationSampled("java.lang.String at pl.acme.Parser::parse", 3 * 1024 * 1024);
+        summary.blocked("java.lang.Object at pl.acme.Cache::get", 1_500_000);
+        summary.blocked("java.lang.Object at pl.acme.Cache::get", 500_000);
+
+        // when
+        Map<String, String> entries = summary.toReportEntries("jmh.jfr.", 1);
+
+        // then
+        assertThat(entries).containsExactly(
+            entry("jmh.jfr.hot.1", "pl.acme.Parser::parse, 75.0% of 4 samples"),
+            entry("jmh.jfr.allocation.1", "java.lang.String at pl.acme.Parser::parse, 3.0 MiB"),
+            entry("jmh.jfr.lock.1", "java.lang.Object at pl.acme.Cache::get, 2.000 ms in 2 events")
+        );
+    }
+
+    @Test
+    void testFormatBytes() {
+        // then
+        assertThat(JfrSummary.formatBytes(1023)).isEqualTo("1023 B");
+        assertThat(JfrSummary.formatBytes(1536)).isEqualTo("1.5 KiB");
+        assertThat(JfrSummary.formatBytes(5L * 1024 * 1024 * 1024)).isEqualTo("5.0 GiB");
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class JmhArtifactsTest {
+
+    private static final String OWN_ENTRY =
+        "JMH S 61 pl.wavesoftware.jmh.junit.utilities.RecursiveDeleterBenchmark S 91 "
+            + "pl.wavesoftware.jmh.junit.utilities.generated."
+            + "RecursiveDeleterBenchmark_parallelNio_jmhTest S 11 parallelNio";
+    private static final String NESTED_ENTRY =
+        "JMH S 58 pl.wavesoftware.jmh.junit.utilities.JmhArtifactsTest.Bench S 84 "
+            + "pl.wavesoftware.jmh.junit.utilities.generated."
+            + "JmhArtifactsTest_Bench_measure_jmhTest S 7 measure";
+    private static final String FOREIGN_ENTRY =
+        "JMH S 50 pl.wavesoftware.jmh.junit.utilities.OtherBenchmark S 73 "
+            + "pl.wavesoftware.jmh.junit.utilities.generated."
+            + "OtherBenchmark_foo_jmhTest S 3 foo";
+
+    private Path root;
+    private Path generated;
+
+    @BeforeEach
+    void before() throws IOException {
+        root = Files.createTempDirectory("jmh-artifacts");
+        generated = Files.createDirectories(
+            root.resolve("pl/wavesoftware/jmh/junit/utilities/generated")
+        );
+    }
+
+    @AfterEach
+    void after() throws IOException {
+        FileUtils.deleteDirectory(root.toFile());
+    }
+
+    @Test
+    void testDelete_OnlyOwn() throws IOException {
+        // given
+        Path[] own = {
+            touch("RecursiveDeleterBenchmark_jmhType.java"),
+            touch("RecursiveDeleterBenchmark_jmhType_B1.java"),
+            touch("RecursiveDeleterBenchmark_jmhType_B3.java"),
+            touch("RecursiveDeleterBenchmark_parallelNio_jmhTest.java")
+        };
+        Path[] foreign = {
+            touch("OtherBenchmark_jmhType.java"),
+            touch("OtherBenchmark_jmhType_B2.java"),
+            touch("OtherBenchmark_foo_jmhTest.java"),
+            touch("RecursiveDeleterBenchmarkSuffix_jmhType.java")
+        };
+        Path list = writeList(OWN_ENTRY, FOREIGN_ENTRY);
+        JmhArtifacts artifacts = JmhArtifacts.of(RecursiveDeleterBenchmark.class);
+
+        // when
+        artifacts.delete(root);
+
+        // then
+        assertThat(own).allSatisfy(path -> assertThat(path).doesNotExist());
+        assertThat(foreign).allSatisfy(path -> assertThat(path).exists());
+        assertThat(Files.readAllLines(list, StandardCharsets.UTF_8))
+            .containsExactly(FOREIGN_ENTRY);
+    }
+
+    @Test
+    void testDelete_NestedAndEmptyDirectories() throws IOException {
+        // given
+        Path nested = touch("JmhArtifactsTest_Bench_jmhType_B2.java");
+        Path test = touch("JmhArtifactsTest_Bench_measure_jmhTest.java");
+        Path list = writeList(NESTED_ENTRY);
+        JmhArtifacts artifacts = JmhArtifacts.of(JmhArtifactsTest.class);
+
+        // when
+        artifacts.delete(root);
+
+        // then
+        assertThat(nested).doesNotExist();
+        assertThat(test).doesNotExist();
+        assertThat(list).doesNotExist();
+        assertThat(root.resolve("pl")).doesNotExist();
+        assertThat(root).exists();
+    }
+
+    @Test
+    void testDelete_NothingGenerated() throws IOException {
+        // given
+        JmhArtifacts artifacts = JmhArtifacts.of(RecursiveDeleterBenchmark.class);
+        Path empty = root.resolve("empty");
+
+        // when
+        artifacts.delete(empty);
+
+        // then
+        assertThat(empty).doesNotExist();
+    }
+
+    private Path touch(String name) throws IOException {
+        return Files.write(generated.resolve(name), Collections.singletonList("// " + name));
+    }
+
+    private Path writeList(String... entries) throws IOException {
+        Path list = root.resolve(JmhArtifacts.BENCHMARK_LIST);
+        Files.createDirectories(list.getParent());
+        return Files.write(list, Arrays.asList(entries), StandardCharsets.UTF_8);
+    }
+
+    static final class Bench {
+        void measure() {
+            // a nested benchmark stand in
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.TestInfo;
+import org.openjdk.jmh.results.RunResult;
+
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class JmhBenchmarkTest {
+
+    @JmhBenchmark(
+        value = SampleBenchmark.class,
+        forks = 0,
+        warmupIterations = 0,
+        measurementIterations = 1,
+        measurementTime = 20
+    )
+    void testBenchmark(RunResult result, Collection<RunResult> results, TestInfo info) {
+        // then
+        assertThat(results).containsExactly(result);
+        assertThat(result.getParams().getBenchmark())
+            .isEqualTo(SampleBenchmark.class.getName() + "." + info.getDisplayName());
+        assertThat(result.getPrimaryResult().getScore()).isPositive();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.ServiceLoader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class JmhCleanerListenerTest {
+
+    private Path generated;
+
+    @BeforeEach
+    void before() throws IOException, URISyntaxException {
+        File dir = JmhCleaner.generatedTestAnnotationsDir(JmhCleanerListenerTest.class);
+        generated = Files.createDirectories(dir.toPath()).resolve("Stub_jmhTest.java");
+        Files.write(generated, "class Stub {}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void after() throws IOException {
+        new RecursiveDeleter().delete(generated.getParent());
+    }
+
+    @Test
+    void testServiceLoader() {
+        // when
+        ServiceLoader<org.junit.platform.launcher.TestExecutionListener> loader =
+            ServiceLoader.load(org.junit.platform.launcher.TestExecutionListener.class);
+
+        // then
+        assertThat(loader)
+            .hasAtLeastOneElementOfType(JmhCleanerListener.class);
+    }
+
+    @Test
+    void testAutoCleanup() {
+        // given
+        SessionCleanup session = new SessionCleanup(new RecursiveDeleter());
+        JmhCleanerListener listener = new JmhCleanerListener(session, true);
+        TestPlan plan = TestPlan.from(Collections.emptyList());
+        TestIdentifier identifier = classIdentifier();
+
+        // when
+        listener.testPlanExecutionStarted(plan);
+        listener.executionFinished(identifier, TestExecutionResult.successful());
+        listener.executionFinished(identifier, TestExecutionResult.successful());
+
+        // then
+        assertThat(generated).exists();
+
+        // when
+        listener.testPlanExecutionFinished(plan);
+
+        // then
+        assertThat(generated).doesNotExist();
+    }
+
+    @Test
+    void testNoAutoCleanup() {
+        // given
+        SessionCleanup session = new SessionCleanup(new RecursiveDeleter());
+        JmhCleanerListener listener = new JmhCleanerListener(session, false);
+        TestPlan plan = TestPlan.from(Collections.emptyList());
+
+        // when
+        listener.testPlanExecutionStarted(plan);
+        listener.executionFinished(classIdentifier(), TestExecutionResult.successful());
+        listener.testPlanExecutionFinished(plan);
+
+        // then
+        assertThat(generated).exists();
+    }
+
+    private static TestIdentifier classIdentifier() {
+        UniqueId id = UniqueId.root("class", JmhCleanerListenerTest.class.getName());
+        return TestIdentifier.from(new AbstractTestDescriptor(
+            id, "JmhCleanerListenerTest", ClassSource.from(JmhCleanerListenerTest.class)
+        ) {
+            @Override
+            public Type getType() {
+                return Type.CONTAINER;
+            }
+        });
+    }
+}
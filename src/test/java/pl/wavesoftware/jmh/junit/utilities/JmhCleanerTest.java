@@ -82,6 +82,80 @@ class JmhCleanerTest {
         assertThat(testDirectory.getTestFile()).doesNotExist();
     }
 
+    @Test
+    void testAfter_ClassScope() throws IOException, URISyntaxException {
+        // given
+        JmhCleaner cleaner = new JmhCleaner(JmhCleanerTest.class)
+            .inScope(CleanupScope.CLASS);
+
+        // when
+        cleaner.afterEach(extensionContext);
+
+        // then
+        assertThat(testDirectory.getTestFile()).exists();
+
+        // when
+        cleaner.afterAll(extensionContext);
+
+        // then
+        assertThat(testDirectory.getTestFile()).doesNotExist();
+    }
+
+    @Test
+    void testAfter_SessionScope() throws IOException, URISyntaxException {
+        // given
+        SessionCleanup session = new SessionCleanup(new RecursiveDeleter());
+        session.listenerStarted();
+        JmhCleaner cleaner = new JmhCleaner(
+            JmhCleanerTest.class, CleanupScope.SESSION, new RecursiveDeleter(), session, null, null
+        );
+
+        // when
+        cleaner.afterEach(extensionContext);
+        cleaner.afterAll(extensionContext);
+        cleaner.afterAll(extensionContext);
+
+        // then
+        assertThat(testDirectory.getTestFile()).exists();
+
+        // when
+        session.cleanup();
+
+        // then
+        assertThat(testDirectory.getTestFile()).doesNotExist();
+    }
+
+    @Test
+    void testAfter_Targeted() throws IOException, URISyntaxException {
+        // given
+        JmhCleaner cleaner = new JmhCleaner(JmhCleanerTest.class)
+            .targeted(RecursiveDeleterBenchmark.class);
+        File own = new File(testDirectory.dir, "RecursiveDeleterBenchmark_jmhType.java");
+        File ownGenerated = new File(
+            testDirectory.dir,
+            "pl/wavesoftware/jmh/junit/utilities/generated/RecursiveDeleterBenchmark_jmhType.java"
+        );
+        FileUtils.write(own, "// own, but not in generated package", StandardCharsets.UTF_8);
+        FileUtils.write(ownGenerated, "// own", StandardCharsets.UTF_8);
+
+        // when
+        cleaner.afterEach(extensionContext);
+
+        // then
+        assertThat(ownGenerated).doesNotExist();
+        assertThat(own).exists();
+        assertThat(testDirectory.getTestFile()).exists();
+    }
+
+    @Test
+    void testGeneratedTestAnnotationsDir() throws IOException, URISyntaxException {
+        // when
+        File dir = JmhCleaner.generatedTestAnnotationsDir(JmhCleanerTest.class);
+
+        // then
+        assertThat(dir).isEqualTo(testDirectory.dir);
+    }
+
     private static class TestDirectory implements BeforeEachCallback, AfterEachCallback {
 
         private static final String TEST_FILE = "test.txt";
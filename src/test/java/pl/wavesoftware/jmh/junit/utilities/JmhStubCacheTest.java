@@ -0,0 +1,183 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.apache.commons.io.FileUtils;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class JmhStubCacheTest {
+
+    private static final String GENERATED = "pl/wavesoftware/jmh/junit/utilities/generated/";
+
+    private Path root;
+    private Path sources;
+    private Path cacheDir;
+
+    @BeforeEach
+    void before() throws IOException {
+        root = Files.createTempDirectory("jmh-stub-cache");
+        sources = root.resolve("test-annotations");
+        cacheDir = root.resolve("cache");
+    }
+
+    @AfterEach
+    void after() throws IOException {
+        FileUtils.deleteDirectory(root.toFile());
+    }
+
+    @Test
+    void testStoreAndRestore() throws IOException {
+        // given
+        JmhStubCache cache = JmhStubCache.inDirectory(cacheDir, 1024 * 1024);
+        Path stub = generate("RecursiveDeleterBenchmark_parallelNio_jmhTest.java");
+        Path foreign = generate("OtherBenchmark_foo_jmhTest.java");
+
+        // when
+        cache.store(RecursiveDeleterBenchmark.class, sources);
+
+        // then
+        assertThat(stub).doesNotExist();
+        assertThat(foreign).exists();
+        assertThat(cache.entry(RecursiveDeleterBenchmark.class)).isDirectory();
+
+        // when
+        boolean restored = cache.restore(RecursiveDeleterBenchmark.class, sources);
+
+        // then
+        assertThat(restored).isTrue();
+        assertThat(stub).hasContent("// RecursiveDeleterBenchmark_parallelNio_jmhTest.java");
+    }
+
+    @Test
+    void testRestore_Missing() throws IOException {
+        // given
+        JmhStubCache cache = JmhStubCache.inDirectory(cacheDir, 1024 * 1024);
+
+        // when
+        boolean restored = cache.restore(RecursiveDeleterBenchmark.class, sources);
+
+        // then
+        assertThat(restored).isFalse();
+        assertThat(sources).doesNotExist();
+    }
+
+    @Test
+    void testStore_AlreadyCached() throws IOException {
+        // given
+        JmhStubCache cache = JmhStubCache.inDirectory(cacheDir, 1024 * 1024);
+        Path stub = generate("RecursiveDeleterBenchmark_jmhType.java");
+        cache.store(RecursiveDeleterBenchmark.class, sources);
+        generate("RecursiveDeleterBenchmark_jmhType.java");
+
+        // when
+        cache.store(RecursiveDeleterBenchmark.class, sources);
+
+        // then
+        assertThat(stub).doesNotExist();
+        try (Stream<Path> entries = Files.list(cacheDir)) {
+            assertThat(entries.count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testEvict_LeastRecentlyUsed() throws IOException {
+        // given
+        JmhStubCache cache = JmhStubCache.inDirectory(cacheDir, 60);
+        generate("JmhStubCacheTest_jmhType.java");
+        cache.store(JmhStubCacheTest.class, sources);
+        Path older = cache.entry(JmhStubCacheTest.class);
+        Files.setLastModifiedTime(older, FileTime.fromMillis(0));
+        generate("RecursiveDeleterBenchmark_jmhType.java");
+
+        // when
+        cache.store(RecursiveDeleterBenchmark.class, sources);
+
+        // then
+        assertThat(older).doesNotExist();
+        assertThat(cache.entry(RecursiveDeleterBenchmark.class)).isDirectory();
+    }
+
+    @Test
+    void testInDirectory_InvalidSize() {
+        // when
+        ThrowingCallable throwingCallable = () -> JmhStubCache.inDirectory(cacheDir, 0);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Cache size must be positive, but was: 0");
+    }
+
+    @Test
+    void testKeyClasses() {
+        // when
+        SortedMap<String, Class<?>> classes = JmhStubCache.keyClasses(DerivedBenchmark.class);
+
+        // then
+        assertThat(classes).containsOnlyKeys(
+            DerivedBenchmark.class.getName(),
+            BaseBenchmark.class.getName(),
+            BenchmarkState.class.getName()
+        );
+    }
+
+    private Path generate(String name) throws IOException {
+        Path file = sources.resolve(GENERATED + name);
+        Files.createDirectories(file.getParent());
+        return Files.write(
+            file, Collections.singletonList("// " + name), StandardCharsets.UTF_8
+        );
+    }
+
+    @State(Scope.Thread)
+    static class BenchmarkState {
+        int value = 1;
+    }
+
+    static class BaseBenchmark {
+        int base() {
+            return 1;
+        }
+    }
+
+    static final class DerivedBenchmark extends BaseBenchmark {
+        int run(BenchmarkState state) {
+            return state.value + base();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class JsonTest {
+
+    @Test
+    void testParse() {
+        // given
+        String text = "[ {\n  \"benchmark\" : \"a.B.c\",\n  \"params\" : {},\n"
+            + "  \"score\" : 1.5E-8, \"raw\" : [ 1, -2.5 ], \"ok\" : true, \"none\" : null,\n"
+            + "  \"text\" : \"q\\\"\\u00e9\\n\" } ]";
+
+        // when
+        Object parsed = Json.parse(text);
+
+        // then
+        assertThat(parsed).isInstanceOf(List.class);
+        Map<?, ?> object = (Map<?, ?>) ((List<?>) parsed).get(0);
+        assertThat(object.get("benchmark")).isEqualTo("a.B.c");
+        assertThat((Map<?, ?>) object.get("params")).isEmpty();
+        assertThat(object.get("score")).isEqualTo(1.5E-8);
+        assertThat(object.get("raw")).isEqualTo(Arrays.asList(1.0, -2.5));
+        assertThat(object.get("ok")).isEqualTo(true);
+        assertThat(object.containsKey("none")).isTrue();
+        assertThat(object.get("none")).isNull();
+        assertThat(object.get("text")).isEqualTo("q\"é\n");
+    }
+
+    @Test
+    void testParse_Invalid() {
+        // when
+        ThrowingCallable throwingCallable = () -> Json.parse("{\"a\" : 1,}");
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Expected '\"' at position 9");
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void testPercentiles() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // when
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        // then
+        assertThat(histogram.getTotalCount()).isEqualTo(10_000);
+        assertThat(histogram.getMin()).isEqualTo(1_000);
+        assertThat(histogram.getMax()).isEqualTo(10_000_000);
+        assertThat(histogram.getMean()).isCloseTo(5_000_500d, within(0.1));
+        assertThat(histogram.getValueAtPercentile(50))
+            .isCloseTo(5_000_000L, within(5_000L));
+        assertThat(histogram.getValueAtPercentile(99))
+            .isCloseTo(9_900_000L, within(9_900L));
+        assertThat(histogram.getValueAtPercentile(99.9))
+            .isCloseTo(9_990_000L, within(9_990L));
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(10_000_000);
+        assertThat(histogram.getValueAtPercentile(0)).isEqualTo(1_000);
+    }
+
+    @Test
+    void testSmallValuesAreExact() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // when
+        histogram.record(17);
+        histogram.record(-5);
+        histogram.record(2_047);
+
+        // then
+        assertThat(histogram.getMin()).isZero();
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(17);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(2_047);
+    }
+
+    @Test
+    void testValuesAboveHighestTrackable() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+        long huge = LatencyHistogram.HIGHEST_TRACKABLE_VALUE * 3;
+
+        // when
+        histogram.record(10);
+        histogram.record(huge);
+
+        // then
+        assertThat(histogram.getMax()).isEqualTo(huge);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(huge);
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(10);
+    }
+
+    @Test
+    void testReset() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+
+        // when
+        histogram.reset();
+
+        // then
+        assertThat(histogram.getTotalCount()).isZero();
+        assertThat(histogram.getMax()).isZero();
+        assertThat(histogram.getMin()).isZero();
+        assertThat(histogram.getValueAtPercentile(99)).isZero();
+        assertThat(histogram.getMean()).isNaN();
+        assertThat(histogram.toString())
+            .isEqualTo("p50 0 ns, p99 0 ns, p99.9 0 ns, max 0 ns, mean - of 0 executions");
+    }
+
+    @Test
+    void testAssertPercentile() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 999; i++) {
+            histogram.record(1_000);
+        }
+        histogram.record(5_000_000);
+
+        // when
+        ThrowingCallable passing = () -> {
+            histogram.assertPercentile(99, 2, TimeUnit.MICROSECONDS);
+            histogram.assertMax(5, TimeUnit.MILLISECONDS);
+        };
+        ThrowingCallable failing = () -> histogram.assertPercentile(99.95, 2, TimeUnit.MICROSECONDS);
+        ThrowingCallable failingMax = () -> histogram.assertMax(4, TimeUnit.MILLISECONDS);
+
+        // then
+        assertThatCode(passing).doesNotThrowAnyException();
+        assertThatCode(failing)
+            .isInstanceOf(AssertionFailedError.class)
+            .hasMessageStartingWith("Latency at p99.95 percentile is 5.0 ms, exceeding 2 us\np50 1.0 us");
+        assertThatCode(failingMax)
+            .isInstanceOf(AssertionFailedError.class)
+            .hasMessageStartingWith("Maximal latency is 5.0 ms, exceeding 4 ms\n");
+    }
+
+    @Test
+    void testInvalidPercentile() {
+        // when
+        ThrowingCallable throwingCallable = () ->
+            new LatencyHistogram().getValueAtPercentile(101);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Percentile must be between 0 and 100, but was: 101.0");
+    }
+
+    @Test
+    void testFormat() {
+        // then
+        assertThat(LatencyHistogram.format(999)).isEqualTo("999 ns");
+        assertThat(LatencyHistogram.format(12_345)).isEqualTo("12.3 us");
+        assertThat(LatencyHistogram.format(2_500_000_000L)).isEqualTo("2.5 s");
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opentest4j.AssertionFailedError;
+import org.opentest4j.TestAbortedException;
+
+import java.lang.management.RuntimeMXBean;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@ExtendWith(MockitoExtension.class)
+class LatencyMeterTest {
+
+    private static volatile Object sink;
+
+    @Mock
+    private ExtensionContext context;
+    @Mock
+    private ExtensionContext.Store store;
+
+    @LatencyTest(invocations = 20_000, warmup = 2_000, max = 10, unit = TimeUnit.SECONDS)
+    void testLatency(LatencyMeter meter) throws Throwable {
+        // given
+        long[] values = {3, 5, 7, 11};
+
+        // when
+        LatencyHistogram histogram = meter.measure(() -> sink = values[values.length - 1] > 10);
+
+        // then
+        assertThat(histogram.getTotalCount()).isEqualTo(20_000);
+        assertThat(histogram.getValueAtPercentile(50))
+            .isLessThanOrEqualTo(histogram.getValueAtPercentile(99.9));
+        histogram.assertPercentile(50, 1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    void testMeasure_CoordinatedOmission() throws Throwable {
+        // given
+        long stall = TimeUnit.MILLISECONDS.toNanos(50);
+        LatencyMeter paced = new LatencyMeter(0, 100, 1_000);
+        LatencyMeter unpaced = new LatencyMeter(0, 100, LatencyTest.UNSET);
+        int[] counter = new int[1];
+
+        // when
+        LatencyHistogram corrected = paced.measure(() -> stallOnce(counter, stall));
+        counter[0] = 0;
+        LatencyHistogram uncorrected = unpaced.measure(() -> stallOnce(counter, stall));
+
+        // then
+        assertThat(corrected.getMax()).isGreaterThanOrEqualTo(stall);
+        assertThat(uncorrected.getMax()).isGreaterThanOrEqualTo(stall);
+        assertThat(corrected.getValueAtPercentile(50))
+            .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(uncorrected.getValueAtPercentile(50))
+            .isLessThan(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    void testMeter_InvalidArguments() {
+        // when
+        ThrowingCallable invocations = () -> new LatencyMeter(0, 0, LatencyTest.UNSET);
+        ThrowingCallable rate = () -> new LatencyMeter(0, 10, 0);
+
+        // then
+        assertThatCode(invocations)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Number of invocations must be positive, but was: 0");
+        assertThatCode(rate)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Rate per second must be positive, but was: 0.0");
+    }
+
+    @Test
+    void testAfterTestExecution_Exceeded() throws Throwable {
+        // given
+        LatencyMeter meter = new LatencyMeter(0, 10, LatencyTest.UNSET);
+        meter.measure(() -> LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(2)));
+        when(context.getExecutionException()).thenReturn(Optional.empty());
+        when(context.getTestMethod()).thenReturn(Optional.of(
+            LatencyMeterTest.class.getDeclaredMethod("limited", LatencyMeter.class)
+        ));
+        when(context.getStore(any())).thenReturn(store);
+        when(store.get("meter", LatencyMeter.class)).thenReturn(meter);
+
+        // when
+        ThrowingCallable throwingCallable = () ->
+            new LatencyTestExtension().afterTestExecution(context);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(AssertionFailedError.class)
+            .hasMessageStartingWith("Latency limit exceeded\np99: ")
+            .hasMessageContaining(", limit 1 ms\nmax: ");
+        verify(context).publishReportEntry(anyMap());
+    }
+
+    @Test
+    void testAfterTestExecution_NotMeasured() {
+        // given
+        when(context.getExecutionException()).thenReturn(Optional.empty());
+        when(context.getStore(any())).thenReturn(store);
+
+        // when
+        ThrowingCallable throwingCallable = () ->
+            new LatencyTestExtension().afterTestExecution(context);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(AssertionFailedError.class)
+            .hasMessage("No latency was measured, use LatencyMeter parameter");
+    }
+
+    @Test
+    void testBeforeEach_AgentPresent() {
+        // given
+        RuntimeMXBean runtime = mock(RuntimeMXBean.class);
+        when(runtime.getInputArguments()).thenReturn(
+            Collections.singletonList("-javaagent:/opt/profiler.jar")
+        );
+        LatencyTestExtension extension = new LatencyTestExtension(new JavaAgentSkip(
+            true, "agent: %s", runtime
+        ));
+
+        // when
+        ThrowingCallable throwingCallable = () -> extension.beforeEach(context);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(TestAbortedException.class)
+            .hasMessage("Assumption failed: agent: true");
+    }
+
+    @LatencyTest(p99 = 1, max = 1, unit = TimeUnit.MILLISECONDS)
+    private void limited(LatencyMeter meter) {
+        // used as an annotated method only
+    }
+
+    private static void stallOnce(int[] counter, long stall) {
+        if (counter[0]++ == 10) {
+            LockSupport.parkNanos(stall);
+        }
+    }
+}
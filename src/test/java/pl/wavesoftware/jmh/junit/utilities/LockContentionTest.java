@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class LockContentionTest {
+
+    private final Object monitor = new Object();
+
+    @Test
+    @LockFree
+    void testLockFree() throws InterruptedException {
+        // given
+        AtomicLong counter = new AtomicLong();
+
+        // when
+        runAll("lock-free", 2, () -> {
+            for (int i = 0; i < 10_000; i++) {
+                counter.incrementAndGet();
+            }
+        });
+
+        // then
+        assertThat(counter.get()).isEqualTo(20_000);
+    }
+
+    @Test
+    void testProfile() throws InterruptedException {
+        // given
+        ContentionProfile profile = ContentionProfile.start(
+            ManagementFactory.getThreadMXBean(), 5
+        );
+
+        // when
+        runAll("contender", 3, () -> {
+            for (int i = 0; i < 5; i++) {
+                holdMonitor();
+            }
+        });
+        profile.stop();
+
+        // then
+        List<ThreadContention> threads = profile.getThreads();
+        assertThat(threads)
+            .filteredOn(thread -> thread.getName().startsWith("contender-"))
+            .isNotEmpty()
+            .anySatisfy(thread -> assertThat(thread.getBlockedCount()).isPositive());
+        assertThat(threads.get(0).getBlockedCount()).isPositive();
+        assertThat(profile.getTopLocks(1)).hasSize(1);
+        assertThat(profile.getTopLocks(1).get(0))
+            .startsWith("java.lang.Object@")
+            .contains("LockContentionTest.holdMonitor");
+        assertThat(ManagementFactory.getThreadMXBean().isThreadContentionMonitoringEnabled())
+            .isFalse();
+    }
+
+    @Test
+    void testExceeded() throws NoSuchMethodException {
+        // given
+        LockContention contention = LockContentionTest.class
+            .getDeclaredMethod("workersBudget")
+            .getAnnotation(LockContention.class);
+        List<ThreadContention> threads = Arrays.asList(
+            new ThreadContention("worker-1", 0, 0, 10, 4),
+            new ThreadContention("worker-2", 2, 3, 0, 0),
+            new ThreadContention("worker-3", 0, 0, 1, 20),
+            new ThreadContention("main", 5, 100, 0, 0)
+        );
+
+        // when
+        List<String> exceeded = LockContentionExtension.exceeded(threads, contention);
+
+        // then
+        assertThat(exceeded).containsExactly(
+            "worker-2: blocked 2 times for 3 ms, waited 0 times for 0 ms",
+            "worker-3: blocked 0 times for 0 ms, waited 1 times for 20 ms"
+        );
+    }
+
+    @Test
+    void testLockFreeBudgets() {
+        // given
+        LockContention contention = LockFree.class.getAnnotation(LockContention.class);
+        List<ThreadContention> threads = Arrays.asList(
+            new ThreadContention("any", 0, 0, 3, 50),
+            new ThreadContention("joining", 2, 0, 2, 10),
+            new ThreadContention("other", 1, 4, 0, 0)
+        );
+
+        // when
+        List<String> exceeded = LockContentionExtension.exceeded(threads, contention);
+
+        // then
+        assertThat(exceeded).containsExactly(
+            "other: blocked 1 times for 4 ms, waited 0 times for 0 ms"
+        );
+    }
+
+    @LockContention(threads = "worker-.*", maxBlockedCount = 1, maxWaitedTime = 10_000,
+        unit = TimeUnit.MICROSECONDS)
+    private void workersBudget() {
+        // used as an annotated method only
+    }
+
+    private void holdMonitor() {
+        synchronized (monitor) {
+            sleep();
+        }
+    }
+
+    private static void sleep() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(10);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void runAll(String name, int count, Runnable body)
+        throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Thread thread = new Thread(body, name + "-" + (i + 1));
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.TestInfo;
+import org.openjdk.jmh.annotations.Mode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class LogCompilationTest {
+
+    @LogCompilation
+    @JmhBenchmark(
+        value = SampleBenchmark.class,
+        forks = 1,
+        warmupIterations = 1,
+        warmupTime = 100,
+        measurementIterations = 1,
+        measurementTime = 100,
+        modes = Mode.AverageTime
+    )
+    void testCompilationLog(CompilationLog log, TestInfo info) {
+        // given
+        String method = SampleBenchmark.class.getName() + "::" + info.getDisplayName();
+
+        // then
+        log.assertTier(method, CompilationLog.C2_TIER);
+        log.assertNoDeoptimizationStorm(method);
+        assertThat(log.getHighestTier(SampleBenchmark.class.getName() + "::unknown")).isZero();
+    }
+}
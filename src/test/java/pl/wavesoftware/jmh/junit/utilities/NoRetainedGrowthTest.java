@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class NoRetainedGrowthTest {
+
+    private static final List<Object> CACHE = new ArrayList<>();
+    private static volatile Object sink;
+
+    @AfterEach
+    void clearCache() {
+        CACHE.clear();
+    }
+
+    @Test
+    @NoRetainedGrowth
+    void testNothingRetained() {
+        // when
+        List<Leaked> temporary = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            temporary.add(new Leaked(i));
+        }
+        sink = temporary.size();
+
+        // then
+        assertThat(temporary).hasSize(10_000);
+    }
+
+    @Test
+    void testGrowthSince() throws IOException {
+        // given
+        ClassHistogram before = ClassHistogram.take();
+
+        // when
+        for (int i = 0; i < 5_000; i++) {
+            CACHE.add(new Leaked(i));
+        }
+        List<ClassGrowth> growth = ClassHistogram.take().growthSince(before);
+
+        // then
+        assertThat(growth)
+            .filteredOn(grown -> grown.getClassName().equals(Leaked.class.getName()))
+            .hasSize(1)
+            .allSatisfy(grown -> assertThat(grown.getInstances()).isEqualTo(5_000));
+        assertThat(NoRetainedGrowthExtension.retained(growth, annotation("excludingLeaked")))
+            .extracting(ClassGrowth::getClassName)
+            .doesNotContain(Leaked.class.getName(), "[Ljava.lang.Object;");
+        assertThat(NoRetainedGrowthExtension.retained(growth, annotation("testNothingRetained")))
+            .extracting(ClassGrowth::getClassName)
+            .contains(Leaked.class.getName());
+    }
+
+    @Test
+    void testParse() throws IOException {
+        // given
+        String output = String.join("\n",
+            " num     #instances         #bytes  class name (module)",
+            "-------------------------------------------------------",
+            "   1:          5207         243640  [B (java.base@17.0.9)",
+            "   2:          1539         186360  java.lang.Class (java.base@17.0.9)",
+            "   3:            12            288  pl.acme.Cache$Entry",
+            "   4:             2             48  pl.acme.Cache$Entry",
+            "Total         6760         430336"
+        );
+
+        // when
+        ClassHistogram histogram = ClassHistogram.parse(new StringReader(output));
+
+        // then
+        assertThat(histogram.getInstances("[B")).isEqualTo(5207);
+        assertThat(histogram.getBytes("java.lang.Class")).isEqualTo(186360);
+        assertThat(histogram.getInstances("pl.acme.Cache$Entry")).isEqualTo(14);
+        assertThat(histogram.getInstances("Total")).isZero();
+    }
+
+    @Test
+    void testGrowthToString() {
+        // given
+        ClassGrowth growth = new ClassGrowth("pl.acme.Cache$Entry", 1_000, 48 * 1024);
+
+        // then
+        assertThat(growth.toString()).isEqualTo("+1000 instances, +48.0 KiB");
+    }
+
+    @NoRetainedGrowth(excluding = Leaked.class, excludingNames = "\\[L.*;")
+    private void excludingLeaked() {
+        // used as an annotated method only
+    }
+
+    private static NoRetainedGrowth annotation(String method) {
+        try {
+            return NoRetainedGrowthTest.class.getDeclaredMethod(method)
+                .getAnnotation(NoRetainedGrowth.class);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class Leaked {
+        private final long id;
+
+        private Leaked(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return "Leaked " + id;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class OffHeapBudgetTest {
+
+    private static final int MEGABYTE = 1 << 20;
+    private static volatile Object sink;
+
+    @Test
+    @OffHeapBudget(maxRetained = 0)
+    void testReleasedBuffers() {
+        // when
+        for (int i = 0; i < 8; i++) {
+            sink = ByteBuffer.allocateDirect(MEGABYTE);
+        }
+        sink = null;
+
+        // then
+        assertThat(BufferPools.used()).containsKey("direct");
+    }
+
+    @JmhBenchmark(
+        value = SampleBenchmark.class,
+        forks = 0,
+        warmupIterations = 0,
+        measurementIterations = 2,
+        measurementTime = 20
+    )
+    @OffHeapBudget(maxRetained = MEGABYTE)
+    void testBenchmark(Collection<RunResult> results) {
+        // then
+        assertThat(results).allSatisfy(result -> {
+            OffHeapGrowth growth = OffHeapGrowth.of(result);
+            assertThat(growth).isNotNull();
+            assertThat(growth.getPools()).containsKey("direct");
+        });
+    }
+
+    @JmhBenchmark(
+        value = SampleBenchmark.class,
+        forks = 1,
+        warmupIterations = 0,
+        measurementIterations = 1,
+        measurementTime = 20
+    )
+    @OffHeapBudget(trackNative = true)
+    void testBenchmarkTrackingNative(RunResult result) {
+        // then
+        OffHeapGrowth growth = OffHeapGrowth.of(result);
+        assertThat(growth).isNotNull();
+        assertThat(growth.getNativeGrowth()).isNotNull();
+    }
+
+    @Test
+    void testRetained() throws Exception {
+        // given
+        Map<String, Long> before = BufferPools.retained();
+        ByteBuffer retained = ByteBuffer.allocateDirect(2 * MEGABYTE);
+
+        // when
+        OffHeapGrowth growth = new OffHeapGrowth(
+            BufferPools.growth(before, BufferPools.retained()),
+            NativeMemoryTracking.committedGrowth()
+        );
+        OffHeapBudget budget = OffHeapBudgetTest.class
+            .getDeclaredMethod("testReleasedBuffers")
+            .getAnnotation(OffHeapBudget.class);
+
+        // then
+        assertThat(retained.capacity()).isEqualTo(2 * MEGABYTE);
+        assertThat(growth.getPools().get("direct")).isGreaterThanOrEqualTo(2L * MEGABYTE);
+        assertThat(growth.getNativeGrowth()).isNull();
+        assertThat(growth.exceeded(budget)).hasSize(1);
+        assertThat(growth.exceeded(budget).get(0))
+            .startsWith("retained 2.0 MiB in buffer pools, limit 0 B");
+        assertThat(growth.toString()).contains("direct +2.0 MiB", "native memory not tracked");
+    }
+
+    @Test
+    void testParseCommittedGrowth() {
+        // given
+        String output = String.join("\n",
+            "Native Memory Tracking:",
+            "",
+            "Total: reserved=2947463KB +8193KB, committed=132899KB +8193KB",
+            "",
+            "-                 Java Heap (reserved=1538048KB, committed=96256KB)",
+            "                            (mmap: reserved=1538048KB, committed=96256KB)",
+            " ",
+            "-                     Other (reserved=8202KB +8192KB, committed=8202KB +8192KB)",
+            "                            (malloc=8202KB +8192KB #3 +1)",
+            " ",
+            "-                  Internal (reserved=176KB, committed=172KB -4KB)",
+            "-    Native Memory Tracking (reserved=294KB +1KB, committed=294KB +1KB)"
+        );
+
+        // when
+        Map<String, Long> growth = NativeMemoryTracking.parseCommittedGrowth(output);
+
+        // then
+        assertThat(growth)
+            .containsEntry("Total", 8193L * 1024)
+            .containsEntry("Other", 8192L * 1024)
+            .containsEntry("Internal", -4L * 1024)
+            .containsEntry("Native Memory Tracking", 1024L)
+            .hasSize(4);
+    }
+}
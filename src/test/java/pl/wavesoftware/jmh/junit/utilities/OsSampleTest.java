@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class OsSampleTest {
+
+    private Path root;
+
+    @BeforeEach
+    void before() throws IOException {
+        root = Files.createTempDirectory("os-sample");
+    }
+
+    @AfterEach
+    void after() throws IOException {
+        new RecursiveDeleter().delete(root);
+    }
+
+    @Test
+    void testRead_CgroupV2() throws IOException {
+        // given
+        write("proc/loadavg", "0.50 0.40 0.30 1/100 1234\n");
+        write("proc/stat", "cpu  100 0 50 800 50 0 0 0 0 0\ncpu0 100 0 50 800 50 0 0 0 0 0\n");
+        write("sys/fs/cgroup/cpu.stat", "usage_usec 1000\nnr_periods 200\nnr_throttled 20\n");
+        write("sys/fs/cgroup/cpu.max", "50000 100000\n");
+
+        // when
+        Optional<OsSample> sample = OsSample.read(root);
+
+        // then
+        assertThat(sample).isPresent();
+        assertThat(sample.get().getLoadAverage()).isEqualTo(0.5);
+        assertThat(sample.get().getHostCpus()).isEqualTo(1);
+        assertThat(sample.get().getLoadPerCpu()).isEqualTo(0.5);
+        assertThat(sample.get().throttlingSince(
+            new OsSample(0.5, 0, 0, 0, 100, 10, 1)
+        )).isEqualTo(0.1);
+    }
+
+    @Test
+    void testRead_CgroupV1() throws IOException {
+        // given
+        write("proc/loadavg", "4.00 0.40 0.30 1/100 1234\n");
+        write("proc/stat", "cpu  100 0 50 800 50 0 0 0 0 0\n");
+        write("sys/fs/cgroup/cpu/cpu.stat", "nr_periods 10\nnr_throttled 1\nthrottled_time 5\n");
+        write("sys/fs/cgroup/cpu/cpu.cfs_quota_us", "-1\n");
+        write("sys/fs/cgroup/cpu/cpu.cfs_period_us", "100000\n");
+
+        // when
+        Optional<OsSample> sample = OsSample.read(root);
+
+        // then
+        assertThat(sample).isPresent();
+        assertThat(sample.get().getHostCpus())
+            .isEqualTo(Runtime.getRuntime().availableProcessors());
+        assertThat(sample.get().throttlingSince(
+            new OsSample(4, 0, 0, 0, 0, 0, 1)
+        )).isEqualTo(0.1);
+    }
+
+    @Test
+    void testRead_ContainerOnLargeHost() throws IOException {
+        // given
+        StringBuilder stat = new StringBuilder("cpu  100 0 50 800 50 0 0 0 0 0\n");
+        for (int cpu = 0; cpu < 64; cpu++) {
+            stat.append("cpu").append(cpu).append(" 1 0 1 10 1 0 0 0 0 0\n");
+        }
+        stat.append("intr 1234\nctxt 5678\ncpu_extra 1\n");
+        write("proc/loadavg", "16.00 14.00 12.00 20/900 1234\n");
+        write("proc/stat", stat.toString());
+        write("sys/fs/cgroup/cpu.stat", "usage_usec 1000\nnr_periods 0\nnr_throttled 0\n");
+        write("sys/fs/cgroup/cpu.max", "200000 100000\n");
+
+        // when
+        Optional<OsSample> sample = OsSample.read(root);
+
+        // then
+        assertThat(sample).isPresent();
+        assertThat(sample.get().getHostCpus()).isEqualTo(64);
+        assertThat(sample.get().getLoadPerCpu()).isEqualTo(0.25);
+    }
+
+    @Test
+    void testRead_NotLinux() {
+        // when
+        Optional<OsSample> sample = OsSample.read(root);
+
+        // then
+        assertThat(sample).isEmpty();
+    }
+
+    @Test
+    void testSince() {
+        // given
+        OsSample earlier = new OsSample(0.1, 1000, 800, 10, 100, 0, 4);
+        OsSample later = new OsSample(0.1, 2000, 1300, 110, 200, 25, 4);
+
+        // when
+        double usage = later.cpuUsageSince(earlier);
+        double steal = later.stealSince(earlier);
+        double throttling = later.throttlingSince(earlier);
+
+        // then
+        assertThat(usage).isCloseTo(0.5, within(1e-9));
+        assertThat(steal).isCloseTo(0.1, within(1e-9));
+        assertThat(throttling).isCloseTo(0.25, within(1e-9));
+        assertThat(earlier.cpuUsageSince(earlier)).isZero();
+    }
+
+    @Test
+    void testCpuCounters() {
+        // when
+        long[] counters = OsSample.cpuCounters("cpu  1 2 3 4 5 6 7 8 9 10\n");
+
+        // then
+        assertThat(counters).containsExactly(36, 9, 8);
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class ParamExplorerTest {
+
+    private static final String BENCHMARK = ExplorationBenchmark.class.getName() + ".sum";
+
+    private final AtomicInteger launches = new AtomicInteger();
+
+    @JmhBenchmark(
+        value = ExplorationBenchmark.class,
+        warmupIterations = 0,
+        measurementIterations = 1,
+        measurementTime = 10
+    )
+    @ParamExploration(samples = 2, maxPoints = 3, parallelism = 2)
+    void testExplore(ResponseSurface surface) {
+        // then
+        assertThat(surface.getLabel()).isEqualTo(BENCHMARK + " [thrpt]");
+        assertThat(surface.getNames()).containsExactly("size", "direction");
+        assertThat(surface.getSpaceSize()).isEqualTo(12);
+        assertThat(surface.getPoints()).hasSize(3);
+        assertThat(surface.getPoints().get(0).getScore()).isPositive();
+        assertThat(surface.toTable()).startsWith("size  ");
+    }
+
+    @Test
+    void testRun_FindsCliff() throws IOException, NoSuchMethodException {
+        // given
+        ParamExplorer explorer = explorer(exploration("latinHypercube"));
+
+        // when
+        ResponseSurface surface = explorer.run(BENCHMARK, ExplorationBenchmark.class, settings());
+
+        // then
+        assertThat(surface.getPoints().size()).isLessThan(12).isEqualTo(launches.get());
+        assertThat(surface.getCliffs()).isNotEmpty().allSatisfy(cliff -> assertThat(cliff)
+            .contains("size=256").contains("size=1024").endsWith(": +900.0%")
+        );
+        assertThat(surface.getPoints()).anyMatch(SurfacePoint::isRefined);
+        assertThat(surface.toString())
+            .startsWith(BENCHMARK + " [avgt], " + launches.get() + " of 12 points")
+            .contains("cliff: size=256 -> size=1024 at direction=");
+    }
+
+    @Test
+    void testRun_MaxPoints() throws IOException, NoSuchMethodException {
+        // given
+        ParamExplorer explorer = explorer(exploration("grid"));
+
+        // when
+        ResponseSurface surface = explorer.run(BENCHMARK, ExplorationBenchmark.class, settings());
+
+        // then
+        assertThat(surface.getPoints()).hasSize(4);
+        assertThat(launches.get()).isEqualTo(4);
+        assertThat(surface.getPoints()).noneMatch(SurfacePoint::isRefined);
+    }
+
+    @Test
+    void testGrid() {
+        // given
+        ParamSpace space = ParamSpace.of(ExplorationBenchmark.class, "sum");
+
+        // when
+        List<int[]> grid = space.grid(3);
+
+        // then
+        assertThat(grid).hasSize(6);
+        Set<String> sizes = new LinkedHashSet<>();
+        for (int[] point : grid) {
+            sizes.add(space.params(point).get("size"));
+        }
+        assertThat(sizes).containsExactly("16", "1024", "16384");
+    }
+
+    @Test
+    void testLatinHypercube() {
+        // given
+        ParamSpace space = ParamSpace.of(ExplorationBenchmark.class, "sum");
+
+        // when
+        List<int[]> points = space.latinHypercube(6, new Random(7));
+
+        // then
+        List<String> sizes = new ArrayList<>();
+        for (int[] point : points) {
+            sizes.add(space.params(point).get("size"));
+        }
+        assertThat(sizes).containsExactlyInAnyOrder("16", "64", "256", "1024", "4096", "16384");
+    }
+
+    @Test
+    void testSlots() {
+        // given
+        List<Integer> cpus = Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7);
+
+        // when
+        List<List<Integer>> pinned = ParamExplorer.slots(3, cpus, true);
+        List<List<Integer>> unpinnable = ParamExplorer.slots(3, cpus, false);
+        List<List<Integer>> single = ParamExplorer.slots(4, Collections.singletonList(0), true);
+
+        // then
+        assertThat(pinned).containsExactly(
+            Arrays.asList(0, 1), Arrays.asList(2, 3), Arrays.asList(4, 5)
+        );
+        assertThat(unpinnable).containsExactly(Collections.emptyList());
+        assertThat(single).containsExactly(Collections.emptyList());
+    }
+
+    @Test
+    void testSpace_NoParams() {
+        // when
+        ThrowingCallable throwingCallable = () -> ParamSpace.of(SampleBenchmark.class, "sum");
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("There are no @Param fields of " + SampleBenchmark.class.getName() + ".sum");
+    }
+
+    @Test
+    void testSpace_StateParams() {
+        // when
+        ParamSpace space = ParamSpace.of(StateBenchmark.class, "run");
+
+        // then
+        assertThat(space.getNames()).containsExactly("seed", "rows", "layout");
+        assertThat(space.size()).isEqualTo(12);
+    }
+
+    @Test
+    void testRun_PinsStateParams() throws IOException, NoSuchMethodException {
+        // given
+        String benchmark = StateBenchmark.class.getName() + ".run";
+        List<List<String>> launched = new ArrayList<>();
+        ParamExplorer explorer = ParamExplorer.of(
+            exploration("grid"), new Properties(), Collections.emptyList(), false,
+            (prefix, classpath, jvmArgs, arguments, json) -> {
+                launched.add(arguments);
+                write(json, benchmark, 10);
+            }
+        );
+
+        // when
+        ResponseSurface surface = explorer.run(benchmark, StateBenchmark.class, settings());
+
+        // then
+        assertThat(surface.getNames()).containsExactly("seed", "rows", "layout");
+        assertThat(launched).hasSize(4).allSatisfy(arguments -> assertThat(arguments)
+            .anyMatch(argument -> argument.startsWith("seed="))
+            .anyMatch(argument -> argument.startsWith("rows="))
+            .anyMatch(argument -> argument.startsWith("layout="))
+        );
+    }
+
+    @Test
+    void testRun_UnexploredParams() throws NoSuchMethodException {
+        // given
+        ParamExplorer explorer = ParamExplorer.of(
+            exploration("grid"), new Properties(), Collections.emptyList(), false,
+            (prefix, classpath, jvmArgs, arguments, json) -> {
+                String row = "{\"benchmark\": \"" + BENCHMARK + "\", \"mode\": \"avgt\", "
+                    + "\"params\": {\"hidden\": \"1\"}, \"primaryMetric\": {\"score\": 1, "
+                    + "\"scoreError\": \"NaN\", \"scoreUnit\": \"ns/op\"}}";
+                String text = "[" + row + ", " + row.replace("\"1\"", "\"2\"") + "]";
+                Files.write(json, text.getBytes(StandardCharsets.UTF_8));
+            }
+        );
+
+        // when
+        ThrowingCallable throwingCallable = () ->
+            explorer.run(BENCHMARK, ExplorationBenchmark.class, settings());
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IOException.class)
+            .hasMessageStartingWith("Many results of " + BENCHMARK + " in avgt mode")
+            .hasMessageContaining("hidden=2");
+    }
+
+    private ParamExplorer explorer(ParamExploration exploration) {
+        return ParamExplorer.of(
+            exploration, new Properties(), Arrays.asList(0, 1, 2, 3), true, this::launch
+        );
+    }
+
+    private void launch(List<String> prefix,
+                        String classpath,
+                        List<String> jvmArgs,
+                        List<String> arguments,
+                        Path json) throws IOException {
+        launches.incrementAndGet();
+        assertThat(prefix).startsWith("taskset", "-c").containsAnyOf("0-1", "2-3");
+        int size = 0;
+        for (int i = 0; i < arguments.size() - 1; i++) {
+            if ("-p".equals(arguments.get(i)) && arguments.get(i + 1).startsWith("size=")) {
+                size = Integer.parseInt(arguments.get(i + 1).substring("size=".length()));
+            }
+        }
+        write(json, BENCHMARK, size >= 1024 ? 100 : 10);
+    }
+
+    private static void write(Path json, String benchmark, double score) throws IOException {
+        String text = "[{\"benchmark\": \"" + benchmark + "\", \"mode\": \"avgt\", "
+            + "\"primaryMetric\": {\"score\": " + score + ", \"scoreError\": \"NaN\", "
+            + "\"scoreUnit\": \"ns/op\"}}]";
+        Files.write(json, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static BenchmarkSettings settings() throws NoSuchMethodException {
+        return BenchmarkSettings.of(
+            Annotated.class.getDeclaredMethod("latinHypercube").getAnnotation(JmhBenchmark.class),
+            new Properties()
+        );
+    }
+
+    private static ParamExploration exploration(String method) throws NoSuchMethodException {
+        return Annotated.class.getDeclaredMethod(method).getAnnotation(ParamExploration.class);
+    }
+
+    private static final class Annotated {
+        @JmhBenchmark
+        @ParamExploration(samples = 4, maxPoints = 20, parallelism = 2)
+        void latinHypercube() {
+            // only annotation is used
+        }
+
+        @JmhBenchmark
+        @ParamExploration(
+            sampling = ParamExploration.Sampling.GRID,
+            samples = 3,
+            maxPoints = 4,
+            parallelism = 2
+        )
+        void grid() {
+            // only annotation is used
+        }
+    }
+
+    @State(Scope.Benchmark)
+    static class Layout {
+        @Param({"rows", "columns"})
+        String layout;
+    }
+
+    @State(Scope.Thread)
+    static class Table {
+        @Param({"1", "2"})
+        int rows;
+
+        @Setup
+        void setUp(Layout layout) {
+            // only a dependency is used
+        }
+    }
+
+    @State(Scope.Thread)
+    static class Unused {
+        @Param({"a", "b"})
+        String unused;
+    }
+
+    static final class StateBenchmark {
+        @Param({"1", "2", "3"})
+        int seed;
+
+        int run(Table table) {
+            return seed + table.rows;
+        }
+
+        int other(Unused unused) {
+            return unused.unused.length();
+        }
+    }
+}
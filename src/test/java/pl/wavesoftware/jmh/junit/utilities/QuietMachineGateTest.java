@@ -0,0 +1,226 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opentest4j.AssertionFailedError;
+import org.opentest4j.TestAbortedException;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@ExtendWith(MockitoExtension.class)
+class QuietMachineGateTest {
+
+    private static final QuietMachineGate.Limits LIMITS =
+        new QuietMachineGate.Limits(1d, 0.3d, 0.05d, 0.05d);
+
+    @Mock
+    private ExtensionContext context;
+    @Mock
+    private ExtensionContext.Store store;
+
+    @Test
+    void testBeforeTestExecution_WaitsUntilQuiet() throws InterruptedException {
+        // given
+        when(context.getStore(any())).thenReturn(store);
+        QuietMachineGate gate = gate(CheckPolicy.FAIL, Duration.ofMinutes(1),
+            sample(0, 0, 0, 0),
+            sample(1000, 100, 0, 0),
+            sample(2000, 1000, 0, 0),
+            sample(2000, 1000, 0, 0)
+        );
+
+        // when
+        gate.beforeTestExecution(context);
+
+        // then
+        verify(context).publishReportEntry(eq(QuietMachineGate.REPORT_KEY), startsWith("quiet after "));
+        verify(context, never()).publishReportEntry(eq(QuietMachineGate.TAINTED_KEY), any());
+        ArgumentCaptor<DisturbanceMonitor> monitor = ArgumentCaptor.forClass(DisturbanceMonitor.class);
+        verify(store).put(eq("monitor"), monitor.capture());
+        assertThat(monitor.getValue().stop()).isNull();
+    }
+
+    @Test
+    void testBeforeTestExecution_Timeout() {
+        // given
+        QuietMachineGate gate = gate(CheckPolicy.SKIP, Duration.ZERO,
+            sample(0, 0, 0, 0),
+            sample(1000, 100, 0, 0)
+        );
+
+        // when
+        ThrowingCallable throwingCallable = () -> gate.beforeTestExecution(context);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(TestAbortedException.class)
+            .hasMessage("Assumption failed: Skipping tainted test, "
+                + "machine not quiet after 0 ms: cpu usage 90.0% > 30.0%");
+    }
+
+    @Test
+    void testAfterTestExecution_Throttled() {
+        // given
+        when(context.getStore(any())).thenReturn(store);
+        when(store.remove("monitor", DisturbanceMonitor.class)).thenReturn(monitor(0,
+            sample(0, 0, 0, 0),
+            sample(1000, 900, 100, 50)
+        ));
+        QuietMachineGate gate = gate(CheckPolicy.FAIL, Duration.ZERO);
+
+        // when
+        ThrowingCallable throwingCallable = () -> gate.afterTestExecution(context);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(AssertionFailedError.class)
+            .hasMessage("Test is tainted, disturbed during test: "
+                + "steal time 10.0% > 5.0%, throttled periods 50.0% > 5.0%");
+    }
+
+    @Test
+    void testMonitor_Burst() throws InterruptedException {
+        // given
+        DisturbanceMonitor monitor = monitor(0,
+            sample(0, 0, 0, 0),
+            sample(1000, 500, 200, 0),
+            sample(10000, 5000, 200, 0)
+        );
+
+        // when
+        String rerun = monitor.rerun();
+        String disturbance = monitor.stop();
+
+        // then
+        assertThat(rerun).isNull();
+        assertThat(disturbance).isEqualTo("steal time 20.0% > 5.0%");
+    }
+
+    @Test
+    void testMonitor_Reruns() throws InterruptedException {
+        // given
+        DisturbanceMonitor monitor = monitor(2,
+            sample(0, 0, 0, 0),
+            sample(1000, 500, 0, 50),
+            sample(2000, 1000, 0, 50),
+            sample(3000, 1500, 0, 50)
+        );
+
+        // when
+        String first = monitor.rerun();
+        String second = monitor.rerun();
+        String third = monitor.rerun();
+        String disturbance = monitor.stop();
+
+        // then
+        assertThat(first).isEqualTo("throttled periods 50.0% > 5.0%");
+        assertThat(second).isNull();
+        assertThat(third).isNull();
+        assertThat(disturbance).isNull();
+    }
+
+    @Test
+    void testWithReruns_Invalid() {
+        // when
+        ThrowingCallable throwingCallable = () -> QuietMachineGate.withDefaults().withReruns(-1);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Reruns can't be negative, but was: -1");
+    }
+
+    @Test
+    void testBeforeTestExecution_NotSupported() {
+        // given
+        QuietMachineGate gate = new QuietMachineGate(
+            Optional::empty, LIMITS, Duration.ZERO, Duration.ofMillis(1), CheckPolicy.FAIL, 0
+        );
+
+        // when
+        gate.beforeTestExecution(context);
+
+        // then
+        verify(context).publishReportEntry(QuietMachineGate.REPORT_KEY, "not supported on this system");
+    }
+
+    @Test
+    void testWithMaxCpuUsage_Invalid() {
+        // when
+        ThrowingCallable throwingCallable = () -> QuietMachineGate.withDefaults().withMaxCpuUsage(2);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Fraction should be between 0 and 1: 2.0");
+    }
+
+    private static QuietMachineGate gate(CheckPolicy policy, Duration timeout, OsSample... samples) {
+        return new QuietMachineGate(probe(samples), LIMITS, timeout, Duration.ofMillis(1), policy, 0);
+    }
+
+    private static DisturbanceMonitor monitor(int reruns, OsSample start, OsSample... samples) {
+        // sampler never wakes up, samples are only taken on rerun and stop
+        return DisturbanceMonitor.start(
+            probe(samples), start, TimeUnit.HOURS.toNanos(1), 0.05d, 0.05d, reruns
+        );
+    }
+
+    /**
+     * A probe of given samples, that repeats a last one, as a sampler may take more.
+     */
+    private static Supplier<Optional<OsSample>> probe(OsSample... samples) {
+        Iterator<OsSample> iterator = Arrays.asList(samples).iterator();
+        AtomicReference<OsSample> last = new AtomicReference<>();
+        return () -> {
+            if (iterator.hasNext()) {
+                last.set(iterator.next());
+            }
+            return Optional.of(last.get());
+        };
+    }
+
+    private static OsSample sample(long total, long idle, long steal, long throttled) {
+        return new OsSample(0.5, total, idle, steal, 100 + total / 10, throttled, 4);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the legacy, recursive {@link File#listFiles()} deletion used by
+ * {@link JmhCleaner} before with the {@link RecursiveDeleter}.
+ * <p>
+ * It's not executed during the build, run it with {@link #main(String[])}.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class RecursiveDeleterBenchmark {
+
+    private static final int FILES_PER_DIRECTORY = 100;
+    private static final int DIRECTORIES_PER_PACKAGE = 10;
+    private static final byte[] CONTENT = "public class Stub {}".getBytes();
+
+    @Param({"1000", "10000", "100000"})
+    public int files;
+
+    private final RecursiveDeleter deleter = new RecursiveDeleter();
+    private Path root;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(RecursiveDeleterBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+
+    @Setup(Level.Invocation)
+    public void createTree() throws IOException {
+        root = Files.createTempDirectory("jmh-cleaner-bench");
+        for (int i = 0; i < files; i++) {
+            int directory = i / FILES_PER_DIRECTORY;
+            Path parent = root
+                .resolve("pkg" + directory / DIRECTORIES_PER_PACKAGE)
+                .resolve("generated" + directory);
+            if (i % FILES_PER_DIRECTORY == 0) {
+                Files.createDirectories(parent);
+            }
+            Files.write(parent.resolve("Stub" + i + "_jmhTest.java"), CONTENT);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void removeLeftovers() throws IOException {
+        deleter.delete(root);
+    }
+
+    @Benchmark
+    public void legacyListFiles() throws IOException {
+        deleteRecursive(root.toFile());
+    }
+
+    @Benchmark
+    public void parallelNio() throws IOException {
+        deleter.delete(root);
+    }
+
+    private static void deleteRecursive(File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        if (file.isDirectory()) {
+            for (File f : ensureFileArray(file.listFiles())) {
+                deleteRecursive(f);
+            }
+        }
+        Files.delete(file.toPath());
+    }
+
+    private static File[] ensureFileArray(@Nullable File[] files) {
+        return (files == null) ? new File[0] : files;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class RecursiveDeleterTest {
+
+    private Path root;
+
+    @BeforeEach
+    void before() throws IOException {
+        root = Files.createTempDirectory("recursive-deleter");
+    }
+
+    @AfterEach
+    void after() throws IOException {
+        FileUtils.deleteDirectory(root.toFile());
+    }
+
+    @Test
+    void testDelete_Parallel() throws IOException {
+        // given
+        Path tree = createTree();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        RecursiveDeleter deleter = new RecursiveDeleter(pool);
+
+        // when
+        deleter.delete(tree);
+        pool.shutdown();
+
+        // then
+        assertThat(tree).doesNotExist();
+        assertThat(root).exists();
+    }
+
+    @Test
+    void testDelete_Sequential() throws IOException {
+        // given
+        Path tree = createTree();
+        ForkJoinPool pool = new ForkJoinPool(1);
+        RecursiveDeleter deleter = new RecursiveDeleter(pool);
+
+        // when
+        deleter.delete(tree);
+        pool.shutdown();
+
+        // then
+        assertThat(tree).doesNotExist();
+    }
+
+    @Test
+    void testDelete_RegularFile() throws IOException {
+        // given
+        Path file = Files.write(root.resolve("BenchmarkList"), bytes("list"));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        RecursiveDeleter deleter = new RecursiveDeleter(pool);
+
+        // when
+        deleter.delete(file);
+        pool.shutdown();
+
+        // then
+        assertThat(file).doesNotExist();
+        assertThat(root).exists();
+    }
+
+    @Test
+    void testDelete_NotExisting() throws IOException {
+        // given
+        RecursiveDeleter deleter = new RecursiveDeleter();
+        Path tree = root.resolve("not-there");
+
+        // when
+        deleter.delete(tree);
+
+        // then
+        assertThat(tree).doesNotExist();
+    }
+
+    @Test
+    void testDelete_SymlinkNotFollowed() throws IOException {
+        // given
+        Path outside = Files.createDirectory(root.resolve("outside"));
+        Path kept = Files.write(outside.resolve("kept.txt"), bytes("keep"));
+        Path tree = createTree();
+        Files.createSymbolicLink(tree.resolve("link"), outside);
+        RecursiveDeleter deleter = new RecursiveDeleter();
+
+        // when
+        deleter.delete(tree);
+
+        // then
+        assertThat(tree).doesNotExist();
+        assertThat(kept).exists();
+    }
+
+    private Path createTree() throws IOException {
+        Path tree = root.resolve("tree");
+        for (int i = 0; i < 5; i++) {
+            Path dir = Files.createDirectories(tree.resolve("a" + i).resolve("b" + i));
+            for (int j = 0; j < 10; j++) {
+                Files.write(dir.resolve("File" + j + ".java"), bytes("class File" + j + " {}"));
+            }
+        }
+        Files.write(tree.resolve("BenchmarkList"), bytes("list"));
+        return tree;
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
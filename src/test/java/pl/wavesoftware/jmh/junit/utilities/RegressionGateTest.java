@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openjdk.jmh.results.RunResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class RegressionGateTest {
+
+    private static final String LABEL = "pl.acme.Bench.run [avgt]";
+    private static final String UNIT = "ns/op";
+    private static final String BASELINES = "baselines.tsv";
+    private static final double[] BASELINE = {10.1, 9.9, 10.0, 10.2, 9.8, 10.0};
+    private static final Path RECORDED = TemporaryPaths.directory("baselines");
+    private static final RegressionGate GATE = RegressionGate.withBaselines(
+        RECORDED.resolve(BASELINES)
+    ).updatingBaselines();
+
+    @RegisterExtension
+    static AfterTestExecutionCallback recording = context -> {
+        GATE.afterTestExecution(context);
+        for (RunResult result : JmhBenchmarkExtension.getResults(context)) {
+            byte[] recorded = Files.readAllBytes(RECORDED.resolve(BASELINES));
+            assertThat(new String(recorded, StandardCharsets.UTF_8))
+                .contains(RunResults.label(result) + " @ ")
+                .contains("\tops/");
+        }
+    };
+
+    private Path directory;
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        TemporaryPaths.delete(RECORDED);
+    }
+
+    @BeforeEach
+    void before() {
+        directory = TemporaryPaths.directory("baselines");
+    }
+
+    @AfterEach
+    void after() throws IOException {
+        TemporaryPaths.delete(directory);
+    }
+
+    @JmhBenchmark(
+        value = SampleBenchmark.class,
+        forks = 0,
+        warmupIterations = 0,
+        measurementIterations = 2,
+        measurementTime = 10
+    )
+    void testRecording(RunResult result) {
+        // then
+        assertThat(result.getPrimaryResult().getScore()).isPositive();
+    }
+
+    @Test
+    void testCheck_NoBaseline() throws IOException {
+        // given
+        RegressionGate gate = gate(directory.resolve(BASELINES));
+
+        // when
+        String verdict = gate.check(LABEL, UNIT, false, BASELINE);
+
+        // then
+        assertThat(verdict).isEqualTo(RegressionGate.Verdicts.NO_BASELINE);
+    }
+
+    @Test
+    void testCheck_Regression() throws IOException {
+        // given
+        Path file = recorded();
+        RegressionGate gate = gate(file);
+        double[] slower = {11.1, 10.9, 11.0, 11.2, 10.8, 11.0};
+
+        // when
+        String verdict = gate.check(LABEL, UNIT, false, slower);
+
+        // then
+        assertThat(verdict)
+            .startsWith(RegressionGate.Verdicts.REGRESSION)
+            .contains("worsening +10.00%, significant");
+    }
+
+    @Test
+    void testCheck_FasterIsOk() throws IOException {
+        // given
+        Path file = recorded();
+        RegressionGate gate = gate(file);
+        double[] faster = {9.1, 8.9, 9.0, 9.2, 8.8, 9.0};
+
+        // when
+        String verdict = gate.check(LABEL, UNIT, false, faster);
+
+        // then
+        assertThat(verdict)
+            .startsWith(RegressionGate.Verdicts.OK)
+            .contains("worsening -10.00%, significant");
+    }
+
+    @Test
+    void testCheck_BelowThreshold() throws IOException {
+        // given
+        Path file = recorded();
+        RegressionGate gate = gate(file).withThreshold(0.2);
+        double[] slower = {11.1, 10.9, 11.0, 11.2, 10.8, 11.0};
+
+        // when
+        String verdict = gate.check(LABEL, UNIT, false, slower);
+
+        // then
+        assertThat(verdict).startsWith(RegressionGate.Verdicts.OK);
+    }
+
+    @Test
+    void testCheck_Throughput() throws IOException {
+        // given
+        Path file = recorded();
+        RegressionGate gate = gate(file);
+
+        // when
+        String verdict = gate.check(LABEL, UNIT, true, new double[]{9.1, 8.9, 9.0, 9.2, 8.8});
+
+        // then
+        assertThat(verdict).startsWith(RegressionGate.Verdicts.REGRESSION);
+    }
+
+    @Test
+    void testCheck_OtherUnit() throws IOException {
+        // given
+        Path file = recorded();
+        RegressionGate gate = gate(file);
+
+        // when
+        String verdict = gate.check(LABEL, "us/op", false, BASELINE);
+
+        // then
+        assertThat(verdict).startsWith(RegressionGate.Verdicts.INCOMPARABLE);
+    }
+
+    @Test
+    void testWithConfidence_Invalid() {
+        // when
+        ThrowingCallable throwingCallable = () -> gate(directory.resolve(BASELINES)).withConfidence(1);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Confidence should be between 0 and 1, exclusive: 1.0");
+    }
+
+    private Path recorded() throws IOException {
+        Path file = directory.resolve(BASELINES);
+        Baselines baselines = new Baselines(file);
+        RegressionGate gate = new RegressionGate(baselines, 0.05, 0.99, true, "test-jvm");
+        assertThat(gate.check(LABEL, UNIT, false, BASELINE))
+            .isEqualTo(RegressionGate.Verdicts.UPDATED);
+        baselines.save();
+        return file;
+    }
+
+    private static RegressionGate gate(Path file) {
+        return new RegressionGate(new Baselines(file), 0.05, 0.99, false, "test-jvm");
+    }
+}
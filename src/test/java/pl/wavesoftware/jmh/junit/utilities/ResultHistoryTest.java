@@ -0,0 +1,295 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openjdk.jmh.results.RunResult;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class ResultHistoryTest {
+
+    private static final String LABEL = "pl.acme.Bench.run(size=10) [avgt]";
+    private static final String OTHER = "pl.acme.Bench.run(size=20) [avgt]";
+    private static final String FINGERPRINT = "test-jvm";
+    private static final Instant NOW = Instant.parse("2026-10-17T12:00:00Z");
+    private static final Path RECORDED = TemporaryPaths.directory("history");
+    private static final RegressionGate GATE = RegressionGate.withHistory(
+        ResultHistory.in(RECORDED).withCommit("abc123")
+    );
+
+    @RegisterExtension
+    static AfterTestExecutionCallback recording = context -> {
+        GATE.afterTestExecution(context);
+        for (RunResult result : JmhBenchmarkExtension.getResults(context)) {
+            List<HistoryRecord> runs = ResultHistory.in(RECORDED).lastRuns(RunResults.label(result), 10);
+            assertThat(runs).hasSize(1);
+            assertThat(runs.get(0).getCommit()).isEqualTo("abc123");
+            assertThat(runs.get(0).getSamples()).hasSize(2);
+        }
+    };
+
+    private Path directory;
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        TemporaryPaths.delete(RECORDED);
+    }
+
+    @BeforeEach
+    void before() {
+        directory = TemporaryPaths.directory("history");
+    }
+
+    @AfterEach
+    void after() throws IOException {
+        TemporaryPaths.delete(directory);
+    }
+
+    @JmhBenchmark(
+        value = SampleBenchmark.class,
+        forks = 0,
+        warmupIterations = 0,
+        measurementIterations = 2,
+        measurementTime = 10
+    )
+    void testRecording(RunResult result) {
+        // then
+        assertThat(result.getPrimaryResult().getScore()).isPositive();
+    }
+
+    @Test
+    void testLastRuns() throws IOException {
+        // given
+        ResultHistory history = history(NOW);
+        List<HistoryRecord> records = new ArrayList<>();
+        for (int day = 5; day > 0; day--) {
+            records.add(record(LABEL, NOW.minus(Duration.ofDays(day)), 10 + day));
+            records.add(record(OTHER, NOW.minus(Duration.ofDays(day)), 20 + day));
+        }
+        history.append(records);
+        history.append(Arrays.asList(record(LABEL, NOW, 10)));
+
+        // when
+        List<HistoryRecord> last = history.lastRuns(LABEL, 3);
+
+        // then
+        assertThat(last).extracting(HistoryRecord::getScore).containsExactly(12d, 11d, 10d);
+        assertThat(last).extracting(HistoryRecord::getLabel).containsOnly(LABEL);
+        assertThat(last.get(2).getSamples()).containsExactly(9d, 10d, 11d);
+        assertThat(history.withFingerprint("other-jvm").lastRuns(LABEL, 3)).isEmpty();
+    }
+
+    @Test
+    void testLastRuns_ManyBlocks() throws IOException {
+        // given
+        ResultHistory history = history(NOW);
+        List<HistoryRecord> records = new ArrayList<>();
+        for (int run = 0; run < 5_000; run++) {
+            Instant time = NOW.minus(Duration.ofMinutes(5_000 - run));
+            records.add(record(run % 2 == 0 ? LABEL : OTHER, time, run));
+        }
+        history.append(records);
+
+        // when
+        List<HistoryRecord> last = history.lastRuns(LABEL, 2_100);
+
+        // then
+        assertThat(last).hasSize(2_100);
+        assertThat(last.get(0).getScore()).isEqualTo(800d);
+        assertThat(last.get(2_099).getScore()).isEqualTo(4_998d);
+    }
+
+    @Test
+    void testRunsSince() throws IOException {
+        // given
+        ResultHistory history = history(NOW);
+        history.append(Arrays.asList(
+            record(LABEL, NOW.minus(Duration.ofDays(3)), 13),
+            record(LABEL, NOW.minus(Duration.ofDays(1)), 11),
+            record(LABEL, NOW, 10)
+        ));
+
+        // when
+        List<HistoryRecord> runs = history.runsSince(LABEL, NOW.minus(Duration.ofDays(2)));
+
+        // then
+        assertThat(runs).extracting(HistoryRecord::getScore).containsExactly(11d, 10d);
+    }
+
+    @Test
+    void testRollingMedian() throws IOException {
+        // given
+        ResultHistory history = history(NOW);
+        double[] scores = {100, 10, 12, 11, 30, 13};
+        List<HistoryRecord> records = new ArrayList<>();
+        for (int i = 0; i < scores.length; i++) {
+            records.add(record(LABEL, NOW.minus(Duration.ofDays(50L - 10 * i)), scores[i]));
+        }
+        history.append(records);
+
+        // when
+        SortedMap<Instant, Double> medians = history.rollingMedian(LABEL, Duration.ofDays(25));
+
+        // then
+        assertThat(medians.keySet()).containsExactly(
+            NOW.minus(Duration.ofDays(20)),
+            NOW.minus(Duration.ofDays(10)),
+            NOW
+        );
+        assertThat(medians.values()).containsExactly(11d, 12d, 13d);
+    }
+
+    @Test
+    void testAsBaselines_MedianRun() throws IOException {
+        // given
+        ResultHistory history = history(NOW);
+        double[] scores = {50, 10, 11, 9, 10.5, 30};
+        List<HistoryRecord> records = new ArrayList<>();
+        for (int i = 0; i < scores.length; i++) {
+            records.add(record(LABEL, NOW.minus(Duration.ofDays(scores.length - i)), scores[i]));
+        }
+        history.append(records);
+
+        // when
+        Baselines.Baseline baseline = history.asBaselines().get(LABEL, FINGERPRINT);
+
+        // then
+        assertThat(baseline).isNotNull();
+        assertThat(baseline.getSamples()).containsExactly(9.5d, 10.5d, 11.5d);
+        assertThat(history.asBaselines().get(OTHER, FINGERPRINT)).isNull();
+    }
+
+    @Test
+    void testRollingMedian_InvalidWindow() {
+        // when
+        ThrowingCallable throwingCallable = () -> history(NOW).rollingMedian(LABEL, Duration.ZERO);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Window should be positive: PT0S");
+    }
+
+    @Test
+    void testRecovery() throws IOException {
+        // given
+        ResultHistory history = history(NOW);
+        history.append(Arrays.asList(
+            record(LABEL, NOW.minus(Duration.ofDays(2)), 12),
+            record(LABEL, NOW.minus(Duration.ofDays(1)), 11)
+        ));
+        Path index = directory.resolve(ResultLog.INDEX_FILE);
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.WRITE)) {
+            // a crash after a record, but before its whole index entry was written
+            channel.truncate(channel.size() - 5);
+        }
+        Files.write(
+            directory.resolve(ResultLog.LOG_FILE),
+            "torn".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND
+        );
+
+        // when
+        history.append(Arrays.asList(record(LABEL, NOW, 10)));
+
+        // then
+        assertThat(history.lastRuns(LABEL, 10))
+            .extracting(HistoryRecord::getScore)
+            .containsExactly(12d, 11d, 10d);
+    }
+
+    @Test
+    void testEncode() {
+        // given
+        HistoryRecord record = new HistoryRecord(
+            NOW, "zażółć", FINGERPRINT, "abc123", "ops/ms", 1.5, Double.NaN, new double[0]
+        );
+
+        // when
+        HistoryRecord decoded = ResultLog.decode(ResultLog.encode(record), 0);
+
+        // then
+        assertThat(decoded.getTimestamp()).isEqualTo(NOW);
+        assertThat(decoded.getLabel()).isEqualTo("zażółć");
+        assertThat(decoded.getScoreError()).isNaN();
+        assertThat(decoded.getSamples()).isEmpty();
+        assertThat(decoded).hasToString("zażółć @ abc123: 1.500 ± NaN ops/ms");
+    }
+
+    @Test
+    void testGitCommit() throws IOException {
+        // given
+        Path git = Files.createDirectories(directory.resolve(".git"));
+        Path nested = Files.createDirectories(directory.resolve("module/src"));
+        write(git.resolve("HEAD"), "ref: refs/heads/main");
+        write(git.resolve("packed-refs"), "# pack-refs with: peeled\n"
+            + "0123456789abcdef0123456789abcdef01234567 refs/heads/main");
+
+        // when
+        String packed = GitCommit.read(nested);
+        write(Files.createDirectories(git.resolve("refs/heads")).resolve("main"), "fedcba");
+        String loose = GitCommit.read(nested);
+
+        // then
+        assertThat(packed).isEqualTo("0123456789abcdef0123456789abcdef01234567");
+        assertThat(loose).isEqualTo("fedcba");
+    }
+
+    private ResultHistory history(Instant now) {
+        return new ResultHistory(
+            new ResultLog(directory), FINGERPRINT, "abc123", Clock.fixed(now, ZoneOffset.UTC)
+        );
+    }
+
+    private static HistoryRecord record(String label, Instant timestamp, double score) {
+        return new HistoryRecord(
+            timestamp, label, FINGERPRINT, "abc123", "ns/op", score, 0.1,
+            new double[]{score - 1, score, score + 1}
+        );
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.opentest4j.AssertionFailedError;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class ScalingMeterTest {
+
+    private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @ScalingTest(threads = {1, 2}, warmup = 20, duration = 100)
+    void testScaling(ScalingMeter meter) throws Throwable {
+        // given
+        LongAdder counter = new LongAdder();
+
+        // when
+        List<ScalingLevel> levels = meter.measure(counter::increment);
+
+        // then
+        assertThat(levels).hasSize(VirtualThreads.isAvailable() ? 4 : 2);
+        assertThat(levels.get(0).getThreads()).isEqualTo(1);
+        assertThat(levels.get(0).isVirtual()).isFalse();
+        assertThat(levels.get(0).getEfficiency()).isEqualTo(1d);
+        assertThat(levels.get(1).getThreads()).isEqualTo(2);
+        assertThat(levels).allSatisfy(level -> {
+            assertThat(level.getOperations()).isPositive();
+            assertThat(level.getThroughput()).isPositive();
+        });
+        assertThat(counter.sum()).isGreaterThanOrEqualTo(
+            levels.stream().mapToLong(ScalingLevel::getOperations).sum()
+        );
+        assertThat(meter.getLevels()).isEqualTo(levels);
+    }
+
+    @Test
+    void testMeasure_Failure() {
+        // given
+        ScalingMeter meter = new ScalingMeter(new int[]{2}, MILLISECOND, 50 * MILLISECOND, false);
+        AtomicInteger executions = new AtomicInteger();
+
+        // when
+        ThrowingCallable throwingCallable = () -> meter.measure(() -> {
+            if (executions.incrementAndGet() == 100) {
+                throw new IllegalStateException("broken");
+            }
+        });
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("broken");
+        assertThat(meter.getLevels()).isEmpty();
+    }
+
+    @Test
+    void testAfterTestExecution_NotMeasured() {
+        // given
+        ExtensionContext context = mock(ExtensionContext.class);
+        when(context.getExecutionException()).thenReturn(Optional.empty());
+        when(context.getStore(any())).thenReturn(mock(ExtensionContext.Store.class));
+
+        // when
+        ThrowingCallable throwingCallable = () ->
+            new ScalingTestExtension().afterTestExecution(context);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(AssertionFailedError.class)
+            .hasMessage("No scaling was measured, use ScalingMeter parameter");
+    }
+
+    @Test
+    void testDefaultThreadCounts() {
+        // then
+        assertThat(ScalingMeter.defaultThreadCounts(1)).containsExactly(1);
+        assertThat(ScalingMeter.defaultThreadCounts(6)).containsExactly(1, 2, 4, 6);
+        assertThat(ScalingMeter.defaultThreadCounts(8)).containsExactly(1, 2, 4, 8);
+    }
+
+    @Test
+    void testInefficient() {
+        // given
+        List<ScalingLevel> levels = Arrays.asList(
+            new ScalingLevel(1, false, 1_000, 1_000, 1),
+            new ScalingLevel(2, false, 1_800, 1_800, 0.9),
+            new ScalingLevel(4, false, 2_000, 2_000, 0.5),
+            new ScalingLevel(8, false, 2_000, 2_000, 0.25)
+        );
+
+        // when
+        List<String> inefficient = ScalingTestExtension.inefficient(levels, 0.8, 4);
+
+        // then
+        assertThat(inefficient).containsExactly(
+            "platform.4: 2000 ops/s, efficiency 50.0%, minimum 80.0%"
+        );
+    }
+
+    @Test
+    void testMeter_InvalidArguments() {
+        // when
+        ThrowingCallable threads = () -> new ScalingMeter(new int[]{1, 0}, 0, 1, false);
+        ThrowingCallable duration = () -> new ScalingMeter(new int[]{1}, 0, 0, false);
+
+        // then
+        assertThatCode(threads)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Thread counts must be positive, but was: 0");
+        assertThatCode(duration)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Duration must be positive, but was: 0 ns");
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class ShardResultsTest {
+
+    private static final Path DIRECTORY = TemporaryPaths.directory("shard-results");
+
+    @AfterAll
+    static void afterAll() throws IOException {
+        TemporaryPaths.delete(DIRECTORY);
+    }
+
+    @JmhBenchmark(
+        value = SampleBenchmark.class,
+        forks = 0,
+        warmupIterations = 0,
+        measurementIterations = 1,
+        measurementTime = 10
+    )
+    void testWriteAndMerge(Collection<RunResult> results) throws IOException {
+        // given
+        RunResult result = results.iterator().next();
+        String benchmark = result.getParams().getBenchmark();
+        Path output = DIRECTORY.resolve("merged.json");
+        ShardResults.write(DIRECTORY, new Shard(0, 2, Collections.emptyList()), benchmark, results);
+        ShardResults.write(DIRECTORY, new Shard(1, 2, Collections.emptyList()), benchmark, results);
+
+        // when
+        ShardResults.merge(DIRECTORY, output);
+        ShardResults.merge(DIRECTORY, output);
+
+        // then
+        String merged = new String(Files.readAllBytes(output), StandardCharsets.UTF_8);
+        assertThat(merged)
+            .startsWith("[\n")
+            .endsWith("\n]\n");
+        assertThat(merged.split("\"benchmark\" : \"" + benchmark + "\"", -1)).hasSize(3);
+        assertThat(DIRECTORY.resolve("shard-1-of-2").resolve(benchmark + ".json")).exists();
+    }
+}
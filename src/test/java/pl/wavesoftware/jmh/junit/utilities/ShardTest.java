@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+class ShardTest {
+
+    private static final List<Integer> EIGHT_CPUS = Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7);
+
+    @Test
+    void testStableHash() {
+        // then
+        assertThat(StableHash.of("")).isEqualTo(0xcbf29ce484222325L);
+        assertThat(StableHash.of("a")).isEqualTo(0xaf63dc4c8601ec8cL);
+    }
+
+    @Test
+    void testIncludes_Partition() {
+        // given
+        List<Shard> shards = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            shards.add(new Shard(i, 3, Collections.emptyList()));
+        }
+
+        // when
+        int[] counts = new int[3];
+        for (int b = 0; b < 300; b++) {
+            String benchmark = "pl.acme.Bench.method" + b;
+            for (int i = 0; i < shards.size(); i++) {
+                if (shards.get(i).includes(benchmark)) {
+                    counts[i]++;
+                }
+            }
+        }
+
+        // then
+        assertThat(counts[0] + counts[1] + counts[2]).isEqualTo(300);
+        for (int count : counts) {
+            assertThat(count).isBetween(70, 130);
+        }
+    }
+
+    @Test
+    void testOf_Unsharded() {
+        // when
+        Shard shard = Shard.of(new Properties(), EIGHT_CPUS);
+
+        // then
+        assertThat(shard.isSharded()).isFalse();
+        assertThat(shard.includes("pl.acme.Bench.run")).isTrue();
+        assertThat(shard.getCpus()).isEmpty();
+        assertThat(shard.getName()).isEqualTo("unsharded");
+    }
+
+    @Test
+    void testOf_Pinned() {
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(Shard.INDEX, "5");
+        properties.setProperty(Shard.COUNT, "6");
+        properties.setProperty(Shard.PIN, "true");
+        properties.setProperty(Shard.PER_HOST, "3");
+
+        // when
+        Shard shard = Shard.of(properties, EIGHT_CPUS);
+
+        // then
+        assertThat(shard.getName()).isEqualTo("shard-5-of-6");
+        assertThat(shard.getCpus()).containsExactly(4, 5);
+    }
+
+    @Test
+    void testOf_ExplicitCpus() {
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(Shard.CPUS, "0-2, 6");
+
+        // when
+        Shard shard = Shard.of(properties, EIGHT_CPUS);
+
+        // then
+        assertThat(shard.getCpus()).containsExactly(0, 1, 2, 6);
+        assertThat(Shard.formatCpuList(shard.getCpus())).isEqualTo("0-2,6");
+    }
+
+    @Test
+    void testOf_InvalidIndex() {
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(Shard.INDEX, "2");
+        properties.setProperty(Shard.COUNT, "2");
+
+        // when
+        ThrowingCallable throwingCallable = () -> Shard.of(properties, EIGHT_CPUS);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Invalid shard: index 2, count 2");
+    }
+
+    @Test
+    void testTasksetProfiler() {
+        // given
+        TasksetProfiler profiler = new TasksetProfiler("0-3");
+
+        // when
+        ThrowingCallable throwingCallable = () -> new TasksetProfiler(" ");
+
+        // then
+        assertThat(profiler.addJVMInvokeOptions(null)).containsExactly("taskset", "-c", "0-3");
+        assertThatCode(throwingCallable).isInstanceOf(IllegalArgumentException.class);
+    }
+}
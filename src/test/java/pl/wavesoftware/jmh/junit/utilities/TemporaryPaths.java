@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Temporary directories of tests. A directory is created, and owned by a test,
+ * so no other process can take its name before a test uses it.
+ *
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+final class TemporaryPaths {
+
+    private TemporaryPaths() {
+        // not reachable
+    }
+
+    /**
+     * Creates a new, empty directory.
+     *
+     * @param prefix a prefix of a directory name
+     * @return a created directory
+     */
+    static Path directory(String prefix) {
+        try {
+            return Files.createTempDirectory(prefix);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Deletes a directory with its content, if it exists.
+     *
+     * @param directory a directory to delete
+     * @throws IOException if a directory can't be deleted
+     */
+    static void delete(Path directory) throws IOException {
+        new RecursiveDeleter().delete(directory);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016-2019 Wave Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pl.wavesoftware.jmh.junit.utilities;
+
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wavesoftware.eid.exceptions.EidIllegalStateException;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author <a href="mailto:krzysztof.suszynski@wavesoftware.pl">Krzysztof Suszynski</a>
+ * @since 17.10.26
+ */
+@ExtendWith(MockitoExtension.class)
+class TestAnnotationsTest {
+
+    @Mock
+    private ExtensionContext context;
+
+    @Test
+    void testFind_MethodBeforeClass() throws NoSuchMethodException {
+        // given
+        when(context.getTestMethod()).thenReturn(Optional.of(
+            Annotated.class.getDeclaredMethod("run")
+        ));
+
+        // when
+        Optional<GcBudget> budget = TestAnnotations.find(context, GcBudget.class);
+
+        // then
+        assertThat(budget).hasValueSatisfying(found ->
+            assertThat(found.maxPause()).isEqualTo(10)
+        );
+    }
+
+    @Test
+    void testFind_Class() {
+        // given
+        when(context.getTestMethod()).thenReturn(Optional.empty());
+        when(context.getTestClass()).thenReturn(Optional.of(Annotated.class));
+
+        // when
+        Optional<GcBudget> budget = TestAnnotations.find(context, GcBudget.class);
+
+        // then
+        assertThat(budget).hasValueSatisfying(found ->
+            assertThat(found.maxPause()).isEqualTo(100)
+        );
+    }
+
+    @Test
+    void testRequire_NotAnnotated() {
+        // given
+        when(context.getTestMethod()).thenReturn(Optional.empty());
+        when(context.getTestClass()).thenReturn(Optional.of(Object.class));
+        when(context.getUniqueId()).thenReturn("[engine:junit-jupiter]");
+
+        // when
+        ThrowingCallable throwingCallable = () -> TestAnnotations.require(context, GcBudget.class);
+
+        // then
+        assertThatCode(throwingCallable)
+            .isInstanceOf(EidIllegalStateException.class)
+            .hasMessageContaining("20261017:214503")
+            .hasMessageEndingWith("Test should be annotated with @GcBudget: [engine:junit-jupiter]");
+    }
+
+    @GcBudget(maxPause = 100)
+    private static final class Annotated {
+        @GcBudget(maxPause = 10)
+        void run() {
+            // annotated only
+        }
+    }
+}